@@ -0,0 +1,64 @@
+package contract.bench;
+
+import java.lang.ABI;
+import java.lang.rlp.RlpString;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Decoding of call parameters into contract types, per type, as dispatch does it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AbiBenchmark {
+
+    @Param({"address", "uint8", "uint64", "uint256", "int256", "bytes32", "string"})
+    public String type;
+
+    private Class<?> javaType;
+    private RlpString param;
+    private Object value;
+
+    @Setup
+    public void setup() throws Exception {
+        Random random = new Random(42);
+        javaType = ABI.getType(type);
+        byte[] bytes;
+        switch (type) {
+            case "address": bytes = new byte[20]; break;
+            case "uint8": bytes = new byte[1]; break;
+            case "uint64": bytes = new byte[8]; break;
+            case "string": bytes = new byte[48]; break;
+            default: bytes = new byte[32]; break;
+        }
+        random.nextBytes(bytes);
+        bytes[0] = (byte) ((bytes[0] & 0x3F) | 1);
+        if ("string".equals(type)) {
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) ('a' + (bytes[i] & 0x0F));
+            }
+        }
+        param = RlpString.create(bytes);
+        value = ABI.decode(param, javaType);
+    }
+
+    @Benchmark
+    public Object decode() throws Exception {
+        return ABI.decode(param, javaType);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return ABI.encode(value);
+    }
+}
@@ -0,0 +1,22 @@
+package contract.bench;
+
+import java.lang.address;
+import java.lang.bool;
+import java.lang.uint256;
+import java.lang.contract.MyToken;
+
+/**
+ * {@link MyToken} with a public mint, so that the benchmarks can fund their holders.
+ * Transfers and approvals run the code of MyToken.
+ */
+public class BenchToken extends MyToken {
+
+    public BenchToken() {
+        super();
+    }
+
+    public bool mint(address to, uint256 value) {
+        _mint(to, value);
+        return bool.valueOf(true);
+    }
+}
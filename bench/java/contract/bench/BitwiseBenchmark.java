@@ -0,0 +1,133 @@
+package contract.bench;
+
+import java.lang.types.Limbs;
+import java.lang.uint256;
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Bitwise operations and comparisons of uint256 values of a number of bits: on
+ * single values, on flags and masks whose result is one of the operands, and on
+ * a thousand values at a time, one operation per value against the bulk kernels
+ * of {@link Limbs} over packed limbs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BitwiseBenchmark {
+
+    private static final int VALUES = 1024;
+
+    @Param({"32", "128", "256"})
+    public int bits;
+
+    private uint256 a;
+    private uint256 b;
+    private uint256 flag;
+    private uint256 mask;
+
+    private uint256[] values;
+    private uint256[] masks;
+    private uint256[] results;
+    private long[] valueLimbs;
+    private long[] maskLimbs;
+    private long[] resultLimbs;
+    private long[] maxLimbs;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        a = new uint256(new BigInteger(bits, random).setBit(bits - 1));
+        b = new uint256(new BigInteger(bits, random).setBit(bits - 1));
+        flag = new uint256(BigInteger.ONE.shiftLeft(bits - 1));
+        mask = new uint256(BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE));
+
+        values = new uint256[VALUES];
+        masks = new uint256[VALUES];
+        results = new uint256[VALUES];
+        valueLimbs = new long[VALUES * Limbs.LIMBS];
+        maskLimbs = new long[VALUES * Limbs.LIMBS];
+        resultLimbs = new long[VALUES * Limbs.LIMBS];
+        maxLimbs = new long[Limbs.LIMBS];
+        Limbs.toLimbs(uint256.MAX_VALUE.toIntArray(), maxLimbs, 0);
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = new uint256(new BigInteger(bits, random));
+            masks[i] = new uint256(new BigInteger(bits, random));
+            Limbs.toLimbs(values[i].toIntArray(), valueLimbs, i * Limbs.LIMBS);
+            Limbs.toLimbs(masks[i].toIntArray(), maskLimbs, i * Limbs.LIMBS);
+        }
+    }
+
+    @Benchmark
+    public uint256 and() {
+        return a.and(b);
+    }
+
+    @Benchmark
+    public uint256 or() {
+        return a.or(b);
+    }
+
+    @Benchmark
+    public uint256 xor() {
+        return a.xor(b);
+    }
+
+    @Benchmark
+    public uint256 not() {
+        return a.not();
+    }
+
+    @Benchmark
+    public int compareTo() {
+        return a.compareTo(b);
+    }
+
+    @Benchmark
+    public uint256 setFlagAlreadySet() {
+        return a.or(flag);
+    }
+
+    @Benchmark
+    public uint256 maskWithin() {
+        return a.and(mask);
+    }
+
+    @Benchmark
+    public uint256[] andEach() {
+        for (int i = 0; i < VALUES; i++) {
+            results[i] = values[i].and(masks[i]);
+        }
+        return results;
+    }
+
+    @Benchmark
+    public long[] andBulk() {
+        Limbs.and(valueLimbs, maskLimbs, resultLimbs);
+        return resultLimbs;
+    }
+
+    @Benchmark
+    public uint256[] notEach() {
+        for (int i = 0; i < VALUES; i++) {
+            results[i] = values[i].not();
+        }
+        return results;
+    }
+
+    @Benchmark
+    public long[] notBulk() {
+        Limbs.not(valueLimbs, maxLimbs, resultLimbs);
+        return resultLimbs;
+    }
+}
@@ -0,0 +1,118 @@
+package contract.bench;
+
+import java.lang.uint256;
+import java.lang.uint256Array;
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A reward distribution over a number of balances of up to 2^100: each balance
+ * times a rate over 10^18, their sum and their greatest, with one uint256 per
+ * balance against one uint256Array. Without a full-precision mulDiv, one uint256
+ * per balance goes through BigInteger, or multiplies and divides at the risk of
+ * the product overflowing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BulkArithmeticBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private uint256[] balances;
+    private uint256Array packed;
+    private uint256 rate;
+    private BigInteger rateValue;
+    private BigInteger wadValue;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        balances = new uint256[size];
+        for (int i = 0; i < size; i++) {
+            balances[i] = new uint256(new BigInteger(100, random));
+        }
+        packed = uint256Array.of(balances);
+        rate = new uint256(BigInteger.TEN.pow(16).multiply(BigInteger.valueOf(5)));
+        rateValue = rate.toBigInteger();
+        wadValue = uint256Array.WAD.toBigInteger();
+    }
+
+    @Benchmark
+    public uint256[] mulDivEachBigInteger() {
+        uint256[] out = new uint256[size];
+        for (int i = 0; i < size; i++) {
+            out[i] = new uint256(balances[i].toBigInteger().multiply(rateValue).divide(wadValue));
+        }
+        return out;
+    }
+
+    @Benchmark
+    public uint256[] mulDivEachTruncating() {
+        uint256[] out = new uint256[size];
+        for (int i = 0; i < size; i++) {
+            out[i] = balances[i].multiply(rate).divide(uint256Array.WAD);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public uint256Array mulDivBulk() {
+        return packed.mulDiv(rate, uint256Array.WAD);
+    }
+
+    @Benchmark
+    public uint256 sumEach() {
+        uint256 sum = uint256.ZERO;
+        for (int i = 0; i < size; i++) {
+            sum = sum.add(balances[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public uint256 sumBulk() {
+        return packed.sum();
+    }
+
+    @Benchmark
+    public uint256[] addEach() {
+        uint256[] out = new uint256[size];
+        for (int i = 0; i < size; i++) {
+            out[i] = balances[i].add(rate);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public uint256Array addBulk() {
+        return packed.add(rate);
+    }
+
+    @Benchmark
+    public uint256 maxEach() {
+        uint256 max = balances[0];
+        for (int i = 1; i < size; i++) {
+            if (balances[i].compareTo(max) > 0) {
+                max = balances[i];
+            }
+        }
+        return max;
+    }
+
+    @Benchmark
+    public uint256 maxBulk() {
+        return packed.max();
+    }
+}
@@ -0,0 +1,77 @@
+package contract.bench;
+
+import java.crypto.Keccak256;
+import java.io.ByteArrayOutputStream;
+import java.lang.rlp.RlpEncoder;
+import java.lang.rlp.RlpString;
+import java.math.BigInteger;
+
+/**
+ * Builds the inputs and packed call contexts of benchmark calls.
+ */
+final class Calls {
+
+    private Calls() {
+    }
+
+    /**
+     * Returns the input of a call: the selector of the signature followed by the RLP
+     * strings of the parameters.
+     *
+     * @param signature The signature, e.g. {@code transfer(address,uint256)}.
+     * @param params The big-endian bytes of each parameter.
+     * @return The input.
+     */
+    static byte[] input(String signature, byte[]... params) {
+        byte[] hash = Keccak256.getKeccak256().keccak256(signature.getBytes());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(hash, 0, 4);
+        for (byte[] param : params) {
+            byte[] encoded = RlpEncoder.encode(RlpString.create(param));
+            out.write(encoded, 0, encoded.length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns a packed call context with no value, asset, signature or gas; the
+     * benchmarks lift the gas limit, see {@link java.lang.contract.Gas#setUnlimited}.
+     *
+     * @param sender The sender address.
+     * @param data The input of the call.
+     * @return The packed context.
+     */
+    static byte[] context(byte[] sender, byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[][] fields = {sender, new byte[0], data, new byte[0], new byte[0], new byte[0]};
+        for (byte[] field : fields) {
+            out.write(field.length >>> 24);
+            out.write(field.length >>> 16);
+            out.write(field.length >>> 8);
+            out.write(field.length);
+            out.write(field, 0, field.length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the 20 bytes of an address.
+     *
+     * @param n A number identifying the address.
+     * @return The address bytes.
+     */
+    static byte[] address(long n) {
+        byte[] bytes = new byte[20];
+        byte[] value = BigInteger.valueOf(n).toByteArray();
+        System.arraycopy(value, 0, bytes, 20 - value.length, value.length);
+        return bytes;
+    }
+
+    /**
+     * Returns the minimal big-endian bytes of an amount.
+     */
+    static byte[] amount(long n) {
+        byte[] value = BigInteger.valueOf(n).toByteArray();
+        return value[0] == 0 && value.length > 1 ? java.util.Arrays.copyOfRange(value, 1, value.length) : value;
+    }
+}
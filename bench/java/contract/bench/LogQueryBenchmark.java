@@ -0,0 +1,115 @@
+package contract.bench;
+
+import java.lang.contract.ContractHost;
+import java.lang.contract.Gas;
+import java.lang.contract.LogQuery;
+import java.lang.contract.MainCaller;
+import java.lang.contract.MemoryHost;
+import java.lang.contract.Message;
+import java.lang.contract.Storage;
+import java.lang.rlp.RlpDecoder;
+import java.lang.rlp.RlpEncoder;
+import java.lang.rlp.RlpList;
+import java.lang.rlp.RlpString;
+import java.lang.rlp.RlpType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A {@link LogQuery} for the {@code Transfer} events to one holder, over records of
+ * {@link BenchToken} calls as {@code ContractHost --record} writes them, each call a
+ * multicall of {@code events} transfers between random holders. {@code scan} decodes
+ * every record, {@code bloom} only those whose bloom may hold the topics; the
+ * false-positive rate of the blooms is printed at setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LogQueryBenchmark {
+
+    private static final String TOKEN = BenchToken.class.getName();
+    private static final int CALLS = 20000;
+    private static final int SENDERS = 100;
+    private static final int HOLDERS = 1000;
+
+    @Param({"1", "4"})
+    public int events;
+
+    private final MemoryHost host = new MemoryHost();
+    private final ContractHost contracts = new ContractHost();
+
+    private List<byte[]> records;
+    private LogQuery query;
+
+    @Setup
+    public void setup() {
+        Storage.setHost(host);
+        Gas.setUnlimited(true);
+        Random random = new Random(42);
+        for (int i = 0; i < SENDERS; i++) {
+            byte[] sender = Calls.address(i + 1);
+            call(Calls.context(sender, Calls.input("mint(address,uint256)", sender, Calls.amount(1L << 60))));
+        }
+        records = new ArrayList<>(CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            List<RlpType> transfers = new ArrayList<>(events);
+            for (int e = 0; e < events; e++) {
+                transfers.add(RlpString.create(Calls.input("transfer(address,uint256)",
+                    Calls.address(0x1000 + random.nextInt(HOLDERS)), Calls.amount(1 + random.nextInt(1000000)))));
+            }
+            byte[] multicall = RlpEncoder.encode(new RlpList(transfers));
+            byte[] input = new byte[4 + multicall.length];
+            System.arraycopy(MainCaller.MULTICALL_SELECTOR, 0, input, 0, 4);
+            System.arraycopy(multicall, 0, input, 4, multicall.length);
+            Message msg = call(Calls.context(Calls.address(1 + random.nextInt(SENDERS)), input));
+            records.add(RlpEncoder.encode(new RlpList(RlpString.create(msg.getLogsBloom()),
+                                                      RlpDecoder.decode(msg.getLogs()).getValues().get(0))));
+        }
+        query = new LogQuery("Transfer(address,address,uint256)", null, Calls.address(0x1000));
+
+        int matched = query.filter(records, false).size();
+        if (query.filter(records, true).size() != matched) {
+            throw new IllegalStateException("bloom and scan disagree");
+        }
+        int negatives = CALLS - matched;
+        System.out.println("matched=" + matched + " falsePositives=" + query.getFalsePositives() + " rate="
+            + (negatives == 0 ? 0.0 : (double) query.getFalsePositives() / negatives));
+    }
+
+    @TearDown
+    public void tearDown() {
+        Storage.setHost(null);
+        Gas.setUnlimited(false);
+        host.clear();
+    }
+
+    @Benchmark
+    public List<Integer> scan() {
+        return query.filter(records, false);
+    }
+
+    @Benchmark
+    public List<Integer> bloom() {
+        return query.filter(records, true);
+    }
+
+    private Message call(byte[] context) {
+        Message msg = contracts.call(TOKEN, context);
+        if (!msg.getSuccess()) {
+            throw new IllegalStateException(new String(msg.getOutput()));
+        }
+        return msg;
+    }
+}
@@ -0,0 +1,76 @@
+package contract.bench;
+
+import java.lang.address;
+import java.lang.mapping;
+import java.lang.uint256;
+import java.lang.contract.MemoryHost;
+import java.lang.contract.Storage;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Gets and sets of mapping entries, against a {@link MemoryHost}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MappingBenchmark {
+
+    private static final int KEYS = 1024;
+
+    private final MemoryHost host = new MemoryHost();
+    private mapping<address, uint256> balances;
+    private address[] keys;
+    private uint256 value;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Storage.setHost(host);
+        balances = mapping.of(address.class, uint256.class);
+        balances.setSlot(1);
+        keys = new address[KEYS];
+        value = new uint256(1000000L);
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = new address(BigInteger.valueOf(0x1000 + i));
+            balances.set(value, keys[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Storage.setHost(null);
+    }
+
+    /** Get of the last key read, answered by the cache of the mapping. */
+    @Benchmark
+    public uint256 getCached() {
+        return balances.get(keys[0]);
+    }
+
+    /** Get of a key the mapping has not cached, read from the storage. */
+    @Benchmark
+    public uint256 getUncached() {
+        balances.clearCache();
+        return balances.get(key());
+    }
+
+    @Benchmark
+    public void set() {
+        balances.set(value, key());
+    }
+
+    private address key() {
+        next = (next + 1) & (KEYS - 1);
+        return keys[next];
+    }
+}
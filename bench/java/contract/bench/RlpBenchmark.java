@@ -0,0 +1,102 @@
+package contract.bench;
+
+import java.lang.rlp.RlpDecoder;
+import java.lang.rlp.RlpEncoder;
+import java.lang.rlp.RlpList;
+import java.lang.rlp.RlpString;
+import java.lang.rlp.RlpType;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * RLP encoding and decoding, per payload shape:
+ * <ul>
+ * <li>{@code byte}: a single byte below 0x80</li>
+ * <li>{@code short}: a 20-byte string, such as an address</li>
+ * <li>{@code long}: a 1 KiB string</li>
+ * <li>{@code call}: a list of an address and an 8-byte amount</li>
+ * <li>{@code flat}: a list of 64 32-byte strings</li>
+ * <li>{@code nested}: 16 lists of 4 lists of two 32-byte strings</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RlpBenchmark {
+
+    @Param({"byte", "short", "long", "call", "flat", "nested"})
+    public String shape;
+
+    private RlpType value;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        switch (shape) {
+            case "byte":
+                value = RlpString.create((byte) 0x42);
+                break;
+            case "short":
+                value = RlpString.create(bytes(random, 20));
+                break;
+            case "long":
+                value = RlpString.create(bytes(random, 1024));
+                break;
+            case "call":
+                value = new RlpList(RlpString.create(bytes(random, 20)), RlpString.create(bytes(random, 8)));
+                break;
+            case "flat":
+                value = list(random, 64);
+                break;
+            case "nested":
+                RlpType[] outer = new RlpType[16];
+                for (int i = 0; i < outer.length; i++) {
+                    RlpType[] inner = new RlpType[4];
+                    for (int j = 0; j < inner.length; j++) {
+                        inner[j] = list(random, 2);
+                    }
+                    outer[i] = new RlpList(inner);
+                }
+                value = new RlpList(outer);
+                break;
+            default:
+                throw new IllegalArgumentException(shape);
+        }
+        encoded = RlpEncoder.encode(value);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return RlpEncoder.encode(value);
+    }
+
+    @Benchmark
+    public RlpList decode() {
+        return RlpDecoder.decode(encoded);
+    }
+
+    private static RlpList list(Random random, int size) {
+        RlpType[] items = new RlpType[size];
+        for (int i = 0; i < size; i++) {
+            items[i] = RlpString.create(bytes(random, 32));
+        }
+        return new RlpList(items);
+    }
+
+    private static byte[] bytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        bytes[0] |= 1;
+        return bytes;
+    }
+}
@@ -0,0 +1,102 @@
+package contract.bench;
+
+import java.lang.contract.ContractHost;
+import java.lang.contract.Gas;
+import java.lang.contract.MemoryHost;
+import java.lang.contract.Message;
+import java.lang.contract.Storage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * End-to-end calls of the {@code MyToken} ERC20 code, from the packed call context
+ * to the output: dispatch, parameter decoding, storage loads against an
+ * {@link MemoryHost}, the transfer itself, events and the writes. The contract is
+ * {@link BenchToken}, loaded and metered like any contract outside the runtime.
+ *
+ * {@code transferInsufficient} reverts every call with ERC20InsufficientBalance, to
+ * follow the cost of failed transfers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenBenchmark {
+
+    private static final String TOKEN = BenchToken.class.getName();
+
+    private static final long OWNER = 0x1001;
+    private static final long SPENDER = 0x2002;
+    private static final long RECEIVER = 0x3003;
+    private static final long EMPTY = 0x4004;
+
+    private final MemoryHost host = new MemoryHost();
+    private final ContractHost contracts = new ContractHost();
+
+    private byte[] transfer;
+    private byte[] approve;
+    private byte[] transferFrom;
+    private byte[] transferInsufficient;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Storage.setHost(host);
+        Gas.setUnlimited(true);
+        byte[] owner = Calls.address(OWNER);
+        byte[] spender = Calls.address(SPENDER);
+        byte[] receiver = Calls.address(RECEIVER);
+        byte[] one = Calls.amount(1);
+        transfer = Calls.context(owner, Calls.input("transfer(address,uint256)", receiver, one));
+        approve = Calls.context(owner, Calls.input("approve(address,uint256)", spender, Calls.amount(1L << 50)));
+        transferFrom = Calls.context(spender, Calls.input("transferFrom(address,address,uint256)", owner, receiver, one));
+        transferInsufficient = Calls.context(Calls.address(EMPTY), Calls.input("transfer(address,uint256)", receiver, one));
+        call(Calls.context(owner, Calls.input("mint(address,uint256)", owner, Calls.amount(1L << 60))));
+        call(approve);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Storage.setHost(null);
+        Gas.setUnlimited(false);
+    }
+
+    @Benchmark
+    public byte[] transfer() {
+        return call(transfer);
+    }
+
+    @Benchmark
+    public byte[] approve() {
+        return call(approve);
+    }
+
+    @Benchmark
+    public byte[] transferFrom() {
+        return call(transferFrom);
+    }
+
+    @Benchmark
+    public byte[] transferInsufficient() {
+        Message msg = contracts.call(TOKEN, transferInsufficient);
+        if (msg.getSuccess()) {
+            throw new IllegalStateException("transfer without balance succeeded");
+        }
+        return msg.getOutput();
+    }
+
+    private byte[] call(byte[] context) {
+        Message msg = contracts.call(TOKEN, context);
+        if (!msg.getSuccess()) {
+            throw new IllegalStateException(new String(msg.getOutput()));
+        }
+        return msg.getOutput();
+    }
+}
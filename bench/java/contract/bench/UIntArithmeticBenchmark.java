@@ -0,0 +1,100 @@
+package contract.bench;
+
+import java.lang.uintType;
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Arithmetic on the unsigned integer types, per width. Operands fill about half
+ * the width so that no operation overflows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class UIntArithmeticBenchmark {
+
+    @Param({"8", "64", "128", "256"})
+    public int width;
+
+    private uintType a;
+    private uintType b;
+
+    @Setup
+    public void setup() throws Exception {
+        Random random = new Random(42);
+        Class<?> type = Class.forName("java.lang.uint" + width);
+        a = (uintType) type.getConstructor(BigInteger.class)
+            .newInstance(new BigInteger(width / 2, random).setBit(width / 2 - 1));
+        b = (uintType) type.getConstructor(BigInteger.class)
+            .newInstance(new BigInteger(width / 2 - 1, random).setBit(0));
+    }
+
+    @Benchmark
+    public Object add() {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public Object subtract() {
+        return a.subtract(b);
+    }
+
+    @Benchmark
+    public Object subChecked() {
+        return a.subChecked(b);
+    }
+
+    @Benchmark
+    public Object compareThenSubtract() {
+        if (a.compareTo(b) < 0) {
+            throw new ArithmeticException();
+        }
+        return a.subtract(b);
+    }
+
+    @Benchmark
+    public Object addChecked() {
+        return a.addChecked(b);
+    }
+
+    @Benchmark
+    public Object multiply() {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public Object divide() {
+        return a.divide(b);
+    }
+
+    @Benchmark
+    public Object mulDiv() {
+        return a.mulDiv(b, a);
+    }
+
+    @Benchmark
+    public Object multiplyThenDivide() {
+        return a.multiply(b).divide(a);
+    }
+
+    @Benchmark
+    public Object mod() {
+        return a.mod(b);
+    }
+
+    @Benchmark
+    public int compareTo() {
+        return a.compareTo(b);
+    }
+}
@@ -1,6 +1,7 @@
 #!/usr/bin/env python3
 import os
 import subprocess
+import sys
 import glob
 import re
 
@@ -10,7 +11,8 @@ def main():
     We assume:
       1) run_tests.py is in:             <parent_dir>/tolang/run_tests.py
       2) The build output (classes) is in: <parent_dir>/tolang/build/classpath
-      3) The test source files are in:     <parent_dir>/tolang/test/java/lang/Test*.java
+      3) The test source files are in:     <parent_dir>/tolang/test/java/lang/Test*.java,
+         next to the helpers they share
       4) The 'tolang' binary is in:        <parent_dir>/gtos/build/bin/tolang
     Adjust if your structure differs.
     """
@@ -37,22 +39,23 @@ def main():
         print("  ", src)
     print()
 
-    # 5) Compile all test files together
-    print("Compiling all Test*.java files ...")
+    # 5) Compile all test files together, with the helpers they share, e.g.
+    #    ContractCalls.java; only the Test*.java classes are run
+    print("Compiling all test sources ...")
     compile_cp = f"{build_classpath}:."
 
     compile_cmd = [
         "javac",
         "-cp", compile_cp,
         "-d", build_classpath
-    ] + test_sources
+    ] + glob.glob(os.path.join(test_dir, "*.java"))
 
     try:
         subprocess.run(compile_cmd, check=True)
         print("Compilation successful.\n")
     except subprocess.CalledProcessError:
         print("Compilation failed.")
-        return
+        sys.exit(1)
 
     # 6) For each test source, deduce the class name => "java.lang.TestXYZ"
     #    Then run it via your tolang binary.
@@ -68,7 +71,9 @@ def main():
         fqcn = f"java.lang.{classname}"
         test_class_names.append(fqcn)
 
-    # 7) Run each test class
+    # 7) Run each test class; the run fails if any test exits with an error,
+    #    e.g. TestAllocationBudgets when an operation is over its budget
+    failed = []
     for fqcn in test_class_names:
         print(f"Running {fqcn}...\n")
         run_cmd = [
@@ -85,9 +90,14 @@ def main():
 
         if result.returncode != 0:
             print(f"{fqcn} failed or encountered an error (exit code {result.returncode}).\n")
+            failed.append(fqcn)
         else:
             print(f"{fqcn} passed (exit code 0).\n")
 
+    if failed:
+        print("Failed: " + ", ".join(failed))
+        sys.exit(1)
+
 
 if __name__ == "__main__":
     main()
\ No newline at end of file
@@ -1,6 +1,8 @@
 package java.crypto;
 
 import java.lang.System;
+import java.lang.contract.CallMetrics;
+import java.lang.contract.Gas;
 
 /**
  * Represents a Keccak256 hash function.
@@ -44,6 +46,8 @@ public class Keccak256 {
      * @return
      */
     public byte[] sha3(byte[] input) {
+        CallMetrics.current().keccak();
+        Gas.use(Gas.KECCAK);
         return keccak256(input);
     }
 
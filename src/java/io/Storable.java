@@ -52,6 +52,14 @@ public interface Storable {
      */
     boolean load();
 
+    /**
+     * Returns the object to its unloaded state, keeping its slot, so that it can
+     * be loaded again by the next call of a reused contract instance. Cached
+     * values are dropped.
+     */
+    default void reset() {
+    }
+
     static <T extends Storable> T newInstanceFromByteArray(byte[] data) {
         try {
             T obj = (T) Class.forName(new String(data, 0, 32)).newInstance();
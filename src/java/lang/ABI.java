@@ -167,6 +167,9 @@ public final class ABI {
                 
             case "java.lang.bytes":
                 return rlp.getBytes();
+
+            case "java.lang.dynamicBytes":
+                return dynamicBytes.wrap(rlp.getBytes());
                 
             case "java.lang.bool":
                 return bool.valueOf(rlp.getBytes());
@@ -175,7 +178,7 @@ public final class ABI {
                 return bool.valueOf(rlp.getBytes()[0] != 0);
                 
             case "java.lang.string":
-                return string.valueOf(rlp.asString());
+                return string.wrap(rlp.getBytes());
                 
             // Fixed-size bytes
             case "java.lang.bytes1": return bytes1.valueOf(rlp.getBytes());
@@ -306,11 +309,15 @@ public final class ABI {
                 return RlpEncoder.encode(RlpString.create((byte[]) value));
                 
             case "java.lang.bool":
-            case "boolean":
+                return RlpEncoder.encode(RlpString.create(((bool) value).getValue() ? 1 : 0));
+            case "java.lang.Boolean":  // boolean, boxed
                 return RlpEncoder.encode(RlpString.create(((Boolean) value) ? 1 : 0));
             case "java.lang.String":
-            case "java.lang.string":
                 return RlpEncoder.encode(RlpString.create((String) value));
+            case "java.lang.string":
+                return RlpEncoder.encode(RlpString.create(((string) value).bytes()));
+            case "java.lang.dynamicBytes":
+                return RlpEncoder.encode(RlpString.create(((dynamicBytes) value).bytes()));
             // Fixed-size bytes
             case "java.lang.bytes1": return RlpEncoder.encode(((bytes1) value).getValue(),0);   
             case "java.lang.bytes2": return RlpEncoder.encode(((bytes2) value).getValue(),0);
@@ -127,4 +127,9 @@ public class address implements Type<String>, Storable {
     public boolean load() {
         return value.load();
     }
+
+    @Override
+    public void reset() {
+        value.reset();
+    }
 }
@@ -0,0 +1,180 @@
+package java.lang;
+
+import java.io.Storable;
+import java.lang.contract.ExecutionContext;
+import java.lang.contract.Storage;
+
+/**
+ * Lazily loaded view over a dynamic value ({@code string}, {@code dynamicBytes})
+ * kept in storage as a length header followed by 32-byte chunks.
+ *
+ * Only the header is read when the view is created; chunks are fetched one at a
+ * time on first use, so length checks, prefixes and most comparisons never read
+ * the whole payload. Chunks are read from the storage of the call that created the
+ * view, even if it is used from elsewhere later.
+ */
+final class ChunkedStorage {
+
+    private static final int CHUNK_SIZE = Storage.DYNAMIC_CHUNK_SIZE;
+
+    private final Storage storage;
+    private final int slot;
+    private final int length;
+    private int dataSlot = Storable.NO_SLOT;
+    private byte[][] chunks;
+
+    private ChunkedStorage(Storage storage, int slot, int length) {
+        this.storage = storage;
+        this.slot = slot;
+        this.length = length;
+    }
+
+    /**
+     * Reads the length header of the value stored at the given slot.
+     *
+     * @param slot The header slot of the value.
+     * @return A view over the stored value.
+     */
+    static ChunkedStorage load(int slot) {
+        Storage storage = ExecutionContext.current().getStorage();
+        return new ChunkedStorage(storage, slot, storage.GetStorageDynamicLength(slot));
+    }
+
+    /**
+     * Writes a value to the given slot.
+     *
+     * @param slot The header slot of the value.
+     * @param data The value to write.
+     * @param previous The value currently stored at the slot, or null if unknown.
+     * @return A view over the value written, to pass as {@code previous} to the next
+     *         save so that it clears the chunks this value leaves behind.
+     */
+    static ChunkedStorage save(int slot, byte[] data, ChunkedStorage previous) {
+        int previousLength = previous != null && previous.slot == slot ? previous.length : 0;
+        Storage storage = ExecutionContext.current().getStorage();
+        storage.SetStorageDynamicValue(slot, data, previousLength);
+        return new ChunkedStorage(storage, slot, data.length);
+    }
+
+    /**
+     * Returns the length of the value in bytes.
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Returns the number of chunks used by the value.
+     */
+    int chunkCount() {
+        return (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    /**
+     * Returns the chunk at the given index, fetching it from storage on first use.
+     * The returned array must not be modified.
+     *
+     * @param index The index of the chunk.
+     * @return The chunk, always {@code CHUNK_SIZE} bytes long.
+     */
+    byte[] chunk(int index) {
+        if (chunks == null) {
+            chunks = new byte[chunkCount()][];
+        }
+        byte[] chunk = chunks[index];
+        if (chunk == null) {
+            if (dataSlot == Storable.NO_SLOT) {
+                dataSlot = storage.ComputeDynamicDataSlot(slot);
+            }
+            byte[] data = storage.GetStorageDynamicChunk(dataSlot, index);
+            chunk = new byte[CHUNK_SIZE];
+            if (data != null) {
+                System.arraycopy(data, 0, chunk, 0, Math.min(CHUNK_SIZE, data.length));
+            }
+            chunks[index] = chunk;
+        }
+        return chunk;
+    }
+
+    /**
+     * Returns the first {@code count} bytes of the value, reading only the chunks they span.
+     *
+     * @param count The number of bytes to return, clamped to the length of the value.
+     * @return The prefix of the value.
+     */
+    byte[] prefix(int count) {
+        int n = Math.max(0, Math.min(count, length));
+        byte[] out = new byte[n];
+        for (int i = 0, offset = 0; offset < n; i++, offset += CHUNK_SIZE) {
+            System.arraycopy(chunk(i), 0, out, offset, Math.min(CHUNK_SIZE, n - offset));
+        }
+        return out;
+    }
+
+    /**
+     * Returns the whole value.
+     */
+    byte[] toByteArray() {
+        return prefix(length);
+    }
+
+    /**
+     * Compares the stored value with a byte array, fetching only the chunks needed
+     * to find the first difference. Bytes compare unsigned, a proper prefix sorts first.
+     *
+     * @param other The bytes to compare with.
+     * @return A negative, zero or positive value as this value is less than, equal to or greater than {@code other}.
+     */
+    int compareTo(byte[] other) {
+        int n = Math.min(length, other.length);
+        for (int i = 0, offset = 0; offset < n; i++, offset += CHUNK_SIZE) {
+            byte[] chunk = chunk(i);
+            int end = Math.min(CHUNK_SIZE, n - offset);
+            for (int j = 0; j < end; j++) {
+                if (chunk[j] != other[offset + j]) {
+                    return (chunk[j] & 0xFF) - (other[offset + j] & 0xFF);
+                }
+            }
+        }
+        return length - other.length;
+    }
+
+    /**
+     * Compares two stored values chunk by chunk, fetching only the chunks needed
+     * to find the first difference.
+     *
+     * @param other The stored value to compare with.
+     * @return A negative, zero or positive value as this value is less than, equal to or greater than {@code other}.
+     */
+    int compareTo(ChunkedStorage other) {
+        int n = Math.min(length, other.length);
+        for (int i = 0, offset = 0; offset < n; i++, offset += CHUNK_SIZE) {
+            byte[] a = chunk(i);
+            byte[] b = other.chunk(i);
+            int end = Math.min(CHUNK_SIZE, n - offset);
+            for (int j = 0; j < end; j++) {
+                if (a[j] != b[j]) {
+                    return (a[j] & 0xFF) - (b[j] & 0xFF);
+                }
+            }
+        }
+        return length - other.length;
+    }
+
+    /**
+     * Compares two byte arrays the same way stored values are compared.
+     *
+     * @param a The first array.
+     * @param b The second array.
+     * @return A negative, zero or positive value as {@code a} is less than, equal to or greater than {@code b}.
+     */
+    static int compare(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (a[i] != b[i]) {
+                return (a[i] & 0xFF) - (b[i] & 0xFF);
+            }
+        }
+        return a.length - b.length;
+    }
+}
@@ -1,12 +1,46 @@
 package java.lang;
 
+/**
+ * An event emitted by a contract.
+ *
+ * The fields of an event are its public instance fields; those whose name starts
+ * with {@code indexed_} are indexed, the others make up its data. For example:
+ * <pre>
+ *   class Transfer extends Event {
+ *       public final address indexed_from;
+ *       public final address indexed_to;
+ *       public final uint256 value;
+ *   }
+ * </pre>
+ * The runtime encodes the fields when the call succeeds, see
+ * {@code java.lang.contract.EventLog}.
+ */
 public class Event {
     private String message;
+
+    /**
+     * Constructs a typed event, described by its fields.
+     */
+    protected Event() {
+    }
+
+    /**
+     * Constructs an event with a message.
+     * @param message The message of the event.
+     * @deprecated The message is not part of the log, the event is logged with the
+     *             signature {@code Event()} and no data; declare a typed event with a
+     *             {@code string} field instead.
+     */
+    @Deprecated
     public Event(String message) {
         this.message = message;
     }
 
+    /**
+     * Returns the message of the event, or the name of its class if it has none.
+     * @return The message of the event.
+     */
     public String getMessage() {
-        return message;
+        return message != null ? message : getClass().getSimpleName();
     }
-}
\ No newline at end of file
+}
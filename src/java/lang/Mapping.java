@@ -1,6 +1,7 @@
 package java.lang;
 
 import java.io.Storable;
+import java.lang.contract.ExecutionContext;
 import java.lang.contract.Storage;
 import java.util.HashMap;
 import java.util.Map;
@@ -18,6 +19,8 @@ public class mapping<K extends Storable, V extends Storable> implements java.io.
     private final Class<K> keyType;
     private final Class<V> valueType;
     private final boolean isNestedMapping;
+    private final Class<?> innerValueType;  // Value type of the mappings held by a nested mapping
+    private byte[] parentSlot;              // Storage slot of a mapping held by a nested mapping
 
     /**
      * Creates a new mapping instance with the specified key and value types
@@ -39,18 +42,23 @@ public class mapping<K extends Storable, V extends Storable> implements java.io.
      */
     @SuppressWarnings("unchecked")  
     public static <K extends Storable, V extends Storable> mapping<K, mapping<K, V>> ofNested(Class<K> keyType, Class<V> valueType) {
-        return new mapping<>(keyType, (Class<mapping<K, V>>) (Class<?>) mapping.class);
+        return new mapping<>(keyType, (Class<mapping<K, V>>) (Class<?>) mapping.class, valueType);
     }
 
     /**
      * Constructor for creating a new mapping
      */
     public mapping(Class<K> keyType, Class<V> valueType) {
+        this(keyType, valueType, null);
+    }
+
+    private mapping(Class<K> keyType, Class<V> valueType, Class<?> innerValueType) {
         this.slot = Storable.NO_SLOT;
         this.cache = new HashMap<>();
         this.keyType = keyType;
         this.valueType = valueType;
         this.isNestedMapping = mapping.class.isAssignableFrom(valueType);
+        this.innerValueType = innerValueType;
     }
 
     @Override
@@ -70,6 +78,22 @@ public class mapping<K extends Storable, V extends Storable> implements java.io.
         return java.util.Base64.getEncoder().encodeToString(keyBytes);
     }
 
+    /**
+     * Returns the 32-byte storage slot of the mapping: its slot number, or the slot
+     * derived from its key if it is held by a nested mapping
+     */
+    private byte[] getBaseSlot() {
+        if (parentSlot != null) {
+            return parentSlot.clone();
+        }
+        if (slot == Storable.NO_SLOT) {
+            throw new IllegalStateException("Mapping slot not set");
+        }
+        byte[] baseSlot = new byte[32];  // 32 bytes for ethereum storage slot
+        baseSlot[31] = (byte) slot;      // Set initial slot in last byte
+        return baseSlot;
+    }
+
     /**
      * Retrieves a value from the mapping using variable number of keys for nested access
      *
@@ -81,9 +105,6 @@ public class mapping<K extends Storable, V extends Storable> implements java.io.
     @SafeVarargs
     @SuppressWarnings("unchecked")
     public final V get(K... keys) {
-        if (slot == Storable.NO_SLOT) {
-            throw new IllegalStateException("Mapping slot not set");
-        }
         if (keys.length == 0) {
             throw new IllegalArgumentException("At least one key must be provided");
         }
@@ -102,8 +123,8 @@ public class mapping<K extends Storable, V extends Storable> implements java.io.
         }
 
         // Calculate final storage slot for nested mappings
-        byte[] currentSlot = new byte[32];
-        currentSlot[31] = (byte) slot;
+        Storage storage = ExecutionContext.current().getStorage();
+        byte[] currentSlot = getBaseSlot();
         byte[] finalKeyBytes = null;
         
         for (int i = 0; i < keys.length; i++) {
@@ -111,30 +132,51 @@ public class mapping<K extends Storable, V extends Storable> implements java.io.
             if (i == keys.length - 1) {
                 finalKeyBytes = keyBytes;
             } else {
-                currentSlot = Storage.getStorage().ComputeNestedMappingSlot(currentSlot, keyBytes);
+                currentSlot = storage.ComputeNestedMappingSlot(currentSlot, keyBytes);
             }
         }
 
-        // Retrieve from storage
-        byte[] data = Storage.getStorage().GetStorageMappingValue(currentSlot, finalKeyBytes);
-        
-        // If no data found, return default value
-        if (data == null || data.length == 0) {
-            try {
-                V defaultValue = valueType.getDeclaredConstructor().newInstance();
-                cache.put(fullCacheKey, defaultValue);
-                return defaultValue;
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to create default value for type: " + valueType, e);
-            }
+        // A nested mapping holds mappings stored under the slot derived from the key
+        if (isNestedMapping) {
+            mapping<K, ?> nested = new mapping<>(keyType, (Class<Storable>) innerValueType);
+            nested.parentSlot = storage.ComputeNestedMappingSlot(currentSlot, finalKeyBytes);
+            cache.put(fullCacheKey, nested);
+            return (V) nested;
         }
 
-        // Create value from data
-        V value = (V) Storable.newInstanceFromByteArray(data);
+        // Retrieve from storage
+        byte[] data = storage.GetStorageMappingValue(currentSlot, finalKeyBytes);
+
+        // Values are stored as their bytes, see set(); no data is the default value
+        V value = newValue(data != null ? data : new byte[0]);
         cache.put(fullCacheKey, value);
         return value;
     }
 
+    /**
+     * Creates a value from its stored bytes, with its byte array constructor if it
+     * has one, else with its no-arg constructor, else from the unsigned number of the
+     * bytes (address)
+     */
+    private V newValue(byte[] data) {
+        try {
+            try {
+                return valueType.getConstructor(byte[].class).newInstance((Object) data);
+            } catch (NoSuchMethodException e) {
+                try {
+                    V value = valueType.getDeclaredConstructor().newInstance();
+                    value.fromByteArray(data);
+                    return value;
+                } catch (NoSuchMethodException noDefault) {
+                    return valueType.getConstructor(java.math.BigInteger.class)
+                        .newInstance(new java.math.BigInteger(1, data));
+                }
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Failed to create value for type: " + valueType, e);
+        }
+    }
+
     /**
      * Sets a value in the mapping using variable number of keys for nested access
      *
@@ -142,15 +184,18 @@ public class mapping<K extends Storable, V extends Storable> implements java.io.
      * @param keys Variable number of keys for nested mapping access
      * @throws IllegalStateException if slot is not set
      * @throws IllegalArgumentException if no keys are provided
+     * @throws UnsupportedOperationException if this is a nested mapping, whose entries
+     *         are set through the mapping {@link #get} returns for the key
      */
     @SafeVarargs
     public final void set(V value, K... keys) {
-        if (slot == Storable.NO_SLOT) {
-            throw new IllegalStateException("Mapping slot not set");
-        }
         if (keys.length == 0) {
             throw new IllegalArgumentException("At least one key must be provided");
         }
+        // A mapping passed in would not be persisted, only its entries are stored
+        if (isNestedMapping) {
+            throw new UnsupportedOperationException("Nested mapping entries are set through get(key).set(value, ...)");
+        }
 
         // Build cache key
         StringBuilder cacheKeyBuilder = new StringBuilder();
@@ -160,8 +205,8 @@ public class mapping<K extends Storable, V extends Storable> implements java.io.
         String fullCacheKey = cacheKeyBuilder.toString();
 
         // Calculate final storage slot for nested mappings
-        byte[] currentSlot = new byte[32];  // 32 bytes for ethereum storage slot
-        currentSlot[31] = (byte) slot;      // Set initial slot in last byte
+        Storage storage = ExecutionContext.current().getStorage();
+        byte[] currentSlot = getBaseSlot();
         byte[] finalKeyBytes = null;
         
         for (int i = 0; i < keys.length; i++) {
@@ -169,13 +214,13 @@ public class mapping<K extends Storable, V extends Storable> implements java.io.
             if (i == keys.length - 1) {
                 finalKeyBytes = keyBytes;
             } else {
-                currentSlot = Storage.getStorage().ComputeNestedMappingSlot(currentSlot, keyBytes);
+                currentSlot = storage.ComputeNestedMappingSlot(currentSlot, keyBytes);
             }
         }
 
         // Update storage
         byte[] data = value.toByteArray();
-        Storage.getStorage().SetStorageMappingValue(currentSlot, finalKeyBytes, data);
+        storage.SetStorageMappingValue(currentSlot, finalKeyBytes, data);
 
         // Update cache
         cache.put(fullCacheKey, value);
@@ -191,9 +236,6 @@ public class mapping<K extends Storable, V extends Storable> implements java.io.
      */
     @SafeVarargs
     public final void delete(K... keys) {
-        if (slot == Storable.NO_SLOT) {
-            throw new IllegalStateException("Mapping slot not set");
-        }
         if (keys.length == 0) {
             throw new IllegalArgumentException("At least one key must be provided");
         }
@@ -206,8 +248,8 @@ public class mapping<K extends Storable, V extends Storable> implements java.io.
         String fullCacheKey = cacheKeyBuilder.toString();
 
         // Calculate final storage slot
-        byte[] currentSlot = new byte[32];  // 32 bytes for ethereum storage slot
-        currentSlot[31] = (byte) slot;      // Set initial slot in last byte
+        Storage storage = ExecutionContext.current().getStorage();
+        byte[] currentSlot = getBaseSlot();
         byte[] finalKeyBytes = null;
         
         for (int i = 0; i < keys.length; i++) {
@@ -215,12 +257,12 @@ public class mapping<K extends Storable, V extends Storable> implements java.io.
             if (i == keys.length - 1) {
                 finalKeyBytes = keyBytes;
             } else {
-                currentSlot = Storage.getStorage().ComputeNestedMappingSlot(currentSlot, keyBytes);
+                currentSlot = storage.ComputeNestedMappingSlot(currentSlot, keyBytes);
             }
         }
 
         // Set storage to default value (empty byte array)
-        Storage.getStorage().SetStorageMappingValue(currentSlot, finalKeyBytes, new byte[0]);
+        storage.SetStorageMappingValue(currentSlot, finalKeyBytes, new byte[0]);
 
         // Remove from cache
         cache.remove(fullCacheKey);
@@ -270,4 +312,10 @@ public class mapping<K extends Storable, V extends Storable> implements java.io.
         // are loaded individually through get() method
         return true;
     }
+
+    @Override
+    public void reset() {
+        // Values cached by a previous call may be stale
+        cache.clear();
+    }
 }
@@ -1,9 +1,55 @@
 package java.lang;
 
+import java.lang.rlp.RlpDecoder;
+import java.lang.rlp.RlpEncoder;
+
+/**
+ * Signals that a contract call reverts.
+ *
+ * A revert carries no stack trace and cannot have suppressed exceptions, so throwing
+ * one costs about as much as a return and a revert without a reason to format can be
+ * preallocated and thrown again, see {@link #OUT_OF_GAS} and {@link #ARITHMETIC_OVERFLOW}.
+ * The runtime reports the revert data of the call, {@link #getData()}, as its output.
+ */
 public class Revert extends RuntimeException {
     static final long serialVersionUID = -3847562891452638471L;
 
+    /** Selector of {@code Error(string)}, the revert data of a revert with a reason. */
+    public static final byte[] ERROR_SELECTOR = {(byte) 0x08, (byte) 0xc3, (byte) 0x79, (byte) 0xa0};
+
+    /** Revert of a call that used more gas than its limit. */
+    public static final Revert OUT_OF_GAS = new Revert("out of gas");
+
+    /** Revert of a checked arithmetic operation whose result is out of the range of its type. */
+    public static final Revert ARITHMETIC_OVERFLOW = new Revert("arithmetic underflow or overflow");
+
+    /**
+     * Constructs a revert with a reason.
+     * @param message The reason.
+     */
     public Revert(String message) {
-        super(message);
+        super(message, null, false, false);
+    }
+
+    /**
+     * Constructs a revert without a reason, for subclasses that describe it otherwise.
+     */
+    protected Revert() {
+        super(null, null, false, false);
+    }
+
+    /**
+     * Returns the revert data: the selector of {@code Error(string)} and the RLP list
+     * of the reason, as the input of a call to {@code Error(string)} would be.
+     * @return The revert data.
+     */
+    public byte[] getData() {
+        String message = getMessage();
+        byte[] reason = message != null ? message.getBytes() : new byte[0];
+        byte[] params = RlpEncoder.encode(RlpEncoder.encode(reason, RlpDecoder.OFFSET_SHORT_STRING), RlpDecoder.OFFSET_SHORT_LIST);
+        byte[] data = new byte[4 + params.length];
+        System.arraycopy(ERROR_SELECTOR, 0, data, 0, 4);
+        System.arraycopy(params, 0, data, 4, params.length);
+        return data;
     }
 }
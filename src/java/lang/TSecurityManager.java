@@ -7,11 +7,81 @@ import java.lang.reflect.ReflectPermission;
 
 public final class TSecurityManager extends SecurityManager {
 
+    // Key of the holder that flags the threads to restrict, null if there is none
+    private final Object key;
+
+    // Threads the manager currently restricts, null if it restricts every thread
+    private final ThreadLocal<Boolean> restricted;
+
     /**
      * Constructs a new <code>SecurityManager</code>.
      */
     public TSecurityManager() {
+        this(null, false);
+    }
+
+    /**
+     * Constructs a new <code>SecurityManager</code>, enforced on every thread or
+     * only on the threads flagged by whoever holds the given key.
+     *
+     * A manager enforced per thread allows everything, except on the threads the
+     * holder of the key restricts with {@link #restrict(Object, boolean)}. It is
+     * installed once and left in place, each call only flags its own thread.
+     *
+     * @param key The key, or null if no thread can be flagged.
+     * @param perThread true to restrict only the threads flagged with the key.
+     */
+    public TSecurityManager(Object key, boolean perThread) {
         super();
+        this.key = key;
+        this.restricted = perThread ? new ThreadLocal<Boolean>() : null;
+    }
+
+    /**
+     * Starts or stops restricting the current thread, for a manager enforced per
+     * thread.
+     *
+     * @param key The key the manager was constructed with.
+     * @param restrict true to restrict the current thread, false to stop.
+     * @return true if the thread was restricted before.
+     * @throws SecurityException if the key does not match or the manager restricts
+     *         every thread.
+     */
+    public boolean restrict(Object key, boolean restrict) {
+        if (restricted == null || this.key == null || this.key != key) {
+            throw new SecurityException();
+        }
+        boolean before = restricted.get() != null;
+        if (restrict) {
+            restricted.set(Boolean.TRUE);
+        } else {
+            restricted.remove();
+        }
+        return before;
+    }
+
+    // Throws unless the current thread is free of restrictions
+    private void deny() {
+        if (restricted == null || restricted.get() != null) {
+            throw new SecurityException();
+        }
+    }
+
+    // As deny, but lets the JDK generate the accessor of a method or constructor
+    // invoked often through reflection, as the runtime does to dispatch calls and
+    // decode values; contract code cannot reach the generator
+    private void denyUnlessAccessor() {
+        if (restricted != null && restricted.get() == null) {
+            return;
+        }
+        for (Class<?> c : super.getClassContext()) {
+            String name = c.getName();
+            if (name.equals("sun.reflect.MethodAccessorGenerator")
+                    || name.equals("jdk.internal.reflect.MethodAccessorGenerator")) {
+                return;
+            }
+        }
+        throw new SecurityException();
     }
 
     @Override
@@ -51,114 +121,114 @@ public final class TSecurityManager extends SecurityManager {
 
     @Override
     public void checkPermission(Permission perm) {
-        throw new SecurityException();
+        denyUnlessAccessor();
     }
 
     @Override
     public void checkPermission(Permission perm, Object context) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkCreateClassLoader() {
-        throw new SecurityException();
+        denyUnlessAccessor();
     }
 
     @Override
     public void checkAccess(Thread t) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkAccess(ThreadGroup g) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkExit(int status) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkExec(String cmd) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkLink(String lib) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkRead(FileDescriptor fd) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkRead(String file) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkRead(String file, Object context) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkWrite(FileDescriptor fd) {
-        throw new SecurityException(); 
+        deny();
     }
 
     @Override
     public void checkWrite(String file) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkDelete(String file) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkConnect(String host, int port) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkConnect(String host, int port, Object context) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkListen(int port) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkAccept(String host, int port) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     @Deprecated
     public void checkMulticast(InetAddress maddr) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     @Deprecated
     public void checkMulticast(InetAddress maddr, byte ttl) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkPropertiesAccess() {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkPropertyAccess(String key) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
@@ -168,38 +238,38 @@ public final class TSecurityManager extends SecurityManager {
 
     @Override
     public void checkPrintJobAccess() {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkSystemClipboardAccess() {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkAwtEventQueueAccess() {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkPackageAccess(String pkg) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkPackageDefinition(String pkg) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     public void checkSetFactory() {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
     @Deprecated
     public void checkMemberAccess(Class<?> clazz, int which) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
@@ -209,7 +279,7 @@ public final class TSecurityManager extends SecurityManager {
 
     @Override
     public void checkSecurityAccess(String target) {
-        throw new SecurityException();
+        deny();
     }
 
     @Override
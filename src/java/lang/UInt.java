@@ -27,7 +27,7 @@ public final class uint extends uintType<uint> {
      * The maximum representable value of uint (2^256 - 1).
      */
     public static final uint MAX_VALUE =
-        new uint(BytesArray.maxValue(MAX_WIDTH));
+        new uint(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint ZERO = new uint(BytesArray.ZERO);
     public static final uint ONE  = new uint(BytesArray.ONE);
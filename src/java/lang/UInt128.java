@@ -27,7 +27,7 @@ public final class uint128 extends uintType<uint128> {
      * The maximum representable value of uint128 (2^128 - 1).
      */
     public static final uint128 MAX_VALUE =
-        new uint128(BytesArray.maxValue(MAX_WIDTH));
+        new uint128(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint128 ZERO = new uint128(BytesArray.ZERO);
     public static final uint128 ONE  = new uint128(BytesArray.ONE);
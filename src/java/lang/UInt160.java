@@ -27,7 +27,7 @@ public final class uint160 extends uintType<uint160> {
      * The maximum representable value of uint160 (2^160 - 1).
      */
     public static final uint160 MAX_VALUE =
-        new uint160(BytesArray.maxValue(MAX_WIDTH));
+        new uint160(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint160 ZERO = new uint160(BytesArray.ZERO);
     public static final uint160 ONE  = new uint160(BytesArray.ONE);
@@ -27,7 +27,7 @@ public final class uint256 extends uintType<uint256> {
      * The maximum representable value of uint256 (2^256 - 1).
      */
     public static final uint256 MAX_VALUE =
-        new uint256(BytesArray.maxValue(MAX_WIDTH));
+        new uint256(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint256 ZERO = new uint256(BytesArray.ZERO);
     public static final uint256 ONE  = new uint256(BytesArray.ONE);
@@ -27,7 +27,7 @@ public final class uint64 extends uintType<uint64> {
      * The maximum representable value of uint64 (2^64 - 1).
      */
     public static final uint64 MAX_VALUE =
-        new uint64(BytesArray.maxValue(MAX_WIDTH));
+        new uint64(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint64 ZERO = new uint64(BytesArray.ZERO);
     public static final uint64 ONE  = new uint64(BytesArray.ONE);
@@ -27,7 +27,7 @@ public final class uint8 extends uintType<uint8> {
      * The maximum representable value of uint8 (2^8 - 1).
      */
     public static final uint8 MAX_VALUE =
-        new uint8(BytesArray.maxValue(MAX_WIDTH));
+        new uint8(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint8 ZERO = new uint8(BytesArray.ZERO);
     public static final uint8 ONE  = new uint8(BytesArray.ONE);
@@ -3,6 +3,7 @@ package java.lang;
 import java.math.BigInteger;
 import static java.lang.types.BytesArray.LONG;
 import java.io.Storable;
+import java.lang.contract.ExecutionContext;
 import java.lang.contract.Storage;
 import java.lang.types.BytesArray;
 import java.lang.types.StringUtil;
@@ -65,10 +66,7 @@ public abstract class uintType<T extends uintType<T>>
    * Constructs from a {@code long}, treating it as unsigned.
    */
   protected uintType(final long l) {
-    this.ints = BytesArray.valueOf(l);
-    // Strip leading zeroes if it exceeds the max width
-    this.ints = BytesArray.stripLeadingZeroes(this.ints,
-        Math.max(0, this.ints.length - getMaxWidth()));
+    this.ints = truncate(BytesArray.valueOf(l));
   }
 
   /**
@@ -76,19 +74,17 @@ public abstract class uintType<T extends uintType<T>>
    * Truncates to {@link #getMaxWidth()} if needed and removes leading zeros.
    */
   protected uintType(final int[] ints) {
-    this.ints = BytesArray.stripLeadingZeroes(
-        ints, Math.max(0, ints.length - getMaxWidth())
-    );
+    this.ints = truncate(ints);
   }
 
   /**
-   * Internal constructor that takes both an array and a maxWidth,
-   * used by other constructors to handle truncation.
+   * Constructs from a big-endian array truncated to {@code maxWidth} words,
+   * then to this type.
    */
   protected uintType(final int[] ints, final int maxWidth) {
-    this.ints = BytesArray.stripLeadingZeroes(
+    this.ints = truncate(BytesArray.stripLeadingZeroes(
         ints, Math.max(0, ints.length - maxWidth)
-    );
+    ));
   }
 
   /**
@@ -96,7 +92,7 @@ public abstract class uintType<T extends uintType<T>>
    * and truncates if needed.
    */
   protected uintType(final uintType<?> other) {
-    this(other.ints, other.getMaxWidth());
+    this(other.ints);
   }
 
   /**
@@ -105,8 +101,7 @@ public abstract class uintType<T extends uintType<T>>
    */
   protected uintType(final BigInteger b) {
     BigInteger nonNeg = (b.signum() < 0) ? b.negate() : b;
-    // This presupposes you have BytesArray.from(BigInteger, int)
-    this.ints = BytesArray.from(nonNeg, getMaxWidth());
+    this.ints = truncate(BytesArray.from(nonNeg, getMaxWidth()));
   }
 
   /**
@@ -114,7 +109,7 @@ public abstract class uintType<T extends uintType<T>>
    * If out of range, it will use base 10. If it exceeds the max width, it truncates.
    */
   protected uintType(final String s, final int radix) {
-    this.ints = StringUtil.fromString(s, fixRadix(radix), getMaxWidth());
+    this.ints = truncate(StringUtil.fromString(s, fixRadix(radix), getMaxWidth()));
   }
 
   /**
@@ -124,7 +119,26 @@ public abstract class uintType<T extends uintType<T>>
    */
   protected uintType(final byte[] bytes, final T maxValue) {
     // Convert from big-endian bytes to an int[] up to maxValue.ints length
-    this(BytesArray.from(bytes, maxValue.ints), maxValue.ints.length);
+    this(BytesArray.from(bytes, maxValue.ints));
+  }
+
+  /**
+   * Truncates a big-endian array to the bits of this type: drops the words above
+   * {@link #getMaxWidth()} and the bits of the top word above {@link #getMaxValue()},
+   * then leading zeros. Types narrower than their words (e.g. {@code uint8} or
+   * {@code uint40}) wrap at their own width. The array is copied if it changes.
+   */
+  private int[] truncate(int[] ints) {
+    final int maxWidth = getMaxWidth();
+    ints = BytesArray.stripLeadingZeroes(ints, Math.max(0, ints.length - maxWidth));
+    // MAX_VALUE itself is constructed before getMaxValue() returns it
+    final T max = getMaxValue();
+    if (max != null && ints.length == maxWidth && (ints[0] & ~max.ints[0]) != 0) {
+      ints = ints.clone();
+      ints[0] &= max.ints[0];
+      ints = BytesArray.stripLeadingZeroes(ints);
+    }
+    return ints;
   }
 
   /**
@@ -151,17 +165,29 @@ public abstract class uintType<T extends uintType<T>>
 
   /** {@code this & other} */
   public T and(T other) {
-    return newInstance(BytesArray.and(this.ints, other.ints));
+    return operandOrNew(BytesArray.and(this.ints, other.ints), other);
   }
 
   /** {@code this | other} */
   public T or(T other) {
-    return newInstance(BytesArray.or(this.ints, other.ints));
+    return operandOrNew(BytesArray.or(this.ints, other.ints), other);
   }
 
   /** {@code this ^ other} */
   public T xor(T other) {
-    return newInstance(BytesArray.xor(this.ints, other.ints));
+    return operandOrNew(BytesArray.xor(this.ints, other.ints), other);
+  }
+
+  /**
+   * Returns the operand a bitwise result is equal to, so that setting a flag that
+   * is already set or masking a value already within the mask allocates nothing,
+   * or a new instance.
+   */
+  private T operandOrNew(int[] result, T other) {
+    if (result == this.ints) {
+      return self();
+    }
+    return result == other.ints ? other : newInstance(result);
   }
 
   /**
@@ -316,6 +342,112 @@ public abstract class uintType<T extends uintType<T>>
     return newInstance(BytesArray.mulmod(this.ints, mul.ints, mod.ints));
   }
 
+  /**
+   * {@code this + other}, reverting with {@link Revert#ARITHMETIC_OVERFLOW} if it
+   * exceeds {@link #getMaxValue()}, as Solidity's checked arithmetic does. The
+   * carry out of the addition is the check, without a comparison beforehand.
+   */
+  public T addChecked(T other) {
+    return orRevert(tryAdd(other));
+  }
+
+  /**
+   * {@code this - other}, reverting with {@link Revert#ARITHMETIC_OVERFLOW} if
+   * {@code other} is greater, which the borrow out of the subtraction tells.
+   */
+  public T subChecked(T other) {
+    return orRevert(trySub(other));
+  }
+
+  /**
+   * {@code this * other}, reverting with {@link Revert#ARITHMETIC_OVERFLOW} if it
+   * exceeds {@link #getMaxValue()}.
+   */
+  public T mulChecked(T other) {
+    return orRevert(tryMul(other));
+  }
+
+  private static <T> T orRevert(T result) {
+    if (result == null) {
+      throw Revert.ARITHMETIC_OVERFLOW;
+    }
+    return result;
+  }
+
+  /**
+   * {@code this + other}, or null if it exceeds {@link #getMaxValue()}, for
+   * callers that handle the overflow themselves, e.g. with their own revert.
+   */
+  public T tryAdd(T other) {
+    if (this.isZero()) {
+      return other;
+    }
+    if (other.isZero()) {
+      return self();
+    }
+    final int[] sum = BytesArray.addChecked(this.ints, other.ints, getMaxValue().ints);
+    return sum == null ? null : newInstance(sum);
+  }
+
+  /**
+   * {@code this - other}, or null if {@code other} is greater.
+   */
+  public T trySub(T other) {
+    final int[] diff = BytesArray.subChecked(this.ints, other.ints);
+    if (diff == null) {
+      return null;
+    }
+    return diff == this.ints ? self() : newInstance(diff);
+  }
+
+  /**
+   * {@code this * other}, or null if it exceeds {@link #getMaxValue()}.
+   */
+  public T tryMul(T other) {
+    final int[] product = BytesArray.mulChecked(this.ints, other.ints, getMaxValue().ints);
+    return product == null ? null : newInstance(product);
+  }
+
+  /**
+   * {@code this + other}, or {@link #getMaxValue()} if it exceeds it.
+   */
+  public T addSaturating(T other) {
+    final T sum = tryAdd(other);
+    return sum == null ? getMaxValue() : sum;
+  }
+
+  /**
+   * {@code this - other}, or zero if {@code other} is greater.
+   */
+  public T subSaturating(T other) {
+    final T diff = trySub(other);
+    return diff == null ? newInstance(BytesArray.ZERO) : diff;
+  }
+
+  /**
+   * {@code this * other}, or {@link #getMaxValue()} if it exceeds it.
+   */
+  public T mulSaturating(T other) {
+    final T product = tryMul(other);
+    return product == null ? getMaxValue() : product;
+  }
+
+  /**
+   * {@code this * mul / div}, rounded down, with the full double-width product
+   * so that the multiplication does not overflow; throws if {@code div.isZero()}
+   * or the result does not fit the type.
+   */
+  public T mulDiv(T mul, T div) {
+    return newInstance(BytesArray.mulDiv(this.ints, mul.ints, div.ints, getMaxValue().ints, false));
+  }
+
+  /**
+   * {@code this * mul / div} as {@link #mulDiv}, rounded up.
+   */
+  public T mulDivRoundingUp(T mul, T div) {
+    return newInstance(BytesArray.mulDiv(this.ints, mul.ints, div.ints, getMaxValue().ints, true));
+  }
+
   /**
    * {@code this ** exp}, throws if {@code exp < 0}.
    */
@@ -601,13 +733,8 @@ public abstract class uintType<T extends uintType<T>>
    * Truncates if needed.
    */
   public final void fromByteArray(byte[] bytes) {
-    // Convert with respect to the maxValue.ints
-    int[] array = BytesArray.from(bytes, getMaxValue().ints);
-    // Then strip if it exceeds getMaxWidth()
-    array = BytesArray.stripLeadingZeroes(
-        array, Math.max(0, array.length - getMaxWidth())
-    );
-    this.ints = array;
+    // Convert with respect to the maxValue.ints, then truncate to the type
+    this.ints = truncate(BytesArray.from(bytes, getMaxValue().ints));
   }
 
   /**
@@ -666,7 +793,7 @@ public abstract class uintType<T extends uintType<T>>
       // No valid slot, cannot save
       return false;
     }
-    Storage storage = Storage.getStorage();
+    Storage storage = ExecutionContext.current().getStorage();
     storage.SetStorageFixedValue(this.slot, toByteArray());
     return true;
   }
@@ -677,7 +804,7 @@ public abstract class uintType<T extends uintType<T>>
       // No valid slot, cannot load
       return false;
     }
-    Storage storage = Storage.getStorage();
+    Storage storage = ExecutionContext.current().getStorage();
     byte[] bytes = storage.GetStorageFixedValue(this.slot);
     if (bytes == null) {
       // Nothing stored => set to zero
@@ -685,14 +812,15 @@ public abstract class uintType<T extends uintType<T>>
       return false;
     }
     // Same logic as fromByteArray:
-    int[] array = BytesArray.from(bytes, getMaxValue().ints);
-    array = BytesArray.stripLeadingZeroes(
-        array, Math.max(0, array.length - getMaxWidth())
-    );
-    this.ints = array;
+    this.ints = truncate(BytesArray.from(bytes, getMaxValue().ints));
     return true;
   }
 
+  @Override
+  public void reset() {
+    this.ints = new int[0];
+  }
+
   /**
    * Returns true if the bit at position n is set
    */
@@ -0,0 +1,304 @@
+package java.lang.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Minimal reader of the class file format, enough for the runtime to inspect the
+ * bytecode of contract classes: the constant pool, the names and descriptors of
+ * fields and methods, and the code of each method.
+ */
+public final class ClassFile {
+
+    // Constant pool tags
+    public static final int CONSTANT_UTF8 = 1;
+    public static final int CONSTANT_INTEGER = 3;
+    public static final int CONSTANT_FLOAT = 4;
+    public static final int CONSTANT_LONG = 5;
+    public static final int CONSTANT_DOUBLE = 6;
+    public static final int CONSTANT_CLASS = 7;
+    public static final int CONSTANT_STRING = 8;
+    public static final int CONSTANT_FIELDREF = 9;
+    public static final int CONSTANT_METHODREF = 10;
+    public static final int CONSTANT_INTERFACE_METHODREF = 11;
+    public static final int CONSTANT_NAME_AND_TYPE = 12;
+    public static final int CONSTANT_METHOD_HANDLE = 15;
+    public static final int CONSTANT_METHOD_TYPE = 16;
+    public static final int CONSTANT_DYNAMIC = 17;
+    public static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    public static final int CONSTANT_MODULE = 19;
+    public static final int CONSTANT_PACKAGE = 20;
+
+    private final int[] tags;
+    // Utf8 value, or the first and second index of the entry packed in an Integer
+    private final Object[] entries;
+    private final int access;
+    private final String name;
+    private final String superName;
+    private final List<Member> fields;
+    private final List<Member> methods;
+
+    /**
+     * A field or a method of the class.
+     */
+    public static final class Member {
+        private final int access;
+        private final String name;
+        private final String descriptor;
+        private final byte[] code;
+
+        Member(int access, String name, String descriptor, byte[] code) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.code = code;
+        }
+
+        public int getAccess() { return access; }
+        public String getName() { return name; }
+        public String getDescriptor() { return descriptor; }
+
+        /**
+         * Returns the bytecode of a method, or null for fields and methods
+         * without code (abstract, native).
+         */
+        public byte[] getCode() { return code; }
+    }
+
+    private ClassFile(DataInputStream in) throws IOException {
+        if (in.readInt() != 0xCAFEBABE) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // minor
+        in.readUnsignedShort(); // major
+        int count = in.readUnsignedShort();
+        tags = new int[count];
+        entries = new Object[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            tags[i] = tag;
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    entries[i] = in.readUTF();
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                    entries[i] = in.readInt();
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    in.readLong();
+                    i++; // takes two entries
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    entries[i] = in.readUnsignedShort();
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    entries[i] = (in.readUnsignedByte() << 16) | in.readUnsignedShort();
+                    break;
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    entries[i] = (in.readUnsignedShort() << 16) | in.readUnsignedShort();
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag + " at " + i);
+            }
+        }
+        access = in.readUnsignedShort();
+        name = className(in.readUnsignedShort());
+        int superIndex = in.readUnsignedShort();
+        superName = superIndex == 0 ? null : className(superIndex);
+        int interfaces = in.readUnsignedShort();
+        for (int i = 0; i < interfaces; i++) {
+            in.readUnsignedShort();
+        }
+        fields = readMembers(in);
+        methods = readMembers(in);
+    }
+
+    /**
+     * Parses a class file.
+     *
+     * @param bytes The content of the class file.
+     * @return The parsed class file.
+     * @throws IOException if the bytes are not a valid class file.
+     */
+    public static ClassFile parse(byte[] bytes) throws IOException {
+        try {
+            return new ClassFile(new DataInputStream(new java.io.ByteArrayInputStream(bytes)));
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed class file", e);
+        }
+    }
+
+    /**
+     * Reads the class file a class was loaded from.
+     *
+     * @param type The class.
+     * @return The class file content, or null if it cannot be found.
+     */
+    public static byte[] bytesOf(Class<?> type) {
+        String resource = type.getName().replace('.', '/') + ".class";
+        ClassLoader loader = type.getClassLoader();
+        try (InputStream in = loader != null
+                ? loader.getResourceAsStream(resource)
+                : ClassLoader.getSystemResourceAsStream(resource)) {
+            if (in == null) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public int getAccess() { return access; }
+
+    /** Returns the internal name of the class, e.g. {@code java/lang/contract/ERC20}. */
+    public String getName() { return name; }
+
+    /** Returns the internal name of the superclass, or null for java/lang/Object. */
+    public String getSuperName() { return superName; }
+
+    public List<Member> getFields() { return fields; }
+    public List<Member> getMethods() { return methods; }
+
+    /**
+     * Returns the method with the given name and descriptor, or null.
+     *
+     * @param name The name of the method.
+     * @param descriptor The descriptor of the method.
+     * @return The method, or null if the class does not declare it.
+     */
+    public Member getMethod(String name, String descriptor) {
+        for (Member method : methods) {
+            if (method.name.equals(name) && method.descriptor.equals(descriptor)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of constant pool entries, including the unused entry 0.
+     *
+     * @return The constant pool count.
+     */
+    public int getConstantCount() {
+        return tags.length;
+    }
+
+    /**
+     * Returns the tag of a constant pool entry.
+     *
+     * @param index The index of the entry.
+     * @return The tag, 0 for unused entries.
+     */
+    public int tag(int index) {
+        return tags[index];
+    }
+
+    /**
+     * Returns the value of a Utf8 entry.
+     *
+     * @param index The index of the entry.
+     * @return The string value.
+     */
+    public String utf8(int index) {
+        return (String) entries[index];
+    }
+
+    /**
+     * Returns the internal name referenced by a Class entry.
+     *
+     * @param index The index of the entry.
+     * @return The internal class name.
+     */
+    public String className(int index) {
+        return utf8((Integer) entries[index]);
+    }
+
+    /**
+     * Returns the owner, name and descriptor of a Fieldref, Methodref or
+     * InterfaceMethodref entry.
+     *
+     * @param index The index of the entry.
+     * @return {owner, name, descriptor}.
+     */
+    public String[] memberRef(int index) {
+        int ref = (Integer) entries[index];
+        int nameAndType = (Integer) entries[ref & 0xFFFF];
+        return new String[] {
+            className(ref >>> 16),
+            utf8(nameAndType >>> 16),
+            utf8(nameAndType & 0xFFFF)
+        };
+    }
+
+    /**
+     * Returns the name and descriptor of an InvokeDynamic or Dynamic entry.
+     *
+     * @param index The index of the entry.
+     * @return {name, descriptor}.
+     */
+    public String[] dynamicRef(int index) {
+        int nameAndType = (Integer) entries[((Integer) entries[index]) & 0xFFFF];
+        return new String[] {
+            utf8(nameAndType >>> 16),
+            utf8(nameAndType & 0xFFFF)
+        };
+    }
+
+    private List<Member> readMembers(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        List<Member> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int memberAccess = in.readUnsignedShort();
+            String memberName = utf8(in.readUnsignedShort());
+            String descriptor = utf8(in.readUnsignedShort());
+            byte[] code = null;
+            int attributes = in.readUnsignedShort();
+            for (int a = 0; a < attributes; a++) {
+                String attribute = utf8(in.readUnsignedShort());
+                int length = in.readInt();
+                if ("Code".equals(attribute)) {
+                    in.readUnsignedShort(); // max_stack
+                    in.readUnsignedShort(); // max_locals
+                    code = new byte[in.readInt()];
+                    in.readFully(code);
+                    skip(in, length - 8 - code.length);
+                } else {
+                    skip(in, length);
+                }
+            }
+            members.add(new Member(memberAccess, memberName, descriptor, code));
+        }
+        return Collections.unmodifiableList(members);
+    }
+
+    private static void skip(DataInputStream in, int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Invalid attribute length");
+        }
+        in.readFully(new byte[length]);
+    }
+}
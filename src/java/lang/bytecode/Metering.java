@@ -0,0 +1,564 @@
+package java.lang.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Rewrites a class file so that its methods meter their own execution.
+ *
+ * Every basic block starts with a call to {@code charge(I)V} of the meter class,
+ * passing the number of instructions of the block. Backward branches and calls are
+ * preceded by a call to {@code check()V}, where the meter may stop a method that used
+ * up its budget, so a loop or a chain of calls always reaches a check.
+ *
+ * The charge pushes the block cost, one stack entry above whatever the stack holds
+ * where it is inserted, so max_stack is raised by one; the check pushes nothing.
+ * Neither touches locals, and both leave the stack as they found it, so the stack
+ * map frames stay valid and only their offsets move.
+ * Branch offsets, exception tables, line numbers and local variable ranges are
+ * moved too; other attributes of the code, which refer to offsets in ways this
+ * rewriter does not know, are dropped. Class files with {@code jsr}/{@code ret},
+ * or with methods that grow beyond the limits of the class file format, are
+ * rejected.
+ */
+public final class Metering {
+
+    /** Name and descriptor of the method charging a block. */
+    public static final String CHARGE = "charge";
+    public static final String CHARGE_DESCRIPTOR = "(I)V";
+
+    /** Name and descriptor of the method checking the budget. */
+    public static final String CHECK = "check";
+    public static final String CHECK_DESCRIPTOR = "()V";
+
+    private static final int INVOKESTATIC_LENGTH = 3;
+
+    // Constant pool indexes of the two meter methods in the class being rewritten
+    private final int chargeRef;
+    private final int checkRef;
+
+    private Metering(int chargeRef, int checkRef) {
+        this.chargeRef = chargeRef;
+        this.checkRef = checkRef;
+    }
+
+    /**
+     * Instruments every method of a class.
+     *
+     * @param bytes The class file.
+     * @param meter The internal name of the meter class, e.g. {@code java/lang/contract/Gas}.
+     * @return The instrumented class file.
+     * @throws IOException if the class file is malformed or cannot be instrumented.
+     */
+    public static byte[] instrument(byte[] bytes, String meter) throws IOException {
+        try {
+            return rewrite(new DataInputStream(new java.io.ByteArrayInputStream(bytes)), meter);
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed class file", e);
+        }
+    }
+
+    private static byte[] rewrite(DataInputStream in, String meter) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(in.readInt());     // magic
+        out.writeShort(in.readUnsignedShort());
+        out.writeShort(in.readUnsignedShort());
+
+        // constant pool, copied as is, then the references to the meter
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        ByteArrayOutputStream poolBuffer = new ByteArrayOutputStream();
+        DataOutputStream pool = new DataOutputStream(poolBuffer);
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            pool.writeByte(tag);
+            switch (tag) {
+                case ClassFile.CONSTANT_UTF8:
+                    utf8[i] = in.readUTF();
+                    pool.writeUTF(utf8[i]);
+                    break;
+                case ClassFile.CONSTANT_LONG:
+                case ClassFile.CONSTANT_DOUBLE:
+                    pool.writeLong(in.readLong());
+                    i++;
+                    break;
+                case ClassFile.CONSTANT_CLASS:
+                case ClassFile.CONSTANT_STRING:
+                case ClassFile.CONSTANT_METHOD_TYPE:
+                case ClassFile.CONSTANT_MODULE:
+                case ClassFile.CONSTANT_PACKAGE:
+                    pool.writeShort(in.readUnsignedShort());
+                    break;
+                case ClassFile.CONSTANT_METHOD_HANDLE:
+                    pool.writeByte(in.readUnsignedByte());
+                    pool.writeShort(in.readUnsignedShort());
+                    break;
+                case ClassFile.CONSTANT_INTEGER:
+                case ClassFile.CONSTANT_FLOAT:
+                case ClassFile.CONSTANT_FIELDREF:
+                case ClassFile.CONSTANT_METHODREF:
+                case ClassFile.CONSTANT_INTERFACE_METHODREF:
+                case ClassFile.CONSTANT_NAME_AND_TYPE:
+                case ClassFile.CONSTANT_DYNAMIC:
+                case ClassFile.CONSTANT_INVOKE_DYNAMIC:
+                    pool.writeInt(in.readInt());
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag + " at " + i);
+            }
+        }
+        int next = count;
+        int meterName = next++;
+        pool.writeByte(ClassFile.CONSTANT_UTF8);
+        pool.writeUTF(meter);
+        int meterClass = next++;
+        pool.writeByte(ClassFile.CONSTANT_CLASS);
+        pool.writeShort(meterName);
+        int chargeRef = methodRef(pool, next, meterClass, CHARGE, CHARGE_DESCRIPTOR);
+        next += 4;
+        int checkRef = methodRef(pool, next, meterClass, CHECK, CHECK_DESCRIPTOR);
+        next += 4;
+        if (next > 0xFFFF) {
+            throw new IOException("Constant pool too large to meter");
+        }
+        out.writeShort(next);
+        poolBuffer.writeTo(out);
+
+        Metering metering = new Metering(chargeRef, checkRef);
+        out.writeShort(in.readUnsignedShort()); // access
+        out.writeShort(in.readUnsignedShort()); // this
+        out.writeShort(in.readUnsignedShort()); // super
+        int interfaces = in.readUnsignedShort();
+        out.writeShort(interfaces);
+        for (int i = 0; i < interfaces; i++) {
+            out.writeShort(in.readUnsignedShort());
+        }
+        copyMembers(in, out, utf8, null);
+        copyMembers(in, out, utf8, metering);
+        // class attributes
+        byte[] rest = new byte[in.available()];
+        in.readFully(rest);
+        out.write(rest);
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    // Appends Utf8 name, Utf8 descriptor, NameAndType and Methodref, returns the Methodref index
+    private static int methodRef(DataOutputStream pool, int index, int owner, String name, String descriptor)
+            throws IOException {
+        pool.writeByte(ClassFile.CONSTANT_UTF8);
+        pool.writeUTF(name);
+        pool.writeByte(ClassFile.CONSTANT_UTF8);
+        pool.writeUTF(descriptor);
+        pool.writeByte(ClassFile.CONSTANT_NAME_AND_TYPE);
+        pool.writeShort(index);
+        pool.writeShort(index + 1);
+        pool.writeByte(ClassFile.CONSTANT_METHODREF);
+        pool.writeShort(owner);
+        pool.writeShort(index + 2);
+        return index + 3;
+    }
+
+    // Copies fields or methods, rewriting the Code attributes if metering is given
+    private static void copyMembers(DataInputStream in, DataOutputStream out, String[] utf8, Metering metering)
+            throws IOException {
+        int count = in.readUnsignedShort();
+        out.writeShort(count);
+        for (int i = 0; i < count; i++) {
+            out.writeShort(in.readUnsignedShort()); // access
+            out.writeShort(in.readUnsignedShort()); // name
+            out.writeShort(in.readUnsignedShort()); // descriptor
+            int attributes = in.readUnsignedShort();
+            out.writeShort(attributes);
+            for (int a = 0; a < attributes; a++) {
+                int name = in.readUnsignedShort();
+                byte[] content = new byte[in.readInt()];
+                in.readFully(content);
+                if (metering != null && "Code".equals(utf8[name])) {
+                    content = metering.rewriteCode(content, utf8);
+                }
+                out.writeShort(name);
+                out.writeInt(content.length);
+                out.write(content);
+            }
+        }
+    }
+
+    private byte[] rewriteCode(byte[] attribute, String[] utf8) throws IOException {
+        DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(attribute));
+        int maxStack = in.readUnsignedShort();
+        int maxLocals = in.readUnsignedShort();
+        byte[] code = new byte[in.readInt()];
+        in.readFully(code);
+        int[] exceptions = new int[in.readUnsignedShort() * 4];
+        for (int i = 0; i < exceptions.length; i++) {
+            exceptions[i] = in.readUnsignedShort();
+        }
+
+        Layout layout = new Layout(code, exceptions);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        // the block cost is pushed before charging, one more stack entry
+        out.writeShort(Math.min(0xFFFF, maxStack + 1));
+        out.writeShort(maxLocals);
+        out.writeInt(layout.length);
+        layout.emit(out, chargeRef, checkRef);
+        out.writeShort(exceptions.length / 4);
+        for (int i = 0; i < exceptions.length; i += 4) {
+            out.writeShort(layout.start[exceptions[i]]);
+            out.writeShort(layout.start[exceptions[i + 1]]);
+            out.writeShort(layout.start[exceptions[i + 2]]);
+            out.writeShort(exceptions[i + 3]);
+        }
+
+        int attributes = in.readUnsignedShort();
+        ByteArrayOutputStream kept = new ByteArrayOutputStream();
+        DataOutputStream keptOut = new DataOutputStream(kept);
+        int keptCount = 0;
+        for (int a = 0; a < attributes; a++) {
+            int name = in.readUnsignedShort();
+            byte[] content = new byte[in.readInt()];
+            in.readFully(content);
+            String attributeName = utf8[name];
+            if ("StackMapTable".equals(attributeName)) {
+                content = layout.rewriteFrames(content);
+            } else if ("LineNumberTable".equals(attributeName)) {
+                content = layout.rewriteLineNumbers(content);
+            } else if ("LocalVariableTable".equals(attributeName)
+                    || "LocalVariableTypeTable".equals(attributeName)) {
+                content = layout.rewriteLocalVariables(content);
+            } else {
+                continue;
+            }
+            keptOut.writeShort(name);
+            keptOut.writeInt(content.length);
+            keptOut.write(content);
+            keptCount++;
+        }
+        out.writeShort(keptCount);
+        kept.writeTo(out);
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    /**
+     * The instructions of a method, the code inserted before each of them and their
+     * offsets once rewritten.
+     */
+    private static final class Layout {
+        private final byte[] code;
+        // Cost charged before the instruction, 0 if it does not start a block
+        private final int[] cost;
+        // Whether a check is inserted before the instruction
+        private final boolean[] check;
+        // New offset of the code inserted before each instruction, -1 inside instructions
+        final int[] start;
+        // New offset of each instruction itself
+        private final int[] moved;
+        final int length;
+
+        Layout(byte[] code, int[] exceptions) throws IOException {
+            this.code = code;
+            int n = code.length;
+            boolean[] leader = new boolean[n + 1];
+            boolean[] boundary = new boolean[n + 1];
+            check = new boolean[n];
+            leader[0] = true;
+            for (int i = 2; i < exceptions.length; i += 4) {
+                leader[exceptions[i]] = true;
+            }
+            for (int pc = 0; pc < n; pc += Opcodes.length(code, pc)) {
+                boundary[pc] = true;
+                int opcode = code[pc] & 0xFF;
+                int end = pc + Opcodes.length(code, pc);
+                if (opcode == Opcodes.JSR || opcode == Opcodes.JSR_W || opcode == Opcodes.RET) {
+                    throw new IOException("Subroutines cannot be metered");
+                }
+                if (isBranch(opcode)) {
+                    int target = pc + branchOffset(code, pc);
+                    leader[target] = true;
+                    leader[end] = true;
+                    check[pc] = target <= pc;
+                } else if (opcode == Opcodes.TABLESWITCH || opcode == Opcodes.LOOKUPSWITCH) {
+                    for (int target : switchTargets(code, pc)) {
+                        leader[target] = true;
+                        check[pc] |= target <= pc;
+                    }
+                    leader[end] = true;
+                } else if (opcode >= Opcodes.INVOKEVIRTUAL && opcode <= Opcodes.INVOKEDYNAMIC) {
+                    check[pc] = true;
+                } else if ((opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN) || opcode == Opcodes.ATHROW) {
+                    leader[end] = true;
+                }
+            }
+            boundary[n] = true;
+            // blocks split where instructions start, a target inside one has no new offset
+            for (int pc = 0; pc <= n; pc++) {
+                if (leader[pc] && !boundary[pc]) {
+                    throw new IOException("Branch into the middle of an instruction");
+                }
+            }
+
+            // cost of each block: its number of instructions
+            cost = new int[n];
+            int blockStart = 0;
+            for (int pc = 0; pc < n; pc += Opcodes.length(code, pc)) {
+                if (leader[pc]) {
+                    blockStart = pc;
+                }
+                cost[blockStart]++;
+            }
+
+            // new offsets, switch padding depends on where the switch lands
+            start = new int[n + 1];
+            moved = new int[n];
+            java.util.Arrays.fill(start, -1);
+            int offset = 0;
+            for (int pc = 0; pc < n; pc += Opcodes.length(code, pc)) {
+                start[pc] = offset;
+                if (cost[pc] > 0) {
+                    offset += pushLength(cost[pc]) + INVOKESTATIC_LENGTH;
+                }
+                if (check[pc]) {
+                    offset += INVOKESTATIC_LENGTH;
+                }
+                moved[pc] = offset;
+                offset += newLength(pc, offset);
+            }
+            start[n] = offset;
+            length = offset;
+            if (length > 0xFFFF) {
+                throw new IOException("Method too large to meter");
+            }
+        }
+
+        void emit(DataOutputStream out, int chargeRef, int checkRef) throws IOException {
+            int n = code.length;
+            for (int pc = 0; pc < n; pc += Opcodes.length(code, pc)) {
+                if (cost[pc] > 0) {
+                    int blockCost = Math.min(cost[pc], Short.MAX_VALUE);
+                    if (blockCost <= 5) {
+                        out.writeByte(0x03 + blockCost);  // iconst_<n>
+                    } else if (blockCost <= Byte.MAX_VALUE) {
+                        out.writeByte(0x10);              // bipush
+                        out.writeByte(blockCost);
+                    } else {
+                        out.writeByte(0x11);              // sipush
+                        out.writeShort(blockCost);
+                    }
+                    out.writeByte(Opcodes.INVOKESTATIC);
+                    out.writeShort(chargeRef);
+                }
+                if (check[pc]) {
+                    out.writeByte(Opcodes.INVOKESTATIC);
+                    out.writeShort(checkRef);
+                }
+                int opcode = code[pc] & 0xFF;
+                if (isBranch(opcode)) {
+                    int offset = start[pc + branchOffset(code, pc)] - moved[pc];
+                    out.writeByte(opcode);
+                    if (opcode == Opcodes.GOTO_W) {
+                        out.writeInt(offset);
+                    } else if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                        throw new IOException("Branch too far to meter");
+                    } else {
+                        out.writeShort(offset);
+                    }
+                } else if (opcode == Opcodes.TABLESWITCH || opcode == Opcodes.LOOKUPSWITCH) {
+                    emitSwitch(out, pc);
+                } else {
+                    out.write(code, pc, Opcodes.length(code, pc));
+                }
+            }
+        }
+
+        private void emitSwitch(DataOutputStream out, int pc) throws IOException {
+            int opcode = code[pc] & 0xFF;
+            out.writeByte(opcode);
+            for (int i = padding(moved[pc]); i > 0; i--) {
+                out.writeByte(0);
+            }
+            int p = pc + 1 + padding(pc);
+            out.writeInt(start[pc + Opcodes.readInt(code, p)] - moved[pc]);
+            if (opcode == Opcodes.TABLESWITCH) {
+                int low = Opcodes.readInt(code, p + 4);
+                int high = Opcodes.readInt(code, p + 8);
+                out.writeInt(low);
+                out.writeInt(high);
+                for (int i = 0; i <= high - low; i++) {
+                    out.writeInt(start[pc + Opcodes.readInt(code, p + 12 + 4 * i)] - moved[pc]);
+                }
+            } else {
+                int pairs = Opcodes.readInt(code, p + 4);
+                out.writeInt(pairs);
+                for (int i = 0; i < pairs; i++) {
+                    out.writeInt(Opcodes.readInt(code, p + 8 + 8 * i));
+                    out.writeInt(start[pc + Opcodes.readInt(code, p + 12 + 8 * i)] - moved[pc]);
+                }
+            }
+        }
+
+        private int newLength(int pc, int newPc) {
+            int opcode = code[pc] & 0xFF;
+            int oldLength = Opcodes.length(code, pc);
+            if (opcode != Opcodes.TABLESWITCH && opcode != Opcodes.LOOKUPSWITCH) {
+                return oldLength;
+            }
+            return oldLength - padding(pc) + padding(newPc);
+        }
+
+        byte[] rewriteFrames(byte[] table) throws IOException {
+            DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(table));
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(buffer);
+            int count = in.readUnsignedShort();
+            out.writeShort(count);
+            int previous = -1;
+            int previousNew = -1;
+            for (int i = 0; i < count; i++) {
+                int type = in.readUnsignedByte();
+                int delta;
+                if (type < 64) {
+                    delta = type;
+                } else if (type < 128) {
+                    delta = type - 64;
+                } else if (type >= 247) {
+                    delta = in.readUnsignedShort();
+                } else {
+                    throw new IOException("Unknown stack map frame type " + type);
+                }
+                int offset = previous + delta + 1;
+                int newOffset = start[offset];
+                int newDelta = newOffset - previousNew - 1;
+                previous = offset;
+                previousNew = newOffset;
+
+                if (type < 64 || type == 251) {
+                    if (newDelta < 64) {
+                        out.writeByte(newDelta);
+                    } else {
+                        out.writeByte(251);
+                        out.writeShort(newDelta);
+                    }
+                } else if (type < 128 || type == 247) {
+                    if (newDelta < 64) {
+                        out.writeByte(64 + newDelta);
+                    } else {
+                        out.writeByte(247);
+                        out.writeShort(newDelta);
+                    }
+                    copyVerificationTypes(in, out, 1);
+                } else if (type < 251) {
+                    out.writeByte(type);
+                    out.writeShort(newDelta);
+                } else if (type < 255) {
+                    out.writeByte(type);
+                    out.writeShort(newDelta);
+                    copyVerificationTypes(in, out, type - 251);
+                } else {
+                    out.writeByte(type);
+                    out.writeShort(newDelta);
+                    int locals = in.readUnsignedShort();
+                    out.writeShort(locals);
+                    copyVerificationTypes(in, out, locals);
+                    int stack = in.readUnsignedShort();
+                    out.writeShort(stack);
+                    copyVerificationTypes(in, out, stack);
+                }
+            }
+            out.flush();
+            return buffer.toByteArray();
+        }
+
+        private void copyVerificationTypes(DataInputStream in, DataOutputStream out, int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                out.writeByte(tag);
+                if (tag == 7) {
+                    out.writeShort(in.readUnsignedShort());    // Object, constant pool index
+                } else if (tag == 8) {
+                    out.writeShort(moved[in.readUnsignedShort()]); // Uninitialized, offset of the new
+                }
+            }
+        }
+
+        byte[] rewriteLineNumbers(byte[] table) throws IOException {
+            DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(table));
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(buffer);
+            int count = in.readUnsignedShort();
+            out.writeShort(count);
+            for (int i = 0; i < count; i++) {
+                out.writeShort(start[in.readUnsignedShort()]);
+                out.writeShort(in.readUnsignedShort());
+            }
+            out.flush();
+            return buffer.toByteArray();
+        }
+
+        byte[] rewriteLocalVariables(byte[] table) throws IOException {
+            DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(table));
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(buffer);
+            int count = in.readUnsignedShort();
+            out.writeShort(count);
+            for (int i = 0; i < count; i++) {
+                int from = in.readUnsignedShort();
+                int to = from + in.readUnsignedShort();
+                out.writeShort(start[from]);
+                out.writeShort(start[to] - start[from]);
+                out.writeShort(in.readUnsignedShort()); // name
+                out.writeShort(in.readUnsignedShort()); // descriptor or signature
+                out.writeShort(in.readUnsignedShort()); // index
+            }
+            out.flush();
+            return buffer.toByteArray();
+        }
+    }
+
+    private static boolean isBranch(int opcode) {
+        return (opcode >= Opcodes.IFEQ && opcode <= Opcodes.GOTO)
+            || opcode == Opcodes.IFNULL || opcode == Opcodes.IFNONNULL || opcode == Opcodes.GOTO_W;
+    }
+
+    private static int branchOffset(byte[] code, int pc) {
+        if ((code[pc] & 0xFF) == Opcodes.GOTO_W) {
+            return Opcodes.readInt(code, pc + 1);
+        }
+        return (short) Opcodes.readUnsignedShort(code, pc + 1);
+    }
+
+    private static int[] switchTargets(byte[] code, int pc) {
+        int p = pc + 1 + padding(pc);
+        int[] targets;
+        if ((code[pc] & 0xFF) == Opcodes.TABLESWITCH) {
+            int low = Opcodes.readInt(code, p + 4);
+            int high = Opcodes.readInt(code, p + 8);
+            targets = new int[high - low + 2];
+            for (int i = 0; i <= high - low; i++) {
+                targets[i + 1] = pc + Opcodes.readInt(code, p + 12 + 4 * i);
+            }
+        } else {
+            int pairs = Opcodes.readInt(code, p + 4);
+            targets = new int[pairs + 1];
+            for (int i = 0; i < pairs; i++) {
+                targets[i + 1] = pc + Opcodes.readInt(code, p + 12 + 8 * i);
+            }
+        }
+        targets[0] = pc + Opcodes.readInt(code, p);
+        return targets;
+    }
+
+    // Bytes of padding after a switch opcode at the given offset
+    private static int padding(int pc) {
+        return (4 - ((pc + 1) & 3)) & 3;
+    }
+
+    private static int pushLength(int cost) {
+        return cost <= 5 ? 1 : cost <= Byte.MAX_VALUE ? 2 : 3;
+    }
+}
@@ -0,0 +1,135 @@
+package java.lang.bytecode;
+
+/**
+ * Opcodes of the JVM instructions inspected by the runtime, and the length of
+ * every instruction.
+ */
+public final class Opcodes {
+
+    public static final int IINC = 0x84;
+    public static final int IFEQ = 0x99;
+    public static final int GOTO = 0xa7;
+    public static final int JSR = 0xa8;
+    public static final int RET = 0xa9;
+    public static final int TABLESWITCH = 0xaa;
+    public static final int LOOKUPSWITCH = 0xab;
+    public static final int IRETURN = 0xac;
+    public static final int RETURN = 0xb1;
+    public static final int GETSTATIC = 0xb2;
+    public static final int PUTSTATIC = 0xb3;
+    public static final int GETFIELD = 0xb4;
+    public static final int PUTFIELD = 0xb5;
+    public static final int INVOKEVIRTUAL = 0xb6;
+    public static final int INVOKESPECIAL = 0xb7;
+    public static final int INVOKESTATIC = 0xb8;
+    public static final int INVOKEINTERFACE = 0xb9;
+    public static final int INVOKEDYNAMIC = 0xba;
+    public static final int NEW = 0xbb;
+    public static final int NEWARRAY = 0xbc;
+    public static final int ANEWARRAY = 0xbd;
+    public static final int ATHROW = 0xbf;
+    public static final int MONITORENTER = 0xc2;
+    public static final int MONITOREXIT = 0xc3;
+    public static final int WIDE = 0xc4;
+    public static final int MULTIANEWARRAY = 0xc5;
+    public static final int IFNULL = 0xc6;
+    public static final int IFNONNULL = 0xc7;
+    public static final int GOTO_W = 0xc8;
+    public static final int JSR_W = 0xc9;
+
+    // Length of each fixed-size instruction, 0 for variable-size or undefined opcodes
+    private static final byte[] LENGTHS = new byte[256];
+
+    static {
+        fill(0x00, 0x0f, 1);  // nop, constants
+        LENGTHS[0x10] = 2;    // bipush
+        LENGTHS[0x11] = 3;    // sipush
+        LENGTHS[0x12] = 2;    // ldc
+        fill(0x13, 0x14, 3);  // ldc_w, ldc2_w
+        fill(0x15, 0x19, 2);  // loads with index
+        fill(0x1a, 0x35, 1);  // loads, array loads
+        fill(0x36, 0x3a, 2);  // stores with index
+        fill(0x3b, 0x83, 1);  // stores, array stores, stack, arithmetic
+        LENGTHS[IINC] = 3;
+        fill(0x85, 0x98, 1);  // conversions, comparisons
+        fill(IFEQ, JSR, 3);   // branches
+        LENGTHS[RET] = 2;
+        fill(IRETURN, RETURN, 1);
+        fill(GETSTATIC, INVOKESTATIC, 3);
+        fill(INVOKEINTERFACE, INVOKEDYNAMIC, 5);
+        LENGTHS[NEW] = 3;
+        LENGTHS[NEWARRAY] = 2;
+        LENGTHS[ANEWARRAY] = 3;
+        fill(0xbe, ATHROW, 1); // arraylength, athrow
+        fill(0xc0, 0xc1, 3);   // checkcast, instanceof
+        fill(MONITORENTER, MONITOREXIT, 1);
+        LENGTHS[MULTIANEWARRAY] = 4;
+        fill(IFNULL, IFNONNULL, 3);
+        fill(GOTO_W, JSR_W, 5);
+    }
+
+    private Opcodes() {
+    }
+
+    /**
+     * Returns the length of the instruction at a given offset.
+     *
+     * @param code The bytecode of a method.
+     * @param pc The offset of the instruction.
+     * @return The length of the instruction in bytes.
+     * @throws IllegalArgumentException if the opcode is not defined.
+     */
+    public static int length(byte[] code, int pc) {
+        int opcode = code[pc] & 0xFF;
+        int length = LENGTHS[opcode];
+        if (length != 0) {
+            return length;
+        }
+        switch (opcode) {
+            case TABLESWITCH: {
+                int base = (pc + 4) & ~3; // operands are 4-byte aligned
+                int low = readInt(code, base + 4);
+                int high = readInt(code, base + 8);
+                return base - pc + 12 + 4 * (high - low + 1);
+            }
+            case LOOKUPSWITCH: {
+                int base = (pc + 4) & ~3;
+                int pairs = readInt(code, base + 4);
+                return base - pc + 8 + 8 * pairs;
+            }
+            case WIDE:
+                return (code[pc + 1] & 0xFF) == IINC ? 6 : 4;
+            default:
+                throw new IllegalArgumentException("Undefined opcode " + opcode + " at " + pc);
+        }
+    }
+
+    /**
+     * Reads the unsigned 16-bit operand at a given offset.
+     *
+     * @param code The bytecode of a method.
+     * @param offset The offset of the operand.
+     * @return The operand.
+     */
+    public static int readUnsignedShort(byte[] code, int offset) {
+        return ((code[offset] & 0xFF) << 8) | (code[offset + 1] & 0xFF);
+    }
+
+    /**
+     * Reads the signed 32-bit operand at a given offset.
+     *
+     * @param code The bytecode of a method.
+     * @param offset The offset of the operand.
+     * @return The operand.
+     */
+    public static int readInt(byte[] code, int offset) {
+        return ((code[offset] & 0xFF) << 24) | ((code[offset + 1] & 0xFF) << 16)
+             | ((code[offset + 2] & 0xFF) << 8) | (code[offset + 3] & 0xFF);
+    }
+
+    private static void fill(int from, int to, int length) {
+        for (int i = from; i <= to; i++) {
+            LENGTHS[i] = (byte) length;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package java.lang.contract;
+
+import java.lang.rlp.RlpDecoder;
+import java.lang.rlp.RlpEncoder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes the state-changing calls of a block in parallel, with the result of
+ * executing them one after the other, in the style of Block-STM.
+ *
+ * <ol>
+ * <li>Every transaction runs speculatively on a worker, against the snapshot the
+ *     block starts from and whatever earlier transactions have written so far.
+ *     Reads and writes are recorded per (slot, key) by a {@link BlockTransaction}.</li>
+ * <li>Transactions are then validated in block order: once all earlier transactions
+ *     are final, a transaction whose reads are still current is final too; any other
+ *     is executed again, now against the final writes of the earlier ones.</li>
+ * <li>The final writes are sent to the host in block order, then the events, as
+ *     one RLP list with a [bloom, events] list per transaction (see {@link EventLog})
+ *     and the union of their blooms.</li>
+ * </ol>
+ * Transfers between disjoint holders read and write disjoint keys, so they are all
+ * final after the first step. A failed transaction writes nothing and has no events.
+ */
+final class BlockExecutor {
+
+    private final ThreadPoolExecutor workers;
+
+    // Transactions executed more than once in the last block
+    private int reexecuted;
+
+    // [bloom, events] of each transaction of the last block
+    private byte[][] lastLogs = new byte[0][];
+
+    /**
+     * Constructs an executor and starts its workers.
+     *
+     * @param threads The number of worker threads.
+     */
+    BlockExecutor(int threads) {
+        workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                         new LinkedBlockingQueue<Runnable>());
+        // the first batch should not pay for starting the threads
+        workers.prestartAllCoreThreads();
+    }
+
+    /**
+     * Executes a block and commits its writes.
+     *
+     * @param calls The transactions, in block order.
+     * @return The result of each transaction.
+     */
+    List<Result<byte[]>> execute(List<ViewScheduler.Call> calls) {
+        ViewScheduler.prepare(calls);
+        final int count = calls.size();
+        final BlockTransaction.VersionedStore store = new BlockTransaction.VersionedStore();
+        final StripedReadCache snapshot = new StripedReadCache();
+        final BlockTransaction[] runs = new BlockTransaction[count];
+        final List<Result<byte[]>> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(null);
+        }
+        reexecuted = 0;
+
+        // 1. speculative execution
+        List<Future<?>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            futures.add(workers.submit(() -> run(calls.get(index), index, 0, store, snapshot, runs, results)));
+        }
+        for (Future<?> future : futures) {
+            await(future);
+        }
+        // 2. validation in block order
+        for (int i = 0; i < count; i++) {
+            if (!runs[i].validate()) {
+                reexecuted++;
+                final int index = i;
+                final int incarnation = runs[i].incarnation + 1;
+                await(workers.submit(() -> run(calls.get(index), index, incarnation, store, snapshot, runs, results)));
+            }
+        }
+
+        // 3. commit, a later write of a key replaces an earlier one
+        Map<Object, byte[]> writes = new LinkedHashMap<>();
+        for (BlockTransaction run : runs) {
+            writes.putAll(run.writes);
+        }
+        Storage.getStorage().apply(writes);
+        byte[][] logs = new byte[count][];
+        LogsBloom bloom = new LogsBloom();
+        boolean emitted = false;
+        for (int i = 0; i < count; i++) {
+            BlockTransaction run = runs[i];
+            emitted |= run.logs.length > 0;
+            bloom.or(new LogsBloom(run.logsBloom));
+            logs[i] = EventLog.list(RlpEncoder.encode(run.logsBloom, RlpDecoder.OFFSET_SHORT_STRING),
+                                    run.logs.length > 0 ? run.logs : EventLog.list());
+        }
+        if (emitted) {
+            Message.getMessage().setLogs(EventLog.list(logs), bloom.toByteArray());
+        }
+        lastLogs = logs;
+        return results;
+    }
+
+    /**
+     * Returns the number of transactions of the last block executed more than once.
+     */
+    int getReexecuted() {
+        return reexecuted;
+    }
+
+    /**
+     * Returns the [bloom, events] RLP list of each transaction of the last block.
+     */
+    byte[][] getLogs() {
+        return lastLogs;
+    }
+
+    /**
+     * Stops the workers.
+     */
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Executes one incarnation of a transaction on the current worker thread and
+     * publishes its writes.
+     */
+    private static void run(ViewScheduler.Call call, int index, int incarnation,
+                            BlockTransaction.VersionedStore store, StripedReadCache snapshot,
+                            BlockTransaction[] runs, List<Result<byte[]>> results) {
+        BlockTransaction tx = new BlockTransaction(index, incarnation, store);
+        Message msg = new Message(call.context, true);
+        ExecutionContext previous = ExecutionContext.enter(msg);
+        Storage storage = ExecutionContext.current().getStorage();
+        storage.share(snapshot);
+        storage.attach(tx);
+        Result<byte[]> result;
+        try {
+            MainCaller.call(call.contractClass);
+            result = msg.getSuccess()
+                ? Result.ok(msg.getOutput())
+                : Result.<byte[]>fail(new Error(msg.getOutput()));
+        } finally {
+            ExecutionContext.exit(previous);
+        }
+        if (result.isFailure()) {
+            tx.discardWrites();
+        } else {
+            tx.logs = msg.getLogs();
+            tx.logsBloom = msg.getLogsBloom();
+        }
+        BlockTransaction earlier = runs[index];
+        runs[index] = tx;
+        results.set(index, result);
+        store.publish(tx, earlier == null ? null : earlier.writes);
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Block execution interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Block execution failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package java.lang.contract;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * One execution (incarnation) of a transaction of a block run by {@link BlockExecutor}.
+ *
+ * Reads see the transaction's own writes first, then the latest value written by an
+ * earlier transaction of the block, then the snapshot the block started from. The
+ * version of every value read is recorded so that the read set can be validated
+ * once the earlier transactions are final. Writes stay in the write set until the
+ * block commits.
+ */
+final class BlockTransaction {
+
+    /** Returned by {@link #read} when the value comes from the snapshot. */
+    static final byte[] SNAPSHOT = new byte[0];
+
+    /** Version of a value read from the snapshot. */
+    static final long SNAPSHOT_VERSION = -1L;
+
+    /**
+     * Values written by the transactions of a block, by key and transaction index.
+     */
+    static final class VersionedStore {
+
+        private final ConcurrentHashMap<Object, ConcurrentSkipListMap<Integer, Object[]>> entries = new ConcurrentHashMap<>();
+
+        /**
+         * Returns the latest write of a key by a transaction before the given one,
+         * as {version, value}, or null if none.
+         */
+        Object[] latestBefore(int index, Object key) {
+            ConcurrentSkipListMap<Integer, Object[]> writes = entries.get(key);
+            if (writes == null) {
+                return null;
+            }
+            Map.Entry<Integer, Object[]> entry = writes.lowerEntry(index);
+            return entry == null ? null : entry.getValue();
+        }
+
+        /**
+         * Returns the version of the value a transaction should read for a key.
+         */
+        long versionBefore(int index, Object key) {
+            Object[] latest = latestBefore(index, key);
+            return latest == null ? SNAPSHOT_VERSION : (Long) latest[0];
+        }
+
+        /**
+         * Replaces the writes of a transaction by those of its latest execution.
+         */
+        void publish(BlockTransaction tx, Map<Object, byte[]> previous) {
+            if (previous != null) {
+                for (Object key : previous.keySet()) {
+                    if (!tx.writes.containsKey(key)) {
+                        entries.get(key).remove(tx.index);
+                    }
+                }
+            }
+            long version = version(tx.index, tx.incarnation);
+            for (Map.Entry<Object, byte[]> write : tx.writes.entrySet()) {
+                ConcurrentSkipListMap<Integer, Object[]> writes = entries.get(write.getKey());
+                if (writes == null) {
+                    ConcurrentSkipListMap<Integer, Object[]> created = new ConcurrentSkipListMap<>();
+                    writes = entries.putIfAbsent(write.getKey(), created);
+                    if (writes == null) {
+                        writes = created;
+                    }
+                }
+                writes.put(tx.index, new Object[] {version, write.getValue()});
+            }
+        }
+    }
+
+    final int index;
+    final int incarnation;
+    private final VersionedStore store;
+
+    // Version of every key read below the write set, see validate
+    final Map<Object, Long> reads = new HashMap<>();
+
+    // Values written, in order
+    final Map<Object, byte[]> writes = new LinkedHashMap<>();
+
+    // Events of a successful run and their bloom, empty if it emitted none
+    byte[] logs = new byte[0];
+    byte[] logsBloom = new byte[LogsBloom.BYTES];
+
+    BlockTransaction(int index, int incarnation, VersionedStore store) {
+        this.index = index;
+        this.incarnation = incarnation;
+        this.store = store;
+    }
+
+    /**
+     * Reads a key.
+     *
+     * @param key The slot (Integer) or mapping entry key.
+     * @return The value, or {@link #SNAPSHOT} if it is to be read from the snapshot.
+     */
+    byte[] read(Object key) {
+        if (writes.containsKey(key)) {
+            return writes.get(key);
+        }
+        Object[] latest = store.latestBefore(index, key);
+        if (!reads.containsKey(key)) {
+            reads.put(key, latest == null ? SNAPSHOT_VERSION : (Long) latest[0]);
+        }
+        return latest == null ? SNAPSHOT : (byte[]) latest[1];
+    }
+
+    /**
+     * Writes a key.
+     *
+     * @param key The slot (Integer) or mapping entry key.
+     * @param value The value.
+     */
+    void write(Object key, byte[] value) {
+        writes.put(key, value);
+    }
+
+    /**
+     * Drops the writes, for a transaction that failed.
+     */
+    void discardWrites() {
+        writes.clear();
+    }
+
+    /**
+     * Returns true if every value read is still the one the transaction should
+     * read, i.e. no earlier transaction wrote a key since, or stopped writing it.
+     */
+    boolean validate() {
+        for (Map.Entry<Object, Long> read : reads.entrySet()) {
+            if (store.versionBefore(index, read.getKey()) != read.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long version(int index, int incarnation) {
+        return ((long) index << 32) | (incarnation & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,276 @@
+package java.lang.contract;
+
+import java.lang.rlp.RlpEncoder;
+import java.lang.rlp.RlpList;
+import java.lang.rlp.RlpString;
+import java.lang.rlp.RlpType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Execution metrics of a single contract call: storage operations and bytes by
+ * kind, keccak invocations, RLP bytes decoded and encoded, bytes allocated by the
+ * calling thread, gas used and the time spent in each phase of {@link MainCaller}.
+ *
+ * The metrics of the call running on the current thread are kept in its
+ * {@link ExecutionContext} and available through {@link #current()} and
+ * {@link Message#getMetrics()}. After the call the host reads
+ * them from there, or as an RLP list of counters through {@link #toByteArray()}.
+ */
+public final class CallMetrics {
+
+    // Source of per-thread allocation counts, null if the JVM does not provide one
+    private static final com.sun.management.ThreadMXBean THREADS = threadMXBean();
+
+    long fixedReads;
+    long fixedWrites;
+    long fixedBytesRead;
+    long fixedBytesWritten;
+
+    long mappingReads;
+    long mappingWrites;
+    long mappingBytesRead;
+    long mappingBytesWritten;
+
+    long dynamicReads;
+    long dynamicWrites;
+    long dynamicBytesRead;
+    long dynamicBytesWritten;
+
+    long keccakCount;
+
+    long rlpBytesDecoded;
+    long rlpBytesEncoded;
+
+    long allocatedBytes;
+
+    long gasUsed;
+
+    long dispatchNanos;
+    long beforeCallNanos;
+    long executeCallNanos;
+    long afterCallNanos;
+
+    /**
+     * Constructs a new CallMetrics with all counters at zero.
+     */
+    public CallMetrics() {
+    }
+
+    /**
+     * Returns the metrics of the running call.
+     *
+     * @return The metrics of the running call.
+     */
+    public static CallMetrics current() {
+        return ExecutionContext.current().getMetrics();
+    }
+
+    /**
+     * Starts a new set of metrics for the call about to run.
+     *
+     * @return The metrics of the new call.
+     */
+    static CallMetrics begin() {
+        CallMetrics metrics = new CallMetrics();
+        metrics.allocatedBytes = allocatedBytes();
+        ExecutionContext.current().setMetrics(metrics);
+        return metrics;
+    }
+
+    /**
+     * Completes the metrics of the running call.
+     */
+    void end() {
+        long allocated = allocatedBytes();
+        allocatedBytes = allocated < 0 || allocatedBytes < 0 ? -1 : allocated - allocatedBytes;
+    }
+
+    /**
+     * Counts a read of a fixed slot.
+     *
+     * @param value The value read, may be null.
+     */
+    public void fixedRead(byte[] value) {
+        fixedReads++;
+        fixedBytesRead += value == null ? 0 : value.length;
+    }
+
+    /**
+     * Counts a write of a fixed slot.
+     *
+     * @param value The value written.
+     */
+    public void fixedWrite(byte[] value) {
+        fixedWrites++;
+        fixedBytesWritten += value == null ? 0 : value.length;
+    }
+
+    /**
+     * Counts a read of a mapping entry.
+     *
+     * @param value The value read, may be null.
+     */
+    public void mappingRead(byte[] value) {
+        mappingReads++;
+        mappingBytesRead += value == null ? 0 : value.length;
+    }
+
+    /**
+     * Counts a write of a mapping entry.
+     *
+     * @param value The value written.
+     */
+    public void mappingWrite(byte[] value) {
+        mappingWrites++;
+        mappingBytesWritten += value == null ? 0 : value.length;
+    }
+
+    /**
+     * Counts a read of a dynamic value header or chunk (string, bytes).
+     *
+     * @param value The value read, may be null.
+     */
+    public void dynamicRead(byte[] value) {
+        dynamicReads++;
+        dynamicBytesRead += value == null ? 0 : value.length;
+    }
+
+    /**
+     * Counts a write of a dynamic value header or chunk (string, bytes).
+     *
+     * @param value The value written.
+     */
+    public void dynamicWrite(byte[] value) {
+        dynamicWrites++;
+        dynamicBytesWritten += value == null ? 0 : value.length;
+    }
+
+    /**
+     * Counts a keccak256 invocation.
+     */
+    public void keccak() {
+        keccakCount++;
+    }
+
+    /**
+     * Counts RLP bytes decoded.
+     *
+     * @param bytes The number of bytes decoded.
+     */
+    public void rlpDecoded(int bytes) {
+        rlpBytesDecoded += bytes;
+    }
+
+    /**
+     * Counts RLP bytes encoded.
+     *
+     * @param bytes The number of bytes encoded.
+     */
+    public void rlpEncoded(int bytes) {
+        rlpBytesEncoded += bytes;
+    }
+
+    public long getFixedReads() { return fixedReads; }
+    public long getFixedWrites() { return fixedWrites; }
+    public long getFixedBytesRead() { return fixedBytesRead; }
+    public long getFixedBytesWritten() { return fixedBytesWritten; }
+    public long getMappingReads() { return mappingReads; }
+    public long getMappingWrites() { return mappingWrites; }
+    public long getMappingBytesRead() { return mappingBytesRead; }
+    public long getMappingBytesWritten() { return mappingBytesWritten; }
+    public long getDynamicReads() { return dynamicReads; }
+    public long getDynamicWrites() { return dynamicWrites; }
+    public long getDynamicBytesRead() { return dynamicBytesRead; }
+    public long getDynamicBytesWritten() { return dynamicBytesWritten; }
+    public long getKeccakCount() { return keccakCount; }
+    public long getRlpBytesDecoded() { return rlpBytesDecoded; }
+    public long getRlpBytesEncoded() { return rlpBytesEncoded; }
+
+    /**
+     * Returns the bytes allocated by the calling thread during the call,
+     * or -1 if the JVM does not measure allocations.
+     */
+    public long getAllocatedBytes() { return allocatedBytes; }
+
+    /**
+     * Returns the gas used by the call, see {@link Gas}.
+     */
+    public long getGasUsed() { return gasUsed; }
+
+    /**
+     * Returns the time spent between receiving the input and invoking the
+     * method: parameter decoding, selector lookup and argument conversion.
+     */
+    public long getDispatchNanos() { return dispatchNanos; }
+    public long getBeforeCallNanos() { return beforeCallNanos; }
+    public long getExecuteCallNanos() { return executeCallNanos; }
+    public long getAfterCallNanos() { return afterCallNanos; }
+
+    /**
+     * Encodes all counters, in the order of the getters of this class, as an RLP list.
+     *
+     * @return The RLP encoded counters.
+     */
+    public byte[] toByteArray() {
+        long[] values = {
+            fixedReads, fixedWrites, fixedBytesRead, fixedBytesWritten,
+            mappingReads, mappingWrites, mappingBytesRead, mappingBytesWritten,
+            dynamicReads, dynamicWrites, dynamicBytesRead, dynamicBytesWritten,
+            keccakCount, rlpBytesDecoded, rlpBytesEncoded, allocatedBytes, gasUsed,
+            dispatchNanos, beforeCallNanos, executeCallNanos, afterCallNanos
+        };
+        List<RlpType> list = new ArrayList<>(values.length);
+        for (long value : values) {
+            list.add(RlpString.create(value));
+        }
+        return RlpEncoder.encode(new RlpList(list));
+    }
+
+    @Override
+    public String toString() {
+        return "CallMetrics{" +
+                "fixed=" + fixedReads + "r/" + fixedWrites + "w " + fixedBytesRead + "B/" + fixedBytesWritten + "B" +
+                ", mapping=" + mappingReads + "r/" + mappingWrites + "w " + mappingBytesRead + "B/" + mappingBytesWritten + "B" +
+                ", dynamic=" + dynamicReads + "r/" + dynamicWrites + "w " + dynamicBytesRead + "B/" + dynamicBytesWritten + "B" +
+                ", keccak=" + keccakCount +
+                ", rlp=" + rlpBytesDecoded + "B in/" + rlpBytesEncoded + "B out" +
+                ", allocated=" + allocatedBytes + "B" +
+                ", gas=" + gasUsed +
+                ", dispatch=" + dispatchNanos + "ns" +
+                ", beforeCall=" + beforeCallNanos + "ns" +
+                ", executeCall=" + executeCallNanos + "ns" +
+                ", afterCall=" + afterCallNanos + "ns" +
+                '}';
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1 if unknown.
+     */
+    private static long allocatedBytes() {
+        if (THREADS == null) {
+            return -1;
+        }
+        try {
+            return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        } catch (UnsupportedOperationException | SecurityException e) {
+            return -1;
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        try {
+            java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported()) {
+                    threads.setThreadAllocatedMemoryEnabled(true);
+                    return threads;
+                }
+            }
+        } catch (Throwable e) {
+            // allocation metrics are optional
+        }
+        return null;
+    }
+}
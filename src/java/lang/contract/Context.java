@@ -14,19 +14,27 @@ import java.lang.uint256;
 public abstract class Context {
 
     // Message is a class that contains the sender of the transaction and its data.
-    protected final Message msg = Message.getMessage();
+    // Rebound to the message of each call when the contract instance is reused.
+    protected Message msg = Message.getMessage();
 
     // Storage is a class that contains the storage of the contract.
-    protected final Storage storage = Storage.getStorage();
+    // Rebound with the message, both come from the ExecutionContext of the call.
+    protected Storage storage = Storage.getStorage();
+
+    // Binds the contract to the message and storage of the current call.
+    final void bind(Message msg, Storage storage) {
+        this.msg = msg;
+        this.storage = storage;
+    }
 
     // Returns the sender of the transaction.
     protected final address _msgSender() {
-        return msg.sender;
+        return msg.getSender();
     }
 
     // Returns the data of the transaction.
     protected final byte[] _msgData() {
-        return msg.data;
+        return msg.getData();
     }
 
     // Returns the length of the context suffix.
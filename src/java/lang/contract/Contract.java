@@ -4,6 +4,9 @@ package java.lang.contract;
 
 public abstract class Contract extends Context
 {
+    // Field values right after construction, set when the instance is created by the ContractPool
+    transient StorageLayout.Snapshot pooled;
+
     // constructor
     public Contract() {
         super();
@@ -13,31 +16,33 @@ public abstract class Contract extends Context
     /**
      * Requires the given condition to be true.
      * @param condition The condition to check.
-     * @param message The message to throw if the condition is false.
+     * @param message The reason of the revert if the condition is false.
      * @return no return.
     */
     public final static void require(boolean condition, String message) {
         if (!condition) {
-            throw new AssertionError(new RuntimeException(message));
+            throw new Revert(message);
         }
     }
   
     /**
      * Reverts the transaction with the given exception.
+     * A {@link Revert} is thrown as is, any other exception reverts with its message.
      * @param re The exception to throw.
      * @return no return.
     */
     public final static void revert(RuntimeException re) {
-        throw new Revert(re.getMessage()); 
+        throw re instanceof Revert ? (Revert) re : new Revert(re.getMessage()); 
     }
 
     /**
-     * Emits an event.  
+     * Emits an event. The event is buffered and handed to the host when the call
+     * succeeds, or dropped if it fails, see {@link EventLog}.
      * @param el The event to emit.
      * @return no return.
     */
     public final static void emit(Event el) {
-        System.out.println(el.getMessage());
+        ExecutionContext.current().getEvents().add(el);
     }
 
 
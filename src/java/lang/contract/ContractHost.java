@@ -0,0 +1,372 @@
+package java.lang.contract;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.lang.rlp.RlpDecoder;
+import java.lang.rlp.RlpEncoder;
+import java.lang.rlp.RlpList;
+import java.lang.rlp.RlpString;
+import java.lang.rlp.RlpType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Long-lived entry point of the contract runtime.
+ *
+ * Where {@link MainCaller#main} serves one call per JVM launch, the host stays up and
+ * serves a stream of calls, so contract classes, their dispatch tables and the codecs
+ * stay loaded and compiled from one call to the next.
+ *
+ * Calls arrive as frames, either on stdin (default) or on a loopback TCP port
+ * ({@code --port <port>}):
+ * <pre>
+ *   request:  u32 length, contract class name (UTF-8)      length 0 shuts the host down
+ *   response: u8 success, u32 length, output
+ * </pre>
+ * A request whose payload starts with a zero byte is a batch of read-only calls, run
+ * in parallel by a {@link ViewScheduler} ({@code --workers <n>}, default one per core).
+ * The rest of the payload is an RLP list of [contract class name, packed call context]
+ * lists, and the output an RLP list of [success, output] lists, one per call.
+ * A payload starting with a one byte is a block of transactions in the same format,
+ * run in parallel by a {@link BlockExecutor} with the result of running them in order.
+ * A batch or block that does not decode is answered with success 0 and an error, and
+ * the host goes on with the next frame.
+ * The message of each call (sender, value, data...) is read through the natives of
+ * {@link Message} as for a single call; the host only names the contract to run.
+ * Classes listed with {@code --preload a.B,c.D} are loaded before the first call.
+ * With {@code --record <file>} the events of each call and of each transaction of a
+ * block are appended to the file, for {@link LogQuery}. With {@code --unlimited-gas}
+ * calls run without a gas limit, as tools that send no gas need, see
+ * {@link Gas#setUnlimited}.
+ *
+ * Before each call the host drops the {@link ExecutionContext} of the previous one; the
+ * security manager stays installed and only restricts a thread while it runs contract
+ * code (see {@link Sandbox}), and the contract instance is reset and kept for reuse by
+ * {@link ContractPool}.
+ */
+public final class ContractHost {
+
+    // Contract classes called so far, by name
+    private final Map<String, Class<?>> classes = new HashMap<>();
+
+    // Number of threads running batches of read-only calls
+    private int workers = Runtime.getRuntime().availableProcessors();
+
+    // Scheduler of read-only calls, started by the first batch
+    private ViewScheduler views;
+
+    // Executor of blocks, started by the first block
+    private BlockExecutor blocks;
+
+    // Frames of [bloom, events] of the calls run, null unless recording
+    private DataOutputStream record;
+
+    // constructor
+    public ContractHost() {
+    }
+
+    /**
+     * Constructs a host running batches of read-only calls and blocks on the given
+     * number of threads, as {@code --workers} does.
+     * @param workers The number of worker threads.
+     */
+    public ContractHost(int workers) {
+        this.workers = Math.max(1, workers);
+    }
+
+    /**
+     * Runs the host.
+     * @param args {@code [--port <port>] [--workers <n>] [--preload <class,...>] [--record <file>]
+     *             [--unlimited-gas]}
+     */
+    public static void main(String[] args) throws IOException {
+        ContractHost host = new ContractHost();
+        int port = -1;
+        for (int i = 0; i < args.length; i++) {
+            if ("--port".equals(args[i]) && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if ("--workers".equals(args[i]) && i + 1 < args.length) {
+                host.workers = Math.max(1, Integer.parseInt(args[++i]));
+            } else if ("--preload".equals(args[i]) && i + 1 < args.length) {
+                for (String name : args[++i].split(",")) {
+                    host.preload(name.trim());
+                }
+            } else if ("--record".equals(args[i]) && i + 1 < args.length) {
+                host.record = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(args[++i], true)));
+            } else if ("--unlimited-gas".equals(args[i])) {
+                Gas.setUnlimited(true);
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        if (port < 0) {
+            // stdout carries the frames, anything the contracts print goes to stderr
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out));
+            System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.err), true));
+            try {
+                host.serve(new BufferedInputStream(System.in), out);
+            } finally {
+                host.shutdown();
+            }
+            return;
+        }
+        try (ServerSocket server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            boolean shutdown = false;
+            while (!shutdown) {
+                try (Socket socket = server.accept()) {
+                    socket.setTcpNoDelay(true);
+                    shutdown = host.serve(new BufferedInputStream(socket.getInputStream()),
+                                          new BufferedOutputStream(socket.getOutputStream()));
+                }
+            }
+        } finally {
+            host.shutdown();
+        }
+    }
+
+    /**
+     * Stops the threads started for batches of read-only calls and for blocks; the
+     * host can still serve single calls.
+     */
+    public void shutdown() {
+        if (views != null) {
+            views.shutdown();
+            views = null;
+        }
+        if (blocks != null) {
+            blocks.shutdown();
+            blocks = null;
+        }
+    }
+
+    /**
+     * Loads a contract class and builds its dispatch table ahead of the first call.
+     * @param contractName The name of the contract class.
+     * @return true if the class was found.
+     */
+    public boolean preload(String contractName) {
+        Class<?> contractClass = resolve(contractName);
+        if (contractClass == null) {
+            return false;
+        }
+        DispatchTable.of(contractClass);
+        return true;
+    }
+
+    /**
+     * Serves calls from a stream until a shutdown frame or the end of the stream.
+     * @param in The stream of requests.
+     * @param out The stream of responses.
+     * @return true if the stream asked the host to shut down.
+     */
+    public boolean serve(InputStream in, OutputStream out) throws IOException {
+        DataInputStream requests = new DataInputStream(in);
+        DataOutputStream responses = new DataOutputStream(out);
+        while (true) {
+            int length;
+            try {
+                length = requests.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            if (length == 0) {
+                return true;
+            }
+            if (length < 0) {
+                throw new IOException("Invalid frame length: " + length);
+            }
+            byte[] payload = new byte[length];
+            requests.readFully(payload);
+
+            boolean success;
+            byte[] output;
+            if (payload[0] == 0 || payload[0] == 1) {
+                byte[] calls = java.util.Arrays.copyOfRange(payload, 1, payload.length);
+                try {
+                    output = payload[0] == 0 ? callViews(calls) : callBlock(calls);
+                    success = true;
+                } catch (IllegalArgumentException e) {
+                    // a malformed batch or block fails on its own, the next frames are served
+                    output = e.getMessage().getBytes(StandardCharsets.UTF_8);
+                    success = false;
+                }
+                if (success && payload[0] == 1 && record != null) {
+                    for (byte[] entry : blocks.getLogs()) {
+                        record(entry);
+                    }
+                }
+            } else {
+                Message msg = call(new String(payload, StandardCharsets.UTF_8));
+                success = msg.getSuccess();
+                output = msg.getOutput();
+                if (record != null) {
+                    record(EventLog.list(RlpEncoder.encode(msg.getLogsBloom(), RlpDecoder.OFFSET_SHORT_STRING),
+                                         msg.getLogs().length > 0 ? msg.getLogs() : EventLog.list()));
+                }
+            }
+            if (output == null) {
+                output = new byte[0];
+            }
+            responses.writeByte(success ? 1 : 0);
+            responses.writeInt(output.length);
+            responses.write(output);
+            responses.flush();
+            if (record != null) {
+                record.flush();
+            }
+        }
+    }
+
+    // Appends a frame to the record: u32 length, [bloom, events]
+    private void record(byte[] entry) throws IOException {
+        record.writeInt(entry.length);
+        record.write(entry);
+    }
+
+    /**
+     * Runs one call and returns its message, from which the result is read.
+     * @param contractName The name of the contract class to call.
+     * @return The message of the call.
+     */
+    public Message call(String contractName) {
+        // each call reads its own message
+        ExecutionContext.reset();
+        Message msg = Message.getMessage();
+        Class<?> contractClass = resolve(contractName);
+        if (contractClass == null) {
+            msg.setSuccess(false);
+            msg.setOutput("executeCall failed".getBytes());
+            return msg;
+        }
+        MainCaller.call(contractClass);
+        return msg;
+    }
+
+    /**
+     * Runs one call with the given call context instead of the one of the natives,
+     * for tools, tests and benchmarks that run contracts outside a node.
+     * @param contractName The name of the contract class to call.
+     * @param context The packed call context, see {@link Message}.
+     * @return The message of the call, from which the result is read.
+     */
+    public Message call(String contractName, byte[] context) {
+        Message msg = new Message(context, true);
+        Class<?> contractClass = resolve(contractName);
+        if (contractClass == null) {
+            msg.setSuccess(false);
+            msg.setOutput("executeCall failed".getBytes());
+            return msg;
+        }
+        ExecutionContext previous = ExecutionContext.enter(msg);
+        try {
+            MainCaller.call(contractClass);
+        } finally {
+            ExecutionContext.exit(previous);
+        }
+        return msg;
+    }
+
+    /**
+     * Runs a batch of read-only calls in parallel.
+     * @param batch RLP list of [contract class name, packed call context] lists.
+     * @return RLP list of [success, output or error] lists, one per call.
+     * @throws IllegalArgumentException if the batch is not such a list.
+     */
+    public byte[] callViews(byte[] batch) {
+        List<ViewScheduler.Call> calls = decodeCalls(batch);
+        if (views == null) {
+            views = new ViewScheduler(workers);
+        }
+        return encodeResults(calls, views.run(runnable(calls)));
+    }
+
+    /**
+     * Runs a block of transactions in parallel and commits their writes in block order.
+     * @param block RLP list of [contract class name, packed call context] lists.
+     * @return RLP list of [success, output or error] lists, one per transaction.
+     * @throws IllegalArgumentException if the block is not such a list.
+     */
+    public byte[] callBlock(byte[] block) {
+        List<ViewScheduler.Call> calls = decodeCalls(block);
+        if (blocks == null) {
+            blocks = new BlockExecutor(workers);
+        }
+        return encodeResults(calls, blocks.execute(runnable(calls)));
+    }
+
+    // Decodes a batch or a block, throwing IllegalArgumentException if it is malformed
+    private List<ViewScheduler.Call> decodeCalls(byte[] batch) {
+        List<String> names = new ArrayList<>();
+        List<byte[]> contexts = new ArrayList<>();
+        try {
+            List<RlpType> items = RlpDecoder.decode(batch).getValues();
+            List<RlpType> entries = items.isEmpty() ? new ArrayList<RlpType>() : ((RlpList) items.get(0)).getValues();
+            for (RlpType entry : entries) {
+                List<RlpType> fields = ((RlpList) entry).getValues();
+                names.add(new String(((RlpString) fields.get(0)).getBytes(), StandardCharsets.UTF_8));
+                contexts.add(((RlpString) fields.get(1)).getBytes());
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("batch decode failed", e);
+        }
+        List<ViewScheduler.Call> calls = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            calls.add(new ViewScheduler.Call(resolve(names.get(i)), contexts.get(i)));
+        }
+        return calls;
+    }
+
+    // unknown classes fail without reaching the workers
+    private static List<ViewScheduler.Call> runnable(List<ViewScheduler.Call> calls) {
+        List<ViewScheduler.Call> runnable = new ArrayList<>(calls.size());
+        for (ViewScheduler.Call call : calls) {
+            if (call.contractClass != null) {
+                runnable.add(call);
+            }
+        }
+        return runnable;
+    }
+
+    private static byte[] encodeResults(List<ViewScheduler.Call> calls, List<Result<byte[]>> ran) {
+        Iterator<Result<byte[]>> next = ran.iterator();
+        List<RlpType> results = new ArrayList<>(calls.size());
+        for (ViewScheduler.Call call : calls) {
+            Result<byte[]> result = call.contractClass != null
+                ? next.next()
+                : Result.<byte[]>fail("executeCall failed");
+            results.add(new RlpList(
+                RlpString.create((byte) (result.isSuccess() ? 1 : 0)),
+                RlpString.create(result.isSuccess() ? result.value : result.getErrorData())));
+        }
+        return RlpEncoder.encode(new RlpList(results));
+    }
+
+    private Class<?> resolve(String contractName) {
+        Class<?> contractClass = classes.get(contractName);
+        if (contractClass == null) {
+            try {
+                contractClass = ContractLoader.load(contractName);
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+            classes.put(contractName, contractClass);
+        }
+        return contractClass;
+    }
+}
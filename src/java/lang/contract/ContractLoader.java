@@ -0,0 +1,90 @@
+package java.lang.contract;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.bytecode.Metering;
+
+/**
+ * Loads contract classes instrumented for gas metering, see {@link Gas}.
+ *
+ * Classes of the contract's own code are read from the class path of the parent
+ * loader, instrumented by {@link Metering} and defined here, so each is loaded once
+ * per host. Runtime and JDK classes (the {@code java.*} packages and the like) are
+ * delegated to the parent and are not metered, apart from the fixed costs the
+ * runtime charges for storage and hashing. Contracts placed in the runtime packages,
+ * such as the bundled examples, therefore run unmetered.
+ */
+final class ContractLoader extends ClassLoader {
+
+    private static final String METER = "java/lang/contract/Gas";
+
+    private static final ContractLoader INSTANCE = new ContractLoader(ClassLoader.getSystemClassLoader());
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private ContractLoader(ClassLoader parent) {
+        super(parent);
+    }
+
+    /**
+     * Loads a contract class by name.
+     *
+     * @param name The binary name of the class.
+     * @return The class, instrumented unless it belongs to the runtime.
+     * @throws ClassNotFoundException if the class cannot be found or instrumented.
+     */
+    static Class<?> load(String name) throws ClassNotFoundException {
+        return Class.forName(name, true, INSTANCE);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!isContractCode(name)) {
+            return super.loadClass(name, resolve);
+        }
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null) {
+                byte[] bytes = read(name);
+                if (bytes == null) {
+                    return super.loadClass(name, resolve);
+                }
+                try {
+                    bytes = Metering.instrument(bytes, METER);
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name + " cannot be metered", e);
+                }
+                loaded = defineClass(name, bytes, 0, bytes.length);
+            }
+            if (resolve) {
+                resolveClass(loaded);
+            }
+            return loaded;
+        }
+    }
+
+    private byte[] read(String name) {
+        try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+            if (in == null) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static boolean isContractCode(String name) {
+        return !name.startsWith("java.") && !name.startsWith("javax.") && !name.startsWith("jdk.")
+            && !name.startsWith("sun.") && !name.startsWith("com.sun.");
+    }
+}
@@ -0,0 +1,77 @@
+package java.lang.contract;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Pool of idle contract instances, per contract class.
+ *
+ * A warm {@link ContractHost} reuses instances instead of constructing a new one per
+ * call: field initializers such as {@code mapping.of(...)} run once per instance and
+ * slots are assigned once. On release an instance is reset through its
+ * {@link StorageLayout}, so nothing a call leaves in its fields is seen by the next.
+ * An instance whose fields hold objects a reset cannot restore, such as lists or
+ * builders, is dropped on release instead, see {@link StorageLayout.Snapshot#resettable}.
+ *
+ * Each class has its own deque of idle instances, so the threads of a host calling
+ * different classes, or the same one, do not wait for each other.
+ */
+final class ContractPool {
+
+    // Idle instances by contract class
+    private static final Map<Class<?>, Deque<Contract>> IDLE = new ConcurrentHashMap<>();
+
+    private ContractPool() {
+    }
+
+    /**
+     * Returns an idle instance of a contract class, or a new one if none is idle.
+     *
+     * @param contractClass The contract class.
+     * @return An instance in its constructed state.
+     * @throws Exception if the contract cannot be constructed.
+     */
+    static Contract acquire(Class<?> contractClass) throws Exception {
+        Deque<Contract> idle = IDLE.get(contractClass);
+        Contract contract = idle != null ? idle.pollFirst() : null;
+        if (contract != null) {
+            return contract;
+        }
+        contract = (Contract) contractClass.getDeclaredConstructor().newInstance();
+        contract.pooled = StorageLayout.of(contract).snapshot(contract);
+        return contract;
+    }
+
+    /**
+     * Discards what a call left in a contract acquired from the pool and loads it
+     * again from storage.
+     *
+     * @param contract The contract to reload.
+     */
+    static void reload(Contract contract) {
+        StorageLayout layout = StorageLayout.of(contract);
+        layout.reset(contract, contract.pooled);
+        layout.load(contract);
+    }
+
+    /**
+     * Resets a contract acquired from the pool and makes it available again.
+     *
+     * @param contract The contract to release.
+     */
+    static void release(Contract contract) {
+        StorageLayout.Snapshot initial = contract.pooled;
+        if (initial == null || !initial.resettable) {
+            return;
+        }
+        StorageLayout.of(contract).reset(contract, initial);
+        Deque<Contract> idle = IDLE.get(contract.getClass());
+        if (idle == null) {
+            IDLE.putIfAbsent(contract.getClass(), new ConcurrentLinkedDeque<Contract>());
+            idle = IDLE.get(contract.getClass());
+        }
+        idle.push(contract);
+    }
+}
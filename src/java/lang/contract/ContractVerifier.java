@@ -0,0 +1,535 @@
+package java.lang.contract;
+
+import java.io.IOException;
+import java.lang.bytecode.ClassFile;
+import java.lang.bytecode.Opcodes;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checks the bytecode of a contract class once, before its first call.
+ *
+ * <ul>
+ * <li>Every class the contract refers to must be a contract type of java.lang
+ *     ({@code uint256}, {@code address}, {@code mapping}...), a class of the packages
+ *     meant for contracts, or one of a few JDK classes (strings, boxes, exceptions and
+ *     the collections of java.util whose order does not depend on hash codes), and
+ *     some members of those are denied ({@code System.exit}, {@code Object.wait},
+ *     method handle lookups, {@code printStackTrace}, the parallel operations of
+ *     {@code Arrays}...). No threads, reflection, IO or runtime internals.</li>
+ * <li>Nothing non-deterministic: no {@code Math.random}, {@code Collections.shuffle},
+ *     clock or system properties ({@code Integer.getInteger}...), and no {@code hashCode} or {@code toString} that may resolve to the
+ *     identity based ones of {@code Object}, whether called directly or through a
+ *     helper that takes any object ({@code Objects.hashCode},
+ *     {@code String.valueOf(Object)}, {@code StringBuilder.append(Object)}, string
+ *     concatenation...). Calling {@code toString()} on a type that overrides it is
+ *     fine.</li>
+ * <li>No recursion: the static call graph of the contract's own methods has no
+ *     cycle. Calls that only resolve at run time to an override are not followed.</li>
+ * </ul>
+ * Other classes of the contract's own code are checked the same way, transitively.
+ * A class that fails is never run; a class that passes runs without the security
+ * manager unless the host asks for it, see {@link Sandbox#isRequired}.
+ *
+ * The analysis of each class file is cached by the SHA-256 hash of its bytes, so the
+ * same code loaded again, by another loader or under another name, is not analyzed
+ * twice.
+ */
+final class ContractVerifier {
+
+    /**
+     * What the verifier found in one class file.
+     */
+    private static final class Summary {
+        // Why the class may not run, null if its own code passes
+        final String rejected;
+        final String superName;
+        // Methods declared, as name + descriptor
+        final Set<String> methods = new HashSet<>();
+        // Classes of the contract's own code it refers to
+        final Set<String> references = new HashSet<>();
+        // Calls to the contract's own code, from name + descriptor to owner.name + descriptor
+        final Map<String, List<String>> calls = new HashMap<>();
+
+        Summary(String rejected, String superName) {
+            this.rejected = rejected;
+            this.superName = superName;
+        }
+    }
+
+    // Result of each contract class checked so far, "" if it passed
+    private static final Map<Class<?>, String> results = new ConcurrentHashMap<>();
+
+    // Analysis of each class file, by hash of its bytes
+    private static final Map<String, Summary> summaries = new ConcurrentHashMap<>();
+
+    // Packages whose classes contract code may use, by internal name prefix
+    private static final String[] ALLOWED_PACKAGES = {
+        "java/lang/annotation/", "java/lang/rlp/", "java/lang/types/", "java/crypto/", "java/util/function/"
+    };
+
+    // Classes of the runtime packages that contract code may not use
+    private static final Set<String> RUNTIME_INTERNALS = set(
+        "java/lang/TSecurityManager", "java/lang/ChunkedStorage",
+        "java/lang/contract/BlockExecutor", "java/lang/contract/BlockTransaction",
+        "java/lang/contract/CallMetrics", "java/lang/contract/ExecutionContext",
+        "java/lang/contract/ContractHost", "java/lang/contract/ContractPool",
+        "java/lang/contract/ContractLoader", "java/lang/contract/ContractVerifier",
+        "java/lang/contract/DispatchTable", "java/lang/contract/EventLog",
+        "java/lang/contract/FieldReads", "java/lang/contract/Gas",
+        "java/lang/contract/LogQuery", "java/lang/contract/MainCaller",
+        "java/lang/contract/MemoryHost",
+        "java/lang/contract/Sandbox", "java/lang/contract/StorageLayout",
+        "java/lang/contract/StripedReadCache", "java/lang/contract/Trace",
+        "java/lang/contract/TypedFields", "java/lang/contract/ViewScheduler");
+
+    // JDK and runtime classes of java.lang that contract code may use
+    private static final Set<String> ALLOWED_CLASSES = set(
+        "java/lang/Object", "java/lang/String", "java/lang/StringBuilder", "java/lang/CharSequence",
+        "java/lang/Comparable", "java/lang/Iterable", "java/lang/AutoCloseable", "java/lang/Number",
+        "java/lang/Integer", "java/lang/Long", "java/lang/Short", "java/lang/Byte", "java/lang/Character",
+        "java/lang/Boolean", "java/lang/Void", "java/lang/Math", "java/lang/Enum", "java/lang/Class",
+        "java/lang/System", "java/lang/Throwable", "java/lang/Exception", "java/lang/RuntimeException",
+        "java/lang/IllegalArgumentException", "java/lang/IllegalStateException",
+        "java/lang/ArithmeticException", "java/lang/IndexOutOfBoundsException",
+        "java/lang/ArrayIndexOutOfBoundsException", "java/lang/StringIndexOutOfBoundsException",
+        "java/lang/NullPointerException", "java/lang/UnsupportedOperationException",
+        "java/lang/ClassCastException", "java/lang/NumberFormatException", "java/lang/AssertionError",
+        "java/lang/Override", "java/lang/Deprecated", "java/lang/SafeVarargs",
+        "java/lang/SuppressWarnings", "java/lang/FunctionalInterface",
+        "java/lang/ABI", "java/lang/Event", "java/lang/Revert", "java/io/Storable", "java/math/BigInteger",
+        // bootstrap of lambdas and string concatenation, see ALLOWED_MEMBERS
+        "java/lang/invoke/LambdaMetafactory", "java/lang/invoke/StringConcatFactory",
+        "java/lang/invoke/MethodHandles", "java/lang/invoke/MethodHandles$Lookup",
+        "java/lang/invoke/MethodHandle", "java/lang/invoke/MethodType", "java/lang/invoke/CallSite");
+
+    // The only classes of java.util contract code may use: collections whose order
+    // does not depend on hash codes, and their helpers; no HashMap, HashSet...
+    private static final Set<String> ALLOWED_UTIL = set(
+        "java/util/Collection", "java/util/List", "java/util/Set", "java/util/SortedSet",
+        "java/util/NavigableSet", "java/util/Map", "java/util/Map$Entry", "java/util/SortedMap",
+        "java/util/NavigableMap", "java/util/Queue", "java/util/Deque", "java/util/Iterator",
+        "java/util/ListIterator", "java/util/Comparator", "java/util/RandomAccess",
+        "java/util/ArrayList", "java/util/LinkedList", "java/util/ArrayDeque", "java/util/TreeMap",
+        "java/util/TreeSet", "java/util/LinkedHashMap", "java/util/LinkedHashSet", "java/util/EnumMap",
+        "java/util/EnumSet", "java/util/BitSet", "java/util/Arrays", "java/util/Collections",
+        "java/util/Objects", "java/util/Optional", "java/util/OptionalInt", "java/util/OptionalLong",
+        "java/util/StringJoiner", "java/util/NoSuchElementException",
+        "java/util/ConcurrentModificationException");
+
+    // The only members of java.lang.System, java.lang.Class and java.lang.invoke
+    // contract code may use, as owner.name
+    private static final Set<String> ALLOWED_MEMBERS = set(
+        "java/lang/System.arraycopy",
+        "java/lang/Class.getName", "java/lang/Class.getSimpleName", "java/lang/Class.desiredAssertionStatus",
+        "java/lang/invoke/LambdaMetafactory.metafactory", "java/lang/invoke/LambdaMetafactory.altMetafactory",
+        "java/lang/invoke/StringConcatFactory.makeConcat",
+        "java/lang/invoke/StringConcatFactory.makeConcatWithConstants");
+
+    // Members denied on otherwise allowed classes, as owner.name; the parallel
+    // operations of Arrays run contract code on threads that are neither sandboxed
+    // nor metered
+    private static final Set<String> DENIED_MEMBERS = set(
+        "java/lang/Object.wait", "java/lang/Object.notify", "java/lang/Object.notifyAll",
+        "java/util/Arrays.parallelSort", "java/util/Arrays.parallelSetAll", "java/util/Arrays.parallelPrefix",
+        "java/lang/contract/Storage.setHost");
+
+    // Members whose result differs from one run to the next, as owner.name
+    private static final Set<String> NON_DETERMINISTIC = set(
+        "java/lang/Math.random", "java/util/Collections.shuffle", "java/lang/String.format",
+        "java/lang/String.toLowerCase", "java/lang/String.toUpperCase", "java/util/Set.of",
+        "java/util/Set.copyOf", "java/util/Map.of", "java/util/Map.ofEntries", "java/util/Map.copyOf",
+        "java/lang/Integer.getInteger", "java/lang/Long.getLong", "java/lang/Boolean.getBoolean");
+
+    // Members that call hashCode or toString on any object they are given, as
+    // owner.name + descriptor; System.identityHashCode is not in ALLOWED_MEMBERS
+    private static final Set<String> IDENTITY_HELPERS = set(
+        "java/lang/String.valueOf(Ljava/lang/Object;)Ljava/lang/String;",
+        "java/lang/StringBuilder.append(Ljava/lang/Object;)Ljava/lang/StringBuilder;",
+        "java/lang/StringBuilder.insert(ILjava/lang/Object;)Ljava/lang/StringBuilder;",
+        "java/util/Objects.hashCode(Ljava/lang/Object;)I",
+        "java/util/Objects.hash([Ljava/lang/Object;)I",
+        "java/util/Objects.toString(Ljava/lang/Object;)Ljava/lang/String;",
+        "java/util/Objects.toString(Ljava/lang/Object;Ljava/lang/String;)Ljava/lang/String;",
+        "java/util/Arrays.hashCode([Ljava/lang/Object;)I",
+        "java/util/Arrays.deepHashCode([Ljava/lang/Object;)I",
+        "java/util/Arrays.toString([Ljava/lang/Object;)Ljava/lang/String;",
+        "java/util/Arrays.deepToString([Ljava/lang/Object;)Ljava/lang/String;");
+
+    private ContractVerifier() {
+    }
+
+    /**
+     * Checks a contract class, or returns the result of the first check.
+     *
+     * @param contractClass The contract class.
+     * @return null if the class may run, otherwise why it may not.
+     */
+    static String verify(Class<?> contractClass) {
+        String result = results.get(contractClass);
+        if (result == null) {
+            result = check(contractClass);
+            results.put(contractClass, result == null ? "" : result);
+            if (result != null && Trace.isEnabled(Trace.DISPATCH, Trace.ERROR)) {
+                Trace.record(Trace.DISPATCH, Trace.ERROR, "verification failed: " + result, 0);
+            }
+            return result;
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    /**
+     * Returns true if the class passed the verifier.
+     *
+     * @param contractClass The contract class.
+     * @return true if the class was verified and may run without the security manager.
+     */
+    static boolean isVerified(Class<?> contractClass) {
+        return "".equals(results.get(contractClass));
+    }
+
+    private static String check(Class<?> contractClass) {
+        ClassLoader loader = contractClass.getClassLoader();
+        Map<String, Summary> classes = new HashMap<>();
+        ArrayDeque<String> pending = new ArrayDeque<>();
+        pending.add(internalName(contractClass.getName()));
+        while (!pending.isEmpty()) {
+            String name = pending.poll();
+            if (classes.containsKey(name)) {
+                continue;
+            }
+            Summary summary = summarize(name, loader);
+            if (summary.rejected != null) {
+                return summary.rejected;
+            }
+            classes.put(name, summary);
+            pending.addAll(summary.references);
+        }
+        return findRecursion(classes);
+    }
+
+    /**
+     * Returns the analysis of a class file, from the cache if the same bytes were
+     * analyzed before.
+     */
+    private static Summary summarize(String name, ClassLoader loader) {
+        byte[] bytes;
+        try {
+            bytes = ClassFile.bytesOf(Class.forName(name.replace('/', '.'), false, loader));
+        } catch (ClassNotFoundException e) {
+            return new Summary("cannot read " + name, null);
+        }
+        if (bytes == null) {
+            return new Summary("class file of " + name + " not found", null);
+        }
+        String hash = hash(bytes);
+        Summary summary = summaries.get(hash);
+        if (summary == null) {
+            summary = analyze(name, bytes, loader);
+            summaries.put(hash, summary);
+        }
+        return summary;
+    }
+
+    private static Summary analyze(String name, byte[] bytes, ClassLoader loader) {
+        ClassFile classFile;
+        try {
+            classFile = ClassFile.parse(bytes);
+        } catch (IOException e) {
+            return new Summary("cannot read " + name, null);
+        }
+        String rejected = checkReferences(classFile, loader);
+        Summary summary = new Summary(rejected, classFile.getSuperName());
+        if (rejected != null) {
+            return summary;
+        }
+        for (int i = 1; i < classFile.getConstantCount(); i++) {
+            if (classFile.tag(i) == ClassFile.CONSTANT_CLASS) {
+                String type = elementType(classFile.className(i));
+                if (type != null && isContractCode(type) && !type.equals(name)) {
+                    summary.references.add(type);
+                }
+            }
+        }
+        for (ClassFile.Member method : classFile.getMethods()) {
+            String key = method.getName() + method.getDescriptor();
+            summary.methods.add(key);
+            byte[] code = method.getCode();
+            if (code == null) {
+                continue;
+            }
+            List<String> callees = new ArrayList<>();
+            for (int pc = 0; pc < code.length; pc += Opcodes.length(code, pc)) {
+                int opcode = code[pc] & 0xFF;
+                if (opcode >= Opcodes.INVOKEVIRTUAL && opcode <= Opcodes.INVOKEINTERFACE) {
+                    String[] callee = classFile.memberRef(Opcodes.readUnsignedShort(code, pc + 1));
+                    if (callee[0].equals(name) || isContractCode(callee[0])) {
+                        callees.add(callee[0] + "." + callee[1] + callee[2]);
+                    }
+                }
+            }
+            summary.calls.put(key, callees);
+        }
+        return summary;
+    }
+
+    /**
+     * Checks the classes and members a class file refers to.
+     *
+     * @return null if they are all allowed, otherwise the first one that is not.
+     */
+    private static String checkReferences(ClassFile classFile, ClassLoader loader) {
+        String name = classFile.getName();
+        for (int i = 1; i < classFile.getConstantCount(); i++) {
+            switch (classFile.tag(i)) {
+                case ClassFile.CONSTANT_CLASS: {
+                    String type = elementType(classFile.className(i));
+                    if (type != null && !isContractCode(type) && !isAllowed(type)) {
+                        return name + " uses " + type;
+                    }
+                    break;
+                }
+                case ClassFile.CONSTANT_FIELDREF:
+                case ClassFile.CONSTANT_METHODREF:
+                case ClassFile.CONSTANT_INTERFACE_METHODREF: {
+                    String[] ref = classFile.memberRef(i);
+                    if (!isAllowed(ref[0], ref[1]) || isPrintStackTrace(ref, loader)) {
+                        return name + " uses " + ref[0] + "." + ref[1];
+                    }
+                    if (NON_DETERMINISTIC.contains(ref[0] + "." + ref[1])
+                            || IDENTITY_HELPERS.contains(ref[0] + "." + ref[1] + ref[2])
+                            || isIdentityBased(ref, loader)) {
+                        return name + " uses non-deterministic " + ref[0] + "." + ref[1];
+                    }
+                    break;
+                }
+                case ClassFile.CONSTANT_INVOKE_DYNAMIC: {
+                    // string concatenation calls toString on the values it is given
+                    String[] ref = classFile.dynamicRef(i);
+                    String type = ref[0].startsWith("makeConcat") ? identityConcatenated(ref[1], loader) : null;
+                    if (type != null) {
+                        return name + " uses non-deterministic concatenation of " + type;
+                    }
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if the member is {@code printStackTrace} of an exception, which
+     * writes to the output of the host; the owner may be the contract's own exception.
+     */
+    private static boolean isPrintStackTrace(String[] ref, ClassLoader loader) {
+        if (!ref[1].equals("printStackTrace")) {
+            return false;
+        }
+        try {
+            return Throwable.class.isAssignableFrom(Class.forName(ref[0].replace('/', '.'), false, loader));
+        } catch (ClassNotFoundException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Returns true if the member is {@code hashCode()} or {@code toString()} and may
+     * resolve to the one of {@code Object}, which depends on where the object is
+     * allocated.
+     */
+    private static boolean isIdentityBased(String[] ref, ClassLoader loader) {
+        boolean hashCode = ref[1].equals("hashCode") && ref[2].equals("()I");
+        boolean toString = ref[1].equals("toString") && ref[2].equals("()Ljava/lang/String;");
+        return (hashCode || toString) && mayUseIdentity(ref[0], ref[1], loader);
+    }
+
+    /**
+     * Returns true unless the method ({@code hashCode} or {@code toString}) of the type
+     * is known to be overridden: not for arrays, interfaces, whose implementation is
+     * only known at run time, the collections of java.util, which combine those of
+     * their elements, and {@code Enum.hashCode}, which is the one of {@code Object}.
+     */
+    private static boolean mayUseIdentity(String type, String method, ClassLoader loader) {
+        if (type.charAt(0) == '[' || type.equals("java/lang/Object") || type.startsWith("java/util/")) {
+            return true;
+        }
+        try {
+            Class<?> c = Class.forName(type.replace('/', '.'), false, loader);
+            if (c.isInterface()) {
+                return true;
+            }
+            Class<?> declaring = c.getMethod(method).getDeclaringClass();
+            return declaring == Object.class || (declaring == Enum.class && method.equals("hashCode"));
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Returns the first value of a string concatenation, given the descriptor of its
+     * call site, whose {@code toString} may be identity based, or null if there is none.
+     */
+    private static String identityConcatenated(String descriptor, ClassLoader loader) {
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            int start = i;
+            while (descriptor.charAt(i) == '[') {
+                i++;
+            }
+            int end = descriptor.charAt(i) == 'L' ? descriptor.indexOf(';', i) : i;
+            if (start < i) {
+                return descriptor.substring(start, end + 1);
+            }
+            if (descriptor.charAt(i) == 'L' && mayUseIdentity(descriptor.substring(i + 1, end), "toString", loader)) {
+                return descriptor.substring(i + 1, end);
+            }
+            i = end + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Looks for a cycle in the calls between the methods of the contract's own code.
+     *
+     * @return null if there is none, otherwise a method on the cycle.
+     */
+    private static String findRecursion(Map<String, Summary> classes) {
+        Map<String, Boolean> done = new HashMap<>();
+        for (Map.Entry<String, Summary> entry : classes.entrySet()) {
+            for (String method : entry.getValue().methods) {
+                String cycle = visit(classes, entry.getKey() + "." + method, done);
+                if (cycle != null) {
+                    return "recursive call through " + cycle;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Depth-first search, done maps each method to false while on the stack, true after
+    private static String visit(Map<String, Summary> classes, String method, Map<String, Boolean> done) {
+        Boolean state = done.get(method);
+        if (state != null) {
+            return state ? null : method;
+        }
+        done.put(method, Boolean.FALSE);
+        int dot = method.indexOf('.');
+        List<String> callees = classes.get(method.substring(0, dot)).calls.get(method.substring(dot + 1));
+        if (callees != null) {
+            for (String callee : callees) {
+                String target = resolve(classes, callee);
+                String cycle = target == null ? null : visit(classes, target, done);
+                if (cycle != null) {
+                    return cycle;
+                }
+            }
+        }
+        done.put(method, Boolean.TRUE);
+        return null;
+    }
+
+    /**
+     * Resolves a call to the class of the contract's own code that declares the
+     * method, or null if the method is inherited from the runtime.
+     */
+    private static String resolve(Map<String, Summary> classes, String callee) {
+        int dot = callee.indexOf('.');
+        String method = callee.substring(dot + 1);
+        for (String owner = callee.substring(0, dot); owner != null; ) {
+            Summary summary = classes.get(owner);
+            if (summary == null) {
+                return null;
+            }
+            if (summary.methods.contains(method)) {
+                return owner + "." + method;
+            }
+            owner = summary.superName;
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if the class is the contract's own code, checked in turn.
+     */
+    private static boolean isContractCode(String type) {
+        return !type.startsWith("java/") && !type.startsWith("javax/") && !type.startsWith("jdk/")
+            && !type.startsWith("sun/") && !type.startsWith("com/sun/");
+    }
+
+    private static boolean isAllowed(String type) {
+        if (RUNTIME_INTERNALS.contains(type)) {
+            return false;
+        }
+        if (ALLOWED_CLASSES.contains(type)) {
+            return true;
+        }
+        for (String prefix : ALLOWED_PACKAGES) {
+            if (type.startsWith(prefix)) {
+                return true;
+            }
+        }
+        if (type.startsWith("java/lang/contract/") && type.indexOf('/', "java/lang/contract/".length()) < 0) {
+            return true;
+        }
+        if (type.startsWith("java/lang/") && type.indexOf('/', "java/lang/".length()) < 0) {
+            // the contract types (uint256, address, mapping, uintType...)
+            return Character.isLowerCase(type.charAt("java/lang/".length()));
+        }
+        return ALLOWED_UTIL.contains(type);
+    }
+
+    private static boolean isAllowed(String owner, String member) {
+        String type = elementType(owner);
+        if (type == null || isContractCode(type)) {
+            return true;
+        }
+        String ref = type + "." + member;
+        if (type.equals("java/lang/System") || type.equals("java/lang/Class") || type.startsWith("java/lang/invoke/")) {
+            return ALLOWED_MEMBERS.contains(ref);
+        }
+        return !DENIED_MEMBERS.contains(ref);
+    }
+
+    /**
+     * Returns the internal name of the element type of an array class, the class
+     * itself otherwise, or null for arrays of primitives.
+     */
+    private static String elementType(String type) {
+        if (type.charAt(0) != '[') {
+            return type;
+        }
+        int start = type.lastIndexOf('[') + 1;
+        if (type.charAt(start) != 'L') {
+            return null;
+        }
+        return type.substring(start + 1, type.length() - 1);
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            return new BigInteger(1, MessageDigest.getInstance("SHA-256").digest(bytes)).toString(16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String internalName(String className) {
+        return className.replace('.', '/');
+    }
+
+    private static Set<String> set(String... values) {
+        return new HashSet<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,117 @@
+package java.lang.contract;
+
+import java.crypto.Keccak256;
+import java.lang.Revert;
+import java.lang.reflect.Field;
+import java.lang.rlp.RlpDecoder;
+import java.lang.rlp.RlpEncoder;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A revert with a typed reason, like a Solidity custom error.
+ *
+ * The fields of the error are its public instance fields, in declaration order,
+ * those of its superclasses first.
+ * Its revert data is the 4-byte selector of its signature, the simple name of the
+ * class followed by the types of its fields (e.g.
+ * {@code ERC20InsufficientBalance(address,uint256,uint256)}), and the RLP list of
+ * the values of the fields, as the input of a call would be. Nothing is formatted or
+ * encoded when the error is thrown: the data is built if the runtime reports it, the
+ * message only if someone asks for it.
+ * <pre>
+ *   class ERC20InvalidSender extends CustomError {
+ *       public final address sender;
+ *       ...
+ *   }
+ *   revert(new ERC20InvalidSender(address.ZERO_ADDRESS));
+ * </pre>
+ */
+public abstract class CustomError extends Revert {
+    static final long serialVersionUID = 5093412771837659201L;
+
+    // Layout of each error class, built on first encoding
+    private static final ConcurrentHashMap<Class<?>, Layout> layouts = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a custom error.
+     */
+    protected CustomError() {
+        super();
+    }
+
+    /**
+     * Returns the selector of the error, the first 4 bytes of the keccak256 hash of
+     * its signature.
+     *
+     * @return The selector.
+     */
+    public final byte[] getSelector() {
+        return layout(getClass()).selector.clone();
+    }
+
+    /**
+     * Returns the revert data: the selector and the RLP list of the fields.
+     *
+     * @return The revert data.
+     */
+    @Override
+    public byte[] getData() {
+        Layout layout = layout(getClass());
+        byte[][] values = new byte[layout.fields.length][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = RlpEncoder.encode(TypedFields.raw(TypedFields.get(layout.fields[i], this)),
+                                          RlpDecoder.OFFSET_SHORT_STRING);
+        }
+        byte[] params = EventLog.list(values);
+        byte[] data = new byte[4 + params.length];
+        System.arraycopy(layout.selector, 0, data, 0, 4);
+        System.arraycopy(params, 0, data, 4, params.length);
+        return data;
+    }
+
+    /**
+     * Returns the name of the error and the values of its fields, e.g.
+     * {@code ERC20InvalidSender(0x0000000000000000000000000000000000000000)}.
+     *
+     * @return The description of the error.
+     */
+    @Override
+    public String getMessage() {
+        Layout layout = layout(getClass());
+        StringBuilder sb = new StringBuilder(getClass().getSimpleName()).append('(');
+        for (int i = 0; i < layout.fields.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(TypedFields.get(layout.fields[i], this));
+        }
+        return sb.append(')').toString();
+    }
+
+    private static Layout layout(Class<?> errorClass) {
+        Layout layout = layouts.get(errorClass);
+        if (layout == null) {
+            layout = new Layout(errorClass);
+            Layout raced = layouts.putIfAbsent(errorClass, layout);
+            if (raced != null) {
+                layout = raced;
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * The fields of an error class and its selector.
+     */
+    private static final class Layout {
+
+        final Field[] fields;
+        final byte[] selector;
+
+        Layout(Class<?> errorClass) {
+            fields = TypedFields.of(errorClass);
+            byte[] hash = Keccak256.getKeccak256().keccak256(TypedFields.signature(errorClass, fields).getBytes());
+            selector = new byte[] {hash[0], hash[1], hash[2], hash[3]};
+        }
+    }
+}
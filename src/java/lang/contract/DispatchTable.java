@@ -0,0 +1,155 @@
+package java.lang.contract;
+
+import java.crypto.Keccak256;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps method selectors to the public methods of a contract class.
+ *
+ * A table is built once per contract class, the first time the class is called,
+ * and then shared by every call: selectors are computed (one keccak256 per method)
+ * and methods made accessible only while building.
+ */
+final class DispatchTable {
+
+    // Tables of all contract classes called so far
+    private static final Map<Class<?>, DispatchTable> TABLES = new ConcurrentHashMap<>();
+
+    // Methods by selector, the first 4 bytes of the keccak256 of the signature as an int
+    private final Map<Integer, Method> methods;
+
+    private DispatchTable(Map<Integer, Method> methods) {
+        this.methods = methods;
+    }
+
+    /**
+     * Returns the dispatch table of a contract class, building it on first use.
+     *
+     * @param contractClass The contract class.
+     * @return The dispatch table of the class.
+     */
+    static DispatchTable of(Class<?> contractClass) {
+        DispatchTable table = TABLES.get(contractClass);
+        if (table == null) {
+            table = build(contractClass);
+            TABLES.put(contractClass, table);
+        }
+        return table;
+    }
+
+    /**
+     * Returns the method for a selector, or null if the contract has none.
+     *
+     * @param selector The method selector (4 bytes).
+     * @return The method, or null.
+     */
+    Method lookup(byte[] selector) {
+        return methods.get(toKey(selector));
+    }
+
+    /**
+     * Returns the callable methods.
+     */
+    java.util.Collection<Method> methods() {
+        return methods.values();
+    }
+
+    /**
+     * Returns the number of callable methods.
+     */
+    int size() {
+        return methods.size();
+    }
+
+    /**
+     * Builds the table from the methods of the class and its superclasses up to
+     * {@link Contract}. A method of a subclass hides the method of a superclass
+     * with the same signature.
+     */
+    private static DispatchTable build(Class<?> contractClass) {
+        Map<Integer, Method> methods = new HashMap<>();
+        Class<?> currentClass = contractClass;
+        while (currentClass != null && !currentClass.equals(Contract.class)) {
+            for (Method method : currentClass.getDeclaredMethods()) {
+                // Skip methods that are:
+                // 1. static
+                // 2. non-public
+                // 3. synthetic (compiler-generated)
+                // 4. bridge methods
+                int modifiers = method.getModifiers();
+                if (Modifier.isStatic(modifiers) ||
+                    !Modifier.isPublic(modifiers) ||
+                    method.isSynthetic() ||
+                    method.isBridge()) {
+                    continue;
+                }
+                String signature = buildMethodSignature(method.getParameterTypes(), method.getName());
+                Integer key = toKey(computeMethodSelector(signature));
+                if (!methods.containsKey(key)) {
+                    method.setAccessible(true);
+                    methods.put(key, method);
+                }
+            }
+            // Move up to parent class
+            currentClass = currentClass.getSuperclass();
+        }
+        return new DispatchTable(methods);
+    }
+
+    /**
+     * Builds a method signature from a method name and parameter types
+     * @param paramTypes Array of parameter types
+     * @param methodName The name of the method
+     * @return The method signature as a string
+    */
+    static String buildMethodSignature(Class<?>[] paramTypes, String methodName) {
+        StringBuilder sb = new StringBuilder(methodName);
+        sb.append("(");
+        if (paramTypes != null) {
+            for (int i = 0; i < paramTypes.length; i++) {
+                if (i > 0) {
+                    sb.append(",");
+                }
+                sb.append(getLastPart(paramTypes[i].getName()));
+            }
+        }
+        sb.append(")");
+        return sb.toString();
+    }
+
+    /**
+     * Gets the last part of a dot-separated string
+     * @param str The input string
+     * @return The last part after the last dot, or the entire string if no dots
+     */
+    private static String getLastPart(String str) {
+        int lastDot = str.lastIndexOf('.');
+        return lastDot >= 0 ? str.substring(lastDot + 1) : str;
+    }
+
+    /**
+     * Compute the method selector (first 4 bytes of keccak256 hash of the method signature)
+     * @param methodSignature The method signature string (e.g. "transfer(address,uint256)")
+     * @return The 4-byte method selector
+     */
+    static byte[] computeMethodSelector(String methodSignature) {
+        // Convert string to UTF-8 byte array
+        byte[] input = methodSignature.getBytes();
+        // Calculate keccak256 hash, not charged to the call that happens to build the table
+        Keccak256 keccak256 = Keccak256.getKeccak256();
+        byte[] hash = keccak256.keccak256(input);
+        // Take first 4 bytes as selector
+        byte[] selector = new byte[4];
+        System.arraycopy(hash, 0, selector, 0, 4);
+        return selector;
+    }
+
+    private static Integer toKey(byte[] selector) {
+        return ((selector[0] & 0xFF) << 24) | ((selector[1] & 0xFF) << 16)
+             | ((selector[2] & 0xFF) << 8) | (selector[3] & 0xFF);
+    }
+}
@@ -43,7 +43,7 @@ public abstract class ERC20 extends Contract implements IERC20Errors, IERC20Meta
     /**
      * Total supply of the token
      */ 
-    private uint256 totalSupply = uint256.ZERO;
+    private uint256 totalSupply = new uint256(0);
 
     /**
      * Name of the token
@@ -198,14 +198,16 @@ public abstract class ERC20 extends Contract implements IERC20Errors, IERC20Meta
      */
     protected void _update(address from, address to, uint256 value) {
         if (address.ZERO_ADDRESS.equals(from)) {
-            // Minting tokens
-            totalSupply = totalSupply.add(value);
+            // Minting tokens, overflow check required: the rest of the code assumes that totalSupply never overflows
+            totalSupply = totalSupply.addChecked(value);
         } else {
             uint256 fromBalance = balanceOf(from);
-            if (fromBalance.compareTo(value) < 0) {
+            // the borrow of the subtraction is the balance check
+            uint256 newBalance = fromBalance.trySub(value);
+            if (newBalance == null) {
                 revert(new ERC20InsufficientBalance(from, fromBalance, value));
             }
-            balances.set(fromBalance.subtract(value), from);
+            balances.set(newBalance, from);
         }
 
         if (address.ZERO_ADDRESS.equals(to)) {
@@ -267,9 +269,8 @@ public abstract class ERC20 extends Contract implements IERC20Errors, IERC20Meta
             revert(new ERC20InvalidSpender(address.ZERO_ADDRESS));
         }
 
-        mapping<address, uint256> ownerAllowances = allowances.get(owner);
-        ownerAllowances.set(value, spender);
-        allowances.set(ownerAllowances, owner);
+        // the mapping of the owner is stored under the slot derived from its key
+        allowances.get(owner).set(value, spender);
 
         if (emitEvent) {
             emit(new Approval(owner, spender, value));
@@ -285,10 +286,11 @@ public abstract class ERC20 extends Contract implements IERC20Errors, IERC20Meta
     protected void _spendAllowance(address owner, address spender, uint256 value) {
         uint256 currentAllowance = allowance(owner, spender);
         if (currentAllowance.compareTo(uint256.MAX_VALUE) < 0) {
-            if (currentAllowance.compareTo(value) < 0) {
+            uint256 newAllowance = currentAllowance.trySub(value);
+            if (newAllowance == null) {
                 revert(new ERC20InsufficientAllowance(spender, currentAllowance, value));
             }
-            _approve(owner, spender, currentAllowance.subtract(value), false);
+            _approve(owner, spender, newAllowance, false);
         }
     }
 }
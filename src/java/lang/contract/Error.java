@@ -1,20 +1,62 @@
 package java.lang.contract;
 
+import java.lang.Revert;
+
 // SPDX-License-Identifier: MIT
 
 public final class Error {
-    // The message of the error.
-    private final String message;
+    // The message of the error, built from the revert or the data if not given.
+    private String message;
+    // The output of the failed call, null to use the message.
+    private byte[] data;
+    // The revert of the call, encoded on first use.
+    private final Revert revert;
     
     public Error(String message) {
         this.message = message;
+        this.revert = null;
     }
     
     public Error(Exception e) {
         this.message = e.getMessage();
+        this.revert = null;
+    }
+
+    /**
+     * Constructs the error of a call that reverted.
+     * @param revert The revert, described or encoded only if the message or the data is requested.
+     */
+    public Error(Revert revert) {
+        this.revert = revert;
+    }
+
+    /**
+     * Constructs the error of a call from its output.
+     * @param data The output of the call.
+     */
+    public Error(byte[] data) {
+        this.data = data;
+        this.revert = null;
     }
     
     public String getMessage() { 
+        if (message == null && revert != null) {
+            message = revert.getMessage();
+        } else if (message == null && data != null) {
+            message = new String(data);
+        }
         return message;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the output of the failed call: the revert data of a revert, the message
+     * of other errors.
+     * @return The output of the call.
+     */
+    public byte[] getData() {
+        if (data == null) {
+            data = revert != null ? revert.getData() : message != null ? message.getBytes() : new byte[0];
+        }
+        return data;
+    }
+}
@@ -0,0 +1,309 @@
+package java.lang.contract;
+
+import java.crypto.Keccak256;
+import java.lang.Event;
+import java.lang.bytes;
+import java.lang.dynamicBytes;
+import java.lang.intType;
+import java.lang.string;
+import java.lang.types.BytesType;
+import java.lang.reflect.Field;
+import java.lang.rlp.RlpDecoder;
+import java.lang.rlp.RlpEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The events emitted by the running call, see {@link Contract#emit}.
+ *
+ * Events are only buffered while the call runs: the bytes of their fields are copied
+ * when they are emitted, so changing an event or the values it refers to afterwards
+ * does not change the log, but nothing is hashed or RLP encoded until the call
+ * succeeds and {@link MainCaller} hands the whole buffer to the host at once. The
+ * events of a call that fails are dropped with it, and those of a failed call of a
+ * multicall are dropped by truncating the buffer to where the call started.
+ *
+ * Each event is encoded as an RLP list of [topics, data]:
+ * <ul>
+ * <li>topics is a list of 32-byte strings. The first is the keccak256 hash of the
+ *     event signature, the simple name of the class followed by the types of its
+ *     fields, e.g. {@code Transfer(address,address,uint256)}. Each field whose name
+ *     starts with {@code indexed_} adds a topic: its value padded to 32 bytes, or the
+ *     keccak256 hash of the value for strings and dynamic bytes.</li>
+ * <li>data is the RLP list of the other fields: the big-endian bytes of numbers and
+ *     addresses, the bytes of byte types and the UTF-8 bytes of strings.</li>
+ * </ul>
+ * The fields of an event are its public instance fields, in declaration order,
+ * those of its superclasses first.
+ * The log of a call is the RLP list of its events, in emission order, and comes with
+ * the {@link LogsBloom} of all their topics.
+ */
+final class EventLog {
+
+    /** Prefix of the fields that become topics. */
+    static final String INDEXED = "indexed_";
+
+    // Layout of each event class, built on first emission
+    private static final ConcurrentHashMap<Class<?>, Layout> layouts = new ConcurrentHashMap<>();
+
+    private final List<Emitted> events = new ArrayList<>();
+
+    /**
+     * An event as it was emitted: the bytes of its fields, not yet hashed or encoded.
+     */
+    private static final class Emitted {
+        final Layout layout;
+        final String name;
+        // Topic of each indexed field, or the bytes to hash for strings and dynamic bytes
+        final byte[][] topics;
+        final boolean[] hashed;
+        final byte[][] data;
+
+        Emitted(Layout layout, String name, int indexed, int data) {
+            this.layout = layout;
+            this.name = name;
+            this.topics = new byte[indexed][];
+            this.hashed = new boolean[indexed];
+            this.data = new byte[data][];
+        }
+    }
+
+    /**
+     * Buffers an event, charging its gas.
+     *
+     * @param event The event.
+     */
+    void add(Event event) {
+        Layout layout = layout(event.getClass());
+        Gas.use(Gas.EVENT + Gas.EVENT_TOPIC * (layout.indexed.length + 1));
+        events.add(capture(event, layout));
+    }
+
+    /**
+     * Returns the number of buffered events, a checkpoint for {@link #truncate}.
+     */
+    int size() {
+        return events.size();
+    }
+
+    /**
+     * Drops the events buffered after a checkpoint.
+     *
+     * @param size The checkpoint returned by {@link #size}.
+     */
+    void truncate(int size) {
+        events.subList(size, events.size()).clear();
+    }
+
+    /**
+     * Drops all buffered events.
+     */
+    void clear() {
+        events.clear();
+    }
+
+    /**
+     * Returns true if no event is buffered.
+     */
+    boolean isEmpty() {
+        return events.isEmpty();
+    }
+
+    /**
+     * Returns the message of each buffered event, see {@link Event#getMessage()}, in
+     * emission order.
+     */
+    List<String> names() {
+        List<String> names = new ArrayList<>(events.size());
+        for (Emitted event : events) {
+            names.add(event.name);
+        }
+        return names;
+    }
+
+    /**
+     * Encodes the buffered events, see the class documentation.
+     *
+     * @param bloom The bloom to add the topics of the events to.
+     * @return The RLP list of the events.
+     */
+    byte[] encode(LogsBloom bloom) {
+        byte[][] encoded = new byte[events.size()][];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = encode(events.get(i), bloom);
+        }
+        return list(encoded);
+    }
+
+    /**
+     * Copies the bytes of the fields of an event.
+     */
+    private static Emitted capture(Event event, Layout layout) {
+        Emitted emitted = new Emitted(layout, event.getMessage(), layout.indexed.length, layout.data.length);
+        for (int i = 0; i < layout.indexed.length; i++) {
+            Object value = TypedFields.get(layout.indexed[i], event);
+            emitted.hashed[i] = isDynamic(value);
+            emitted.topics[i] = emitted.hashed[i] ? copy(value) : topic(value);
+        }
+        for (int i = 0; i < layout.data.length; i++) {
+            emitted.data[i] = copy(TypedFields.get(layout.data[i], event));
+        }
+        return emitted;
+    }
+
+    /**
+     * Encodes one event as an RLP list of [topics, data].
+     *
+     * @param event The event, as emitted.
+     * @param bloom The bloom to add the topics of the event to.
+     * @return The encoded event.
+     */
+    private static byte[] encode(Emitted event, LogsBloom bloom) {
+        Layout layout = event.layout;
+        byte[][] topics = new byte[event.topics.length + 1][];
+        topics[0] = RlpEncoder.encode(layout.topic(), RlpDecoder.OFFSET_SHORT_STRING);
+        bloom.or(layout.bloom());
+        for (int i = 0; i < event.topics.length; i++) {
+            byte[] topic = event.hashed[i] ? Keccak256.getKeccak256().keccak256(event.topics[i]) : event.topics[i];
+            bloom.add(topic);
+            topics[i + 1] = RlpEncoder.encode(topic, RlpDecoder.OFFSET_SHORT_STRING);
+        }
+        byte[][] data = new byte[event.data.length][];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = RlpEncoder.encode(event.data[i], RlpDecoder.OFFSET_SHORT_STRING);
+        }
+        return list(list(topics), list(data));
+    }
+
+    /**
+     * Returns the first topic of the events of a class, the hash of its signature.
+     *
+     * @param signature The signature, e.g. {@code Transfer(address,address,uint256)}.
+     * @return The keccak256 hash of the signature.
+     */
+    static byte[] signatureTopic(String signature) {
+        return Keccak256.getKeccak256().keccak256(signature.getBytes());
+    }
+
+    /**
+     * Returns the signature of an event class.
+     *
+     * @param eventClass The class of the event.
+     * @return The signature, e.g. {@code Transfer(address,address,uint256)}.
+     */
+    static String signature(Class<? extends Event> eventClass) {
+        return layout(eventClass).signature;
+    }
+
+    // Wraps already encoded items into an RLP list
+    static byte[] list(byte[]... items) {
+        int length = 0;
+        for (byte[] item : items) {
+            length += item.length;
+        }
+        byte[] payload = new byte[length];
+        int pos = 0;
+        for (byte[] item : items) {
+            System.arraycopy(item, 0, payload, pos, item.length);
+            pos += item.length;
+        }
+        return RlpEncoder.encode(payload, RlpDecoder.OFFSET_SHORT_LIST);
+    }
+
+    /**
+     * Returns true if the topic of an indexed value is the hash of its bytes.
+     */
+    private static boolean isDynamic(Object value) {
+        return value instanceof string || value instanceof dynamicBytes
+            || value instanceof String || value instanceof byte[];
+    }
+
+    /**
+     * Returns the bytes of a value, copied if the value may share them.
+     */
+    private static byte[] copy(Object value) {
+        byte[] raw = TypedFields.raw(value);
+        // string and dynamicBytes already hand out a copy
+        boolean shared = value instanceof byte[] || value instanceof BytesType;
+        return shared ? raw.clone() : raw;
+    }
+
+    /**
+     * Returns the topic of an indexed value that is not hashed, padded to 32 bytes.
+     */
+    private static byte[] topic(Object value) {
+        byte[] raw = TypedFields.raw(value);
+        if (raw.length >= 32) {
+            return Arrays.copyOfRange(raw, raw.length - 32, raw.length);
+        }
+        byte[] topic = new byte[32];
+        if (value instanceof bytes) {
+            // fixed bytes are left aligned
+            System.arraycopy(raw, 0, topic, 0, raw.length);
+            return topic;
+        }
+        if (value instanceof intType && raw.length > 0 && raw[0] < 0) {
+            Arrays.fill(topic, (byte) 0xFF);
+        }
+        System.arraycopy(raw, 0, topic, 32 - raw.length, raw.length);
+        return topic;
+    }
+
+    private static Layout layout(Class<?> eventClass) {
+        Layout layout = layouts.get(eventClass);
+        if (layout == null) {
+            layout = new Layout(eventClass);
+            Layout raced = layouts.putIfAbsent(eventClass, layout);
+            if (raced != null) {
+                layout = raced;
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * The fields of an event class and its signature.
+     */
+    private static final class Layout {
+
+        final String signature;
+        final Field[] indexed;
+        final Field[] data;
+
+        // keccak256 of the signature and its bloom, computed on first encoding
+        private volatile byte[] topic;
+        private volatile LogsBloom bloom;
+
+        Layout(Class<?> eventClass) {
+            Field[] fields = TypedFields.of(eventClass);
+            List<Field> indexed = new ArrayList<>();
+            List<Field> data = new ArrayList<>();
+            for (Field field : fields) {
+                (field.getName().startsWith(INDEXED) ? indexed : data).add(field);
+            }
+            this.signature = TypedFields.signature(eventClass, fields);
+            this.indexed = indexed.toArray(new Field[0]);
+            this.data = data.toArray(new Field[0]);
+        }
+
+        byte[] topic() {
+            byte[] t = topic;
+            if (t == null) {
+                t = signatureTopic(signature);
+                topic = t;
+            }
+            return t;
+        }
+
+        LogsBloom bloom() {
+            LogsBloom b = bloom;
+            if (b == null) {
+                b = new LogsBloom().add(topic());
+                bloom = b;
+            }
+            return b;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package java.lang.contract;
+
+/**
+ * The message, storage, events and metrics of the contract call running on a thread.
+ *
+ * Everything that reaches the storage or the message of the running call, the
+ * contract itself through {@link Context}, the storage types ({@code mapping},
+ * {@code uintType}, {@code string}...) and the runtime, finds them here. Each thread
+ * has its own context, so calls running on several threads at once, or one call
+ * started from within another, never see each other's state.
+ *
+ * A thread that runs a single call at a time uses the default context, created on
+ * first use with the message read through the natives. Hosts running calls from a
+ * pool of threads {@link #enter} a new context around each call and {@link #exit}
+ * it afterwards, which restores the context the thread had before.
+ */
+public final class ExecutionContext {
+
+    // Context of the call running on each thread
+    private static final ThreadLocal<ExecutionContext> current = new ThreadLocal<>();
+
+    private final Message message;
+    private final Storage storage;
+    private final EventLog events = new EventLog();
+    private CallMetrics metrics;
+
+    /**
+     * Constructs a context.
+     *
+     * @param message The message of the call.
+     * @param storage The storage of the call.
+     */
+    ExecutionContext(Message message, Storage storage) {
+        this.message = message;
+        this.storage = storage;
+        this.metrics = new CallMetrics();
+    }
+
+    /**
+     * Returns the context of the call running on the current thread, creating the
+     * default one if the thread has none.
+     *
+     * @return The context of the running call.
+     */
+    public static ExecutionContext current() {
+        ExecutionContext context = current.get();
+        if (context == null) {
+            context = new ExecutionContext(new Message(), new Storage());
+            current.set(context);
+        }
+        return context;
+    }
+
+    /**
+     * Binds a new context for a call with the given message to the current thread.
+     *
+     * @param message The message of the call.
+     * @return The context the thread had before, to pass to {@link #exit}.
+     */
+    static ExecutionContext enter(Message message) {
+        ExecutionContext previous = current.get();
+        current.set(new ExecutionContext(message, new Storage()));
+        return previous;
+    }
+
+    /**
+     * Restores the context the thread had before {@link #enter}.
+     *
+     * @param previous The context returned by {@link #enter}.
+     */
+    static void exit(ExecutionContext previous) {
+        if (previous == null) {
+            current.remove();
+        } else {
+            current.set(previous);
+        }
+    }
+
+    /**
+     * Drops the default context of the current thread, so that the next call of a
+     * long-lived host reads its own message.
+     */
+    static void reset() {
+        current.remove();
+    }
+
+    /**
+     * Returns the message of the call.
+     *
+     * @return The message of the call.
+     */
+    public Message getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the storage of the call.
+     *
+     * @return The storage of the call.
+     */
+    public Storage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Returns the events emitted by the call so far.
+     *
+     * @return The events of the call.
+     */
+    EventLog getEvents() {
+        return events;
+    }
+
+    /**
+     * Returns the metrics of the call.
+     *
+     * @return The metrics of the call.
+     */
+    public CallMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Starts the metrics of a new call, see CallMetrics.begin
+    void setMetrics(CallMetrics metrics) {
+        this.metrics = metrics;
+    }
+}
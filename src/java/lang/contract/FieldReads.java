@@ -0,0 +1,215 @@
+package java.lang.contract;
+
+import java.io.IOException;
+import java.lang.bytecode.ClassFile;
+import java.lang.bytecode.Opcodes;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the instance fields a contract method may read, from its bytecode.
+ *
+ * The method is scanned for {@code getfield} instructions, and so is every method
+ * of the contract it calls on the contract itself, transitively. Calls through an
+ * interface or superclass of the contract, such as {@code IERC20} or
+ * {@code Object.toString}, may land on the contract too and are followed from its
+ * most derived class. The analysis is conservative: when a call cannot be followed
+ * (missing class file, lambda, unknown target, contract passed to other code) the
+ * result is null, meaning any field may be read.
+ */
+final class FieldReads {
+
+    private FieldReads() {
+    }
+
+    /**
+     * Returns the names of the fields a contract method may read.
+     *
+     * @param contractClass The class the method is called on.
+     * @param method The method.
+     * @return The field names, or null if they cannot be determined.
+     */
+    static Set<String> of(Class<?> contractClass, Method method) {
+        // Class files of the contract hierarchy below Contract, by internal name
+        Map<String, ClassFile> hierarchy = new HashMap<>();
+        // The same classes, most derived first, for virtual method resolution
+        ArrayDeque<ClassFile> order = new ArrayDeque<>();
+        for (Class<?> c = contractClass; c != null && !c.equals(Contract.class); c = c.getSuperclass()) {
+            byte[] bytes = ClassFile.bytesOf(c);
+            if (bytes == null) {
+                return null;
+            }
+            try {
+                ClassFile classFile = ClassFile.parse(bytes);
+                hierarchy.put(classFile.getName(), classFile);
+                order.addLast(classFile);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        // Every type a reference to the contract can be passed as
+        Set<String> contractTypes = new HashSet<>();
+        collectTypes(contractClass, contractTypes);
+
+        Set<String> fields = new HashSet<>();
+        Set<String> visited = new HashSet<>();
+        ArrayDeque<String[]> pending = new ArrayDeque<>();
+        pending.add(new String[] {
+            internalName(method.getDeclaringClass()), method.getName(), descriptor(method), "virtual"
+        });
+        while (!pending.isEmpty()) {
+            String[] ref = pending.poll();
+            String key = ref[0] + "." + ref[1] + ref[2];
+            if (!visited.add(key)) {
+                continue;
+            }
+            ClassFile.Member target = ref.length > 3
+                ? resolve(order, ref[1], ref[2])
+                : resolveSpecial(order, ref[0], ref[1], ref[2]);
+            if (target == null) {
+                return null;
+            }
+            byte[] code = target.getCode();
+            if (code == null) {
+                return null;
+            }
+            ClassFile owner = ownerOf(order, target);
+            for (int pc = 0; pc < code.length; pc += Opcodes.length(code, pc)) {
+                int opcode = code[pc] & 0xFF;
+                switch (opcode) {
+                    case Opcodes.GETFIELD:
+                        fields.add(owner.memberRef(Opcodes.readUnsignedShort(code, pc + 1))[1]);
+                        break;
+                    case Opcodes.INVOKEVIRTUAL:
+                    case Opcodes.INVOKESPECIAL:
+                    case Opcodes.INVOKEINTERFACE:
+                    case Opcodes.INVOKESTATIC: {
+                        String[] callee = owner.memberRef(Opcodes.readUnsignedShort(code, pc + 1));
+                        if (hierarchy.containsKey(callee[0])) {
+                            // a call on the contract itself, follow it
+                            if (opcode == Opcodes.INVOKESPECIAL || opcode == Opcodes.INVOKESTATIC) {
+                                pending.add(callee);
+                            } else {
+                                pending.add(new String[] {callee[0], callee[1], callee[2], "virtual"});
+                            }
+                        } else if (contractTypes.contains(callee[0])
+                                   && (opcode == Opcodes.INVOKEVIRTUAL || opcode == Opcodes.INVOKEINTERFACE)) {
+                            // the receiver may be the contract seen as one of its interfaces
+                            // or superclasses, follow the method it would run
+                            pending.add(new String[] {callee[0], callee[1], callee[2], "virtual"});
+                        } else if (mayReceiveContract(callee[2], contractTypes)) {
+                            // other code could read the fields through the contract
+                            return null;
+                        }
+                        break;
+                    }
+                    case Opcodes.INVOKEDYNAMIC:
+                        // lambdas may capture the contract and read any field
+                        return null;
+                    default:
+                        break;
+                }
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Resolves a virtual call on the contract, starting from the most derived class.
+     */
+    private static ClassFile.Member resolve(ArrayDeque<ClassFile> order, String name, String descriptor) {
+        for (ClassFile classFile : order) {
+            ClassFile.Member member = classFile.getMethod(name, descriptor);
+            if (member != null) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves a private, super or static call, starting from the class named by the call.
+     */
+    private static ClassFile.Member resolveSpecial(ArrayDeque<ClassFile> order, String named, String name, String descriptor) {
+        boolean found = false;
+        for (ClassFile classFile : order) {
+            found |= classFile.getName().equals(named);
+            ClassFile.Member member = found ? classFile.getMethod(name, descriptor) : null;
+            if (member != null) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if a method of another class could be passed the contract,
+     * i.e. takes a parameter of a type the contract is an instance of.
+     */
+    private static boolean mayReceiveContract(String descriptor, Set<String> contractTypes) {
+        int end = descriptor.indexOf(')');
+        for (int i = descriptor.indexOf('L'); i >= 0 && i < end; i = descriptor.indexOf('L', i + 1)) {
+            int semicolon = descriptor.indexOf(';', i);
+            String type = descriptor.substring(i + 1, semicolon);
+            if (contractTypes.contains(type)) {
+                return true;
+            }
+            i = semicolon;
+        }
+        return false;
+    }
+
+    private static void collectTypes(Class<?> type, Set<String> types) {
+        if (type == null || !types.add(internalName(type))) {
+            return;
+        }
+        collectTypes(type.getSuperclass(), types);
+        for (Class<?> implemented : type.getInterfaces()) {
+            collectTypes(implemented, types);
+        }
+    }
+
+    private static ClassFile ownerOf(ArrayDeque<ClassFile> order, ClassFile.Member member) {
+        for (ClassFile classFile : order) {
+            if (classFile.getMethods().contains(member)) {
+                return classFile;
+            }
+        }
+        throw new IllegalStateException("Method without class: " + member.getName());
+    }
+
+    private static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Method method) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Class<?> type : method.getParameterTypes()) {
+            sb.append(descriptor(type));
+        }
+        return sb.append(')').append(descriptor(method.getReturnType())).toString();
+    }
+
+    private static String descriptor(Class<?> type) {
+        if (type.isArray()) {
+            return type.getName().replace('.', '/');
+        }
+        if (type.isPrimitive()) {
+            if (type == void.class) return "V";
+            if (type == boolean.class) return "Z";
+            if (type == byte.class) return "B";
+            if (type == char.class) return "C";
+            if (type == short.class) return "S";
+            if (type == int.class) return "I";
+            if (type == long.class) return "J";
+            if (type == float.class) return "F";
+            return "D";
+        }
+        return "L" + internalName(type) + ";";
+    }
+}
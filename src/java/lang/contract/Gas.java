@@ -0,0 +1,142 @@
+package java.lang.contract;
+
+import java.lang.Revert;
+
+/**
+ * Gas meter of the call running on each thread.
+ *
+ * Contract classes loaded by {@link ContractLoader} are instrumented by
+ * {@link java.lang.bytecode.Metering}: each basic block charges one unit per
+ * instruction, and backward branches and calls check the budget. Storage accesses
+ * and keccak hashes charge a fixed cost and check at once, the bulk operations of
+ * {@link java.lang.uint256Array} a cost per value. Charging only adds to the
+ * thread's counter; the comparison with the limit happens at the checks, so a call
+ * that runs out of gas stops at the next loop iteration or call with a
+ * {@link Revert}. A contract that catches it is stopped again at the next check, and
+ * the call fails anyway, see {@link #isExhausted()}.
+ *
+ * The limit is the gas of the message; a message without gas (0) has no budget and
+ * fails at its first charge. Tools, tests and benchmarks that run contracts without
+ * gas lift the limit explicitly, see {@link #setUnlimited}.
+ */
+public final class Gas {
+
+    /** Gas charged for a storage read (fixed slot, mapping entry, dynamic header or chunk). */
+    public static final int STORAGE_READ = 200;
+
+    /** Gas charged for a storage write, per slot written. */
+    public static final int STORAGE_WRITE = 5000;
+
+    /** Gas charged for a keccak hash. */
+    public static final int KECCAK = 30;
+
+    /** Gas charged for an emitted event. */
+    public static final int EVENT = 375;
+
+    /** Gas charged per topic of an emitted event, its signature and each indexed field. */
+    public static final int EVENT_TOPIC = 375;
+
+    /**
+     * Gas charged per value by the bulk operations of {@link java.lang.uint256Array}
+     * that go once over each value, such as add, sum, compare or and.
+     */
+    public static final int ARRAY_VALUE = 3;
+
+    /** Gas charged per value by {@link java.lang.uint256Array#mulDiv}, a 512-bit product and division. */
+    public static final int ARRAY_MUL_DIV = 50;
+
+    // Meter of the call running on each thread
+    private static final ThreadLocal<Gas> meter = new ThreadLocal<Gas>() {
+        @Override
+        protected Gas initialValue() {
+            return new Gas();
+        }
+    };
+
+    // Lifts the limit of every call, see setUnlimited
+    private static volatile boolean unlimited;
+
+    private long limit = Long.MAX_VALUE;
+    private long used;
+
+    private Gas() {
+    }
+
+    /**
+     * Charges gas to the running call. Called by instrumented code at the start of
+     * each basic block.
+     *
+     * @param amount The gas to charge, ignored if negative.
+     */
+    public static void charge(int amount) {
+        if (amount > 0) {
+            meter.get().used += amount;
+        }
+    }
+
+    /**
+     * Stops the running call if it used more gas than its limit. Called by
+     * instrumented code before backward branches and calls.
+     *
+     * @throws Revert if the gas is exhausted.
+     */
+    public static void check() {
+        Gas gas = meter.get();
+        if (gas.used > gas.limit) {
+            throw Revert.OUT_OF_GAS;
+        }
+    }
+
+    /**
+     * Charges gas and checks the limit at once, for the runtime operations that are
+     * not metered instruction by instruction.
+     *
+     * @param amount The gas to charge.
+     * @throws Revert if the gas is exhausted.
+     */
+    public static void use(long amount) {
+        Gas gas = meter.get();
+        gas.used += amount;
+        if (gas.used > gas.limit) {
+            throw Revert.OUT_OF_GAS;
+        }
+    }
+
+    /**
+     * Lifts the gas limit of the calls started from now on, whatever the gas of their
+     * message, for the tools, tests and benchmarks that run contracts outside a node,
+     * like {@link Storage#setHost}. Gas is still counted.
+     *
+     * @param unlimited true to run calls without a limit, false to go back to the
+     *                  gas of the message.
+     */
+    public static void setUnlimited(boolean unlimited) {
+        Gas.unlimited = unlimited;
+    }
+
+    /**
+     * Starts metering a new call on the current thread.
+     *
+     * @param limit The gas limit of the call; 0 leaves no gas at all.
+     */
+    static void begin(long limit) {
+        Gas gas = meter.get();
+        gas.limit = unlimited ? Long.MAX_VALUE : limit;
+        gas.used = 0;
+    }
+
+    /**
+     * Returns the gas used so far by the call running on the current thread.
+     */
+    static long used() {
+        return meter.get().used;
+    }
+
+    /**
+     * Returns true if the call running on the current thread used more gas than its limit.
+     */
+    static boolean isExhausted() {
+        Gas gas = meter.get();
+        return gas.used > gas.limit;
+    }
+}
@@ -27,7 +27,6 @@ public interface IERC20 {
         public final uint256 value;
 
         public Transfer(address from, address to, uint256 value) {
-            super(String.format("Transfer event:  %s ->  %s :  %s", from, to, value));
             this.indexed_from = from;
             this.indexed_to = to;
             this.value = value;
@@ -44,7 +43,6 @@ public interface IERC20 {
         public final uint256 value;
 
         public Approval(address owner, address spender, uint256 value) {
-            super(String.format("Approval event:  %s approved  %s :  %s", owner, spender, value));
             this.indexed_owner = owner;
             this.indexed_spender = spender;
             this.value = value;
@@ -1,68 +1,86 @@
 package java.lang.contract;
 
 import java.lang.address;   
-import java.lang.RuntimeException;
-import java.lang.String;
 import java.lang.uint256;
 
 // SPDX-License-Identifier: MIT
 
 /**
  * Standard ERC20 Errors.
- * This interface defines custom exceptions for ERC20 token operations.
+ * This interface defines custom errors for ERC20 token operations, see {@link CustomError}.
  */
 public interface IERC20Errors {
     /**
      * Thrown when the sender's balance is insufficient for a transfer.
      */
-    class ERC20InsufficientBalance extends RuntimeException {
+    class ERC20InsufficientBalance extends CustomError {
+        public final address sender;
+        public final uint256 balance;
+        public final uint256 needed;
+
         public ERC20InsufficientBalance(address sender, uint256 balance, uint256 needed) {
-            super(String.format("ERC20: insufficient balance. Sender: %s, Balance: %s, Needed: %s", sender, balance, needed));
+            this.sender = sender;
+            this.balance = balance;
+            this.needed = needed;
         }
     }
 
     /**
      * Thrown when the sender address is invalid (e.g., zero address).
      */
-    class ERC20InvalidSender extends RuntimeException {
+    class ERC20InvalidSender extends CustomError {
+        public final address sender;
+
         public ERC20InvalidSender(address sender) {
-            super(String.format("ERC20: invalid sender. Sender: %s", sender));
+            this.sender = sender;
         }
     }
 
     /**
      * Thrown when the receiver address is invalid (e.g., zero address).
      */
-    class ERC20InvalidReceiver extends RuntimeException {
+    class ERC20InvalidReceiver extends CustomError {
+        public final address receiver;
+
         public ERC20InvalidReceiver(address receiver) {
-            super(String.format("ERC20: invalid receiver. Receiver: %s", receiver));
+            this.receiver = receiver;
         }
     }
 
     /**
      * Thrown when the spender's allowance is insufficient for a transfer.
      */
-    class ERC20InsufficientAllowance extends RuntimeException {
+    class ERC20InsufficientAllowance extends CustomError {
+        public final address spender;
+        public final uint256 allowance;
+        public final uint256 needed;
+
         public ERC20InsufficientAllowance(address spender, uint256 allowance, uint256 needed) {
-            super(String.format("ERC20: insufficient allowance. Spender: %s, Allowance: %s, Needed: %s", spender, allowance, needed));
+            this.spender = spender;
+            this.allowance = allowance;
+            this.needed = needed;
         }
     }
 
     /**
      * Thrown when the approver address is invalid (e.g., zero address).
      */
-    class ERC20InvalidApprover extends RuntimeException {
+    class ERC20InvalidApprover extends CustomError {
+        public final address approver;
+
         public ERC20InvalidApprover(address approver) {
-            super(String.format("ERC20: invalid approver. Approver: %s", approver));
+            this.approver = approver;
         }
     }
 
     /**
      * Thrown when the spender address is invalid (e.g., zero address).
      */
-    class ERC20InvalidSpender extends RuntimeException {
+    class ERC20InvalidSpender extends CustomError {
+        public final address spender;
+
         public ERC20InvalidSpender(address spender) {
-            super(String.format("ERC20: invalid spender. Spender: %s", spender));
+            this.spender = spender;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,206 @@
+package java.lang.contract;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.rlp.RlpDecoder;
+import java.lang.rlp.RlpList;
+import java.lang.rlp.RlpString;
+import java.lang.rlp.RlpType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the calls that emitted a given event, e.g. the {@code Transfer} events to an
+ * address, in the events recorded by {@link ContractHost} ({@code --record <file>}).
+ *
+ * A record is the RLP list [bloom, events] of one call or transaction (see
+ * {@link EventLog}), framed by its u32 length. The bloom of each record is tested
+ * against the topics of the query first, on the raw bytes, and the events of a
+ * record are decoded only if the bloom may contain all of them. Records whose bloom
+ * passes but that have no matching event are false positives.
+ *
+ * <pre>
+ *   LogQuery &lt;file&gt; &lt;signature&gt; [topic|* ...] [--scan]
+ * </pre>
+ * Topics are hex, left padded to 32 bytes (so an address can be given as is), and
+ * {@code *} matches any value. The indexes of the matching records are printed, one
+ * per line, and the counts on stderr. {@code --scan} decodes every record, ignoring
+ * the blooms.
+ */
+public final class LogQuery {
+
+    // Offset of the bloom in a record: list header, then 0xb9 0x01 0x00
+    private static final int BLOOM_HEADER = 3;
+
+    private final byte[][] topics;
+    private final LogsBloom bloom = new LogsBloom();
+
+    // Counts of the last filter
+    private int skipped;
+    private int falsePositives;
+
+    /**
+     * Constructs a query.
+     *
+     * @param signature The signature of the event, e.g. {@code Transfer(address,address,uint256)}.
+     * @param indexed The indexed values to match, in order, null for any value.
+     */
+    public LogQuery(String signature, byte[]... indexed) {
+        topics = new byte[indexed.length + 1][];
+        topics[0] = EventLog.signatureTopic(signature);
+        bloom.add(topics[0]);
+        for (int i = 0; i < indexed.length; i++) {
+            if (indexed[i] != null) {
+                topics[i + 1] = pad(indexed[i]);
+                bloom.add(topics[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Returns the indexes of the records with a matching event.
+     *
+     * @param records The records, RLP lists of [bloom, events].
+     * @param useBloom false to decode every record.
+     * @return The indexes of the matching records, in order.
+     */
+    public List<Integer> filter(List<byte[]> records, boolean useBloom) {
+        skipped = 0;
+        falsePositives = 0;
+        List<Integer> found = new ArrayList<>();
+        for (int i = 0; i < records.size(); i++) {
+            byte[] record = records.get(i);
+            int offset = bloomOffset(record);
+            if (useBloom && !bloom.isCoveredBy(record, offset)) {
+                skipped++;
+                continue;
+            }
+            if (matches(record, offset + LogsBloom.BYTES)) {
+                found.add(i);
+            } else if (useBloom) {
+                falsePositives++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the number of records the last filter skipped on their bloom.
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Returns the number of records of the last filter whose bloom passed without a
+     * matching event.
+     */
+    public int getFalsePositives() {
+        return falsePositives;
+    }
+
+    /**
+     * Returns true if an event of a record matches the query.
+     */
+    private boolean matches(byte[] record, int eventsOffset) {
+        byte[] events = Arrays.copyOfRange(record, eventsOffset, record.length);
+        for (RlpType event : ((RlpList) RlpDecoder.decode(events).getValues().get(0)).getValues()) {
+            List<RlpType> eventTopics = ((RlpList) ((RlpList) event).getValues().get(0)).getValues();
+            if (eventTopics.size() < topics.length) {
+                continue;
+            }
+            boolean match = true;
+            for (int i = 0; i < topics.length && match; i++) {
+                match = topics[i] == null || Arrays.equals(topics[i], ((RlpString) eventTopics.get(i)).getBytes());
+            }
+            if (match) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int bloomOffset(byte[] record) {
+        int header = record[0] & 0xFF;
+        return (header <= 0xf7 ? 1 : 1 + header - 0xf7) + BLOOM_HEADER;
+    }
+
+    private static byte[] pad(byte[] value) {
+        if (value.length >= 32) {
+            return value;
+        }
+        byte[] padded = new byte[32];
+        System.arraycopy(value, 0, padded, 32 - value.length, value.length);
+        return padded;
+    }
+
+    /**
+     * Reads the records of a file written by {@link ContractHost}.
+     *
+     * @param path The path of the file.
+     * @return The records, in order.
+     */
+    public static List<byte[]> read(String path) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return records;
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+                records.add(record);
+            }
+        }
+    }
+
+    /**
+     * Runs a query, see the class documentation.
+     * @param args The arguments.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: LogQuery <file> <signature> [topic|* ...] [--scan]");
+        }
+        boolean useBloom = true;
+        List<byte[]> indexed = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            if ("--scan".equals(args[i])) {
+                useBloom = false;
+            } else {
+                indexed.add("*".equals(args[i]) ? null : hex(args[i]));
+            }
+        }
+        List<byte[]> records = read(args[0]);
+        LogQuery query = new LogQuery(args[1], indexed.toArray(new byte[0][]));
+        long start = System.nanoTime();
+        List<Integer> found = query.filter(records, useBloom);
+        long nanos = System.nanoTime() - start;
+        for (int index : found) {
+            System.out.println(index);
+        }
+        System.err.println("records=" + records.size() + " matched=" + found.size()
+            + " skipped=" + query.getSkipped() + " falsePositives=" + query.getFalsePositives()
+            + " micros=" + nanos / 1000);
+    }
+
+    private static byte[] hex(String s) {
+        if (s.startsWith("0x")) {
+            s = s.substring(2);
+        }
+        byte[] out = new byte[(s.length() + 1) / 2];
+        for (int i = s.length() - 1, j = out.length - 1; i >= 0; i -= 2, j--) {
+            int low = Character.digit(s.charAt(i), 16);
+            int high = i > 0 ? Character.digit(s.charAt(i - 1), 16) : 0;
+            out[j] = (byte) (high << 4 | low);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,159 @@
+package java.lang.contract;
+
+import java.crypto.Keccak256;
+import java.util.Arrays;
+
+/**
+ * A 2048-bit bloom filter over the topics of the events emitted by a call.
+ *
+ * Each topic (the hash of an event signature, or an indexed value) sets three bits,
+ * taken from the low 11 bits of the first three pairs of bytes of its keccak256
+ * hash, as in the logs bloom of an Ethereum block. A bloom that lacks any bit of a
+ * topic proves that no event of the call has it, so a query can skip the call
+ * without decoding its events. The bloom of a batch of calls is the union of
+ * theirs, see {@link #or}.
+ */
+public final class LogsBloom {
+
+    /** Size of a bloom in bytes. */
+    public static final int BYTES = 256;
+
+    private final byte[] bits;
+
+    /**
+     * Constructs an empty bloom.
+     */
+    public LogsBloom() {
+        this.bits = new byte[BYTES];
+    }
+
+    /**
+     * Constructs a bloom from its bytes.
+     *
+     * @param bits The 256 bytes of the bloom, copied.
+     * @throws IllegalArgumentException if the length is not 256.
+     */
+    public LogsBloom(byte[] bits) {
+        if (bits.length != BYTES) {
+            throw new IllegalArgumentException("Bloom must be " + BYTES + " bytes: " + bits.length);
+        }
+        this.bits = bits.clone();
+    }
+
+    /**
+     * Adds a topic.
+     *
+     * @param topic The topic, hashed to pick its bits.
+     * @return This bloom.
+     */
+    public LogsBloom add(byte[] topic) {
+        byte[] hash = Keccak256.getKeccak256().keccak256(topic);
+        for (int i = 0; i < 6; i += 2) {
+            int bit = ((hash[i] & 0xFF) << 8 | (hash[i + 1] & 0xFF)) & 2047;
+            bits[BYTES - 1 - (bit >> 3)] |= (byte) (1 << (bit & 7));
+        }
+        return this;
+    }
+
+    /**
+     * Adds the topics of another bloom, so that this one covers both.
+     *
+     * @param other The other bloom.
+     * @return This bloom.
+     */
+    public LogsBloom or(LogsBloom other) {
+        for (int i = 0; i < BYTES; i++) {
+            bits[i] |= other.bits[i];
+        }
+        return this;
+    }
+
+    /**
+     * Returns the union of blooms, e.g. of the calls of a batch.
+     *
+     * @param blooms The blooms.
+     * @return A new bloom covering all of them.
+     */
+    public static LogsBloom combine(Iterable<LogsBloom> blooms) {
+        LogsBloom combined = new LogsBloom();
+        for (LogsBloom bloom : blooms) {
+            combined.or(bloom);
+        }
+        return combined;
+    }
+
+    /**
+     * Returns true if the topic may have been added. False positives are possible,
+     * false negatives are not.
+     *
+     * @param topic The topic.
+     * @return false if the topic was certainly not added.
+     */
+    public boolean mightContain(byte[] topic) {
+        return covers(new LogsBloom().add(topic));
+    }
+
+    /**
+     * Returns true if every bit of another bloom is set in this one, i.e. if all the
+     * topics of a query may have been added.
+     *
+     * @param query The bloom of the topics looked for.
+     * @return false if some topic was certainly not added.
+     */
+    public boolean covers(LogsBloom query) {
+        for (int i = 0; i < BYTES; i++) {
+            if ((bits[i] & query.bits[i]) != query.bits[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if every bit of this bloom is set in a bloom stored in a buffer,
+     * as {@link #covers}, without copying it.
+     *
+     * @param bloom The buffer.
+     * @param offset The offset of the 256 bytes of the bloom in the buffer.
+     * @return false if some topic of this bloom was certainly not added to the other.
+     */
+    boolean isCoveredBy(byte[] bloom, int offset) {
+        for (int i = 0; i < BYTES; i++) {
+            if ((bloom[offset + i] & bits[i]) != bits[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if no topic was added.
+     */
+    public boolean isEmpty() {
+        for (byte b : bits) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the bytes of the bloom.
+     *
+     * @return A copy of the 256 bytes.
+     */
+    public byte[] toByteArray() {
+        return bits.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof LogsBloom && Arrays.equals(bits, ((LogsBloom) o).bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bits);
+    }
+}
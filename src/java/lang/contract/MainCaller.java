@@ -1,14 +1,26 @@
 package java.lang.contract;
-import java.lang.reflect.Field;
-import java.io.Storable;
 import java.lang.rlp.RlpDecoder;
 import java.lang.rlp.RlpList;
+import java.lang.rlp.RlpEncoder;
 import java.lang.rlp.RlpString;
+import java.lang.rlp.RlpType;
+import java.util.ArrayList;
+import java.util.List;
 import java.lang.ABI;
-import java.crypto.Keccak256;
+import java.lang.Revert;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.annotation.Pure;
+import java.lang.annotation.View;
 // Entry point of the contract
 public final class MainCaller {
 
+    /**
+     * Selector of multicall(bytes[]): the input is a list of complete call inputs,
+     * run in order against one loaded contract, see {@link #executeMulticall}.
+     */
+    public static final byte[] MULTICALL_SELECTOR = {(byte) 0xac, (byte) 0x96, (byte) 0x50, (byte) 0xd8};
+
     // constructor
     public MainCaller() {
     }
@@ -19,28 +31,103 @@ public final class MainCaller {
      * @return The result of the call to msg.output.
     */
     public static void main(String[] args) {
-        Message msg = Message.getMessage();
+        Class<?> contractClass;
+        try {
+            contractClass = ContractLoader.load(args[0]);
+        } catch (ClassNotFoundException e) {
+            Message msg = Message.getMessage();
+            msg.setSuccess(false);
+            msg.setOutput("executeCall failed".getBytes());
+            return;
+        }
+        call(contractClass);
+    }
+
+    /**
+     * Calls a contract of the given class with the current message.
+     * Used by {@link #main} and, once per call, by {@link ContractHost}.
+     * @param contractClass The class of the contract to call.
+     * @return The result of the call to msg.output.
+    */
+    static void call(Class<?> contractClass) {
+        ExecutionContext context = ExecutionContext.current();
+        Message msg = context.getMessage();
+        Storage storage = context.getStorage();
+        EventLog events = context.getEvents();
+        events.clear();
         msg.setSuccess(false);
         msg.setOutput(new byte[0]);
 
         byte[] input = msg.getData();
-        String contractName = args[0];
+        CallMetrics metrics = CallMetrics.begin();
+        Gas.begin(gasLimit(msg));
+        Contract contract = null;
         try {
-            Class<?> contractClass = Class.forName(contractName);
-            Contract contract = (Contract) contractClass.getDeclaredConstructor().newInstance();
+            // classes that use APIs outside the whitelist never run
+            String rejected = ContractVerifier.verify(contractClass);
+            if (rejected != null) {
+                msg.setSuccess(false);
+                msg.setOutput(("verification failed: " + rejected).getBytes());
+                return;
+            }
 
-            // load contract
-            if (!beforeCall(contract)) {
+            // reuse an idle instance of the contract if there is one
+            contract = ContractPool.acquire(contractClass);
+            contract.bind(msg, storage);
+
+            if (isMulticall(input)) {
+                long start = System.nanoTime();
+                beforeCall(contract);
+                metrics.beforeCallNanos = System.nanoTime() - start;
+                start = System.nanoTime();
+                Result<byte[]> result = executeMulticall(contract, input);
+                metrics.executeCallNanos = System.nanoTime() - start;
+                if (result.isSuccess()) {
+                    start = System.nanoTime();
+                    Result<Boolean> afterCallResult = afterCall(context);
+                    metrics.afterCallNanos = System.nanoTime() - start;
+                    if (!afterCallResult.isSuccess()) {
+                        msg.setSuccess(false);
+                        msg.setOutput("afterCall failed".getBytes());
+                        return;
+                    }
+                }
+                msg.setSuccess(result.isSuccess());
+                msg.setOutput(result.isSuccess() ? result.value : result.getErrorData());
+                return;
+            }
+
+            // load contract, @View and @Pure methods only load what they read
+            long start = System.nanoTime();
+            Method method = lookup(contractClass, input);
+            boolean readOnly = isReadOnly(method);
+            boolean loaded = beforeCall(contract, method);
+            metrics.beforeCallNanos = System.nanoTime() - start;
+            if (!loaded) {
                 msg.setSuccess(false);
                 msg.setOutput("beforeCall failed".getBytes());
                 return;
             }
 
-            // execute call
-            Result<byte[]> result = executeCall(contract, input);
-            if (result.isSuccess()) {
+            // execute call, rejecting storage writes in read-only calls
+            start = System.nanoTime();
+            storage.setReadOnly(readOnly);
+            Result<byte[]> result;
+            try {
+                result = executeCall(contract, input);
+            } finally {
+                storage.setReadOnly(false);
+            }
+            metrics.executeCallNanos = System.nanoTime() - start;
+            if (result.isSuccess() && readOnly) {
+                // nothing to flush, events of read-only calls are dropped
+                msg.setSuccess(true);
+                msg.setOutput(result.value);
+            } else if (result.isSuccess()) {
                 // after call
-                Result<Boolean> afterCallResult = afterCall();
+                start = System.nanoTime();
+                Result<Boolean> afterCallResult = afterCall(context);
+                metrics.afterCallNanos = System.nanoTime() - start;
                 if (!afterCallResult.isSuccess()) {
                     msg.setSuccess(false);
                     msg.setOutput("afterCall failed".getBytes());
@@ -49,10 +136,20 @@ public final class MainCaller {
                 // set output
                 msg.setSuccess(true);
                 msg.setOutput(result.value);
+            } else {
+                msg.setOutput(result.getErrorData());
             }
         } catch (Exception e) {
             msg.setSuccess(false);
             msg.setOutput("executeCall failed".getBytes());
+        } finally {
+            if (contract != null) {
+                ContractPool.release(contract);
+            }
+            // events of a failed call are dropped
+            events.clear();
+            metrics.gasUsed = Gas.used();
+            metrics.end();
         }
     }
 
@@ -63,56 +160,143 @@ public final class MainCaller {
      * @return true if the call is successful, false otherwise.
     */
     protected final static boolean beforeCall(Contract contract) {
-        int slotCounter = 0;  // use for auto assign storage slot
-        
-        // loop through the fields of the current class
-        for (Field field : contract.getClass().getDeclaredFields()) {
-            // Skip static and transient fields
-            int modifiers = field.getModifiers();
-            if (java.lang.reflect.Modifier.isStatic(modifiers) || 
-                java.lang.reflect.Modifier.isTransient(modifiers)) {
-                continue;
-            }
-            field.setAccessible(true);
-            try {
-                Object fieldValue = field.get(contract);
-                if (fieldValue instanceof Storable) {
-                    Storable storable = (Storable) fieldValue;
-                    storable.setSlot(slotCounter++);
-                    storable.load();
-                }
-            } catch (IllegalAccessException e) {
-                throw new RuntimeException("Failed to load field: " + field.getName());
-            }
+        // slots are assigned by the storage layout of the contract class
+        StorageLayout.of(contract).load(contract);
+        return true;
+    }
+
+    /**
+     * beforeCall is called before the call is made.
+     * Loads nothing for a @Pure method and only the fields it reads for a @View method.
+     * @param contract The contract to call.
+     * @param method The method about to be called, or null if unknown.
+     * @return true if the call is successful, false otherwise.
+    */
+    protected final static boolean beforeCall(Contract contract, Method method) {
+        if (method != null && method.isAnnotationPresent(Pure.class)) {
+            return true;
         }
-        
-        // loop through the fields of the superclass
-        Class<?> superClass = contract.getClass().getSuperclass();
-        while (superClass != null && !superClass.equals(Contract.class)) {
-            for (Field field : superClass.getDeclaredFields()) {
-                // Skip static and transient fields
-                int modifiers = field.getModifiers();
-                if (java.lang.reflect.Modifier.isStatic(modifiers) || 
-                    java.lang.reflect.Modifier.isTransient(modifiers)) {
-                    continue;
-                }
-                field.setAccessible(true);
+        if (method != null && method.isAnnotationPresent(View.class)) {
+            StorageLayout.of(contract).loadFor(contract, method);
+            return true;
+        }
+        return beforeCall(contract);
+    }
+
+    /**
+     * executeMulticall runs a batch of calls against one loaded contract.
+     *
+     * The input after the selector is an RLP list of complete call inputs (selector
+     * and parameters, as for a single call). The calls run in order, sharing one
+     * storage cache; their writes are buffered and sent to the host at the end. A
+     * failed call has its writes and events rolled back and the contract reloaded, the others
+     * continue. The output is an RLP list with, for each call, a list of its
+     * success (1 or 0) and its output or error message.
+     * @param contract The contract to call, already loaded.
+     * @param input The input to the contract.
+     * @return The RLP encoded results.
+    */
+    protected final static Result<byte[]> executeMulticall(Contract contract, byte[] input) {
+        byte[] listData = java.util.Arrays.copyOfRange(input, 4, input.length);
+        List<RlpType> calls;
+        try {
+            RlpList decoded = RlpDecoder.decode(listData);
+            calls = decoded.getValues().isEmpty()
+                ? new ArrayList<RlpType>()
+                : ((RlpList) decoded.getValues().get(0)).getValues();
+        } catch (RuntimeException e) {
+            return Result.fail("multicall decode failed");
+        }
+        CallMetrics.current().rlpDecoded(listData.length);
+        if (Trace.isEnabled(Trace.DISPATCH, Trace.INFO)) {
+            Trace.record(Trace.DISPATCH, Trace.INFO, "multicall", calls.size());
+        }
+
+        Storage storage = contract.storage;
+        EventLog events = ExecutionContext.current().getEvents();
+        storage.beginBatch();
+        try {
+            List<RlpType> results = new ArrayList<>(calls.size());
+            for (RlpType call : calls) {
+                int checkpoint = storage.checkpoint();
+                int emitted = events.size();
+                Result<byte[]> result;
                 try {
-                    Object fieldValue = field.get(contract);
-                    if (fieldValue instanceof Storable) {
-                        Storable storable = (Storable) fieldValue;
-                        storable.setSlot(slotCounter++);
-                        storable.load();
-                    }
-                } catch (IllegalAccessException e) {
-                    throw new RuntimeException("Failed to load field: " + field.getName());
+                    byte[] callInput = ((RlpString) call).getBytes();
+                    Method method = lookup(contract.getClass(), callInput);
+                    storage.setReadOnly(isReadOnly(method));
+                    result = executeCall(contract, callInput);
+                } catch (Exception e) {
+                    result = Result.fail("executeCall failed");
+                } finally {
+                    storage.setReadOnly(false);
                 }
+                if (result.isFailure()) {
+                    storage.rollback(checkpoint);
+                    events.truncate(emitted);
+                    ContractPool.reload(contract);
+                }
+                results.add(new RlpList(
+                    RlpString.create((byte) (result.isSuccess() ? 1 : 0)),
+                    RlpString.create(result.isSuccess() ? result.value : result.getErrorData())));
+            }
+            storage.commitBatch();
+            byte[] output = RlpEncoder.encode(new RlpList(results));
+            CallMetrics.current().rlpEncoded(output.length);
+            return Result.ok(output);
+        } finally {
+            storage.endBatch();
+        }
+    }
+
+    /**
+     * Returns true if an input is a multicall.
+     * @param input The input to the contract.
+     * @return true if the input starts with {@link #MULTICALL_SELECTOR}.
+    */
+    private static boolean isMulticall(byte[] input) {
+        if (input == null || input.length < 4) {
+            return false;
+        }
+        for (int i = 0; i < 4; i++) {
+            if (input[i] != MULTICALL_SELECTOR[i]) {
+                return false;
             }
-            superClass = superClass.getSuperclass();
         }
         return true;
     }
 
+    /**
+     * Returns the gas limit of a message, 0 if it has none, see {@link Gas#begin}.
+     */
+    private static long gasLimit(Message msg) {
+        uint256 gas = msg.getGas();
+        return gas.bitLength() < 64 ? gas.longValue() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Looks up the method called by an input.
+     * @param contractClass The class of the contract to call.
+     * @param input The input to the contract.
+     * @return The method, or null if the input names no method of the contract.
+    */
+    static Method lookup(Class<?> contractClass, byte[] input) {
+        if (input == null || input.length < 4) {
+            return null;
+        }
+        return DispatchTable.of(contractClass).lookup(input);
+    }
+
+    /**
+     * Returns true if a method may not write to the storage.
+     * @param method The method, may be null.
+     * @return true if the method is @View or @Pure.
+    */
+    static boolean isReadOnly(Method method) {
+        return method != null &&
+            (method.isAnnotationPresent(View.class) || method.isAnnotationPresent(Pure.class));
+    }
+
     /**
      * executeCall is called to execute the call.
      * @param contract The contract to call.
@@ -120,20 +304,25 @@ public final class MainCaller {
      * @return The result of the call.
     */
     protected  final static Result<byte[]> executeCall(Contract contract, byte[] input) throws Exception {
-        // Print input as hex string
-        System.out.println("input: " + java.lang.types.Numeric.toHexString(input));
+        long dispatchStart = System.nanoTime();
+        if (Trace.isEnabled(Trace.DISPATCH, Trace.DEBUG)) {
+            Trace.record(Trace.DISPATCH, Trace.DEBUG, "input", input.length, input);
+        }
         // 2. Get method signature (first 4 bytes) and parameters
         byte[] methodId = new byte[4];
         System.arraycopy(input, 0, methodId, 0, 4);
-        System.out.println("methodId: " + java.lang.types.Numeric.toHexString(methodId));
 
         // Get parameter list from remaining input
         byte[] paramData = new byte[input.length - 4];
         System.arraycopy(input, 4, paramData, 0, input.length - 4);
         RlpList params = RlpDecoder.decode(paramData);
+        CallMetrics.current().rlpDecoded(paramData.length);
+        if (Trace.isEnabled(Trace.CODEC, Trace.DEBUG)) {
+            Trace.record(Trace.CODEC, Trace.DEBUG, "decode params", paramData.length);
+        }
 
         // 4. Find and invoke the corresponding method based on signature
-        return dispatchMethod(contract,methodId, params);
+        return dispatchMethod(contract,methodId, params, dispatchStart);
     }
 
 
@@ -142,60 +331,67 @@ public final class MainCaller {
      * @param contract The contract to call.
      * @param selector The method selector (4 bytes)
      * @param params The RLP encoded parameters
+     * @param dispatchStart The time dispatching started, for {@link CallMetrics}
      * @return Result containing the encoded return value or error
      * @throws Exception if the method is not found
      */
-    private final static Result<byte[]> dispatchMethod(Contract contract, byte[] selector, RlpList params) throws Exception {
-        // Get all methods in the inheritance chain
-        Class<?> currentClass = contract.getClass();
-        while (currentClass != null && !currentClass.equals(Contract.class)) {
-            System.out.println(currentClass.getName()+"："+currentClass.getDeclaredMethods().length);
-            // Check methods in current class
-            for (java.lang.reflect.Method method : currentClass.getDeclaredMethods()) {
-                System.out.println(currentClass.getName()+"：" + method.getName());
-                System.out.println(method.getParameterTypes());
-                String methodSignature =buildMethodSignature(method.getParameterTypes(), method.getName());
-                byte[] methodSelector = buildMethodId(methodSignature);
-                // Skip methods that are:
-                // 1. static
-                // 2. non-public
-                // 3. synthetic (compiler-generated)
-                // 4. bridge methods
-                int modifiers = method.getModifiers();
-                if (java.lang.reflect.Modifier.isStatic(modifiers) || 
-                    !java.lang.reflect.Modifier.isPublic(modifiers) ||
-                    method.isSynthetic() ||
-                    method.isBridge()) {
-                    continue;
-                }
-                //Pure pureAnnotation = method.getAnnotation(Pure.class);
-                //boolean isPure = (pureAnnotation != null);
-                //System.out.println("Method " + method.getName() + " isPure: " + isPure);
-                if (java.util.Arrays.equals(selector, methodSelector)) {
-                    // Convert parameters to appropriate types
-                    Object[] args = convertParams(method.getParameterTypes(), params);
-                  
-                                // Ensure method is accessible
-                    method.setAccessible(true);
-
-                    // Set security manager
-                    SecurityManager sm = new TSecurityManager();
-                    if (System.getSecurityManager() != null) {
-                        return Result.fail("SecurityManager not null"); 
-                    }
-                    System.setSecurityManager(sm);
+    private final static Result<byte[]> dispatchMethod(Contract contract, byte[] selector, RlpList params, long dispatchStart) throws Exception {
+        // Selectors are computed once per contract class
+        Method method = DispatchTable.of(contract.getClass()).lookup(selector);
+        if (method == null) {
+            if (Trace.isEnabled(Trace.DISPATCH, Trace.ERROR)) {
+                Trace.record(Trace.DISPATCH, Trace.ERROR, "method not found", 0, selector);
+            }
+            return Result.fail("Method not found");
+        }
+        if (Trace.isEnabled(Trace.DISPATCH, Trace.INFO)) {
+            String methodSignature = DispatchTable.buildMethodSignature(method.getParameterTypes(), method.getName());
+            Trace.record(Trace.DISPATCH, Trace.INFO, methodSignature, params.getValues().size(), selector);
+        }
+        // Convert parameters to appropriate types
+        Object[] args = convertParams(method.getParameterTypes(), params);
+        CallMetrics metrics = CallMetrics.current();
+        metrics.dispatchNanos = System.nanoTime() - dispatchStart;
 
+        Object result;
+        try {
+            if (Sandbox.isRequired(contract.getClass())) {
+                // Restrict this thread while contract code runs
+                boolean restricted;
+                try {
+                    restricted = Sandbox.enter();
+                } catch (SecurityException e) {
+                    return Result.fail("SecurityManager not null"); 
+                }
+                try {
                     // Invoke the method
-                    Object result = method.invoke(contract, args);
-                    
-                    // Encode the return value
-                    return Result.ok(encodeResult(result));
+                    result = method.invoke(contract, args);
+                } finally {
+                    Sandbox.exit(restricted);
                 }
+            } else {
+                // Verified classes cannot reach what the manager guards
+                result = method.invoke(contract, args);
+            }
+        } catch (InvocationTargetException e) {
+            if (Gas.isExhausted()) {
+                return Result.fail("out of gas");
             }
-            // Move up to parent class
-            currentClass = currentClass.getSuperclass();
+            if (e.getCause() instanceof Revert) {
+                // the revert data is only encoded if the output is read
+                return Result.fail(new Error((Revert) e.getCause()));
+            }
+            throw e;
+        }
+        if (Gas.isExhausted()) {
+            // the contract caught the revert
+            return Result.fail("out of gas");
         }
-        return Result.fail("Method not found");            
+
+        // Encode the return value
+        byte[] output = encodeResult(result);
+        metrics.rlpEncoded(output.length);
+        return Result.ok(output);
     }
 
     /**
@@ -218,46 +414,6 @@ public final class MainCaller {
         return args;
     }
 
-    /**
-     * Builds a method signature from a method name and parameter types
-     * @param paramTypes Array of parameter types
-     * @param methodName The name of the method
-     * @return The method signature as a string
-    */
-    private final static String buildMethodSignature(Class<?>[] paramTypes, String methodName) throws Exception {
-        StringBuilder sb = new StringBuilder(methodName);
-        sb.append("(");
-        if (paramTypes != null) {
-            for (int i = 0; i < paramTypes.length; i++) {
-                if (i > 0) {
-                    sb.append(",");
-                }
-                sb.append(getLastPart(paramTypes[i].getName()));
-            }
-        }
-        sb.append(")");
-        return sb.toString();
-    }
-
-    /**
-     * Builds a method selector from a method signature
-     * @param methodSignature The method signature
-     * @return The method selector
-    */
-    private static byte[] buildMethodId(final String methodSignature) {
-        return computeMethodSelector(methodSignature);
-    }
-
-    /**
-     * Gets the last part of a dot-separated string
-     * @param str The input string
-     * @return The last part after the last dot, or the entire string if no dots
-     */
-    private static final String getLastPart(String str) {
-        int lastDot = str.lastIndexOf('.');
-        return lastDot >= 0 ? str.substring(lastDot + 1) : str;
-    }
-
     /**
      * Converts a single RLP encoded parameter to its Java type
      * @param param RLP encoded parameter
@@ -281,26 +437,31 @@ public final class MainCaller {
 
     /**
      * afterCall is called after the call is made.
-     * @return no return.
+     * Hands the events of the call and their bloom to the host in one batch; the events of hosts that
+     * do not take them are traced, see {@link Trace#EVENTS}.
+     * @param context The context of the call.
+     * @return true if the call is successful, false otherwise.
      */
-    protected final static Result<Boolean> afterCall() {
+    protected final static Result<Boolean> afterCall(ExecutionContext context) {
+        EventLog events = context.getEvents();
+        if (events.isEmpty()) {
+            return Result.ok(true);
+        }
+        LogsBloom bloom = new LogsBloom();
+        byte[] logs;
+        try {
+            logs = events.encode(bloom);
+        } catch (RuntimeException e) {
+            return Result.fail("event encoding failed");
+        }
+        context.getMetrics().rlpEncoded(logs.length);
+        if (!context.getMessage().setLogs(logs, bloom.toByteArray()) && Trace.isEnabled(Trace.EVENTS, Trace.INFO)) {
+            int index = 0;
+            for (String name : events.names()) {
+                Trace.record(Trace.EVENTS, Trace.INFO, name, index++);
+            }
+        }
+        events.clear();
         return Result.ok(true);
     }
-
-    /**
-     * Compute the method selector (first 4 bytes of keccak256 hash of the method signature)
-     * @param methodSignature The method signature string (e.g. "transfer(address,uint256)")
-     * @return The 4-byte method selector
-     */
-    private final static byte[] computeMethodSelector(String methodSignature) {
-        // Convert string to UTF-8 byte array
-        byte[] input = methodSignature.getBytes();
-        // Calculate keccak256 hash
-        Keccak256 keccak256 = Keccak256.getKeccak256();
-        byte[] hash = keccak256.sha3(input);
-        // Take first 4 bytes as selector
-        byte[] selector = new byte[4];
-        System.arraycopy(hash, 0, selector, 0, 4);
-        return selector;
-    }
 }
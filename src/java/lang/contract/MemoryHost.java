@@ -0,0 +1,111 @@
+package java.lang.contract;
+
+import java.crypto.Keccak256;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Storage backend kept in memory, in place of the natives, for the tools, tests and
+ * benchmarks that run contracts outside a node, see {@link Storage#setHost}.
+ *
+ * Nested mappings get the slot Solidity gives them. The host is safe to share
+ * between the threads of a {@link ContractHost}.
+ */
+public class MemoryHost implements Storage.Host {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Map<Integer, byte[]> fixed = new HashMap<>();
+    private final Map<ByteBuffer, byte[]> entries = new HashMap<>();
+    private int writes;
+
+    @Override
+    public synchronized byte[] getFixed(int slot) {
+        byte[] value = fixed.get(slot);
+        return value != null ? value : EMPTY;
+    }
+
+    @Override
+    public synchronized void setFixed(int slot, byte[] value) {
+        fixed.put(slot, value);
+        writes++;
+    }
+
+    @Override
+    public synchronized byte[] getMapping(byte[] slot, byte[] key) {
+        byte[] value = entries.get(entryKey(slot, key));
+        return value != null ? value : EMPTY;
+    }
+
+    @Override
+    public synchronized void setMapping(byte[] slot, byte[] key, byte[] value) {
+        entries.put(entryKey(slot, key), value);
+        writes++;
+    }
+
+    /**
+     * Returns keccak256(key . slot), the slot Solidity gives a nested mapping.
+     */
+    @Override
+    public byte[] computeNestedSlot(byte[] slot, byte[] key) {
+        byte[] data = new byte[key.length + slot.length];
+        System.arraycopy(key, 0, data, 0, key.length);
+        System.arraycopy(slot, 0, data, key.length, slot.length);
+        return Keccak256.getKeccak256().keccak256(data);
+    }
+
+    /**
+     * Returns the number of values set so far, those set again to the same value
+     * included.
+     */
+    public synchronized int writes() {
+        return writes;
+    }
+
+    /**
+     * Returns true if another host holds the same fixed slots and mapping entries
+     * with the same values.
+     *
+     * @param other The other host.
+     * @return true if both hold the same values.
+     */
+    public boolean sameValues(MemoryHost other) {
+        Map<Integer, byte[]> otherFixed;
+        Map<ByteBuffer, byte[]> otherEntries;
+        synchronized (other) {
+            otherFixed = new HashMap<>(other.fixed);
+            otherEntries = new HashMap<>(other.entries);
+        }
+        synchronized (this) {
+            return sameValues(fixed, otherFixed) && sameValues(entries, otherEntries);
+        }
+    }
+
+    /**
+     * Drops every value.
+     */
+    public synchronized void clear() {
+        fixed.clear();
+        entries.clear();
+    }
+
+    private static <K> boolean sameValues(Map<K, byte[]> a, Map<K, byte[]> b) {
+        if (!a.keySet().equals(b.keySet())) {
+            return false;
+        }
+        for (Map.Entry<K, byte[]> entry : a.entrySet()) {
+            if (!Arrays.equals(entry.getValue(), b.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer entryKey(byte[] slot, byte[] key) {
+        ByteBuffer buffer = ByteBuffer.allocate(slot.length + key.length);
+        buffer.put(slot).put(key).flip();
+        return buffer;
+    }
+}
@@ -10,29 +10,70 @@ import java.lang.uint64;
 
 /**
  * Represents a message with a sender and data.
+ *
+ * The call context is fetched with a single native call as a packed buffer of six
+ * length-prefixed fields (u32 big-endian length, then the bytes): sender, value,
+ * data, asset, sig and gas. Each field is decoded from the buffer on first access,
+ * so a call that never reads {@code value}, {@code asset} or {@code gas} never
+ * builds them. Hosts without the packed native fall back to one native per field.
  */
 public class Message {
 
+    // Order of the fields in the packed call context
+    private static final int SENDER = 0;
+    private static final int VALUE = 1;
+    private static final int DATA = 2;
+    private static final int ASSET = 3;
+    private static final int SIG = 4;
+    private static final int GAS = 5;
+    private static final int FIELD_COUNT = 6;
+
+    // Whether the host provides nativeGetContext, cleared on the first link failure
+    private static boolean packedContext = true;
+
+    // Whether the host provides nativeSetLogs, cleared on the first link failure
+    private static boolean hostLogs = true;
+
+    // Packed call context, null if fields are fetched one native at a time
+    private final byte[] context;
+
+    // Offset of each field in the packed context, computed on first access
+    private int[] offsets;
+
     // Sender of the message
-    protected final address sender; 
+    private address sender; 
     
     // Value of the message
-    private final uint256 value;
+    private uint256 value;
     
     // Data contained in the message
-    protected final byte[] data;    
+    private byte[] data;    
 
     // Asset of the message
-    protected final uint64 asset;
+    private uint64 asset;
     
     // Signature of the method
-    protected final byte[] sig;
+    private byte[] sig;
     
     // Gas of the message
-    protected final uint256 gas;
+    private uint256 gas;
 
-    // Singleton pattern
-    private static Message message;
+
+    // Result of a detached message, one that does not report through the natives
+    private final boolean detached;
+    private boolean success;
+    private byte[] output = new byte[0];
+
+    // Events of the call and their bloom, as last set
+    private byte[] logs = new byte[0];
+    private byte[] logsBloom = new byte[LogsBloom.BYTES];
+
+    /**
+     * Native method to get the packed call context, see the class documentation.
+     *
+     * @return The packed call context.
+     */
+    private static native byte[] nativeGetContext();
   
     /**
      * Native method to get the sender address of the message.
@@ -101,29 +142,87 @@ public class Message {
     private native void nativeSetOutput(byte[] output);
 
     /**
-     * Constructs a new Message with the specified sender and data.
+     * Set the events emitted by the call
+     * @param logs RLP list of events, see {@link EventLog}
+     * @param bloom bloom of their topics, see {@link LogsBloom}
+     */
+    private native void nativeSetLogs(byte[] logs, byte[] bloom);
+
+    /**
+     * Constructs a new Message for the current call.
      *
      */
     public Message() {
-        this.sender = new address(new uint160(nativeGetSender()));
-        this.value = new uint256(nativeGetValue());
-        this.data = nativeGetData();
-        this.asset = new uint64(nativeGetAsset());
-        this.sig = nativeGetSig();
-        this.gas = new uint256(nativeGetGas());
+        this(fetchContext());
     }
 
+    /**
+     * Constructs a new Message from a packed call context.
+     *
+     * @param context The packed call context, or null to fetch each field through its own native.
+     */
+    Message(byte[] context) {
+        this(context, false);
+    }
 
     /**
-     * Returns a new Message object.
+     * Constructs a new Message from a packed call context.
      *
-     * @return A new Message object.
+     * @param context The packed call context, or null to fetch each field through its own native.
+     * @param detached true to keep success and output in the message instead of reporting them
+     *                 to the host, for calls whose result the runtime returns itself.
      */
-    public static Message getMessage() {
-        if (message == null) {
-            message = new Message();
+    Message(byte[] context, boolean detached) {
+        this.context = context;
+        this.detached = detached;
+    }
+
+    /**
+     * Fetches the packed call context, or returns null if the host does not provide it.
+     */
+    private static byte[] fetchContext() {
+        if (!packedContext) {
+            return null;
+        }
+        try {
+            return nativeGetContext();
+        } catch (UnsatisfiedLinkError e) {
+            packedContext = false;
+            return null;
+        }
+    }
+
+    /**
+     * Returns a field of the packed call context.
+     *
+     * @param index The index of the field.
+     * @return A copy of the bytes of the field.
+     */
+    private byte[] field(int index) {
+        if (offsets == null) {
+            int[] o = new int[FIELD_COUNT + 1];
+            int pos = 0;
+            for (int i = 0; i < FIELD_COUNT; i++) {
+                int length = ((context[pos] & 0xFF) << 24) | ((context[pos + 1] & 0xFF) << 16)
+                           | ((context[pos + 2] & 0xFF) << 8) | (context[pos + 3] & 0xFF);
+                o[i] = pos + 4;
+                pos += 4 + length;
+            }
+            o[FIELD_COUNT] = pos + 4;
+            offsets = o;
         }
-        return message;
+        int start = offsets[index];
+        int end = offsets[index + 1] - 4;
+        return java.util.Arrays.copyOfRange(context, start, end);
+    }
+
+    /**
+     * Returns the message of the running call, see {@link ExecutionContext}.
+     *
+     * @return The message of the running call.
+     */
+    public static Message getMessage() {
+        return ExecutionContext.current().getMessage();
     }
 
     /**
@@ -132,6 +231,9 @@ public class Message {
      * @return The sender of the message.
      */
     public final address getSender() {
+        if (sender == null) {
+            sender = new address(new uint160(context != null ? field(SENDER) : nativeGetSender()));
+        }
         return sender;
     }
 
@@ -141,6 +243,9 @@ public class Message {
      * @return The value of the message.
      */
     public final uint256 getValue() {
+        if (value == null) {
+            value = new uint256(context != null ? field(VALUE) : nativeGetValue());
+        }
         return value;
     }
     
@@ -150,6 +255,9 @@ public class Message {
      * @return The data contained in the message.
      */
     public byte[] getData() {
+        if (data == null) {
+            data = context != null ? field(DATA) : nativeGetData();
+        }
         return data;
     }
 
@@ -159,6 +267,9 @@ public class Message {
      * @return The asset of the message.
      */
     public final uint64 getAsset() {
+        if (asset == null) {
+            asset = new uint64(context != null ? field(ASSET) : nativeGetAsset());
+        }
         return asset;
     }
 
@@ -168,6 +279,9 @@ public class Message {
      * @return The signature of the message.
      */
     public final byte[] getSig() {
+        if (sig == null) {
+            sig = context != null ? field(SIG) : nativeGetSig();
+        }
         return sig;
     }
 
@@ -177,14 +291,29 @@ public class Message {
      * @return The gas of the message.
      */
     public final uint256 getGas() {
+        if (gas == null) {
+            gas = new uint256(context != null ? field(GAS) : nativeGetGas());
+        }
         return gas;
     }
 
+    /**
+     * Returns the execution metrics of the current call.
+     *
+     * @return The execution metrics of the current call.
+     */
+    public final CallMetrics getMetrics() {
+        return ExecutionContext.current().getMetrics();
+    }
+
     /**
      * Get execution success status
      * @return true if execution was successful
      */
     public final boolean getSuccess() {
+        if (detached) {
+            return success;
+        }
         return nativeGetSuccess();
     }
 
@@ -193,6 +322,10 @@ public class Message {
      * @param success execution status
      */
     public final void setSuccess(boolean success) {
+        if (detached) {
+            this.success = success;
+            return;
+        }
         nativeSetSuccess(success);
     }
 
@@ -201,6 +334,9 @@ public class Message {
      * @return output byte array
      */
     public final byte[] getOutput() {
+        if (detached) {
+            return output;
+        }
         return nativeGetOutput();
     }
 
@@ -209,9 +345,53 @@ public class Message {
      * @param output output byte array
      */
     public final void setOutput(byte[] output) {
+        if (detached) {
+            this.output = output;
+            return;
+        }
         nativeSetOutput(output);
     }
 
+    /**
+     * Get the events emitted by the call
+     * @return RLP list of events, see {@link EventLog}
+     */
+    public final byte[] getLogs() {
+        return logs;
+    }
+
+    /**
+     * Get the bloom of the topics of the events emitted by the call
+     * @return the 256 bytes of the bloom, see {@link LogsBloom}
+     */
+    public final byte[] getLogsBloom() {
+        return logsBloom;
+    }
+
+    /**
+     * Set the events emitted by the call, reporting them to the host in one batch
+     * @param logs RLP list of events, see {@link EventLog}
+     * @param bloom bloom of their topics, see {@link LogsBloom}
+     * @return false if the host does not take events
+     */
+    public final boolean setLogs(byte[] logs, byte[] bloom) {
+        this.logs = logs;
+        this.logsBloom = bloom;
+        if (detached) {
+            return true;
+        }
+        if (!hostLogs) {
+            return false;
+        }
+        try {
+            nativeSetLogs(logs, bloom);
+            return true;
+        } catch (UnsatisfiedLinkError e) {
+            hostLogs = false;
+            return false;
+        }
+    }
+
     /**
      * Returns a string representation of the message.
      *
@@ -220,12 +400,12 @@ public class Message {
     @Override
     public String toString() {
         return "Message{" +
-                "sender=" + sender +
-                ", value=" + value +
-                ", data=" + java.util.Arrays.toString(data) +
-                ", asset=" + asset +
-                ", sig=" + java.util.Arrays.toString(sig) +
-                ", gas=" + gas +
+                "sender=" + getSender() +
+                ", value=" + getValue() +
+                ", data=" + java.util.Arrays.toString(getData()) +
+                ", asset=" + getAsset() +
+                ", sig=" + java.util.Arrays.toString(getSig()) +
+                ", gas=" + getGas() +
                 '}';
     }
 
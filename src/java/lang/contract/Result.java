@@ -40,4 +40,9 @@ public final class Result<T> {
     public String getErrorMessage() {
         return err != null ? err.getMessage() : null;
     }
+
+    // The output of a failed call, see Error.getData.
+    public byte[] getErrorData() {
+        return err != null ? err.getData() : null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package java.lang.contract;
+
+import java.lang.TSecurityManager;
+import java.lang.bytecode.ClassFile;
+
+/**
+ * Restricts the threads running contract code.
+ *
+ * One {@link TSecurityManager} enforced per thread is installed on the first call
+ * and stays installed for the life of the JVM. Around each method invocation the
+ * calling thread is flagged as restricted, so the manager denies every permission to
+ * contract code while host and runtime code on other threads, or on the same thread
+ * outside the invocation, runs unrestricted. Entering and leaving a call only sets a
+ * thread-local flag, and several threads can run calls at once.
+ *
+ * Contract classes are also checked once before they run, see {@link ContractVerifier}.
+ * They still run under the security manager by default ({@code contract.sandbox}
+ * unset or {@code always}); a host that trusts the verifier can set the system
+ * property {@code contract.sandbox} to {@code verified} to run the classes that
+ * passed without it.
+ */
+final class Sandbox {
+
+    // Whether verified classes still run under the security manager
+    private static final boolean ALWAYS = always();
+
+    // Key of the installed manager, only the sandbox can flag threads with it
+    private static final Object KEY = new Object();
+
+    // The installed manager, null until the first call
+    private static volatile TSecurityManager manager;
+
+    private Sandbox() {
+    }
+
+    /**
+     * Returns true if calls to the class must run under the security manager.
+     *
+     * @param contractClass The contract class.
+     * @return false only for classes the verifier passed, if the host asked for it.
+     */
+    static boolean isRequired(Class<?> contractClass) {
+        return ALWAYS || !ContractVerifier.isVerified(contractClass);
+    }
+
+    /**
+     * Restricts the current thread until {@link #exit}, installing the security
+     * manager if this is the first call.
+     *
+     * @return Whether the thread was restricted before, to pass to {@link #exit}.
+     * @throws SecurityException if another security manager is installed.
+     */
+    static boolean enter() {
+        TSecurityManager sm = manager;
+        if (sm == null) {
+            sm = install();
+        }
+        return sm.restrict(KEY, true);
+    }
+
+    /**
+     * Lifts the restriction set by {@link #enter}.
+     *
+     * @param restricted The value returned by {@link #enter}.
+     */
+    static void exit(boolean restricted) {
+        manager.restrict(KEY, restricted);
+    }
+
+    /**
+     * Reads the class file of a class with the current thread unrestricted, for the
+     * runtime to inspect classes while contract code runs.
+     *
+     * @param type The class.
+     * @return The class file content, or null if it cannot be found.
+     */
+    static byte[] classFile(Class<?> type) {
+        TSecurityManager sm = manager;
+        if (sm == null) {
+            return ClassFile.bytesOf(type);
+        }
+        boolean restricted = sm.restrict(KEY, false);
+        try {
+            return ClassFile.bytesOf(type);
+        } finally {
+            sm.restrict(KEY, restricted);
+        }
+    }
+
+    private static boolean always() {
+        try {
+            return !"verified".equals(System.getProperty("contract.sandbox"));
+        } catch (SecurityException e) {
+            return true;
+        }
+    }
+
+    private static synchronized TSecurityManager install() {
+        if (manager == null) {
+            if (System.getSecurityManager() != null) {
+                throw new SecurityException("SecurityManager not null");
+            }
+            TSecurityManager sm = new TSecurityManager(KEY, true);
+            System.setSecurityManager(sm);
+            manager = sm;
+        }
+        return manager;
+    }
+}
@@ -1,6 +1,14 @@
 package java.lang.contract;
 
+import java.crypto.Keccak256;
+import java.lang.Revert;
 import java.lang.System;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a message with a sender and data.
@@ -75,8 +83,112 @@ public class Storage {
     private native void storageSetString(int slot, byte[] value);
     
 
-    // Singleton pattern
-    private static Storage storage;
+    /**
+     * Size of one chunk of a dynamic value, see {@link #SetStorageDynamicValue}.
+     */
+    public static final int DYNAMIC_CHUNK_SIZE = 32;
+
+    /**
+     * Backend of the fixed slots and mapping entries, in place of the natives, for
+     * tools, tests and benchmarks that run contracts outside a node, see
+     * {@link #setHost}.
+     */
+    public interface Host {
+
+        /**
+         * Returns the value of a fixed slot.
+         *
+         * @param slot The slot.
+         * @return The value, empty if none.
+         */
+        byte[] getFixed(int slot);
+
+        /**
+         * Sets the value of a fixed slot.
+         *
+         * @param slot The slot.
+         * @param value The value.
+         */
+        void setFixed(int slot, byte[] value);
+
+        /**
+         * Returns the value of a mapping entry.
+         *
+         * @param slot The slot of the mapping.
+         * @param key The key of the entry.
+         * @return The value, empty if none.
+         */
+        byte[] getMapping(byte[] slot, byte[] key);
+
+        /**
+         * Sets the value of a mapping entry.
+         *
+         * @param slot The slot of the mapping.
+         * @param key The key of the entry.
+         * @param value The value.
+         */
+        void setMapping(byte[] slot, byte[] key, byte[] value);
+
+        /**
+         * Computes the slot of a mapping held by a nested mapping.
+         *
+         * @param slot The slot of the nested mapping.
+         * @param key The key of the held mapping.
+         * @return The 32-byte slot of the held mapping.
+         */
+        byte[] computeNestedSlot(byte[] slot, byte[] key);
+    }
+
+    // Backend replacing the natives, null to use them
+    private static volatile Host host;
+
+    // Read cache shared with the other threads of a read-only batch, null if none
+    private StripedReadCache shared;
+
+    // Block transaction the accesses of this thread belong to, null if none
+    private BlockTransaction tx;
+
+    // Set during @View and @Pure calls, any write is rejected
+    private boolean readOnly;
+
+    // Marks a cache entry that was absent before a write, see rollback
+    private static final byte[] ABSENT = new byte[0];
+
+    // Values read or written during a batch, by slot (Integer) or MappingKey; null outside batches
+    private Map<Object, byte[]> cache;
+
+    // Writes of the batch not yet sent to the host, in order
+    private Map<Object, byte[]> pending;
+
+    // Previous cache and pending values of every write of the batch, see checkpoint
+    private List<Object[]> journal;
+
+    /**
+     * Key of a mapping entry in the caches and read and write sets.
+     */
+    static final class MappingKey {
+        final byte[] slot;
+        final byte[] key;
+
+        MappingKey(byte[] slot, byte[] key) {
+            this.slot = slot;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof MappingKey)) {
+                return false;
+            }
+            MappingKey o = (MappingKey) other;
+            return Arrays.equals(slot, o.slot) && Arrays.equals(key, o.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(slot) + Arrays.hashCode(key);
+        }
+    }
 
     /**
      * Constructs a new Storage object.
@@ -86,15 +198,257 @@ public class Storage {
     }
 
     /**
-     * Returns a new Storage object.
+     * Replaces the natives with a backend for all threads, or restores them.
+     *
+     * @param backend The backend, or null for the natives.
+     * @throws SecurityException if called from contract code.
+     */
+    public static void setHost(Host backend) {
+        SecurityManager sm = System.getSecurityManager();
+        if (sm != null) {
+            sm.checkPermission(new RuntimePermission("setStorageHost"));
+        }
+        host = backend;
+    }
+
+    /**
+     * Returns the storage of the running call, see {@link ExecutionContext}.
      *
-     * @return A new Storage object.
+     * @return The storage of the running call.
      */
     public static Storage getStorage() {
-        if (storage == null) {
-            storage = new Storage();
+        return ExecutionContext.current().getStorage();
+    }
+
+    /**
+     * Shares a read cache with the other threads of a batch of read-only calls.
+     *
+     * @param shared The shared cache, or null to stop sharing.
+     */
+    void share(StripedReadCache shared) {
+        this.shared = shared;
+    }
+
+    /**
+     * Returns true if the running call may not write to the storage.
+     *
+     * @return true during a @View or @Pure call.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Sets whether the running call may write to the storage.
+     *
+     * @param readOnly true to reject writes.
+     */
+    void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Rejects a write during a read-only call.
+     */
+    private void checkWritable() {
+        if (readOnly) {
+            throw new Revert("Storage write in a read-only call");
+        }
+    }
+
+    /**
+     * Starts a batch: from now on reads are cached and writes are buffered until
+     * {@link #commitBatch()}, so that the calls of a multicall share one view of
+     * the storage and a failed call can be rolled back.
+     */
+    void beginBatch() {
+        cache = new HashMap<>();
+        pending = new LinkedHashMap<>();
+        journal = new ArrayList<>();
+    }
+
+    /**
+     * Returns a checkpoint of the batch to roll back to.
+     *
+     * @return The checkpoint.
+     */
+    int checkpoint() {
+        return journal.size();
+    }
+
+    /**
+     * Undoes the writes of the batch made since a checkpoint.
+     *
+     * @param checkpoint The checkpoint, see {@link #checkpoint()}.
+     */
+    void rollback(int checkpoint) {
+        for (int i = journal.size() - 1; i >= checkpoint; i--) {
+            Object[] entry = journal.remove(i);
+            restore(cache, entry[0], (byte[]) entry[1]);
+            restore(pending, entry[0], (byte[]) entry[2]);
+        }
+    }
+
+    /**
+     * Sends the buffered writes to the host and ends the batch.
+     */
+    void commitBatch() {
+        Map<Object, byte[]> writes = pending;
+        endBatch();
+        for (Map.Entry<Object, byte[]> write : writes.entrySet()) {
+            store(write.getKey(), write.getValue());
+        }
+    }
+
+    /**
+     * Ends the batch, dropping the buffered writes.
+     */
+    void endBatch() {
+        cache = null;
+        pending = null;
+        journal = null;
+    }
+
+    /**
+     * Runs the following storage accesses of this thread as a transaction of a block,
+     * see {@link BlockExecutor}.
+     *
+     * @param tx The transaction, or null to access the host directly again.
+     */
+    void attach(BlockTransaction tx) {
+        this.tx = tx;
+    }
+
+    /**
+     * Writes values straight to the host, bypassing batches and transactions.
+     *
+     * @param writes The values by slot (Integer) or mapping entry key.
+     */
+    void apply(Map<Object, byte[]> writes) {
+        for (Map.Entry<Object, byte[]> write : writes.entrySet()) {
+            hostWrite(write.getKey(), write.getValue());
+        }
+    }
+
+    private byte[] readFixed(int slot) {
+        return read(slot);
+    }
+
+    private void writeFixed(int slot, byte[] value) {
+        write(slot, value);
+    }
+
+    private byte[] readMapping(byte[] slot, byte[] key) {
+        return read(new MappingKey(slot, key));
+    }
+
+    private void writeMapping(byte[] slot, byte[] key, byte[] value) {
+        write(new MappingKey(slot, key), value);
+    }
+
+    /**
+     * Reads a value through the layers of this thread: the batch, then the block
+     * transaction, then the read cache shared with other threads, then the host.
+     */
+    private byte[] read(Object key) {
+        if (cache == null) {
+            return load(key);
+        }
+        if (cache.containsKey(key)) {
+            return cache.get(key);
+        }
+        byte[] value = load(key);
+        cache.put(key, value);
+        return value;
+    }
+
+    /**
+     * Writes a value to the batch if there is one, otherwise below it.
+     */
+    private void write(Object key, byte[] value) {
+        if (cache == null) {
+            store(key, value);
+        } else {
+            buffer(key, value);
+        }
+    }
+
+    /**
+     * Reads a value below the batch.
+     */
+    private byte[] load(Object key) {
+        if (tx != null) {
+            byte[] value = tx.read(key);
+            if (value != BlockTransaction.SNAPSHOT) {
+                return value;
+            }
+        }
+        if (shared == null) {
+            return hostRead(key);
+        }
+        byte[] value = shared.get(key);
+        if (value != StripedReadCache.MISSING) {
+            return value;
+        }
+        value = hostRead(key);
+        shared.put(key, value);
+        return value;
+    }
+
+    /**
+     * Writes a value below the batch.
+     */
+    private void store(Object key, byte[] value) {
+        if (tx != null) {
+            tx.write(key, value);
+        } else {
+            hostWrite(key, value);
+        }
+    }
+
+    private byte[] hostRead(Object key) {
+        Host backend = host;
+        if (key instanceof MappingKey) {
+            MappingKey mappingKey = (MappingKey) key;
+            return backend != null
+                ? backend.getMapping(mappingKey.slot, mappingKey.key)
+                : storageGetMapping(mappingKey.slot, mappingKey.key);
+        }
+        return backend != null ? backend.getFixed((Integer) key) : storageGetFixed((Integer) key);
+    }
+
+    private void hostWrite(Object key, byte[] value) {
+        Host backend = host;
+        if (key instanceof MappingKey) {
+            MappingKey mappingKey = (MappingKey) key;
+            if (backend != null) {
+                backend.setMapping(mappingKey.slot, mappingKey.key, value);
+            } else {
+                storageSetMapping(mappingKey.slot, mappingKey.key, value);
+            }
+        } else if (backend != null) {
+            backend.setFixed((Integer) key, value);
+        } else {
+            storageSetFixed((Integer) key, value);
+        }
+    }
+
+    private void buffer(Object key, byte[] value) {
+        byte[] previousCached = cache.containsKey(key) ? cache.get(key) : ABSENT;
+        byte[] previousPending = pending.containsKey(key) ? pending.get(key) : ABSENT;
+        journal.add(new Object[] {key, previousCached, previousPending});
+        cache.put(key, value);
+        // re-insert so the write is flushed in the order of its last update
+        pending.remove(key);
+        pending.put(key, value);
+    }
+
+    private static void restore(Map<Object, byte[]> map, Object key, byte[] previous) {
+        if (previous == ABSENT) {
+            map.remove(key);
+        } else {
+            map.put(key, previous);
         }
-        return storage;
     }
 
     /**
@@ -104,8 +458,13 @@ public class Storage {
      * @return The value as a byte array.
      */
     public byte[] GetStorageFixedValue(int slot) {
-        System.out.println("Getting fixed value from slot: " + slot);
-        return storageGetFixed(slot);
+        byte[] value = readFixed(slot);
+        CallMetrics.current().fixedRead(value);
+        Gas.use(Gas.STORAGE_READ);
+        if (Trace.isEnabled(Trace.STORAGE, Trace.DEBUG)) {
+            Trace.record(Trace.STORAGE, Trace.DEBUG, "get fixed", slot, value);
+        }
+        return value;
     }
 
     /**
@@ -115,7 +474,13 @@ public class Storage {
      * @param value The value to set.
      */
     public void SetStorageFixedValue(int slot, byte[] value) {
-        storageSetFixed(slot, value);
+        checkWritable();
+        if (Trace.isEnabled(Trace.STORAGE, Trace.DEBUG)) {
+            Trace.record(Trace.STORAGE, Trace.DEBUG, "set fixed", slot, value);
+        }
+        CallMetrics.current().fixedWrite(value);
+        Gas.use(Gas.STORAGE_WRITE);
+        writeFixed(slot, value);
     }
 
     /**
@@ -126,7 +491,12 @@ public class Storage {
      * @return The computed slot
      */
     public byte[] ComputeNestedMappingSlot(byte[] slot, byte[] keyBytes) {
-        return storageComputeNestedSlotMapping(slot, keyBytes);
+        CallMetrics.current().keccak();
+        Gas.use(Gas.KECCAK);
+        Host backend = host;
+        return backend != null
+            ? backend.computeNestedSlot(slot, keyBytes)
+            : storageComputeNestedSlotMapping(slot, keyBytes);
     }
 
     /**
@@ -137,7 +507,13 @@ public class Storage {
      * @return The value as a byte array.
      */
     public byte[] GetStorageMappingValue(byte[] slot, byte[] key) {
-        return storageGetMapping(slot, key);
+        byte[] value = readMapping(slot, key);
+        CallMetrics.current().mappingRead(value);
+        Gas.use(Gas.STORAGE_READ);
+        if (Trace.isEnabled(Trace.STORAGE, Trace.DEBUG)) {
+            Trace.record(Trace.STORAGE, Trace.DEBUG, "get mapping", slot[31] & 0xFF, key);
+        }
+        return value;
     }
 
     /**
@@ -148,7 +524,130 @@ public class Storage {
      * @param value The value to set.
      */
     public void SetStorageMappingValue(byte[] slot, byte[] key, byte[] value) {
-        storageSetMapping(slot, key, value);
+        checkWritable();
+        if (Trace.isEnabled(Trace.STORAGE, Trace.DEBUG)) {
+            Trace.record(Trace.STORAGE, Trace.DEBUG, "set mapping", slot[31] & 0xFF, key);
+        }
+        CallMetrics.current().mappingWrite(value);
+        Gas.use(Gas.STORAGE_WRITE);
+        writeMapping(slot, key, value);
+    }
+
+    /**
+     * Retrieves the byte length of a dynamic value (string, bytes) from its header slot.
+     *
+     * @param slot The header slot of the value.
+     * @return The length in bytes, or 0 if nothing is stored.
+     */
+    public int GetStorageDynamicLength(int slot) {
+        byte[] header = readFixed(slot);
+        CallMetrics.current().dynamicRead(header);
+        Gas.use(Gas.STORAGE_READ);
+        int length = 0;
+        if (header != null) {
+            for (int i = Math.max(0, header.length - 4); i < header.length; i++) {
+                length = (length << 8) | (header[i] & 0xFF);
+            }
+        }
+        if (Trace.isEnabled(Trace.STORAGE, Trace.DEBUG)) {
+            Trace.record(Trace.STORAGE, Trace.DEBUG, "get dynamic length", slot, header);
+        }
+        return length;
+    }
+
+    /**
+     * Computes the first data slot of a dynamic value, i.e. keccak256(slot).
+     * The result only depends on the slot, so callers should compute it once per value.
+     *
+     * @param slot The header slot of the value.
+     * @return The slot of the first data chunk.
+     */
+    public int ComputeDynamicDataSlot(int slot) {
+        CallMetrics.current().keccak();
+        Gas.use(Gas.KECCAK);
+        return bytesToInt(keccak(toSlotBytes(slot)));
+    }
+
+    /**
+     * Retrieves one 32-byte chunk of a dynamic value.
+     *
+     * @param dataSlot The first data slot, see {@link #ComputeDynamicDataSlot(int)}.
+     * @param index The index of the chunk.
+     * @return The chunk, or null if nothing is stored.
+     */
+    public byte[] GetStorageDynamicChunk(int dataSlot, int index) {
+        byte[] chunk = readFixed(dataSlot + index);
+        CallMetrics.current().dynamicRead(chunk);
+        Gas.use(Gas.STORAGE_READ);
+        return chunk;
+    }
+
+    /**
+     * Sets a dynamic value (string, bytes) as a length header followed by 32-byte chunks.
+     *
+     * The header slot holds the byte length as a 32-byte big-endian integer, the payload
+     * is split into 32-byte chunks stored from keccak256(slot) on, the last chunk zero padded.
+     * Chunks left over from a longer previous value are cleared.
+     *
+     * @param slot The header slot of the value.
+     * @param value The value to set.
+     * @param previousLength The length of the value currently stored, used to clear stale chunks.
+     */
+    public void SetStorageDynamicValue(int slot, byte[] value, int previousLength) {
+        checkWritable();
+        byte[] lengthBytes = new byte[DYNAMIC_CHUNK_SIZE];
+        for (int i = 0; i < 4; i++) {
+            lengthBytes[31-i] = (byte)(value.length >> (i * 8));
+        }
+        if (Trace.isEnabled(Trace.STORAGE, Trace.DEBUG)) {
+            Trace.record(Trace.STORAGE, Trace.DEBUG, "set dynamic", slot, value);
+        }
+        CallMetrics metrics = CallMetrics.current();
+        metrics.dynamicWrite(lengthBytes);
+        Gas.use(Gas.STORAGE_WRITE);
+        writeFixed(slot, lengthBytes);
+
+        int chunks = (value.length + DYNAMIC_CHUNK_SIZE - 1) / DYNAMIC_CHUNK_SIZE;
+        int previousChunks = (previousLength + DYNAMIC_CHUNK_SIZE - 1) / DYNAMIC_CHUNK_SIZE;
+        if (chunks == 0 && previousChunks == 0) {
+            return;
+        }
+        int dataSlot = ComputeDynamicDataSlot(slot);
+        for (int i = 0; i < chunks; i++) {
+            byte[] chunk = new byte[DYNAMIC_CHUNK_SIZE];
+            int offset = i * DYNAMIC_CHUNK_SIZE;
+            System.arraycopy(value, offset, chunk, 0, Math.min(DYNAMIC_CHUNK_SIZE, value.length - offset));
+            metrics.dynamicWrite(chunk);
+            Gas.use(Gas.STORAGE_WRITE);
+            writeFixed(dataSlot + i, chunk);
+        }
+        for (int i = chunks; i < previousChunks; i++) {
+            byte[] chunk = new byte[DYNAMIC_CHUNK_SIZE];
+            metrics.dynamicWrite(chunk);
+            Gas.use(Gas.STORAGE_WRITE);
+            writeFixed(dataSlot + i, chunk);
+        }
+    }
+
+    /**
+     * Hashes with keccak256, through {@link Keccak256} when a host replaces the natives.
+     */
+    private byte[] keccak(byte[] input) {
+        return host != null ? Keccak256.getKeccak256().keccak256(input) : keccak256(input);
+    }
+
+    /**
+     * Converts a slot number to its 32-byte big-endian form.
+     *
+     * @param slot The slot to convert.
+     * @return The 32-byte slot.
+     */
+    private byte[] toSlotBytes(int slot) {
+        byte[] slotBytes = new byte[32];
+        for (int i = 0; i < 4; i++) {
+            slotBytes[31-i] = (byte)(slot >> (i * 8));
+        }
+        return slotBytes;
     }
 
     /**
@@ -166,61 +665,38 @@ public class Storage {
     }
 
     /**
-     * Sets a dynamic array in the storage.
+     * Sets a dynamic array in the storage: its length in the header slot, as for
+     * {@link #SetStorageDynamicValue}, and each value in one slot from keccak256(slot) on.
      *
      * @param arraySlot The slot to store the array.
      * @param values The array to store.
      */
     public void setDynamicArray(int arraySlot, byte[][] values) {
-        // 1. storage length of arraySlot
-        int length = values.length;
-        byte[] lengthBytes = new byte[32];
-        // convert length to 32 bytes
-        for (int i = 0; i < 32; i++) {
-            lengthBytes[31-i] = (byte)(length >> (i * 8));
+        SetStorageFixedValue(arraySlot, toSlotBytes(values.length));
+        if (values.length == 0) {
+            return;
         }
-        storageSetFixed(arraySlot, lengthBytes);
-
-        // 2. calculate data start position
-        // dataSlot = keccak256(arraySlot)
-        byte[] arraySlotBytes = new byte[32];
-        for (int i = 0; i < 32; i++) {
-            arraySlotBytes[31-i] = (byte)(arraySlot >> (i * 8));
-        }
-        byte[] dataSlotBytes = keccak256(arraySlotBytes);
-        int dataSlot = bytesToInt(dataSlotBytes);
-
-        // 3. storage each element
-        for (int i = 0; i < length; i++) {
-            int itemSlot = dataSlot + i;
-            storageSetString(itemSlot, values[i]);  // use storageSetString
+        int dataSlot = ComputeDynamicDataSlot(arraySlot);
+        for (int i = 0; i < values.length; i++) {
+            SetStorageFixedValue(dataSlot + i, values[i]);
         }
     }
 
     /**
-     * Retrieves a dynamic array from the storage.
+     * Retrieves a dynamic array from the storage, see {@link #setDynamicArray}.
      *
      * @param arraySlot The slot to retrieve the array from.
      * @return The retrieved array.
      */
     public byte[][] getDynamicArray(int arraySlot) {
-        // 1. get array length
-        byte[] lengthBytes = storageGetFixed(arraySlot);
-        int length = bytesToInt(lengthBytes);
-
-        // 2. calculate data start position
-        byte[] arraySlotBytes = new byte[32];
-        for (int i = 0; i < 32; i++) {
-            arraySlotBytes[31-i] = (byte)(arraySlot >> (i * 8));
-        }
-        byte[] dataSlotBytes = keccak256(arraySlotBytes);
-        int dataSlot = bytesToInt(dataSlotBytes);
-
-        // 3. read each element
+        int length = GetStorageDynamicLength(arraySlot);
         byte[][] result = new byte[length][];
+        if (length == 0) {
+            return result;
+        }
+        int dataSlot = ComputeDynamicDataSlot(arraySlot);
         for (int i = 0; i < length; i++) {
-            int itemSlot = dataSlot + i;
-            result[i] = storageGetString(itemSlot);  // use storageGetString
+            result[i] = GetStorageFixedValue(dataSlot + i);
         }
         return result;
     }
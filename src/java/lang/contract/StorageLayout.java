@@ -0,0 +1,254 @@
+package java.lang.contract;
+
+import java.io.Storable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Storage layout of a contract class: its instance fields, made accessible once,
+ * and the slot of each field holding a {@link Storable}.
+ *
+ * Slots are assigned as {@link MainCaller} always did: non-static, non-transient
+ * fields holding a Storable get consecutive slots, fields of the class itself first,
+ * then those of each superclass up to {@link Contract}. The layout is built from
+ * the first instance of the class and shared by all its instances.
+ */
+final class StorageLayout {
+
+    // Layouts of all contract classes instantiated so far
+    private static final Map<Class<?>, StorageLayout> LAYOUTS = new ConcurrentHashMap<>();
+
+    // All instance fields below Contract, in slot assignment order
+    private final Field[] fields;
+
+    // Slot of each field, NO_SLOT for fields that are not in storage
+    private final int[] slots;
+
+    // Fields each @View method may read, see FieldReads
+    private final Map<Method, boolean[]> reads = new ConcurrentHashMap<>();
+
+    private StorageLayout(Field[] fields, int[] slots) {
+        this.fields = fields;
+        this.slots = slots;
+    }
+
+    /**
+     * Returns the layout of the class of a contract, building it from the contract
+     * on first use.
+     *
+     * @param contract A freshly constructed contract.
+     * @return The layout of its class.
+     */
+    static StorageLayout of(Contract contract) {
+        StorageLayout layout = LAYOUTS.get(contract.getClass());
+        if (layout == null) {
+            layout = build(contract);
+            LAYOUTS.put(contract.getClass(), layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Assigns the slots of the storage fields of a contract and loads them.
+     *
+     * @param contract The contract to load.
+     */
+    void load(Contract contract) {
+        load(contract, null);
+    }
+
+    /**
+     * Assigns the slots of the storage fields a @View method may read and loads
+     * them, leaving the other fields unloaded.
+     *
+     * @param contract The contract to load.
+     * @param method The @View method about to be called.
+     */
+    void loadFor(Contract contract, Method method) {
+        load(contract, prepare(contract, method));
+    }
+
+    /**
+     * Finds the storage fields a @View method may read, once per method.
+     *
+     * @param contract A contract of the class.
+     * @param method The @View method.
+     * @return For each field, true if it may be read.
+     */
+    boolean[] prepare(Contract contract, Method method) {
+        boolean[] mask = reads.get(method);
+        if (mask == null) {
+            mask = new boolean[fields.length];
+            Set<String> names = FieldReads.of(contract.getClass(), method);
+            for (int i = 0; i < fields.length; i++) {
+                mask[i] = names == null || names.contains(fields[i].getName());
+            }
+            reads.put(method, mask);
+        }
+        return mask;
+    }
+
+    private void load(Contract contract, boolean[] mask) {
+        for (int i = 0; i < fields.length; i++) {
+            if (slots[i] == Storable.NO_SLOT || (mask != null && !mask[i])) {
+                continue;
+            }
+            Object value = get(fields[i], contract);
+            if (value instanceof Storable) {
+                Storable storable = (Storable) value;
+                storable.setSlot(slots[i]);
+                storable.load();
+            }
+        }
+    }
+
+    /**
+     * Returns the current values of all fields of a contract, with a copy of the
+     * elements of the arrays they hold.
+     *
+     * @param contract The contract.
+     * @return The values, in the order of the layout.
+     */
+    Snapshot snapshot(Contract contract) {
+        Object[] values = new Object[fields.length];
+        Object[] elements = new Object[fields.length];
+        boolean resettable = true;
+        for (int i = 0; i < fields.length; i++) {
+            Object value = get(fields[i], contract);
+            values[i] = value;
+            if (value != null && value.getClass().isArray()) {
+                elements[i] = copyOf(value);
+                resettable &= value.getClass().getComponentType().isPrimitive() || immutableElements((Object[]) value);
+            } else {
+                resettable &= immutable(value);
+            }
+        }
+        return new Snapshot(values, elements, resettable);
+    }
+
+    /**
+     * Returns a contract to the state it had after construction: fields reassigned
+     * during a call get their initial objects back, arrays their initial elements,
+     * and storage fields are reset to their unloaded state with their slots kept.
+     * Other objects a call changed keep the change, see {@link Snapshot#resettable}.
+     *
+     * @param contract The contract to reset.
+     * @param initial The values of its fields after construction, see {@link #snapshot}.
+     */
+    void reset(Contract contract, Snapshot initial) {
+        Object[] values = initial.values;
+        for (int i = 0; i < fields.length; i++) {
+            if (get(fields[i], contract) != values[i]) {
+                set(fields[i], contract, values[i]);
+            }
+            if (initial.elements[i] != null) {
+                System.arraycopy(initial.elements[i], 0, values[i], 0, Array.getLength(values[i]));
+            }
+            if (slots[i] != Storable.NO_SLOT && values[i] instanceof Storable) {
+                Storable storable = (Storable) values[i];
+                storable.reset();
+                storable.setSlot(slots[i]);
+            }
+        }
+    }
+
+    /**
+     * Field values of a contract right after construction, see {@link #snapshot}.
+     */
+    static final class Snapshot {
+
+        // The objects held by the fields
+        final Object[] values;
+
+        // A copy of the elements of each array held by a field, null for other fields
+        final Object[] elements;
+
+        // True if a reset restores all the contract holds: its fields hold nothing but
+        // immutable values, Storables, and arrays of primitives or immutable values
+        final boolean resettable;
+
+        private Snapshot(Object[] values, Object[] elements, boolean resettable) {
+            this.values = values;
+            this.elements = elements;
+            this.resettable = resettable;
+        }
+    }
+
+    // Storables change only when loaded or reset, the other values never change
+    private static boolean immutable(Object value) {
+        return value == null || value instanceof Storable || value instanceof String
+            || value instanceof Boolean || value instanceof Character || value instanceof Byte
+            || value instanceof Short || value instanceof Integer || value instanceof Long
+            || value instanceof Float || value instanceof Double || value instanceof BigInteger
+            || value instanceof Enum;
+    }
+
+    private static boolean immutableElements(Object[] array) {
+        for (Object element : array) {
+            if (!immutable(element)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object copyOf(Object array) {
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+
+    private static StorageLayout build(Contract contract) {
+        List<Field> fields = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int slotCounter = 0;  // use for auto assign storage slot
+        Class<?> currentClass = contract.getClass();
+        while (currentClass != null && !currentClass.equals(Contract.class)) {
+            for (Field field : currentClass.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers)) {
+                    continue;
+                }
+                field.setAccessible(true);
+                fields.add(field);
+                // Transient fields are reset between calls but never stored
+                if (!Modifier.isTransient(modifiers) && get(field, contract) instanceof Storable) {
+                    slots.add(slotCounter++);
+                } else {
+                    slots.add(Storable.NO_SLOT);
+                }
+            }
+            currentClass = currentClass.getSuperclass();
+        }
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+        }
+        return new StorageLayout(fields.toArray(new Field[0]), slotArray);
+    }
+
+    private static Object get(Field field, Contract contract) {
+        try {
+            return field.get(contract);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to load field: " + field.getName());
+        }
+    }
+
+    private static void set(Field field, Contract contract, Object value) {
+        try {
+            field.set(contract, value);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to reset field: " + field.getName());
+        }
+    }
+}
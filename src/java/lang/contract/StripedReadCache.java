@@ -0,0 +1,68 @@
+package java.lang.contract;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of storage reads shared by calls running on several threads.
+ *
+ * Only valid while nothing writes to the host storage, i.e. for a batch of read-only
+ * calls, or a block whose writes are held back until it commits. Keys are spread
+ * over a fixed number of stripes, each with its own lock, so threads reading
+ * different slots rarely contend; a lookup takes the lock of its stripe once.
+ * Values may be null, a slot known to be empty.
+ */
+final class StripedReadCache {
+
+    /** Returned by {@link #get} when the key is not cached. */
+    static final byte[] MISSING = new byte[0];
+
+    // Held in place of null, for a slot known to be empty
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final int STRIPES = 64;
+
+    private final Map<Object, byte[]>[] maps;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    StripedReadCache() {
+        maps = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            maps[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * Returns the cached value for the key.
+     *
+     * @param key The slot (Integer) or mapping entry key.
+     * @return The value, null if the slot is empty, or {@link #MISSING} if the key
+     *         is not cached.
+     */
+    byte[] get(Object key) {
+        Map<Object, byte[]> map = stripe(key);
+        synchronized (map) {
+            byte[] value = map.get(key);
+            return value == null ? MISSING : value == EMPTY ? null : value;
+        }
+    }
+
+    /**
+     * Caches the value read for a key.
+     *
+     * @param key The slot (Integer) or mapping entry key.
+     * @param value The value read, may be null.
+     */
+    void put(Object key, byte[] value) {
+        Map<Object, byte[]> map = stripe(key);
+        synchronized (map) {
+            map.put(key, value != null ? value : EMPTY);
+        }
+    }
+
+    private Map<Object, byte[]> stripe(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return maps[h & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,240 @@
+package java.lang.contract;
+
+import java.lang.types.Numeric;
+
+/**
+ * Structured trace facility for the contract runtime.
+ *
+ * Tracing is configured once from the {@code contract.trace} system property, e.g.
+ * {@code -Dcontract.trace=dispatch,storage:debug,codec:info}. A category without a level
+ * traces at {@link #DEBUG}. The configuration is held in a static final mask, so a
+ * disabled check folds to a constant and call sites guarded by {@link #isEnabled}
+ * cost nothing in production.
+ *
+ * Events go to a fixed-size ring buffer (capacity from {@code contract.trace.capacity},
+ * default 1024) and are read back with {@link #toJson()} or {@link #drain()}.
+ */
+public final class Trace {
+
+    /** Error level. */
+    public static final int ERROR = 1;
+
+    /** Info level. */
+    public static final int INFO = 2;
+
+    /** Debug level. */
+    public static final int DEBUG = 3;
+
+    /** Method dispatch: call input, selectors, resolved methods. */
+    public static final int DISPATCH = 1;
+
+    /** Storage reads and writes. */
+    public static final int STORAGE = 1 << 1;
+
+    /** Encoding and decoding of parameters, results and stored values. */
+    public static final int CODEC = 1 << 2;
+
+    /** Events emitted by calls whose host does not take their logs. */
+    public static final int EVENTS = 1 << 3;
+
+    private static final String[] LEVEL_NAMES = {"off", "error", "info", "debug"};
+
+    private static final String[] CATEGORY_NAMES = {"dispatch", "storage", "codec", "events"};
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    // one byte of category bits per level, see isEnabled
+    private static final int MASK;
+
+    private static final int CAPACITY;
+
+    static {
+        int mask = 0;
+        int capacity = DEFAULT_CAPACITY;
+        try {
+            mask = parseMask(System.getProperty("contract.trace"));
+            String cap = System.getProperty("contract.trace.capacity");
+            if (cap != null) {
+                capacity = Math.max(1, Integer.parseInt(cap.trim()));
+            }
+        } catch (SecurityException | IllegalArgumentException e) {
+            mask = 0;
+        }
+        MASK = mask;
+        CAPACITY = capacity;
+    }
+
+    // ring buffer, allocated on first record
+    private static long[] times;
+    private static int[] kinds;
+    private static String[] names;
+    private static long[] args;
+    private static byte[][] payloads;
+    private static long recorded;
+
+    private Trace() {
+    }
+
+    /**
+     * Returns true if events of the given category and level are traced.
+     * Guard every {@link #record} call with this check so that arguments are
+     * only built when tracing is on.
+     *
+     * @param category One of {@link #DISPATCH}, {@link #STORAGE}, {@link #CODEC}, {@link #EVENTS}.
+     * @param level One of {@link #ERROR}, {@link #INFO}, {@link #DEBUG}.
+     * @return true if the event would be recorded.
+     */
+    public static boolean isEnabled(int category, int level) {
+        return (MASK & (category << ((level - 1) * 8))) != 0;
+    }
+
+    /**
+     * Returns true if any category is traced at any level.
+     */
+    public static boolean isEnabled() {
+        return MASK != 0;
+    }
+
+    /**
+     * Records an event in the ring buffer, overwriting the oldest one when full.
+     * The payload is kept by reference and must not be modified afterwards.
+     *
+     * @param category The category of the event.
+     * @param level The level of the event.
+     * @param event The name of the event.
+     * @param arg A numeric argument (slot, length, count...).
+     * @param payload Optional binary payload, may be null.
+     */
+    public static void record(int category, int level, String event, long arg, byte[] payload) {
+        if (!isEnabled(category, level)) {
+            return;
+        }
+        synchronized (Trace.class) {
+            if (times == null) {
+                times = new long[CAPACITY];
+                kinds = new int[CAPACITY];
+                names = new String[CAPACITY];
+                args = new long[CAPACITY];
+                payloads = new byte[CAPACITY][];
+            }
+            int i = (int) (recorded++ % CAPACITY);
+            times[i] = System.nanoTime();
+            kinds[i] = (level << 8) | category;
+            names[i] = event;
+            args[i] = arg;
+            payloads[i] = payload;
+        }
+    }
+
+    /**
+     * Records an event without payload.
+     *
+     * @param category The category of the event.
+     * @param level The level of the event.
+     * @param event The name of the event.
+     * @param arg A numeric argument (slot, length, count...).
+     */
+    public static void record(int category, int level, String event, long arg) {
+        record(category, level, event, arg, null);
+    }
+
+    /**
+     * Returns the number of events currently held in the ring buffer.
+     */
+    public static synchronized int size() {
+        return (int) Math.min(recorded, CAPACITY);
+    }
+
+    /**
+     * Returns the buffered events, oldest first, as a JSON array of objects with
+     * the fields {@code t} (nanoTime), {@code category}, {@code level}, {@code event},
+     * {@code arg} and, when present, {@code data} (hex).
+     *
+     * @return The events as JSON.
+     */
+    public static synchronized String toJson() {
+        StringBuilder sb = new StringBuilder("[");
+        int size = size();
+        long first = recorded - size;
+        for (int n = 0; n < size; n++) {
+            int i = (int) ((first + n) % CAPACITY);
+            if (n > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"t\":").append(times[i])
+              .append(",\"category\":\"").append(categoryName(kinds[i] & 0xFF))
+              .append("\",\"level\":\"").append(LEVEL_NAMES[kinds[i] >>> 8])
+              .append("\",\"event\":\"").append(names[i])
+              .append("\",\"arg\":").append(args[i]);
+            if (payloads[i] != null) {
+                sb.append(",\"data\":\"").append(Numeric.toHexString(payloads[i])).append('"');
+            }
+            sb.append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Returns the buffered events as JSON and clears the buffer.
+     *
+     * @return The events as JSON.
+     */
+    public static synchronized String drain() {
+        String json = toJson();
+        clear();
+        return json;
+    }
+
+    /**
+     * Clears the buffer.
+     */
+    public static synchronized void clear() {
+        if (payloads != null) {
+            java.util.Arrays.fill(names, null);
+            java.util.Arrays.fill(payloads, null);
+        }
+        recorded = 0;
+    }
+
+    /**
+     * Parses a trace configuration such as {@code "dispatch,storage:info"}.
+     */
+    private static int parseMask(String config) {
+        if (config == null || config.trim().isEmpty()) {
+            return 0;
+        }
+        int mask = 0;
+        for (String part : config.split(",")) {
+            String[] kv = part.trim().split(":");
+            int category = 0;
+            if ("all".equals(kv[0])) {
+                category = DISPATCH | STORAGE | CODEC | EVENTS;
+            } else {
+                for (int c = 0; c < CATEGORY_NAMES.length; c++) {
+                    if (CATEGORY_NAMES[c].equals(kv[0])) {
+                        category = 1 << c;
+                    }
+                }
+            }
+            if (category == 0) {
+                throw new IllegalArgumentException("Unknown trace category: " + kv[0]);
+            }
+            int level = DEBUG;
+            if (kv.length > 1) {
+                level = java.util.Arrays.asList(LEVEL_NAMES).indexOf(kv[1]);
+                if (level < 0) {
+                    throw new IllegalArgumentException("Unknown trace level: " + kv[1]);
+                }
+            }
+            // a category traced at a level is also traced at every lower level
+            for (int l = ERROR; l <= level; l++) {
+                mask |= category << ((l - 1) * 8);
+            }
+        }
+        return mask;
+    }
+
+    private static String categoryName(int category) {
+        return CATEGORY_NAMES[Integer.numberOfTrailingZeros(category)];
+    }
+}
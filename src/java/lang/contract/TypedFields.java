@@ -0,0 +1,151 @@
+package java.lang.contract;
+
+import java.lang.ABI;
+import java.lang.address;
+import java.lang.bool;
+import java.lang.bytecode.ClassFile;
+import java.lang.dynamicBytes;
+import java.lang.intType;
+import java.lang.string;
+import java.lang.uintType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.types.BytesType;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The typed fields of events and custom errors, see {@link EventLog} and
+ * {@link CustomError}: their public instance fields, in declaration order.
+ *
+ * Neither {@code getFields()} nor {@code getDeclaredFields()} guarantees an order,
+ * and signatures, selectors and encodings depend on it, so the order is read from
+ * the class files, where the compiler writes fields in the order of the source.
+ */
+final class TypedFields {
+
+    private TypedFields() {
+    }
+
+    /**
+     * Returns the public instance fields of a class, those of its superclasses
+     * first, each class in declaration order.
+     *
+     * @param type The class.
+     * @return The fields.
+     * @throws IllegalStateException if the class file of a class with such fields
+     *         cannot be read.
+     */
+    static Field[] of(Class<?> type) {
+        ArrayDeque<Class<?>> hierarchy = new ArrayDeque<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.addFirst(c);
+        }
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c : hierarchy) {
+            List<Field> declared = new ArrayList<>();
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers)) {
+                    declared.add(field);
+                }
+            }
+            if (!declared.isEmpty()) {
+                // a loop rather than a sort with a lambda, which could not be linked
+                // while the sandbox restricts the thread
+                for (String name : declarationOrder(c)) {
+                    for (Field field : declared) {
+                        if (field.getName().equals(name)) {
+                            fields.add(field);
+                        }
+                    }
+                }
+            }
+        }
+        return fields.toArray(new Field[0]);
+    }
+
+    // Names of the fields of a class, in the order of its class file; the layout
+    // may be built while contract code runs, the class file is read unrestricted
+    private static List<String> declarationOrder(Class<?> type) {
+        byte[] bytes = Sandbox.classFile(type);
+        if (bytes == null) {
+            throw new IllegalStateException("No class file for " + type.getName());
+        }
+        try {
+            List<String> names = new ArrayList<>();
+            for (ClassFile.Member field : ClassFile.parse(bytes).getFields()) {
+                names.add(field.getName());
+            }
+            return names;
+        } catch (IOException e) {
+            throw new IllegalStateException(type.getName(), e);
+        }
+    }
+
+    /**
+     * Returns the signature of a class with the given fields.
+     *
+     * @param type The class.
+     * @param fields Its fields.
+     * @return The simple name of the class and the types of the fields, e.g.
+     *         {@code Transfer(address,address,uint256)}.
+     */
+    static String signature(Class<?> type, Field[] fields) {
+        Class<?>[] types = new Class<?>[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            types[i] = fields[i].getType();
+        }
+        return DispatchTable.buildMethodSignature(types, type.getSimpleName());
+    }
+
+    /**
+     * Returns the value of a field.
+     *
+     * @param field The field.
+     * @param target The object holding it.
+     * @return The value.
+     */
+    static Object get(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the big-endian bytes of a value: the minimal bytes of numbers and
+     * addresses, the bytes of byte types and the UTF-8 bytes of strings.
+     *
+     * @param value The value.
+     * @return The bytes, empty for null.
+     */
+    static byte[] raw(Object value) {
+        if (value == null) {
+            return new byte[0];
+        } else if (value instanceof address) {
+            return ((address) value).toByteArray();
+        } else if (value instanceof uintType) {
+            return ((uintType<?>) value).toByteArray();
+        } else if (value instanceof intType) {
+            return ((intType<?>) value).toByteArray();
+        } else if (value instanceof BytesType) {
+            return ((BytesType) value).getValue();
+        } else if (value instanceof bool) {
+            return new byte[] {(byte) (((bool) value).booleanValue() ? 1 : 0)};
+        } else if (value instanceof string) {
+            return ((string) value).toByteArray();
+        } else if (value instanceof dynamicBytes) {
+            return ((dynamicBytes) value).toByteArray();
+        } else if (value instanceof String) {
+            return ((String) value).getBytes(StandardCharsets.UTF_8);
+        } else if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        return ABI.encode(value);
+    }
+}
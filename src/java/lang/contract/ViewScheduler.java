@@ -0,0 +1,143 @@
+package java.lang.contract;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs batches of read-only calls in parallel on a fixed pool of worker threads.
+ *
+ * Each call carries its own packed call context (see {@link Message}) and runs
+ * in its own {@link ExecutionContext}, with a detached message, and a pooled
+ * contract instance. The calls of a batch share a {@link StripedReadCache}: nothing
+ * writes while they run, so a slot read by one call is valid for all of them.
+ *
+ * Only @View and @Pure methods are run, any other call fails without running. The
+ * contract classes are prepared (dispatch tables, storage layouts, fields read)
+ * before the calls start, so the workers do not build them concurrently. The host
+ * library must allow storage reads from several threads at once.
+ */
+final class ViewScheduler {
+
+    /**
+     * A call: the contract class and the packed call context.
+     */
+    static final class Call {
+        final Class<?> contractClass;
+        final byte[] context;
+
+        Call(Class<?> contractClass, byte[] context) {
+            this.contractClass = contractClass;
+            this.context = context;
+        }
+    }
+
+    private final ThreadPoolExecutor workers;
+
+    /**
+     * Constructs a scheduler and starts its workers.
+     *
+     * @param threads The number of worker threads.
+     */
+    ViewScheduler(int threads) {
+        workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                         new LinkedBlockingQueue<Runnable>());
+        // the first batch should not pay for starting the threads
+        workers.prestartAllCoreThreads();
+    }
+
+    /**
+     * Runs a batch of read-only calls.
+     *
+     * @param calls The calls.
+     * @return The result of each call, in the order of the calls.
+     */
+    List<Result<byte[]>> run(List<Call> calls) {
+        prepare(calls);
+        final StripedReadCache cache = new StripedReadCache();
+        List<Future<Result<byte[]>>> futures = new ArrayList<>(calls.size());
+        List<Result<byte[]>> results = new ArrayList<>(calls.size());
+        for (final Call call : calls) {
+            futures.add(workers.submit(() -> runOne(call, cache)));
+        }
+        for (Future<Result<byte[]>> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                results.add(Result.<byte[]>fail("executeCall failed"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(Result.<byte[]>fail("interrupted"));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Stops the workers.
+     */
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Runs one call on the current worker thread.
+     */
+    private static Result<byte[]> runOne(Call call, StripedReadCache cache) {
+        Message msg = new Message(call.context, true);
+        ExecutionContext previous = ExecutionContext.enter(msg);
+        Storage storage = ExecutionContext.current().getStorage();
+        storage.share(cache);
+        try {
+            if (!MainCaller.isReadOnly(MainCaller.lookup(call.contractClass, msg.getData()))) {
+                return Result.fail("not a read-only call");
+            }
+            MainCaller.call(call.contractClass);
+            if (msg.getSuccess()) {
+                return Result.ok(msg.getOutput());
+            }
+            return Result.fail(new Error(msg.getOutput()));
+        } finally {
+            ExecutionContext.exit(previous);
+        }
+    }
+
+    /**
+     * Builds what the calls of a batch share once, before they start: the dispatch
+     * tables and storage layouts, and the fields of each read-only method.
+     *
+     * @param calls The calls of the batch.
+     */
+    static void prepare(List<Call> calls) {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        for (Call call : calls) {
+            classes.add(call.contractClass);
+        }
+        for (Class<?> contractClass : classes) {
+            Contract contract;
+            try {
+                contract = ContractPool.acquire(contractClass);
+            } catch (Exception e) {
+                // the calls fail on their own
+                continue;
+            }
+            try {
+                StorageLayout layout = StorageLayout.of(contract);
+                for (Method method : DispatchTable.of(contractClass).methods()) {
+                    if (MainCaller.isReadOnly(method)) {
+                        layout.prepare(contract, method);
+                    }
+                }
+            } finally {
+                ContractPool.release(contract);
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package java.lang;
+
+import java.io.Storable;
+import java.util.Arrays;
+
+/**
+ * Storable dynamically sized byte sequence, the counterpart of Solidity's {@code bytes}.
+ *
+ * In storage the value uses the chunked layout of {@link ChunkedStorage}: a length
+ * header followed by 32-byte chunks. Loading only reads the header; chunks are
+ * fetched when the bytes are needed.
+ */
+public class dynamicBytes implements Storable, Comparable<dynamicBytes> {
+
+    public static final String TYPE_NAME = "bytes";
+
+    private int slot;
+    private byte[] data;
+    private ChunkedStorage stored;
+    private boolean dirty;
+
+    /**
+     * Returns a dynamicBytes holding the specified value.
+     *
+     * @param value The value to hold.
+     * @return A dynamicBytes holding the specified value.
+     */
+    public static dynamicBytes valueOf(byte[] value) {
+        return new dynamicBytes(value);
+    }
+
+    // Holds bytes no one else refers to, such as those just decoded, without a copy
+    static dynamicBytes wrap(byte[] value) {
+        dynamicBytes b = new dynamicBytes();
+        b.data = value;
+        return b;
+    }
+
+    /**
+     * Constructs an empty value.
+     */
+    public dynamicBytes() {
+        this(new byte[0]);
+    }
+
+    /**
+     * Constructs a new value holding a copy of the specified bytes.
+     *
+     * @param value The initial value.
+     */
+    public dynamicBytes(byte[] value) {
+        this.slot = Storable.NO_SLOT;
+        this.data = value.clone();
+        this.dirty = true;
+    }
+
+    @Override
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
+
+    @Override
+    public int getSlot() {
+        return slot;
+    }
+
+    @Override
+    public boolean save() {
+        if (slot == Storable.NO_SLOT) {
+            return true;
+        }
+        // nothing changed since the last load
+        if (!dirty) {
+            return true;
+        }
+        // remember the length written for the next save
+        this.stored = ChunkedStorage.save(slot, bytes(), stored);
+        this.dirty = false;
+        return true;
+    }
+
+    @Override
+    public boolean load() {
+        if (slot == Storable.NO_SLOT) {
+            return true;
+        }
+        // only the length header is read here, the chunks follow on demand
+        this.stored = ChunkedStorage.load(slot);
+        this.data = null;
+        this.dirty = false;
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        this.stored = null;
+        this.data = new byte[0];
+        this.dirty = false;
+    }
+
+    /**
+     * Returns the length of the value in bytes.
+     */
+    public int length() {
+        return data != null ? data.length : stored.length();
+    }
+
+    /**
+     * Returns the byte at the given index. For a loaded value only the chunk
+     * holding the byte is read.
+     *
+     * @param index The index of the byte.
+     * @return The byte at {@code index}.
+     */
+    public byte get(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length());
+        }
+        if (data != null) {
+            return data[index];
+        }
+        return stored.chunk(index / 32)[index % 32];
+    }
+
+    /**
+     * Returns the first {@code count} bytes of the value. For a loaded value only
+     * the chunks spanned by the prefix are read.
+     *
+     * @param count The number of bytes to return, clamped to {@link #length()}.
+     * @return The prefix of the value.
+     */
+    public byte[] prefix(int count) {
+        if (data == null) {
+            return stored.prefix(count);
+        }
+        return Arrays.copyOf(data, Math.max(0, Math.min(count, data.length)));
+    }
+
+    /**
+     * Compares two values byte by byte, unsigned. Loaded values are compared chunk
+     * by chunk, stopping at the first difference.
+     */
+    @Override
+    public int compareTo(dynamicBytes other) {
+        if (data == null && other.data == null) {
+            return stored.compareTo(other.stored);
+        }
+        if (data == null) {
+            return stored.compareTo(other.data);
+        }
+        if (other.data == null) {
+            return -other.stored.compareTo(data);
+        }
+        return ChunkedStorage.compare(data, other.data);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof dynamicBytes)) {
+            return false;
+        }
+        dynamicBytes o = (dynamicBytes) other;
+        return length() == o.length() && compareTo(o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bytes());
+    }
+
+    /**
+     * Returns a copy of the value, so that changing it does not change this value.
+     */
+    @Override
+    public byte[] toByteArray() {
+        return bytes().clone();
+    }
+
+    /**
+     * Sets the value to a copy of the specified bytes.
+     */
+    @Override
+    public void fromByteArray(byte[] data) {
+        this.data = data.clone();
+        this.dirty = true;
+    }
+
+    // The bytes of the value, read from storage on first use; not to be handed out
+    byte[] bytes() {
+        if (data == null) {
+            data = stored.toByteArray();
+        }
+        return data;
+    }
+}
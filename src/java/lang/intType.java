@@ -2,6 +2,7 @@ package java.lang;
 
 import java.math.BigInteger;
 import java.io.Storable;
+import java.lang.contract.ExecutionContext;
 import java.lang.contract.Storage;
 
 /**
@@ -367,7 +368,7 @@ public abstract class intType<T extends intType<T>>
         if (this.slot == Storable.NO_SLOT) {
             return false;
         }
-        Storage storage = Storage.getStorage();
+        Storage storage = ExecutionContext.current().getStorage();
         storage.SetStorageFixedValue(this.slot, toByteArray());
         return true;
     }
@@ -377,7 +378,7 @@ public abstract class intType<T extends intType<T>>
         if (this.slot == Storable.NO_SLOT) {
             return false;
         }
-        Storage storage = Storage.getStorage();
+        Storage storage = ExecutionContext.current().getStorage();
         byte[] bytes = storage.GetStorageFixedValue(this.slot);
         if (bytes == null) {
             this.ints = BigInteger.ZERO;
@@ -387,6 +388,11 @@ public abstract class intType<T extends intType<T>>
         return true;
     }
 
+    @Override
+    public void reset() {
+        this.ints = BigInteger.ZERO;
+    }
+
     /* ====================================================== */
     /*                    Number Methods                    */
     /* ====================================================== */
@@ -1,11 +1,20 @@
 package java.lang;
 import java.io.Storable;
 import java.nio.charset.StandardCharsets;
-import java.lang.contract.Storage;
 
-public class string implements Storable {
+/**
+ * Storable UTF-8 string.
+ *
+ * In storage a string uses the chunked layout of {@link ChunkedStorage}: a length
+ * header followed by 32-byte chunks. Loading only reads the header; chunks are fetched
+ * when the bytes are needed and the UTF-8 decode only happens in {@link #get()}.
+ */
+public class string implements Storable, Comparable<string> {
     private int slot;
     private String value;
+    private byte[] data;
+    private ChunkedStorage stored;
+    private boolean dirty;
 
     /**
      * Returns a string representation of the specified value.
@@ -17,6 +26,26 @@ public class string implements Storable {
         return new string(str);
     }
 
+    /**
+     * Returns a string holding a copy of the specified UTF-8 bytes, decoded only
+     * when needed.
+     *
+     * @param utf8 The UTF-8 encoded value.
+     * @return A string holding the specified bytes.
+     */
+    public static string valueOf(byte[] utf8) {
+        string s = new string((String) null);
+        s.data = utf8.clone();
+        return s;
+    }
+
+    // Holds UTF-8 bytes no one else refers to, such as those just decoded, without a copy
+    static string wrap(byte[] utf8) {
+        string s = new string((String) null);
+        s.data = utf8;
+        return s;
+    }
+
     /**
      * Constructs a new string with the specified initial value.
      *
@@ -25,6 +54,7 @@ public class string implements Storable {
     public string(String initialValue) {
         this.slot = Storable.NO_SLOT;
         this.value = initialValue;
+        this.dirty = true;
     }
 
     @Override
@@ -43,9 +73,16 @@ public class string implements Storable {
         if (slot == Storable.NO_SLOT) {
             return true;
         }
+        // nothing changed since the last load
+        if (!dirty) {
+            return true;
+        }
         // save the data to the storage
-        byte[] data = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
-        Storage.getStorage().SetStorageFixedValue(slot, data);
+        byte[] bytes = isNull() ? new byte[0] : bytes();
+        ChunkedStorage written = ChunkedStorage.save(slot, bytes, stored);
+        // remember the length written for the next save, a null string stays null
+        this.stored = isNull() ? null : written;
+        this.dirty = false;
         return true;
     }
 
@@ -55,27 +92,143 @@ public class string implements Storable {
         if (slot == Storable.NO_SLOT) {
             return true;
         }
-        // get the data from the storage
-        System.out.println("Loading string from slot: " + slot);
-        byte[] data = Storage.getStorage().GetStorageFixedValue(slot);
-        if (data == null) {
-            data = new byte[0];
-        }
-        this.value = new String(data, StandardCharsets.UTF_8);
+        // only the length header is read here, the chunks follow on demand
+        this.stored = ChunkedStorage.load(slot);
+        this.value = null;
+        this.data = null;
+        this.dirty = false;
         return true;
     }
 
+    @Override
+    public void reset() {
+        this.stored = null;
+        this.value = null;
+        this.data = null;
+        this.dirty = false;
+    }
+
+    /**
+     * Returns the value, decoding it from UTF-8 on first use.
+     *
+     * @return The value, or null if the string holds no value.
+     */
     public String get() {
+        if (value == null && !isNull()) {
+            value = new String(bytes(), StandardCharsets.UTF_8);
+        }
         return value;
     }
 
+    /**
+     * Returns the length of the UTF-8 encoded value without decoding it.
+     *
+     * @return The length in bytes.
+     */
+    public int length() {
+        if (data != null) {
+            return data.length;
+        }
+        if (value == null && stored != null) {
+            return stored.length();
+        }
+        return isNull() ? 0 : bytes().length;
+    }
+
+    /**
+     * Returns the first {@code count} bytes of the UTF-8 encoded value. For a loaded
+     * string only the chunks spanned by the prefix are read.
+     *
+     * @param count The number of bytes to return, clamped to {@link #length()}.
+     * @return The prefix in UTF-8.
+     */
+    public byte[] prefix(int count) {
+        if (data == null && value == null && stored != null) {
+            return stored.prefix(count);
+        }
+        byte[] bytes = isNull() ? new byte[0] : bytes();
+        return java.util.Arrays.copyOf(bytes, Math.max(0, Math.min(count, bytes.length)));
+    }
+
+    /**
+     * Compares the UTF-8 bytes of two strings. Loaded strings are compared chunk by
+     * chunk, stopping at the first difference.
+     */
+    @Override
+    public int compareTo(string other) {
+        boolean thisStored = data == null && value == null && stored != null;
+        boolean otherStored = other.data == null && other.value == null && other.stored != null;
+        if (thisStored && otherStored) {
+            return stored.compareTo(other.stored);
+        }
+        if (thisStored) {
+            return stored.compareTo(other.bytes());
+        }
+        if (otherStored) {
+            return -other.stored.compareTo(bytes());
+        }
+        return ChunkedStorage.compare(bytes(), other.bytes());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof string)) {
+            return false;
+        }
+        string o = (string) other;
+        return length() == o.length() && compareTo(o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return java.util.Arrays.hashCode(bytes());
+    }
+
+    @Override
+    public String toString() {
+        return get();
+    }
+
+    /**
+     * Returns a copy of the UTF-8 bytes, so that changing them does not change
+     * this string.
+     */
     @Override
     public byte[] toByteArray() {
-        return value.getBytes(StandardCharsets.UTF_8);
+        return bytes().clone();
     }
 
+    /**
+     * Sets the value to a copy of the specified UTF-8 bytes.
+     */
     @Override
     public void fromByteArray(byte[] data) {
-        value = new String(data, StandardCharsets.UTF_8);
+        this.data = data != null ? data.clone() : null;
+        this.value = null;
+        this.dirty = true;
+    }
+
+    // The UTF-8 bytes, encoded or read from storage on first use; not to be handed out
+    byte[] bytes() {
+        if (data == null) {
+            if (value != null) {
+                data = value.getBytes(StandardCharsets.UTF_8);
+            } else if (stored != null) {
+                data = stored.toByteArray();
+            } else {
+                return new byte[0];
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Returns true if the string holds no value at all.
+     */
+    private boolean isNull() {
+        return value == null && data == null && stored == null;
     }
 }
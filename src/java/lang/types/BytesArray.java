@@ -108,6 +108,12 @@ public final class BytesArray {
     if(shortlen == 0)
       return ZERO;
 
+    // an operand itself if all its bits are set in the other, as for a value within a mask
+    if(shortlen == longer.length && within(longer, shorter))
+      return longer;
+    if(within(shorter, longer))
+      return shorter;
+
     final int[] out = copyOf(shorter, shortlen);
     int longlen     = longer.length;
 
@@ -117,10 +123,22 @@ public final class BytesArray {
     return out[0] == 0 ? stripLeadingZeroes(out, 1) : out;
   }
 
+  // true if all the bits of a are set in b, a being no longer than b
+  private static boolean within(final int[] a, final int[] b) {
+    for(int i = a.length - 1, j = b.length - 1; 0 <= i; i--, j--)
+      if((a[i] & b[j]) != a[i])
+        return false;
+    return true;
+  }
+
   public static int[] or(int[] longer, int[] shorter) {
     if(longer.length < shorter.length) {
       int[] tmp = longer; longer = shorter; shorter = tmp;
     }
+    // longer itself if all the bits of shorter are already set, as for a set flag
+    if(within(shorter, longer))
+      return longer;
+
     int longlen     = longer.length, shortlen = shorter.length;
     final int[] out = copyOf(longer, longlen);
 
@@ -134,8 +152,8 @@ public final class BytesArray {
     if(longer.length < shorter.length) {
       int[] tmp = longer; longer = shorter; shorter = tmp;
     }
-    if(longer.length == 0)
-      return ZERO;
+    if(shorter.length == 0)
+      return longer.length == 0 ? ZERO : longer;
 
     int longlen     = longer.length, shortlen = shorter.length;
     final int[] out = copyOf(longer, longlen);
@@ -370,6 +388,61 @@ public final class BytesArray {
     return out[0] == 0 ? stripLeadingZeroes(out, 1) : out;
   }
 
+  /**
+   * {@code a + b}, or null if it exceeds maxValue: the carry out of the top word of
+   * maxValue, or a top word above it.
+   */
+  public static int[] addChecked(final int[] a, final int[] b, final int[] maxValue) {
+    final int[] out = add(a, b, -1);
+    return exceeds(out, maxValue) ? null : out;
+  }
+
+  /**
+   * {@code a - b}, or null if b is greater: a borrow out of the top word.
+   */
+  public static int[] subChecked(final int[] a, final int[] b) {
+    int longi = a.length, shorti = b.length;
+    if(longi < shorti)
+      return null;
+    if(shorti == 0)
+      return a;
+    final int[] out = copyOf(a, longi);
+    long diff       = 0;
+
+    while (0 < shorti) {
+      diff       = (out[--longi] & LONG) - (b[--shorti] & LONG) + (diff >> 32);
+      out[longi] = (int)diff;
+    }
+
+    boolean borrow = diff >> 32 != 0;
+    while (borrow && 0 < longi)
+      borrow = --(out[--longi]) == -1;
+    if(borrow)
+      return null;
+
+    return out[0] == 0 ? stripLeadingZeroes(out, 1) : out;
+  }
+
+  /**
+   * {@code a * b}, or null if it exceeds maxValue.
+   */
+  public static int[] mulChecked(final int[] a, final int[] b, final int[] maxValue) {
+    final int len = a.length + b.length;
+    if(a.length == 0 || b.length == 0)
+      return ZERO;
+    // the product has at least len - 1 words
+    if(maxValue.length + 1 < len)
+      return null;
+    final int[] out = multiply(a, b, len);
+    return exceeds(out, maxValue) ? null : out;
+  }
+
+  // Below the top word, every word of a maxValue is all ones
+  private static boolean exceeds(final int[] a, final int[] maxValue) {
+    return maxValue.length < a.length
+           || (a.length == maxValue.length && Integer.compareUnsigned(a[0], maxValue[0]) > 0);
+  }
+
   public static int[] subgt(final int[] a, final int[] b, final int[] maxValue) {
     if(a.length == 0)
       return inc(not(b, maxValue), true, maxValue.length);
@@ -438,6 +511,73 @@ public final class BytesArray {
     return (cmp < 0 ? add : (cmp == 0 ? ZERO : mod(add, c)));
   }
 
+  // Scratch of mulDiv, one per thread, reused by every call
+  private static final ThreadLocal<int[]> MULDIV = new ThreadLocal<int[]>() {
+    @Override
+    protected int[] initialValue() {
+      return new int[Division.MULDIV_SCRATCH];
+    }
+  };
+
+  /**
+   * {@code a * b / d} for a, b and d of at most 8 words, with the full 512-bit
+   * product, rounded down or, if roundUp, up. Only the result is allocated.
+   *
+   * @throws ArithmeticException if d is zero or the result exceeds maxValue.
+   */
+  public static int[] mulDiv(final int[] a, final int[] b, final int[] d, final int[] maxValue,
+                             final boolean roundUp) {
+    // a product below 2^63 and a divisor of at most 63 bits divide as longs
+    if(a.length <= 1 && b.length <= 1 && d.length <= 2) {
+      final long p  = (a.length == 0 ? 0 : a[0] & LONG) * (b.length == 0 ? 0 : b[0] & LONG);
+      final long dv = d.length == 0 ? 0 : d.length == 1 ? d[0] & LONG : ((long)d[0] << 32) | (d[1] & LONG);
+      if(dv == 0)
+        throw new ArithmeticException("div/mod by zero");
+      if(0 <= p && 0 < dv) {
+        long q = p / dv;
+        if(roundUp && q * dv != p)
+          q++;
+        final int[] out = valueOf(q);
+        if(compare(out, maxValue) > 0)
+          throw new ArithmeticException("mulDiv overflow");
+        return out;
+      }
+    }
+
+    final int[] s = MULDIV.get();
+    toWords(a, s, Division.MULDIV_A);
+    toWords(b, s, Division.MULDIV_B);
+    toWords(d, s, Division.MULDIV_D);
+    Division.mulDiv(s, roundUp);
+
+    final int q = Division.MULDIV_Q;
+    int len     = 8;
+    while(0 < len && s[q + len - 1] == 0)
+      len--;
+    if(maxValue.length < len)
+      throw new ArithmeticException("mulDiv overflow");
+    if(len == maxValue.length)
+      for(int i = len - 1; 0 <= i; i--)
+        if(s[q + i] != maxValue[len - 1 - i]) {
+          if(Integer.compareUnsigned(s[q + i], maxValue[len - 1 - i]) > 0)
+            throw new ArithmeticException("mulDiv overflow");
+          break;
+        }
+
+    if(len <= 1)
+      return len == 0 ? ZERO : valueOf(s[q] & LONG);
+    final int[] out = new int[len];
+    for(int i = 0; i < len; i++)
+      out[len - 1 - i] = s[q + i];
+    return out;
+  }
+
+  // The words of a big-endian array as 8 little-endian words at an offset
+  private static void toWords(final int[] a, final int[] s, final int off) {
+    for(int i = 0; i < 8; i++)
+      s[off + i] = i < a.length ? a[a.length - 1 - i] : 0;
+  }
+
   public static int[] multiply(int[] a, int[] b, final int maxWidth) {
     if(a.length < b.length) {
       int[] tmp = a; a = b; b = tmp;
@@ -575,12 +715,14 @@ public final class BytesArray {
   public static int[] square(final int[] a, final int maxWidth) {
     final int alen = a.length, start;
 
+    // Only the low words of a are needed for the low maxWidth words of the square;
+    // an odd truncation keeps one more word, dropped at the end
     int outlen = alen << 1;
     if(maxWidth < outlen) {
-      start  = (outlen - maxWidth) >>> 1;
-      outlen = maxWidth;
+      start   = (outlen - maxWidth) >>> 1;
+      outlen -= start << 1;
     } else
-      start  = 0;
+      start   = 0;
 
     final int[] out  = new int[outlen];
 
@@ -615,6 +757,8 @@ public final class BytesArray {
 
     Division.lshunt(out, 1);
     out[outlen - 1] |= (a[alen - 1] & 1);
+    if(maxWidth < outlen)
+      return stripLeadingZeroes(out, 1);
     return out[0] == 0 ? stripLeadingZeroes(out, 1) : out;
   }
 
@@ -800,6 +944,17 @@ public final class BytesArray {
     return max;
   }
 
+  /**
+   * Returns the maximum value of an unsigned type of the given number of bits,
+   * whose top word only has the bits above a multiple of 32 set.
+   */
+  public static int[] maxValue(final int maxWidth, final int bits) {
+    final int[] max = maxValue(maxWidth);
+    if((bits & 31) != 0)
+      max[0] = (1 << (bits & 31)) - 1;
+    return max;
+  }
+
   /**
    * Sign extends an array to the specified width
    */
@@ -364,6 +364,173 @@ final class Division {
     dst[dsti + src.length - 1] = carry << places;
   }
 
+  /*
+   * mulDiv: floor(a * b / d) of 256-bit values with the 512-bit product, in a
+   * scratch array reused across calls. The words in the scratch are little-endian,
+   * least significant first.
+   */
+
+  /** Offset of a in the scratch, 8 words. */
+  static final int MULDIV_A = 0;
+  /** Offset of b in the scratch, 8 words. */
+  static final int MULDIV_B = 8;
+  /** Offset of d in the scratch, 8 words. */
+  static final int MULDIV_D = 16;
+  /** Offset of the quotient in the scratch, 8 words. */
+  static final int MULDIV_Q = 24;
+  // product, then remainder: 17 words; normalized divisor: 8 words
+  private static final int MULDIV_U = 32;
+  private static final int MULDIV_V = 49;
+  /** Length of the scratch of mulDiv. */
+  static final int MULDIV_SCRATCH = 57;
+
+  /**
+   * Computes {@code a * b / d} from the words of a, b and d in the scratch into the
+   * quotient words, rounded down or, if roundUp, up.
+   *
+   * @throws ArithmeticException if d is zero or the quotient needs more than 256 bits.
+   */
+  static void mulDiv(final int[] s, final boolean roundUp) {
+    final int n = length(s, MULDIV_D, 8);
+    if(n == 0)
+      throw new ArithmeticException("div/mod by zero");
+
+    // product, at most 16 words
+    final int alen = length(s, MULDIV_A, 8), blen = length(s, MULDIV_B, 8);
+    java.util.Arrays.fill(s, MULDIV_U, MULDIV_V, 0);
+    for(int i = 0; i < alen; i++) {
+      final long ai = s[MULDIV_A + i] & LONG;
+      long carry    = 0;
+      for(int j = 0; j < blen; j++) {
+        final long t              = ai * (s[MULDIV_B + j] & LONG) + (s[MULDIV_U + i + j] & LONG) + carry;
+        s[MULDIV_U + i + j] = (int)t;
+        carry                     = t >>> 32;
+      }
+      s[MULDIV_U + i + blen] = (int)carry;
+    }
+    final int m = length(s, MULDIV_U, 16);
+
+    java.util.Arrays.fill(s, MULDIV_Q, MULDIV_Q + 8, 0);
+    boolean inexact;
+    if(m < n)
+      inexact = m != 0;
+    else if(n == 1)
+      inexact = mulDivShort(s, m);
+    else
+      inexact = mulDivLong(s, m, n);
+
+    if(roundUp && inexact) {
+      int i = 0;
+      while(i < 8 && ++s[MULDIV_Q + i] == 0)
+        i++;
+      if(i == 8)
+        throw new ArithmeticException("mulDiv overflow");
+    }
+  }
+
+  // Number of words without the leading zeroes, of len words at an offset
+  private static int length(final int[] s, final int off, int len) {
+    while(0 < len && s[off + len - 1] == 0)
+      len--;
+    return len;
+  }
+
+  // Divides the m words of the product by a single word; true if there is a remainder
+  private static boolean mulDivShort(final int[] s, final int m) {
+    final long d = s[MULDIV_D] & LONG;
+    long rem     = 0;
+    for(int i = m - 1; 0 <= i; i--) {
+      final long t = (rem << 32) | (s[MULDIV_U + i] & LONG);
+      final long q = divword(t, d);
+      rem          = t - q * d;
+      quotientWord(s, i, q);
+    }
+    return rem != 0;
+  }
+
+  // Knuth's algorithm D on the m words of the product and the n words of d
+  private static boolean mulDivLong(final int[] s, final int m, final int n) {
+    final int u = MULDIV_U, v = MULDIV_V;
+
+    // normalize so that the top word of the divisor has its high bit set
+    final int places = Integer.numberOfLeadingZeros(s[MULDIV_D + n - 1]);
+    if(places == 0) {
+      System.arraycopy(s, MULDIV_D, s, v, n);
+      s[u + m] = 0;
+    } else {
+      for(int i = n - 1; 0 < i; i--)
+        s[v + i] = (s[MULDIV_D + i] << places) | (s[MULDIV_D + i - 1] >>> (32 - places));
+      s[v] = s[MULDIV_D] << places;
+      s[u + m] = s[u + m - 1] >>> (32 - places);
+      for(int i = m - 1; 0 < i; i--)
+        s[u + i] = (s[u + i] << places) | (s[u + i - 1] >>> (32 - places));
+      s[u] <<= places;
+    }
+
+    final long vh = s[v + n - 1] & LONG, vl = s[v + n - 2] & LONG;
+    for(int j = m - n; 0 <= j; j--) {
+      // estimate the quotient word from the top two words, and correct it
+      final long num = ((s[u + j + n] & LONG) << 32) | (s[u + j + n - 1] & LONG);
+      long qhat      = divword(num, vh);
+      long rhat      = num - qhat * vh;
+      while((qhat >>> 32) != 0
+            || Long.compareUnsigned(qhat * vl, (rhat << 32) | (s[u + j + n - 2] & LONG)) > 0) {
+        qhat--;
+        rhat += vh;
+        if((rhat >>> 32) != 0)
+          break;
+      }
+
+      // multiply and subtract
+      long borrow = 0, t;
+      for(int i = 0; i < n; i++) {
+        final long p = qhat * (s[v + i] & LONG);
+        t            = (s[u + i + j] & LONG) - borrow - (p & LONG);
+        s[u + i + j] = (int)t;
+        borrow       = (p >>> 32) - (t >> 32);
+      }
+      t            = (s[u + j + n] & LONG) - borrow;
+      s[u + j + n] = (int)t;
+
+      // add back if the estimate was one too large
+      if(t < 0) {
+        qhat--;
+        long carry = 0;
+        for(int i = 0; i < n; i++) {
+          t            = (s[u + i + j] & LONG) + (s[v + i] & LONG) + carry;
+          s[u + i + j] = (int)t;
+          carry        = t >>> 32;
+        }
+        s[u + j + n] += (int)carry;
+      }
+      quotientWord(s, j, qhat);
+    }
+
+    for(int i = 0; i < n; i++)
+      if(s[u + i] != 0)
+        return true;
+    return false;
+  }
+
+  // Unsigned num / d for d below 2^32, without the BigInteger of Long.divideUnsigned on Java 8
+  private static long divword(final long num, final long d) {
+    if(0 <= num)
+      return num / d;
+    // halved, the remainder is below 2d
+    long q       = ((num >>> 1) / d) << 1;
+    final long r = num - q * d;
+    if(d <= r)
+      q++;
+    return q;
+  }
+
+  private static void quotientWord(final int[] s, final int i, final long q) {
+    if(i < 8)
+      s[MULDIV_Q + i] = (int)q;
+    else if(q != 0)
+      throw new ArithmeticException("mulDiv overflow");
+  }
+
   /**
    * Divides two signed integers
    */
@@ -0,0 +1,240 @@
+package java.lang.types;
+
+import static java.lang.types.BytesArray.LONG;
+
+/**
+ * Unsigned values of up to 256 bits as four 64-bit limbs, and operations over
+ * whole arrays of such values.
+ *
+ * Values are packed as consecutive groups of four limbs in a {@code long[]}, most
+ * significant limb first. The bulk methods run one loop over all the limbs, simple
+ * enough for the JIT to unroll and vectorize, instead of one operation and one
+ * result array per value. Arithmetic wraps modulo 2^256, as uint256 does.
+ */
+public final class Limbs {
+  /** Limbs of a 256-bit value. */
+  public static final int LIMBS = 4;
+
+  private Limbs() {}
+
+  /**
+   * Returns limb k, 0 being the least significant, of a big-endian array of at
+   * most 8 words.
+   */
+  public static long limb(final int[] a, final int k) {
+    final int lo = a.length - 1 - (k << 1);
+    if(lo <= 0)
+      return lo == 0 ? a[0] & LONG : 0;
+    return ((long)a[lo - 1] << 32) | (a[lo] & LONG);
+  }
+
+  /**
+   * Writes the four limbs of a big-endian array of at most 8 words at an offset.
+   */
+  public static void toLimbs(final int[] a, final long[] limbs, final int offset) {
+    limbs[offset]     = limb(a, 3);
+    limbs[offset + 1] = limb(a, 2);
+    limbs[offset + 2] = limb(a, 1);
+    limbs[offset + 3] = limb(a, 0);
+  }
+
+  /**
+   * Returns the four limbs at an offset as a big-endian array without leading zeroes.
+   */
+  public static int[] fromLimbs(final long[] limbs, final int offset) {
+    return pack(limbs[offset], limbs[offset + 1], limbs[offset + 2], limbs[offset + 3]);
+  }
+
+  /**
+   * Packs four limbs, most significant first, into an array without leading zeroes.
+   */
+  public static int[] pack(final long l3, final long l2, final long l1, final long l0) {
+    final int bits = l3 != 0 ? 256 - Long.numberOfLeadingZeros(l3) :
+                     l2 != 0 ? 192 - Long.numberOfLeadingZeros(l2) :
+                     l1 != 0 ? 128 - Long.numberOfLeadingZeros(l1) :
+                                64 - Long.numberOfLeadingZeros(l0);
+    final int len = (bits + 31) >>> 5;
+    if(len <= 1)
+      return len == 0 ? BytesArray.ZERO : BytesArray.valueOf(l0);
+
+    final int[] out = new int[len];
+    for(int w = 0; w < len; w++) {
+      // word w, 0 being the least significant, is a half of limb w / 2
+      final long l = w < 4 ? (w < 2 ? l0 : l1) : (w < 6 ? l2 : l3);
+      out[len - 1 - w] = (int)((w & 1) == 0 ? l : l >>> 32);
+    }
+    return out;
+  }
+
+  public static void and(final long[] a, final long[] b, final long[] out) {
+    for(int i = 0; i < out.length; i++)
+      out[i] = a[i] & b[i];
+  }
+
+  public static void or(final long[] a, final long[] b, final long[] out) {
+    for(int i = 0; i < out.length; i++)
+      out[i] = a[i] | b[i];
+  }
+
+  public static void xor(final long[] a, final long[] b, final long[] out) {
+    for(int i = 0; i < out.length; i++)
+      out[i] = a[i] ^ b[i];
+  }
+
+  /**
+   * Complements every value within the four limbs of maxValue.
+   */
+  public static void not(final long[] a, final long[] maxValue, final long[] out) {
+    for(int i = 0; i < out.length; i++)
+      out[i] = ~a[i];
+    // only the limbs above the width of narrower types are masked
+    for(int k = 0; k < LIMBS; k++)
+      if(maxValue[k] != -1L)
+        for(int i = k; i < out.length; i += LIMBS)
+          out[i] &= maxValue[k];
+  }
+
+  /**
+   * ANDs every value with the same mask, e.g. to extract a packed field.
+   */
+  public static void and(final long[] a, final long[] mask, final int offset, final long[] out) {
+    final long m3 = mask[offset], m2 = mask[offset + 1], m1 = mask[offset + 2], m0 = mask[offset + 3];
+    for(int i = 0; i + 3 < out.length; i += LIMBS) {
+      out[i]     = a[i] & m3;
+      out[i + 1] = a[i + 1] & m2;
+      out[i + 2] = a[i + 2] & m1;
+      out[i + 3] = a[i + 3] & m0;
+    }
+  }
+
+  /**
+   * Adds the values of two arrays.
+   */
+  public static void add(final long[] a, final long[] b, final long[] out) {
+    for(int i = 0; i + 3 < out.length; i += LIMBS)
+      add(a, i, b[i], b[i + 1], b[i + 2], b[i + 3], out);
+  }
+
+  /**
+   * Adds the value at an offset of b to every value.
+   */
+  public static void add(final long[] a, final long[] b, final int offset, final long[] out) {
+    final long b3 = b[offset], b2 = b[offset + 1], b1 = b[offset + 2], b0 = b[offset + 3];
+    for(int i = 0; i + 3 < out.length; i += LIMBS)
+      add(a, i, b3, b2, b1, b0, out);
+  }
+
+  private static void add(final long[] a, final int i, final long b3, final long b2, final long b1, final long b0,
+                          final long[] out) {
+    final long a3 = a[i], a2 = a[i + 1], a1 = a[i + 2], a0 = a[i + 3];
+    final long s0 = a0 + b0;
+    long c        = carry(a0, b0, s0);
+    final long s1 = a1 + b1 + c;
+    c             = carry(a1, b1, s1);
+    final long s2 = a2 + b2 + c;
+    c             = carry(a2, b2, s2);
+    out[i]     = a3 + b3 + c;
+    out[i + 1] = s2;
+    out[i + 2] = s1;
+    out[i + 3] = s0;
+  }
+
+  // Carry out of x + y (+ a carry in) = sum, without branches
+  private static long carry(final long x, final long y, final long sum) {
+    return ((x & y) | ((x | y) & ~sum)) >>> 63;
+  }
+
+  /**
+   * Returns the sum of all the values, as four limbs.
+   */
+  public static long[] sum(final long[] a) {
+    long s3 = 0, s2 = 0, s1 = 0, s0 = 0;
+    for(int i = 0; i + 3 < a.length; i += LIMBS) {
+      final long t0 = s0 + a[i + 3];
+      long c        = carry(s0, a[i + 3], t0);
+      final long t1 = s1 + a[i + 2] + c;
+      c             = carry(s1, a[i + 2], t1);
+      final long t2 = s2 + a[i + 1] + c;
+      c             = carry(s2, a[i + 1], t2);
+      s3 += a[i] + c;
+      s2  = t2;
+      s1  = t1;
+      s0  = t0;
+    }
+    return new long[]{s3, s2, s1, s0};
+  }
+
+  /**
+   * Compares the values at offsets i of a and j of b.
+   */
+  public static int compare(final long[] a, final int i, final long[] b, final int j) {
+    if(a[i] != b[j])
+      return Long.compareUnsigned(a[i], b[j]);
+    if(a[i + 1] != b[j + 1])
+      return Long.compareUnsigned(a[i + 1], b[j + 1]);
+    if(a[i + 2] != b[j + 2])
+      return Long.compareUnsigned(a[i + 2], b[j + 2]);
+    return Long.compareUnsigned(a[i + 3], b[j + 3]);
+  }
+
+  /**
+   * Compares the values of two arrays, writing -1, 0 or 1 per value.
+   */
+  public static void compare(final long[] a, final long[] b, final int[] out) {
+    for(int k = 0, i = 0; k < out.length; k++, i += LIMBS)
+      out[k] = Integer.signum(compare(a, i, b, i));
+  }
+
+  /**
+   * Returns the offset of the least value, the first of equal ones, or -1 if there is none.
+   */
+  public static int min(final long[] a) {
+    int min = a.length < LIMBS ? -1 : 0;
+    for(int i = LIMBS; i + 3 < a.length; i += LIMBS)
+      if(compare(a, i, a, min) < 0)
+        min = i;
+    return min;
+  }
+
+  /**
+   * Returns the offset of the greatest value, the first of equal ones, or -1 if there is none.
+   */
+  public static int max(final long[] a) {
+    int max = a.length < LIMBS ? -1 : 0;
+    for(int i = LIMBS; i + 3 < a.length; i += LIMBS)
+      if(compare(a, i, a, max) > 0)
+        max = i;
+    return max;
+  }
+
+  /**
+   * Computes {@code a * mul / div} for every value, with the full 512-bit product,
+   * rounded down or, if roundUp, up; mul and div are the values at offset 0.
+   *
+   * @throws ArithmeticException if div is zero or a quotient needs more than 256 bits.
+   */
+  public static void mulDiv(final long[] a, final long[] mul, final long[] div, final long[] out,
+                            final boolean roundUp) {
+    final int[] s = new int[Division.MULDIV_SCRATCH];
+    toWords(mul, 0, s, Division.MULDIV_B);
+    toWords(div, 0, s, Division.MULDIV_D);
+    for(int i = 0; i + 3 < out.length; i += LIMBS) {
+      toWords(a, i, s, Division.MULDIV_A);
+      Division.mulDiv(s, roundUp);
+      final int q = Division.MULDIV_Q;
+      out[i]     = ((long)s[q + 7] << 32) | (s[q + 6] & LONG);
+      out[i + 1] = ((long)s[q + 5] << 32) | (s[q + 4] & LONG);
+      out[i + 2] = ((long)s[q + 3] << 32) | (s[q + 2] & LONG);
+      out[i + 3] = ((long)s[q + 1] << 32) | (s[q] & LONG);
+    }
+  }
+
+  // The four limbs at an offset as 8 little-endian words
+  private static void toWords(final long[] limbs, final int offset, final int[] s, final int off) {
+    for(int k = 0; k < LIMBS; k++) {
+      final long l       = limbs[offset + LIMBS - 1 - k];
+      s[off + 2 * k]     = (int)l;
+      s[off + 2 * k + 1] = (int)(l >>> 32);
+    }
+  }
+}
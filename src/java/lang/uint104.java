@@ -27,7 +27,7 @@ public final class uint104 extends uintType<uint104> {
      * The maximum representable value of uint104 (2^104 - 1).
      */
     public static final uint104 MAX_VALUE =
-        new uint104(BytesArray.maxValue(MAX_WIDTH));
+        new uint104(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint104 ZERO = new uint104(BytesArray.ZERO);
     public static final uint104 ONE  = new uint104(BytesArray.ONE);
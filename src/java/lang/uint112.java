@@ -27,7 +27,7 @@ public final class uint112 extends uintType<uint112> {
      * The maximum representable value of uint112 (2^112 - 1).
      */
     public static final uint112 MAX_VALUE =
-        new uint112(BytesArray.maxValue(MAX_WIDTH));
+        new uint112(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint112 ZERO = new uint112(BytesArray.ZERO);
     public static final uint112 ONE  = new uint112(BytesArray.ONE);
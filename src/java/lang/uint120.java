@@ -27,7 +27,7 @@ public final class uint120 extends uintType<uint120> {
      * The maximum representable value of uint120 (2^120 - 1).
      */
     public static final uint120 MAX_VALUE =
-        new uint120(BytesArray.maxValue(MAX_WIDTH));
+        new uint120(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint120 ZERO = new uint120(BytesArray.ZERO);
     public static final uint120 ONE  = new uint120(BytesArray.ONE);
@@ -27,7 +27,7 @@ public final class uint136 extends uintType<uint136> {
      * The maximum representable value of uint136 (2^136 - 1).
      */
     public static final uint136 MAX_VALUE =
-        new uint136(BytesArray.maxValue(MAX_WIDTH));
+        new uint136(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint136 ZERO = new uint136(BytesArray.ZERO);
     public static final uint136 ONE  = new uint136(BytesArray.ONE);
@@ -27,7 +27,7 @@ public final class uint144 extends uintType<uint144> {
      * The maximum representable value of uint144 (2^144 - 1).
      */
     public static final uint144 MAX_VALUE =
-        new uint144(BytesArray.maxValue(MAX_WIDTH));
+        new uint144(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint144 ZERO = new uint144(BytesArray.ZERO);
     public static final uint144 ONE  = new uint144(BytesArray.ONE);
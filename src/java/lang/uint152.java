@@ -27,7 +27,7 @@ public final class uint152 extends uintType<uint152> {
      * The maximum representable value of uint152 (2^152 - 1).
      */
     public static final uint152 MAX_VALUE =
-        new uint152(BytesArray.maxValue(MAX_WIDTH));
+        new uint152(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint152 ZERO = new uint152(BytesArray.ZERO);
     public static final uint152 ONE  = new uint152(BytesArray.ONE);
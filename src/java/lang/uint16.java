@@ -27,7 +27,7 @@ public final class uint16 extends uintType<uint16> {
      * The maximum representable value of uint16 (2^16 - 1).
      */
     public static final uint16 MAX_VALUE =
-        new uint16(BytesArray.maxValue(MAX_WIDTH));
+        new uint16(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint16 ZERO = new uint16(BytesArray.ZERO);
     public static final uint16 ONE  = new uint16(BytesArray.ONE);
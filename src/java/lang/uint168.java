@@ -27,7 +27,7 @@ public final class uint168 extends uintType<uint168> {
      * The maximum representable value of uint168 (2^168 - 1).
      */
     public static final uint168 MAX_VALUE =
-        new uint168(BytesArray.maxValue(MAX_WIDTH));
+        new uint168(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint168 ZERO = new uint168(BytesArray.ZERO);
     public static final uint168 ONE  = new uint168(BytesArray.ONE);
@@ -27,7 +27,7 @@ public final class uint176 extends uintType<uint176> {
      * The maximum representable value of uint176 (2^176 - 1).
      */
     public static final uint176 MAX_VALUE =
-        new uint176(BytesArray.maxValue(MAX_WIDTH));
+        new uint176(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint176 ZERO = new uint176(BytesArray.ZERO);
     public static final uint176 ONE  = new uint176(BytesArray.ONE);
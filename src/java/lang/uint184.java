@@ -27,7 +27,7 @@ public final class uint184 extends uintType<uint184> {
      * The maximum representable value of uint184 (2^184 - 1).
      */
     public static final uint184 MAX_VALUE =
-        new uint184(BytesArray.maxValue(MAX_WIDTH));
+        new uint184(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint184 ZERO = new uint184(BytesArray.ZERO);
     public static final uint184 ONE  = new uint184(BytesArray.ONE);
@@ -27,7 +27,7 @@ public final class uint192 extends uintType<uint192> {
      * The maximum representable value of uint192 (2^192 - 1).
      */
     public static final uint192 MAX_VALUE =
-        new uint192(BytesArray.maxValue(MAX_WIDTH));
+        new uint192(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint192 ZERO = new uint192(BytesArray.ZERO);
     public static final uint192 ONE  = new uint192(BytesArray.ONE);
@@ -27,7 +27,7 @@ public final class uint200 extends uintType<uint200> {
      * The maximum representable value of uint200 (2^200 - 1).
      */
     public static final uint200 MAX_VALUE =
-        new uint200(BytesArray.maxValue(MAX_WIDTH));
+        new uint200(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint200 ZERO = new uint200(BytesArray.ZERO);
     public static final uint200 ONE  = new uint200(BytesArray.ONE);
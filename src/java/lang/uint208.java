@@ -27,7 +27,7 @@ public final class uint208 extends uintType<uint208> {
      * The maximum representable value of uint208 (2^208 - 1).
      */
     public static final uint208 MAX_VALUE =
-        new uint208(BytesArray.maxValue(MAX_WIDTH));
+        new uint208(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint208 ZERO = new uint208(BytesArray.ZERO);
     public static final uint208 ONE  = new uint208(BytesArray.ONE);
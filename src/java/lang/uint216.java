@@ -27,7 +27,7 @@ public final class uint216 extends uintType<uint216> {
      * The maximum representable value of uint216 (2^216 - 1).
      */
     public static final uint216 MAX_VALUE =
-        new uint216(BytesArray.maxValue(MAX_WIDTH));
+        new uint216(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint216 ZERO = new uint216(BytesArray.ZERO);
     public static final uint216 ONE  = new uint216(BytesArray.ONE);
@@ -27,7 +27,7 @@ public final class uint224 extends uintType<uint224> {
      * The maximum representable value of uint224 (2^224 - 1).
      */
     public static final uint224 MAX_VALUE =
-        new uint224(BytesArray.maxValue(MAX_WIDTH));
+        new uint224(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint224 ZERO = new uint224(BytesArray.ZERO);
     public static final uint224 ONE  = new uint224(BytesArray.ONE);
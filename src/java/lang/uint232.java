@@ -27,7 +27,7 @@ public final class uint232 extends uintType<uint232> {
      * The maximum representable value of uint232 (2^232 - 1).
      */
     public static final uint232 MAX_VALUE =
-        new uint232(BytesArray.maxValue(MAX_WIDTH));
+        new uint232(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint232 ZERO = new uint232(BytesArray.ZERO);
     public static final uint232 ONE  = new uint232(BytesArray.ONE);
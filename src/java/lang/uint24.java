@@ -27,7 +27,7 @@ public final class uint24 extends uintType<uint24> {
      * The maximum representable value of uint24 (2^24 - 1).
      */
     public static final uint24 MAX_VALUE =
-        new uint24(BytesArray.maxValue(MAX_WIDTH));
+        new uint24(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint24 ZERO = new uint24(BytesArray.ZERO);
     public static final uint24 ONE  = new uint24(BytesArray.ONE);
@@ -27,7 +27,7 @@ public final class uint240 extends uintType<uint240> {
      * The maximum representable value of uint240 (2^240 - 1).
      */
     public static final uint240 MAX_VALUE =
-        new uint240(BytesArray.maxValue(MAX_WIDTH));
+        new uint240(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint240 ZERO = new uint240(BytesArray.ZERO);
     public static final uint240 ONE  = new uint240(BytesArray.ONE);
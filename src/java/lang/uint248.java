@@ -27,7 +27,7 @@ public final class uint248 extends uintType<uint248> {
      * The maximum representable value of uint248 (2^248 - 1).
      */
     public static final uint248 MAX_VALUE =
-        new uint248(BytesArray.maxValue(MAX_WIDTH));
+        new uint248(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint248 ZERO = new uint248(BytesArray.ZERO);
     public static final uint248 ONE  = new uint248(BytesArray.ONE);
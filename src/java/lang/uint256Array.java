@@ -0,0 +1,290 @@
+package java.lang;
+
+import java.io.Storable;
+import java.lang.contract.Gas;
+import java.lang.types.Limbs;
+import java.util.NoSuchElementException;
+
+/**
+ * A fixed-length array of uint256 values, packed as four 64-bit limbs per value
+ * in a single {@code long[]}, for arithmetic on many values at once, as when an
+ * airdrop or a reward distribution computes {@code balance * rate / 1e18} for
+ * every holder.
+ *
+ * Each bulk operation is one loop over the limbs of the whole array, see
+ * {@link Limbs}, rather than one uint256 and one operation per value, and charges
+ * its gas per value before it runs, see {@link Gas#ARRAY_VALUE}. Like
+ * uint256, addition wraps modulo 2^256; operations of two arrays need arrays of
+ * the same length. Values are read and written with {@link #get} and
+ * {@link #set}, or in batches from and to a mapping.
+ * <pre>
+ *   uint256Array balances = uint256Array.get(balanceOf, holders);
+ *   uint256Array rewards = balances.mulDiv(rate, uint256Array.WAD);
+ *   rewards.add(balances).set(balanceOf, holders);
+ * </pre>
+ */
+public final class uint256Array {
+
+    /** 10^18, the scale of fixed-point amounts with 18 decimals. */
+    public static final uint256 WAD = new uint256(1000000000000000000L);
+
+    private final long[] limbs;
+    private final int length;
+
+    /**
+     * Creates an array of zeros.
+     *
+     * @param length The number of values.
+     */
+    public uint256Array(int length) {
+        if (length < 0) {
+            throw new NegativeArraySizeException(String.valueOf(length));
+        }
+        this.limbs = new long[length * Limbs.LIMBS];
+        this.length = length;
+    }
+
+    /**
+     * Creates an array of the given values.
+     *
+     * @param values The values.
+     * @return The array.
+     */
+    public static uint256Array of(uint256... values) {
+        uint256Array array = new uint256Array(values.length);
+        array.charge(Gas.ARRAY_VALUE);
+        for (int i = 0; i < values.length; i++) {
+            array.set(i, values[i]);
+        }
+        return array;
+    }
+
+    /**
+     * Reads the values of keys from a mapping.
+     *
+     * @param map The mapping.
+     * @param keys The keys.
+     * @return The array of the values, in the order of the keys.
+     */
+    public static <K extends Storable> uint256Array get(mapping<K, uint256> map, K[] keys) {
+        uint256Array array = new uint256Array(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            array.set(i, map.get(keys[i]));
+        }
+        return array;
+    }
+
+    /**
+     * Writes the values to a mapping, the value i under key i.
+     *
+     * @param map The mapping.
+     * @param keys The keys, as many as values.
+     */
+    public <K extends Storable> void set(mapping<K, uint256> map, K[] keys) {
+        checkLength(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            map.set(get(i), keys[i]);
+        }
+    }
+
+    /**
+     * Returns the number of values.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the value at an index.
+     *
+     * @param index The index.
+     * @return The value.
+     */
+    public uint256 get(int index) {
+        return new uint256(Limbs.fromLimbs(limbs, offset(index)));
+    }
+
+    /**
+     * Sets the value at an index.
+     *
+     * @param index The index.
+     * @param value The value.
+     */
+    public void set(int index, uint256 value) {
+        Limbs.toLimbs(value.ints, limbs, offset(index));
+    }
+
+    /**
+     * Returns the values as uint256 objects.
+     */
+    public uint256[] toArray() {
+        charge(Gas.ARRAY_VALUE);
+        uint256[] values = new uint256[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = get(i);
+        }
+        return values;
+    }
+
+    /* ====================================================== */
+    /*                    Bulk Operations                     */
+    /* ====================================================== */
+
+    /** {@code this[i] + other[i]} */
+    public uint256Array add(uint256Array other) {
+        checkLength(other.length);
+        charge(Gas.ARRAY_VALUE);
+        uint256Array out = new uint256Array(length);
+        Limbs.add(limbs, other.limbs, out.limbs);
+        return out;
+    }
+
+    /** {@code this[i] + value} */
+    public uint256Array add(uint256 value) {
+        charge(Gas.ARRAY_VALUE);
+        uint256Array out = new uint256Array(length);
+        Limbs.add(limbs, limbsOf(value), 0, out.limbs);
+        return out;
+    }
+
+    /**
+     * {@code this[i] * mul / div}, rounded down, with the full 512-bit product so
+     * that the multiplication does not overflow.
+     *
+     * @throws ArithmeticException if {@code div} is zero or a result overflows.
+     */
+    public uint256Array mulDiv(uint256 mul, uint256 div) {
+        return mulDiv(mul, div, false);
+    }
+
+    /**
+     * {@code this[i] * mul / div}, rounded up, with the full 512-bit product.
+     *
+     * @throws ArithmeticException if {@code div} is zero or a result overflows.
+     */
+    public uint256Array mulDivRoundingUp(uint256 mul, uint256 div) {
+        return mulDiv(mul, div, true);
+    }
+
+    private uint256Array mulDiv(uint256 mul, uint256 div, boolean roundUp) {
+        charge(Gas.ARRAY_MUL_DIV);
+        uint256Array out = new uint256Array(length);
+        Limbs.mulDiv(limbs, limbsOf(mul), limbsOf(div), out.limbs, roundUp);
+        return out;
+    }
+
+    /**
+     * Returns the sum of the values, modulo 2^256.
+     */
+    public uint256 sum() {
+        charge(Gas.ARRAY_VALUE);
+        return new uint256(Limbs.fromLimbs(Limbs.sum(limbs), 0));
+    }
+
+    /**
+     * Returns the least value.
+     *
+     * @throws NoSuchElementException if the array is empty.
+     */
+    public uint256 min() {
+        charge(Gas.ARRAY_VALUE);
+        return valueAt(Limbs.min(limbs));
+    }
+
+    /**
+     * Returns the greatest value.
+     *
+     * @throws NoSuchElementException if the array is empty.
+     */
+    public uint256 max() {
+        charge(Gas.ARRAY_VALUE);
+        return valueAt(Limbs.max(limbs));
+    }
+
+    /**
+     * Compares the values with those of another array.
+     *
+     * @return -1, 0 or 1 per value, as {@code this[i].compareTo(other[i])}.
+     */
+    public int[] compare(uint256Array other) {
+        checkLength(other.length);
+        charge(Gas.ARRAY_VALUE);
+        int[] out = new int[length];
+        Limbs.compare(limbs, other.limbs, out);
+        return out;
+    }
+
+    /** {@code this[i] & mask} */
+    public uint256Array and(uint256 mask) {
+        charge(Gas.ARRAY_VALUE);
+        uint256Array out = new uint256Array(length);
+        Limbs.and(limbs, limbsOf(mask), 0, out.limbs);
+        return out;
+    }
+
+    /** {@code this[i] & other[i]} */
+    public uint256Array and(uint256Array other) {
+        checkLength(other.length);
+        charge(Gas.ARRAY_VALUE);
+        uint256Array out = new uint256Array(length);
+        Limbs.and(limbs, other.limbs, out.limbs);
+        return out;
+    }
+
+    /** {@code this[i] | other[i]} */
+    public uint256Array or(uint256Array other) {
+        checkLength(other.length);
+        charge(Gas.ARRAY_VALUE);
+        uint256Array out = new uint256Array(length);
+        Limbs.or(limbs, other.limbs, out.limbs);
+        return out;
+    }
+
+    /** {@code this[i] ^ other[i]} */
+    public uint256Array xor(uint256Array other) {
+        checkLength(other.length);
+        charge(Gas.ARRAY_VALUE);
+        uint256Array out = new uint256Array(length);
+        Limbs.xor(limbs, other.limbs, out.limbs);
+        return out;
+    }
+
+    /** {@code ~this[i]} */
+    public uint256Array not() {
+        charge(Gas.ARRAY_VALUE);
+        uint256Array out = new uint256Array(length);
+        Limbs.not(limbs, limbsOf(uint256.MAX_VALUE), out.limbs);
+        return out;
+    }
+
+    // Charges the gas of a bulk operation, per value of the array
+    private void charge(int perValue) {
+        Gas.use((long) perValue * length);
+    }
+
+    private int offset(int index) {
+        if (index < 0 || index >= length) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return index * Limbs.LIMBS;
+    }
+
+    private uint256 valueAt(int offset) {
+        if (offset < 0) {
+            throw new NoSuchElementException("empty uint256Array");
+        }
+        return new uint256(Limbs.fromLimbs(limbs, offset));
+    }
+
+    private void checkLength(int otherLength) {
+        if (otherLength != length) {
+            throw new IllegalArgumentException("Length mismatch: " + length + " and " + otherLength);
+        }
+    }
+
+    private static long[] limbsOf(uint256 value) {
+        long[] limbs = new long[Limbs.LIMBS];
+        Limbs.toLimbs(value.ints, limbs, 0);
+        return limbs;
+    }
+}
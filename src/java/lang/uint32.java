@@ -27,7 +27,7 @@ public final class uint32 extends uintType<uint32> {
      * The maximum representable value of uint32 (2^32 - 1).
      */
     public static final uint32 MAX_VALUE =
-        new uint32(BytesArray.maxValue(MAX_WIDTH));
+        new uint32(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint32 ZERO = new uint32(BytesArray.ZERO);
     public static final uint32 ONE  = new uint32(BytesArray.ONE);
@@ -27,7 +27,7 @@ public final class uint40 extends uintType<uint40> {
      * The maximum representable value of uint40 (2^40 - 1).
      */
     public static final uint40 MAX_VALUE =
-        new uint40(BytesArray.maxValue(MAX_WIDTH));
+        new uint40(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint40 ZERO = new uint40(BytesArray.ZERO);
     public static final uint40 ONE  = new uint40(BytesArray.ONE);
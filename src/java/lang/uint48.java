@@ -27,7 +27,7 @@ public final class uint48 extends uintType<uint48> {
      * The maximum representable value of uint48 (2^48 - 1).
      */
     public static final uint48 MAX_VALUE =
-        new uint48(BytesArray.maxValue(MAX_WIDTH));
+        new uint48(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint48 ZERO = new uint48(BytesArray.ZERO);
     public static final uint48 ONE  = new uint48(BytesArray.ONE);
@@ -27,7 +27,7 @@ public final class uint56 extends uintType<uint56> {
      * The maximum representable value of uint56 (2^56 - 1).
      */
     public static final uint56 MAX_VALUE =
-        new uint56(BytesArray.maxValue(MAX_WIDTH));
+        new uint56(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint56 ZERO = new uint56(BytesArray.ZERO);
     public static final uint56 ONE  = new uint56(BytesArray.ONE);
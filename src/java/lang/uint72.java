@@ -27,7 +27,7 @@ public final class uint72 extends uintType<uint72> {
      * The maximum representable value of uint72 (2^72 - 1).
      */
     public static final uint72 MAX_VALUE =
-        new uint72(BytesArray.maxValue(MAX_WIDTH));
+        new uint72(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint72 ZERO = new uint72(BytesArray.ZERO);
     public static final uint72 ONE  = new uint72(BytesArray.ONE);
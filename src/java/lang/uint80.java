@@ -27,7 +27,7 @@ public final class uint80 extends uintType<uint80> {
      * The maximum representable value of uint80 (2^80 - 1).
      */
     public static final uint80 MAX_VALUE =
-        new uint80(BytesArray.maxValue(MAX_WIDTH));
+        new uint80(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint80 ZERO = new uint80(BytesArray.ZERO);
     public static final uint80 ONE  = new uint80(BytesArray.ONE);
@@ -27,7 +27,7 @@ public final class uint88 extends uintType<uint88> {
      * The maximum representable value of uint88 (2^88 - 1).
      */
     public static final uint88 MAX_VALUE =
-        new uint88(BytesArray.maxValue(MAX_WIDTH));
+        new uint88(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint88 ZERO = new uint88(BytesArray.ZERO);
     public static final uint88 ONE  = new uint88(BytesArray.ONE);
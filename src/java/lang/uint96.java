@@ -27,7 +27,7 @@ public final class uint96 extends uintType<uint96> {
      * The maximum representable value of uint96 (2^96 - 1).
      */
     public static final uint96 MAX_VALUE =
-        new uint96(BytesArray.maxValue(MAX_WIDTH));
+        new uint96(BytesArray.maxValue(MAX_WIDTH, BITS));
 
     public static final uint96 ZERO = new uint96(BytesArray.ZERO);
     public static final uint96 ONE  = new uint96(BytesArray.ONE);
@@ -0,0 +1,126 @@
+package java.lang;
+
+import java.crypto.Keccak256;
+import java.io.ByteArrayOutputStream;
+import java.lang.contract.Gas;
+import java.lang.contract.MainCaller;
+import java.lang.contract.MemoryHost;
+import java.lang.rlp.RlpEncoder;
+import java.lang.rlp.RlpList;
+import java.lang.rlp.RlpString;
+import java.lang.rlp.RlpType;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Helpers shared by the tests that call MyToken through a ContractHost: the inputs
+ * and packed call contexts of the calls, and the balances and allowances a
+ * {@link MemoryHost} holds. Holder n is the address 0x1000 + n.
+ */
+final class ContractCalls {
+
+    static final String TOKEN = "java.lang.contract.MyToken";
+
+    private ContractCalls() {
+    }
+
+    static address holder(int n) {
+        return new address(BigInteger.valueOf(0x1000 + n));
+    }
+
+    /**
+     * Returns the 32 bytes of a slot, those of a mapping of the host.
+     */
+    static byte[] slot(int slot) {
+        byte[] bytes = new byte[32];
+        bytes[31] = (byte) slot;
+        return bytes;
+    }
+
+    /**
+     * Returns the input of a call: the selector of the signature followed by the
+     * RLP strings of the parameters, holders or amounts.
+     */
+    static byte[] input(String signature, Object... params) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(Keccak256.getKeccak256().keccak256(signature.getBytes()), 0, 4);
+        for (Object param : params) {
+            RlpString value = param instanceof address
+                ? RlpString.create(((address) param).toByteArray())
+                : RlpString.create(BigInteger.valueOf((Long) param));
+            byte[] encoded = RlpEncoder.encode(value);
+            out.write(encoded, 0, encoded.length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns the input of a multicall of other inputs.
+     */
+    static byte[] multicall(byte[]... inputs) {
+        List<RlpType> calls = new ArrayList<>();
+        for (byte[] input : inputs) {
+            calls.add(RlpString.create(input));
+        }
+        byte[] list = RlpEncoder.encode(new RlpList(calls));
+        byte[] input = new byte[4 + list.length];
+        System.arraycopy(MainCaller.MULTICALL_SELECTOR, 0, input, 0, 4);
+        System.arraycopy(list, 0, input, 4, list.length);
+        return input;
+    }
+
+    /**
+     * Returns the packed call context of a call by a holder, without gas: the tests
+     * run it with the gas limit lifted, see {@link Gas#setUnlimited}.
+     */
+    static byte[] context(int sender, byte[] input) {
+        return context(sender, input, new byte[0]);
+    }
+
+    /**
+     * Returns the packed call context of a call by a holder with a gas limit.
+     */
+    static byte[] context(int sender, byte[] input, long gas) {
+        return context(sender, input, new uint256(gas).toByteArray());
+    }
+
+    private static byte[] context(int sender, byte[] input, byte[] gas) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[][] fields = {holder(sender).toByteArray(), new byte[0], input, new byte[0], new byte[0], gas};
+        for (byte[] field : fields) {
+            out.write(field.length >>> 24);
+            out.write(field.length >>> 16);
+            out.write(field.length >>> 8);
+            out.write(field.length);
+            out.write(field, 0, field.length);
+        }
+        return out.toByteArray();
+    }
+
+    // ABI.encode of a uint256: the length of its bytes, then the bytes
+    static BigInteger amount(byte[] output) {
+        return new BigInteger(1, Arrays.copyOfRange(output, 1, output.length));
+    }
+
+    // ERC20.balances is slot 0, ERC20.allowances slot 1, keyed by owner then spender
+
+    static void setBalance(MemoryHost host, int holder, long amount) {
+        host.setMapping(slot(0), holder(holder).toByteArray(), new uint256(amount).toByteArray());
+    }
+
+    static BigInteger balance(MemoryHost host, int holder) {
+        return new BigInteger(1, host.getMapping(slot(0), holder(holder).toByteArray()));
+    }
+
+    static void setAllowance(MemoryHost host, int owner, int spender, long amount) {
+        byte[] ownerSlot = host.computeNestedSlot(slot(1), holder(owner).toByteArray());
+        host.setMapping(ownerSlot, holder(spender).toByteArray(), new uint256(amount).toByteArray());
+    }
+
+    static BigInteger allowance(MemoryHost host, int owner, int spender) {
+        byte[] ownerSlot = host.computeNestedSlot(slot(1), holder(owner).toByteArray());
+        return new BigInteger(1, host.getMapping(ownerSlot, holder(spender).toByteArray()));
+    }
+}
@@ -0,0 +1,295 @@
+package java.lang;
+
+import java.lang.contract.Storage;
+import java.lang.management.ManagementFactory;
+import java.lang.rlp.RlpDecoder;
+import java.lang.rlp.RlpEncoder;
+import java.lang.rlp.RlpList;
+import java.lang.rlp.RlpString;
+import java.math.BigInteger;
+
+/**
+ * A self-contained test of the bytes allocated per operation of the integer
+ * types, mapping, ABI and RLP, without using JUnit.
+ *
+ * Each operation runs until it is compiled, then the bytes allocated by the thread
+ * over a batch of runs are read from the ThreadMXBean; the least of a few batches is
+ * the allocation per operation. It prints "OK" when an operation stays within its
+ * budget, and the operation, its allocation and its budget when it does not, in
+ * which case the test exits with status 1. A budget of 0 marks work that must not
+ * allocate at all.
+ *
+ * Budgets are the most allocated in a few runs on 64-bit JDK 8 and 17 with
+ * compressed oops. Operations that go through BigInteger, or whose allocation
+ * differs between the JDKs, allocate more or less from one run to the next with
+ * what the compiler inlines, and their budgets have about 10% of headroom. After
+ * a change that allocates less, run the test with {@code --print} to list the new
+ * values and lower the budgets.
+ *
+ * The storage of mapping entries is a host that keeps a single value and
+ * allocates nothing, so that only the runtime is measured.
+ */
+public class TestAllocationBudgets {
+
+    private static final int BATCH = 20000;
+    private static final int BATCHES = 5;
+    private static final int WARMUP = 30000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Results of the operations, kept so that they are not optimized away
+    private static Object sink;
+    private static long sinkValue;
+
+    private static boolean print;
+    private static int failures;
+
+    private interface Operation {
+        Object run() throws Exception;
+    }
+
+    private interface PrimitiveOperation {
+        long run();
+    }
+
+    public static void main(String[] args) throws Exception {
+        print = args.length > 0 && "--print".equals(args[0]);
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        testUint256();
+        testUint64();
+        testInt256();
+        testInt64();
+        testMapping();
+        testAbi();
+        testRlp();
+
+        System.out.println("All tests are executed!");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void testUint256() {
+        uint256 a = new uint256(new BigInteger("123456789012345678901234567890123456789"));
+        uint256 b = new uint256(new BigInteger("98765432109876543210"));
+        uint256 m = new uint256(new BigInteger("1000000000000000000000000000007"));
+        byte[] bytes = a.toByteArray();
+        check("uint256.add", 56, () -> a.add(b));
+        check("uint256.subtract", 56, () -> a.subtract(b));
+        check("uint256.multiply", 72, () -> a.multiply(b));
+        check("uint256.divide", 176, () -> a.divide(b));
+        check("uint256.mod", 176, () -> a.mod(b));
+        check("uint256.addmod", 208, () -> a.addmod(b, m));
+        check("uint256.mulmod", 240, () -> a.mulmod(b, m));
+        check("uint256.mulDiv", 56, () -> a.mulDiv(b, m));
+        check("uint256.addChecked", 56, () -> a.addChecked(b));
+        check("uint256.subChecked", 56, () -> a.subChecked(b));
+        check("uint256.mulChecked", 72, () -> a.mulChecked(b));
+        check("uint256.addSaturating(overflow)", 104, () -> uint256.MAX_VALUE.addSaturating(b));
+        check("uint256.pow", 280, () -> b.pow(3));
+        check("uint256.inc", 56, () -> a.inc());
+        check("uint256.dec", 56, () -> a.dec());
+        check("uint256.and", 56, () -> a.and(b));
+        check("uint256.or", 56, () -> a.or(b));
+        check("uint256.xor", 56, () -> a.xor(b));
+        check("uint256.or(set flag)", 0, () -> a.or(uint256.ONE));
+        check("uint256.and(within mask)", 0, () -> b.and(uint256.MAX_VALUE));
+        check("uint256.not", 72, () -> a.not());
+        check("uint256.shiftLeft", 64, () -> a.shiftLeft(40));
+        check("uint256.shiftRight", 56, () -> a.shiftRight(40));
+        check("uint256.toByteArray", 32, () -> a.toByteArray());
+        check("uint256.fromBytes", 56, () -> new uint256(bytes));
+        check("uint256.toBigInteger", 816, () -> a.toBigInteger());
+        checkPrimitive("uint256.compareTo", 0, () -> a.compareTo(b));
+        checkPrimitive("uint256.equals", 0, () -> a.equals(b) ? 1 : 0);
+        checkPrimitive("uint256.hashCode", 0, () -> a.hashCode());
+        checkPrimitive("uint256.isZero", 0, () -> a.isZero() ? 1 : 0);
+        checkPrimitive("uint256.bitLength", 0, () -> a.bitLength());
+        checkPrimitive("uint256.testBit", 0, () -> a.testBit(70) ? 1 : 0);
+        checkPrimitive("uint256.longValue", 0, () -> b.longValue());
+    }
+
+    private static void testUint64() {
+        uint64 a = new uint64(0x123456789abcL);
+        uint64 b = new uint64(0x9876L);
+        check("uint64.add", 48, () -> a.add(b));
+        check("uint64.subtract", 48, () -> a.subtract(b));
+        check("uint64.multiply", 48, () -> a.multiply(b));
+        check("uint64.divide", 120, () -> a.divide(b));
+        check("uint64.mod", 112, () -> a.mod(b));
+        checkPrimitive("uint64.compareTo", 0, () -> a.compareTo(b));
+        checkPrimitive("uint64.isZero", 0, () -> a.isZero() ? 1 : 0);
+    }
+
+    private static void testInt256() {
+        int256 a = new int256(new BigInteger("-123456789012345678901234567890123456789"));
+        int256 b = new int256(new BigInteger("98765432109876543210"));
+        check("int256.add", 800, () -> a.add(b));
+        check("int256.subtract", 800, () -> a.subtract(b));
+        check("int256.multiply", 1680, () -> a.multiply(b));
+        check("int256.divide", 1688, () -> a.divide(b));
+        check("int256.mod", 1408, () -> a.mod(b));
+        check("int256.negate", 592, () -> a.negate());
+        check("int256.abs", 592, () -> a.abs());
+        check("int256.and", 776, () -> a.and(b));
+        check("int256.shiftLeft", 976, () -> a.shiftLeft(40));
+        check("int256.shiftRight", 1168, () -> a.shiftRight(40));
+        check("int256.toByteArray", 288, () -> a.toByteArray());
+        checkPrimitive("int256.compareTo", 352, () -> a.compareTo(b));
+        checkPrimitive("int256.signum", 248, () -> a.signum());
+        checkPrimitive("int256.isNegative", 0, () -> a.isNegative() ? 1 : 0);
+        checkPrimitive("int256.equals", 352, () -> a.equals(b) ? 1 : 0);
+    }
+
+    private static void testInt64() {
+        int64 a = new int64(BigInteger.valueOf(-0x123456789abcL));
+        int64 b = new int64(BigInteger.valueOf(0x9876L));
+        check("int64.add", 664, () -> a.add(b));
+        check("int64.subtract", 664, () -> a.subtract(b));
+        check("int64.multiply", 1336, () -> a.multiply(b));
+        check("int64.divide", 1432, () -> a.divide(b));
+        checkPrimitive("int64.compareTo", 264, () -> a.compareTo(b));
+    }
+
+    private static void testMapping() {
+        Storage.setHost(new ConstantHost());
+        try {
+            mapping<address, uint256> balances = mapping.of(address.class, uint256.class);
+            balances.setSlot(1);
+            mapping<address, mapping<address, uint256>> allowances = mapping.ofNested(address.class, uint256.class);
+            allowances.setSlot(2);
+            address owner = new address(BigInteger.valueOf(0x1001));
+            address spender = new address(BigInteger.valueOf(0x2002));
+            uint256 value = new uint256(1000000L);
+            balances.set(value, owner);
+            check("mapping.get", 280, () -> balances.get(owner));
+            check("mapping.get(uncached)", 720, () -> {
+                balances.clearCache();
+                return balances.get(owner);
+            });
+            check("mapping.set", 408, () -> {
+                balances.set(value, owner);
+                return null;
+            });
+            check("mapping.get(nested)", 552, () -> allowances.get(owner).get(spender));
+        } finally {
+            Storage.setHost(null);
+        }
+    }
+
+    private static void testAbi() {
+        RlpString amount = RlpString.create(new uint256(1000000L).toByteArray());
+        RlpString account = RlpString.create(new address(BigInteger.valueOf(0x1001)).toByteArray());
+        RlpString flag = RlpString.create(new byte[] {1});
+        RlpString text = RlpString.create("transfer");
+        uint256 number = new uint256(1000000L);
+        address holder = new address(BigInteger.valueOf(0x1001));
+        check("ABI.decode(uint256)", 48, () -> ABI.decode(amount, uint256.class));
+        check("ABI.decode(address)", 216, () -> ABI.decode(account, address.class));
+        check("ABI.decode(bool)", 16, () -> ABI.decode(flag, bool.class));
+        check("ABI.decode(string)", 32, () -> ABI.decode(text, string.class));
+        check("ABI.encode(uint256)", 48, () -> ABI.encode(number));
+        check("ABI.encode(address)", 48, () -> ABI.encode(holder));
+        check("ABI.encode(bool)", 40, () -> ABI.encode(bool.TRUE));
+    }
+
+    private static void testRlp() {
+        byte[] address = new byte[20];
+        address[0] = 1;
+        RlpString short_ = RlpString.create(address);
+        RlpList call = new RlpList(short_, RlpString.create(1000000L));
+        byte[] encodedShort = RlpEncoder.encode(short_);
+        byte[] encodedCall = RlpEncoder.encode(call);
+        check("RlpString.create(long)", 104, () -> RlpString.create(1000000L));
+        check("RlpEncoder.encode(string)", 40, () -> RlpEncoder.encode(short_));
+        check("RlpEncoder.encode(list)", 280, () -> RlpEncoder.encode(call));
+        check("RlpDecoder.decode(string)", 152, () -> RlpDecoder.decode(encodedShort));
+        check("RlpDecoder.decode(list)", 288, () -> RlpDecoder.decode(encodedCall));
+    }
+
+    /**
+     * Checks the bytes allocated per run of an operation against its budget.
+     */
+    private static void check(String name, long budget, Operation operation) {
+        report(name, budget, measure(() -> {
+            try {
+                sink = operation.run();
+            } catch (Exception e) {
+                throw new IllegalStateException(name, e);
+            }
+        }));
+    }
+
+    /**
+     * Checks an operation with a primitive result, which is not boxed.
+     */
+    private static void checkPrimitive(String name, long budget, PrimitiveOperation operation) {
+        report(name, budget, measure(() -> sinkValue += operation.run()));
+    }
+
+    /**
+     * Returns the least bytes allocated per run over a few batches, once warm.
+     */
+    private static double measure(Runnable run) {
+        for (int i = 0; i < WARMUP; i++) {
+            run.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long least = Long.MAX_VALUE;
+        for (int batch = 0; batch < BATCHES; batch++) {
+            long start = THREADS.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < BATCH; i++) {
+                run.run();
+            }
+            least = Math.min(least, THREADS.getThreadAllocatedBytes(thread) - start);
+        }
+        return (double) least / BATCH;
+    }
+
+    private static void report(String name, long budget, double allocated) {
+        if (print) {
+            System.out.println(name + " " + (long) Math.ceil(allocated / 8) * 8 + " (budget " + budget + ")");
+        } else if (allocated > budget + 0.5) {
+            failures++;
+            System.out.println("FAILED: " + name + " allocated " + allocated + " bytes, budget " + budget);
+        } else {
+            System.out.println("OK");
+        }
+    }
+
+    /**
+     * Storage host that keeps a single value, so that it allocates nothing.
+     */
+    private static final class ConstantHost implements Storage.Host {
+
+        private final byte[] slot = new byte[32];
+        private byte[] value = new byte[0];
+
+        @Override
+        public byte[] getFixed(int slot) {
+            return value;
+        }
+
+        @Override
+        public void setFixed(int slot, byte[] value) {
+            this.value = value;
+        }
+
+        @Override
+        public byte[] getMapping(byte[] slot, byte[] key) {
+            return value;
+        }
+
+        @Override
+        public void setMapping(byte[] slot, byte[] key, byte[] value) {
+            this.value = value;
+        }
+
+        @Override
+        public byte[] computeNestedSlot(byte[] slot, byte[] key) {
+            return this.slot;
+        }
+    }
+}
@@ -0,0 +1,599 @@
+package java.lang;
+
+import java.lang.reflect.Constructor;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * A differential fuzz test of the operations of every uintType and intType
+ * width against a BigInteger reference, without using JUnit.
+ *
+ * Each operation of each width runs on random operands, half of them taken from
+ * the edges of the type: 0, 1, MAX_VALUE, MIN_VALUE, and powers of two around
+ * the 32-bit word boundaries and the width. Unsigned results are expected
+ * modulo 2^N and signed results in two's complement, with the documented
+ * behavior of each operation: division by zero throws ArithmeticException, as
+ * does a mulDiv whose result does not fit, checked operations revert when their
+ * result does not fit, and a signed multiply or divide that overflows returns 0.
+ *
+ * The widths run in parallel, one task each; every operation of a width draws
+ * its operands from its own Random, seeded from the seed and its name, so that
+ * a run is reproduced by its seed whatever the number of cores. A failing case
+ * is shrunk to smaller operands that still fail, and printed as a line to add
+ * to {@link TestArithmeticRegressions}:
+ * <pre>
+ *   TestArithmeticFuzz [runs per operation] [seed]
+ * </pre>
+ */
+public class TestArithmeticFuzz {
+
+    private static final int DEFAULT_RUNS = 2000;
+
+    // Failing cases printed per operation of a width
+    private static final int MAX_REPORTS = 2;
+
+    private static final BigInteger TWO = BigInteger.valueOf(2);
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RUNS;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        System.out.println("seed " + seed + ", " + runs + " runs per operation");
+
+        List<Width> widths = new ArrayList<>();
+        for (int bits = 8; bits <= 256; bits += 8) {
+            widths.add(Width.of(bits, false));
+            widths.add(Width.of(bits, true));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (Width width : widths) {
+            results.add(pool.submit(() -> fuzz(width, runs, seed)));
+        }
+        int failures = 0;
+        long checks = 0;
+        for (int i = 0; i < widths.size(); i++) {
+            List<String> failed = results.get(i).get();
+            checks += (long) runs * operations(widths.get(i).signed).size();
+            if (failed.isEmpty()) {
+                System.out.println("OK");
+            } else {
+                failures += failed.size();
+                for (String line : failed) {
+                    System.out.println(line + " [seed " + seed + "]");
+                }
+            }
+        }
+        pool.shutdown();
+        System.out.println(checks + " operations checked, " + failures + " failing cases");
+        System.out.println("All tests are executed!");
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs every operation of a width, and returns the failing cases.
+     */
+    private static List<String> fuzz(Width width, int runs, long seed) {
+        Set<String> failed = new LinkedHashSet<>();
+        for (Op op : operations(width.signed).values()) {
+            String name = width.name + "." + op.name;
+            Random random = new Random(seed ^ (name.hashCode() * 0x9E3779B97F4A7C15L));
+            int reports = 0;
+            for (int run = 0; run < runs && reports < MAX_REPORTS; run++) {
+                BigInteger[] x = new BigInteger[op.arity];
+                for (int i = 0; i < x.length; i++) {
+                    x[i] = width.operand(random);
+                }
+                int n = op.intArg(random, width.bits);
+                if (mismatch(width, op, x, n) != null && failed.add(shrink(width, op, x, n))) {
+                    reports++;
+                }
+            }
+        }
+        return new ArrayList<>(failed);
+    }
+
+    /**
+     * Checks one case, as printed by a failing run, e.g.
+     * {@code check("uint40", "add", 0, "549755813888", "549755813888")}.
+     *
+     * @return true if the type and the reference agree.
+     */
+    static boolean check(String type, String operation, int n, String... operands) {
+        Width width = Width.of(Integer.parseInt(type.replaceAll("[^0-9]", "")), type.startsWith("int"));
+        Op op = operations(width.signed).get(operation);
+        BigInteger[] x = new BigInteger[operands.length];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = new BigInteger(operands[i]);
+        }
+        String mismatch = mismatch(width, op, x, n);
+        if (mismatch != null) {
+            System.out.println("FAILED: " + mismatch);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a description of the case if the type and the reference disagree,
+     * or null if they agree.
+     */
+    private static String mismatch(Width width, Op op, BigInteger[] x, int n) {
+        Object[] values = new Object[x.length];
+        for (int i = 0; i < x.length; i++) {
+            values[i] = width.of(x[i]);
+        }
+        BigInteger expected;
+        try {
+            expected = op.expected.apply(width, x, n);
+        } catch (ArithmeticException e) {
+            expected = null;
+        }
+        String actual;
+        try {
+            Object result = op.actual.apply(values, n);
+            BigInteger value = width.valueOf(result);
+            if (value.equals(expected)) {
+                return null;
+            }
+            actual = value.toString();
+        } catch (ArithmeticException e) {
+            if (expected == null) {
+                return null;
+            }
+            actual = "ArithmeticException";
+        } catch (RuntimeException e) {
+            actual = e.toString();
+        }
+        return "check(\"" + width.name + "\", \"" + op.name + "\", " + n
+            + (x.length > 0 ? ", \"" + join(x) + "\"" : "") + ") = " + actual
+            + ", expected " + (expected == null ? "ArithmeticException" : expected);
+    }
+
+    /**
+     * Shrinks the operands of a failing case while it still fails.
+     */
+    private static String shrink(Width width, Op op, BigInteger[] x, int n) {
+        x = x.clone();
+        boolean shrunk = true;
+        for (int steps = 0; shrunk && steps < 10000; steps++) {
+            shrunk = false;
+            for (int i = 0; i < x.length && !shrunk; i++) {
+                for (BigInteger candidate : smaller(x[i])) {
+                    if (!width.fits(candidate)) {
+                        continue;
+                    }
+                    BigInteger previous = x[i];
+                    x[i] = candidate;
+                    if (mismatch(width, op, x, n) != null) {
+                        shrunk = true;
+                        break;
+                    }
+                    x[i] = previous;
+                }
+            }
+            for (int m : new int[] {0, 1, n / 2, n - 1}) {
+                if (!shrunk && 0 <= m && m < n && mismatch(width, op, x, m) != null) {
+                    n = m;
+                    shrunk = true;
+                }
+            }
+        }
+        return "FAILED: " + mismatch(width, op, x, n);
+    }
+
+    /**
+     * Returns values closer to 0 than a value, simplest first.
+     */
+    private static List<BigInteger> smaller(BigInteger x) {
+        List<BigInteger> candidates = new ArrayList<>();
+        BigInteger abs = x.abs();
+        for (BigInteger c : new BigInteger[] {
+                BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE.negate(),
+                BigInteger.ONE.shiftLeft(abs.bitLength() - 1).multiply(BigInteger.valueOf(x.signum())),
+                x.shiftRight(1), abs.bitLength() > 1 ? x.subtract(BigInteger.valueOf(x.signum())) : x,
+                x.signum() > 0 ? x.clearBit(x.bitLength() - 1) : x}) {
+            if (c.abs().compareTo(abs) < 0 && !candidates.contains(c)) {
+                candidates.add(c);
+            }
+        }
+        return candidates;
+    }
+
+    private static String join(BigInteger[] x) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < x.length; i++) {
+            sb.append(i > 0 ? "\", \"" : "").append(x[i]);
+        }
+        return sb.toString();
+    }
+
+    /* ====================================================== */
+    /*                        Widths                          */
+    /* ====================================================== */
+
+    /**
+     * A type, e.g. uint40, with its constructors and its edge values.
+     */
+    private static final class Width {
+
+        final int bits;
+        final boolean signed;
+        final String name;
+        final BigInteger modulus;
+        final BigInteger min;
+        final BigInteger max;
+        final List<BigInteger> edges = new ArrayList<>();
+        final Constructor<?> fromBigInteger;
+        final Constructor<?> fromBytes;
+
+        private static final Map<String, Width> widths = Collections.synchronizedMap(new LinkedHashMap<>());
+
+        static Width of(int bits, boolean signed) {
+            return widths.computeIfAbsent((signed ? "int" : "uint") + bits, name -> new Width(bits, signed, name));
+        }
+
+        private Width(int bits, boolean signed, String name) {
+            this.bits = bits;
+            this.signed = signed;
+            this.name = name;
+            this.modulus = BigInteger.ONE.shiftLeft(bits);
+            this.min = signed ? BigInteger.ONE.shiftLeft(bits - 1).negate() : BigInteger.ZERO;
+            this.max = (signed ? BigInteger.ONE.shiftLeft(bits - 1) : modulus).subtract(BigInteger.ONE);
+            try {
+                Class<?> type = Class.forName("java.lang." + name);
+                fromBigInteger = type.getConstructor(BigInteger.class);
+                fromBytes = type.getConstructor(byte[].class);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(name, e);
+            }
+            for (long small = -3; small <= 3; small++) {
+                edges.add(wrap(BigInteger.valueOf(small)));
+            }
+            edges.add(min);
+            edges.add(min.add(BigInteger.ONE));
+            edges.add(max);
+            edges.add(max.subtract(BigInteger.ONE));
+            for (int k : new int[] {7, 8, 15, 16, 31, 32, 33, 63, 64, 65, 95, 96, 127, 128, 129, 159, 160,
+                                    191, 192, 223, 224, 255, bits / 2, bits - 1}) {
+                if (k < bits) {
+                    BigInteger power = BigInteger.ONE.shiftLeft(k);
+                    edges.add(wrap(power));
+                    edges.add(wrap(power.subtract(BigInteger.ONE)));
+                    edges.add(wrap(power.add(BigInteger.ONE)));
+                    edges.add(wrap(power.negate()));
+                }
+            }
+        }
+
+        /**
+         * Returns a random operand, an edge value half of the time.
+         */
+        BigInteger operand(Random random) {
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                case 2:
+                    return edges.get(random.nextInt(edges.size()));
+                case 3:
+                    // a power of two, or next to one
+                    return wrap(BigInteger.ONE.shiftLeft(random.nextInt(bits))
+                        .add(BigInteger.valueOf(random.nextInt(3) - 1)));
+                default:
+                    // any magnitude, and any sign for signed types
+                    BigInteger value = new BigInteger(1 + random.nextInt(bits), random);
+                    return wrap(signed && random.nextBoolean() ? value.negate() : value);
+            }
+        }
+
+        /**
+         * Reduces a value to the range of the type.
+         */
+        BigInteger wrap(BigInteger value) {
+            BigInteger reduced = value.mod(modulus);
+            return reduced.compareTo(max) > 0 ? reduced.subtract(modulus) : reduced;
+        }
+
+        /**
+         * Returns true if a value is in the range of the type.
+         */
+        boolean fits(BigInteger value) {
+            return value.compareTo(min) >= 0 && value.compareTo(max) <= 0;
+        }
+
+        Object of(BigInteger value) {
+            try {
+                return fromBigInteger.newInstance(value);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(name, e);
+            }
+        }
+
+        Object fromBytes(byte[] bytes) {
+            try {
+                return fromBytes.newInstance((Object) bytes);
+            } catch (ReflectiveOperationException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(name, e);
+            }
+        }
+
+        /**
+         * Returns the value of a result: a number of the type, a boolean or an int.
+         */
+        @SuppressWarnings("rawtypes")
+        BigInteger valueOf(Object result) {
+            if (result instanceof uintType) {
+                if (signed || result.getClass() != fromBigInteger.getDeclaringClass()) {
+                    throw new IllegalStateException("result of type " + result.getClass().getSimpleName());
+                }
+                return ((uintType) result).toBigInteger();
+            }
+            if (result instanceof intType) {
+                if (!signed || result.getClass() != fromBigInteger.getDeclaringClass()) {
+                    throw new IllegalStateException("result of type " + result.getClass().getSimpleName());
+                }
+                return ((intType) result).toBigInteger();
+            }
+            if (result instanceof Boolean) {
+                return (Boolean) result ? BigInteger.ONE : BigInteger.ZERO;
+            }
+            return BigInteger.valueOf(((Number) result).longValue());
+        }
+    }
+
+    /* ====================================================== */
+    /*                      Operations                        */
+    /* ====================================================== */
+
+    private interface Actual {
+        Object apply(Object[] x, int n);
+    }
+
+    private interface Expected {
+        BigInteger apply(Width w, BigInteger[] x, int n);
+    }
+
+    /**
+     * An operation of the type, and its result computed with BigInteger. An
+     * expected ArithmeticException is thrown by the reference as well.
+     */
+    private static final class Op {
+
+        // Kinds of the int argument of the operation
+        static final int NONE = 0;
+        static final int SHIFT = 1;
+        static final int BIT = 2;
+        static final int EXPONENT = 3;
+
+        final String name;
+        final int arity;
+        final int intArg;
+        final Actual actual;
+        final Expected expected;
+
+        Op(String name, int arity, int intArg, Actual actual, Expected expected) {
+            this.name = name;
+            this.arity = arity;
+            this.intArg = intArg;
+            this.actual = actual;
+            this.expected = expected;
+        }
+
+        int intArg(Random random, int bits) {
+            switch (intArg) {
+                case SHIFT:
+                    // negative shifts go the other way
+                    return random.nextInt(2 * bits + 80) - bits / 2 - 8;
+                case BIT:
+                    return random.nextInt(bits + 40);
+                case EXPONENT:
+                    return random.nextInt(4) == 0 ? random.nextInt(300) : random.nextInt(8);
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    private static Map<String, Op> unsignedOps;
+    private static Map<String, Op> signedOps;
+
+    private static synchronized Map<String, Op> operations(boolean signed) {
+        if (unsignedOps == null) {
+            unsignedOps = unsignedOperations();
+            signedOps = signedOperations();
+        }
+        return signed ? signedOps : unsignedOps;
+    }
+
+    private static void add(Map<String, Op> ops, String name, int arity, int intArg, Actual actual, Expected expected) {
+        ops.put(name, new Op(name, arity, intArg, actual, expected));
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Map<String, Op> unsignedOperations() {
+        Map<String, Op> ops = new LinkedHashMap<>();
+        add(ops, "add", 2, Op.NONE, (x, n) -> u(x[0]).add(u(x[1])), (w, x, n) -> w.wrap(x[0].add(x[1])));
+        add(ops, "subtract", 2, Op.NONE, (x, n) -> u(x[0]).subtract(u(x[1])), (w, x, n) -> w.wrap(x[0].subtract(x[1])));
+        add(ops, "multiply", 2, Op.NONE, (x, n) -> u(x[0]).multiply(u(x[1])), (w, x, n) -> w.wrap(x[0].multiply(x[1])));
+        add(ops, "divide", 2, Op.NONE, (x, n) -> u(x[0]).divide(u(x[1])), (w, x, n) -> x[0].divide(x[1]));
+        add(ops, "mod", 2, Op.NONE, (x, n) -> u(x[0]).mod(u(x[1])), (w, x, n) -> x[0].mod(x[1]));
+        add(ops, "divmod.quotient", 2, Op.NONE, (x, n) -> ((Object[]) u(x[0]).divmod(u(x[1])))[0],
+            (w, x, n) -> x[0].divide(x[1]));
+        add(ops, "divmod.remainder", 2, Op.NONE, (x, n) -> ((Object[]) u(x[0]).divmod(u(x[1])))[1],
+            (w, x, n) -> x[0].mod(x[1]));
+        add(ops, "addmod", 3, Op.NONE, (x, n) -> u(x[0]).addmod(u(x[1]), u(x[2])),
+            (w, x, n) -> x[0].add(x[1]).mod(x[2]));
+        add(ops, "mulmod", 3, Op.NONE, (x, n) -> u(x[0]).mulmod(u(x[1]), u(x[2])),
+            (w, x, n) -> x[0].multiply(x[1]).mod(x[2]));
+        add(ops, "addChecked", 2, Op.NONE, (x, n) -> checked(() -> u(x[0]).addChecked(u(x[1]))),
+            (w, x, n) -> inRange(w, x[0].add(x[1])));
+        add(ops, "subChecked", 2, Op.NONE, (x, n) -> checked(() -> u(x[0]).subChecked(u(x[1]))),
+            (w, x, n) -> inRange(w, x[0].subtract(x[1])));
+        add(ops, "mulChecked", 2, Op.NONE, (x, n) -> checked(() -> u(x[0]).mulChecked(u(x[1]))),
+            (w, x, n) -> inRange(w, x[0].multiply(x[1])));
+        add(ops, "tryAdd", 2, Op.NONE, (x, n) -> present(u(x[0]).tryAdd(u(x[1]))),
+            (w, x, n) -> inRange(w, x[0].add(x[1])));
+        add(ops, "trySub", 2, Op.NONE, (x, n) -> present(u(x[0]).trySub(u(x[1]))),
+            (w, x, n) -> inRange(w, x[0].subtract(x[1])));
+        add(ops, "tryMul", 2, Op.NONE, (x, n) -> present(u(x[0]).tryMul(u(x[1]))),
+            (w, x, n) -> inRange(w, x[0].multiply(x[1])));
+        add(ops, "addSaturating", 2, Op.NONE, (x, n) -> u(x[0]).addSaturating(u(x[1])),
+            (w, x, n) -> w.max.min(x[0].add(x[1])));
+        add(ops, "subSaturating", 2, Op.NONE, (x, n) -> u(x[0]).subSaturating(u(x[1])),
+            (w, x, n) -> BigInteger.ZERO.max(x[0].subtract(x[1])));
+        add(ops, "mulSaturating", 2, Op.NONE, (x, n) -> u(x[0]).mulSaturating(u(x[1])),
+            (w, x, n) -> w.max.min(x[0].multiply(x[1])));
+        add(ops, "mulDiv", 3, Op.NONE, (x, n) -> u(x[0]).mulDiv(u(x[1]), u(x[2])), (w, x, n) -> mulDiv(w, x, false));
+        add(ops, "mulDivRoundingUp", 3, Op.NONE, (x, n) -> u(x[0]).mulDivRoundingUp(u(x[1]), u(x[2])),
+            (w, x, n) -> mulDiv(w, x, true));
+        add(ops, "pow", 1, Op.EXPONENT, (x, n) -> u(x[0]).pow(n), (w, x, n) -> x[0].modPow(BigInteger.valueOf(n), w.modulus));
+        add(ops, "inc", 1, Op.NONE, (x, n) -> u(x[0]).inc(), (w, x, n) -> w.wrap(x[0].add(BigInteger.ONE)));
+        add(ops, "dec", 1, Op.NONE, (x, n) -> u(x[0]).dec(), (w, x, n) -> w.wrap(x[0].subtract(BigInteger.ONE)));
+        add(ops, "and", 2, Op.NONE, (x, n) -> u(x[0]).and(u(x[1])), (w, x, n) -> x[0].and(x[1]));
+        add(ops, "or", 2, Op.NONE, (x, n) -> u(x[0]).or(u(x[1])), (w, x, n) -> x[0].or(x[1]));
+        add(ops, "xor", 2, Op.NONE, (x, n) -> u(x[0]).xor(u(x[1])), (w, x, n) -> x[0].xor(x[1]));
+        add(ops, "not", 1, Op.NONE, (x, n) -> u(x[0]).not(), (w, x, n) -> w.max.xor(x[0]));
+        add(ops, "shiftLeft", 1, Op.SHIFT, (x, n) -> u(x[0]).shiftLeft(n), (w, x, n) -> w.wrap(x[0].shiftLeft(n)));
+        add(ops, "shiftRight", 1, Op.SHIFT, (x, n) -> u(x[0]).shiftRight(n), (w, x, n) -> w.wrap(x[0].shiftRight(n)));
+        add(ops, "setBit", 1, Op.BIT, (x, n) -> u(x[0]).setBit(n), (w, x, n) -> n < w.bits ? x[0].setBit(n) : x[0]);
+        add(ops, "clearBit", 1, Op.BIT, (x, n) -> u(x[0]).clearBit(n), (w, x, n) -> n < w.bits ? x[0].clearBit(n) : x[0]);
+        add(ops, "flipBit", 1, Op.BIT, (x, n) -> u(x[0]).flipBit(n), (w, x, n) -> n < w.bits ? x[0].flipBit(n) : x[0]);
+        add(ops, "testBit", 1, Op.BIT, (x, n) -> u(x[0]).testBit(n), (w, x, n) -> bit(x[0].testBit(n)));
+        add(ops, "compareTo", 2, Op.NONE, (x, n) -> Integer.signum(u(x[0]).compareTo(u(x[1]))),
+            (w, x, n) -> BigInteger.valueOf(x[0].compareTo(x[1])));
+        add(ops, "equals", 2, Op.NONE, (x, n) -> u(x[0]).equals(x[1 % x.length]),
+            (w, x, n) -> bit(x[0].equals(x[1])));
+        add(ops, "isZero", 1, Op.NONE, (x, n) -> u(x[0]).isZero(), (w, x, n) -> bit(x[0].signum() == 0));
+        add(ops, "bitLength", 1, Op.NONE, (x, n) -> u(x[0]).bitLength(), (w, x, n) -> BigInteger.valueOf(x[0].bitLength()));
+        add(ops, "getLowestSetBit", 1, Op.NONE, (x, n) -> u(x[0]).getLowestSetBit(),
+            (w, x, n) -> BigInteger.valueOf(x[0].getLowestSetBit()));
+        add(ops, "longValue", 1, Op.NONE, (x, n) -> u(x[0]).longValue(), (w, x, n) -> BigInteger.valueOf(x[0].longValue()));
+        add(ops, "toByteArray", 1, Op.NONE, (x, n) -> widthOf(x[0]).fromBytes(u(x[0]).toByteArray()), (w, x, n) -> x[0]);
+        add(ops, "toString", 1, Op.NONE, (x, n) -> new BigInteger(u(x[0]).toString(16), 16).longValue() ^ x[0].hashCode(),
+            (w, x, n) -> BigInteger.valueOf(x[0].longValue() ^ w.of(x[0]).hashCode()));
+        return ops;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static Map<String, Op> signedOperations() {
+        Map<String, Op> ops = new LinkedHashMap<>();
+        add(ops, "add", 2, Op.NONE, (x, n) -> s(x[0]).add(s(x[1])), (w, x, n) -> w.wrap(x[0].add(x[1])));
+        add(ops, "subtract", 2, Op.NONE, (x, n) -> s(x[0]).subtract(s(x[1])), (w, x, n) -> w.wrap(x[0].subtract(x[1])));
+        add(ops, "multiply", 2, Op.NONE, (x, n) -> s(x[0]).multiply(s(x[1])),
+            (w, x, n) -> orZero(w, x[0].multiply(x[1])));
+        add(ops, "divide", 2, Op.NONE, (x, n) -> s(x[0]).divide(s(x[1])), (w, x, n) -> orZero(w, x[0].divide(x[1])));
+        add(ops, "mod", 2, Op.NONE, (x, n) -> s(x[0]).mod(s(x[1])), (w, x, n) -> x[0].mod(x[1]));
+        add(ops, "and", 2, Op.NONE, (x, n) -> s(x[0]).and(s(x[1])), (w, x, n) -> x[0].and(x[1]));
+        add(ops, "or", 2, Op.NONE, (x, n) -> s(x[0]).or(s(x[1])), (w, x, n) -> x[0].or(x[1]));
+        add(ops, "xor", 2, Op.NONE, (x, n) -> s(x[0]).xor(s(x[1])), (w, x, n) -> x[0].xor(x[1]));
+        add(ops, "not", 1, Op.NONE, (x, n) -> s(x[0]).not(), (w, x, n) -> x[0].not());
+        add(ops, "negate", 1, Op.NONE, (x, n) -> s(x[0]).negate(), (w, x, n) -> w.wrap(x[0].negate()));
+        add(ops, "abs", 1, Op.NONE, (x, n) -> s(x[0]).abs(), (w, x, n) -> w.wrap(x[0].abs()));
+        add(ops, "shiftLeft", 1, Op.SHIFT, (x, n) -> s(x[0]).shiftLeft(n), (w, x, n) -> w.wrap(x[0].shiftLeft(n)));
+        add(ops, "shiftRight", 1, Op.SHIFT, (x, n) -> s(x[0]).shiftRight(n), (w, x, n) -> w.wrap(x[0].shiftRight(n)));
+        add(ops, "testBit", 1, Op.BIT, (x, n) -> s(x[0]).testBit(n), (w, x, n) -> {
+            if (n >= w.bits) {
+                throw new ArithmeticException("Bit index out of range");
+            }
+            return bit(x[0].testBit(n));
+        });
+        add(ops, "compareTo", 2, Op.NONE, (x, n) -> Integer.signum(s(x[0]).compareTo(s(x[1]))),
+            (w, x, n) -> BigInteger.valueOf(x[0].compareTo(x[1])));
+        add(ops, "equals", 2, Op.NONE, (x, n) -> s(x[0]).equals(x[1]), (w, x, n) -> bit(x[0].equals(x[1])));
+        add(ops, "signum", 1, Op.NONE, (x, n) -> s(x[0]).signum(), (w, x, n) -> BigInteger.valueOf(x[0].signum()));
+        add(ops, "isZero", 1, Op.NONE, (x, n) -> s(x[0]).isZero(), (w, x, n) -> bit(x[0].signum() == 0));
+        add(ops, "isNegative", 1, Op.NONE, (x, n) -> s(x[0]).isNegative(), (w, x, n) -> bit(x[0].signum() < 0));
+        add(ops, "bitLength", 1, Op.NONE, (x, n) -> s(x[0]).bitLength(), (w, x, n) -> BigInteger.valueOf(x[0].bitLength()));
+        add(ops, "longValue", 1, Op.NONE, (x, n) -> s(x[0]).longValue(), (w, x, n) -> BigInteger.valueOf(x[0].longValue()));
+        add(ops, "toByteArray", 1, Op.NONE, (x, n) -> widthOf(x[0]).fromBytes(s(x[0]).toByteArray()), (w, x, n) -> x[0]);
+        return ops;
+    }
+
+    /**
+     * Returns a signed result, or 0 if it overflows, as intType multiply and divide do.
+     */
+    private static BigInteger orZero(Width w, BigInteger value) {
+        return w.fits(value) ? value : BigInteger.ZERO;
+    }
+
+    /**
+     * Returns the result of a checked operation, its revert on overflow as an
+     * ArithmeticException.
+     */
+    private static Object checked(Supplier<Object> operation) {
+        try {
+            return operation.get();
+        } catch (Revert e) {
+            throw new ArithmeticException(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the result of a try operation, its null on overflow as an
+     * ArithmeticException.
+     */
+    private static Object present(Object result) {
+        if (result == null) {
+            throw new ArithmeticException("null");
+        }
+        return result;
+    }
+
+    /**
+     * Returns a result, or throws if it is out of the range of the type.
+     */
+    private static BigInteger inRange(Width w, BigInteger value) {
+        if (!w.fits(value)) {
+            throw new ArithmeticException("overflow");
+        }
+        return value;
+    }
+
+    /**
+     * Returns {@code x0 * x1 / x2} without overflow, rounded down or up, or throws
+     * if it does not fit the type.
+     */
+    private static BigInteger mulDiv(Width w, BigInteger[] x, boolean roundUp) {
+        BigInteger[] qr = x[0].multiply(x[1]).divideAndRemainder(x[2]);
+        BigInteger q = roundUp && qr[1].signum() != 0 ? qr[0].add(BigInteger.ONE) : qr[0];
+        if (!w.fits(q)) {
+            throw new ArithmeticException("mulDiv overflow");
+        }
+        return q;
+    }
+
+    private static BigInteger bit(boolean value) {
+        return value ? BigInteger.ONE : BigInteger.ZERO;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static uintType u(Object x) {
+        return (uintType) x;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static intType s(Object x) {
+        return (intType) x;
+    }
+
+    // The width of an operand, to rebuild a value of its type from bytes
+    private static Width widthOf(Object x) {
+        String name = x.getClass().getSimpleName();
+        return Width.of(Integer.parseInt(name.replaceAll("[^0-9]", "")), name.startsWith("int"));
+    }
+}
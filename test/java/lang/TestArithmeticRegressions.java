@@ -0,0 +1,120 @@
+package java.lang;
+
+import java.math.BigInteger;
+
+/**
+ * A self-contained test of the failing cases found by {@link TestArithmeticFuzz},
+ * shrunk to small operands, without using JUnit.
+ * It prints "OK" if a case passes, or prints the failure message if it fails.
+ * At the end, it summarizes pass/fail counts and exits with code 1 if any failed.
+ *
+ * Each case is the line printed by the fuzz test, with the type, the operation,
+ * its int argument (a shift, a bit or an exponent) and its operands.
+ */
+public class TestArithmeticRegressions {
+
+    // Track how many checks pass/fail
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        testSubWordWidths();
+        testSquare();
+        testConstants();
+
+        System.out.println("All tests are executed!");
+
+        // Print summary
+        System.out.println("===== Test Summary =====");
+        System.out.println("Pass:  " + passCount);
+        System.out.println("Fail:  " + failCount);
+        System.out.println("Total: " + (passCount + failCount));
+
+        // Exit with code 1 if any checks failed
+        if (failCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(String type, String operation, int n, String... operands) {
+        check(TestArithmeticFuzz.check(type, operation, n, operands), type + "." + operation);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("OK");
+            passCount++;
+        } else {
+            System.out.println(message);
+            failCount++;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                            TEST METHODS                                */
+    /* ---------------------------------------------------------------------- */
+
+    /**
+     * Types narrower than their 32-bit words wrapped at the words, e.g. uint8 at
+     * 2^32 and uint40 at 2^64.
+     */
+    private static void testSubWordWidths() {
+        check("uint8", "add", 0, "127", "129");
+        check("uint8", "subtract", 0, "0", "1");
+        check("uint8", "multiply", 0, "3", "86");
+        check("uint8", "pow", 6, "3");
+        check("uint8", "inc", 0, "255");
+        check("uint8", "dec", 0, "0");
+        check("uint8", "not", 0, "0");
+        check("uint8", "shiftLeft", 8, "1");
+        check("uint8", "shiftRight", -9, "1");
+        check("uint8", "setBit", 8, "0");
+        check("uint8", "flipBit", 8, "0");
+        check("uint24", "add", 0, "16734448", "65536");
+        check("uint24", "multiply", 0, "514290", "63");
+        check("uint24", "shiftLeft", 13, "2048");
+        check("uint40", "add", 0, "1099511626109", "1667");
+        check("uint40", "subtract", 0, "0", "1");
+        check("uint40", "multiply", 0, "33553409", "32769");
+        check("uint40", "pow", 128, "8589934593");
+        check("uint40", "inc", 0, "1099511627775");
+        check("uint40", "dec", 0, "0");
+        check("uint40", "not", 0, "0");
+        check("uint40", "shiftLeft", 37, "8");
+        check("uint40", "shiftRight", -20, "1048576");
+        check("uint40", "setBit", 40, "0");
+        check("uint40", "flipBit", 40, "0");
+    }
+
+    /**
+     * Squaring into an odd number of words past the width threw
+     * ArrayIndexOutOfBoundsException.
+     */
+    private static void testSquare() {
+        check("uint8", "pow", 2, "1");
+        check("uint24", "pow", 2, "1");
+        check("uint32", "pow", 32, "3");
+        check("uint32", "pow", 7, "511");
+        check("uint96", "pow", 2, "4294967296");
+        check("uint96", "pow", 4, "131071");
+        check("uint160", "pow", 2, "18446744073709551616");
+        check("uint160", "pow", 128, "3");
+    }
+
+    /**
+     * MAX_VALUE of the narrow types had all the bits of its words set, and values
+     * converted from a wider type kept its width.
+     */
+    private static void testConstants() {
+        check(uint8.MAX_VALUE.toBigInteger().equals(BigInteger.valueOf(255)),
+              "uint8.MAX_VALUE should be 255");
+        check(uint40.MAX_VALUE.toBigInteger().equals(BigInteger.ONE.shiftLeft(40).subtract(BigInteger.ONE)),
+              "uint40.MAX_VALUE should be 2^40 - 1");
+        check(uint256.MAX_VALUE.toBigInteger().equals(BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE)),
+              "uint256.MAX_VALUE should be 2^256 - 1");
+        check(new uint40(uint256.MAX_VALUE).equals(uint40.MAX_VALUE),
+              "uint40 of uint256.MAX_VALUE should be uint40.MAX_VALUE");
+        check(new uint8(new byte[] {1, 2}).toBigInteger().intValue() == 2,
+              "uint8 of bytes {1, 2} should be 2");
+    }
+}
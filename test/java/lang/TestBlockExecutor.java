@@ -0,0 +1,258 @@
+package java.lang;
+
+import java.lang.contract.ContractHost;
+import java.lang.contract.Gas;
+import java.lang.contract.MemoryHost;
+import java.lang.contract.Message;
+import java.lang.contract.Storage;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.rlp.RlpDecoder;
+import java.lang.rlp.RlpEncoder;
+import java.lang.rlp.RlpList;
+import java.lang.rlp.RlpString;
+import java.lang.rlp.RlpType;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.ContractCalls.TOKEN;
+import static java.lang.ContractCalls.balance;
+import static java.lang.ContractCalls.context;
+import static java.lang.ContractCalls.holder;
+import static java.lang.ContractCalls.input;
+import static java.lang.ContractCalls.setBalance;
+
+/**
+ * A self-contained test class for the parallel execution of blocks without using JUnit.
+ * It prints "OK" if a check passes, or prints the failure message if it fails.
+ * At the end, it summarizes pass/fail counts and exits with code 1 if any failed.
+ *
+ * Each block of MyToken transfers is run once with ContractHost.callBlock and once
+ * call by call, each against its own in-memory storage host seeded with the same
+ * balances; the writes, the results and the logs must be the same. Interleavings
+ * that force a transaction to run again are set up by holding the read of one key
+ * until another transaction has read a second one.
+ */
+public class TestBlockExecutor {
+
+    private static final int WORKERS = 4;
+
+    // Track how many checks pass/fail
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        ContractHost sequential = new ContractHost(1);
+        ContractHost parallel = new ContractHost(WORKERS);
+        Gas.setUnlimited(true);
+        try {
+            testKeyWrittenByEarlierIncarnation(sequential, parallel);
+            testFailedTransactionReexecuted(sequential, parallel);
+            testConflictingTransfers(sequential, parallel);
+        } finally {
+            sequential.shutdown();
+            parallel.shutdown();
+            Storage.setHost(null);
+            Gas.setUnlimited(false);
+        }
+
+        System.out.println("All tests are executed!");
+
+        // Print summary
+        System.out.println("===== Test Summary =====");
+        System.out.println("Pass:  " + passCount);
+        System.out.println("Fail:  " + failCount);
+        System.out.println("Total: " + (passCount + failCount));
+
+        // Exit with code 1 if any checks failed
+        if (failCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("OK");
+            passCount++;
+        } else {
+            System.out.println(message);
+            failCount++;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                               HELPERS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    /**
+     * Returns the packed call context of a transfer from one holder to another.
+     */
+    private static byte[] transfer(int from, int to, long amount) {
+        return context(from, input("transfer(address,uint256)", holder(to), amount));
+    }
+
+    /**
+     * Storage host seeded with balances. Reading the balance of a gated holder
+     * waits, for a while, until the balance of its opening holder has been read.
+     */
+    private static final class GatedHost extends MemoryHost {
+
+        private final Map<ByteBuffer, CountDownLatch> opens = new ConcurrentHashMap<>();
+        private final Map<ByteBuffer, CountDownLatch> waits = new ConcurrentHashMap<>();
+
+        GatedHost(long[] balances) {
+            for (int i = 0; i < balances.length; i++) {
+                if (balances[i] != 0) {
+                    setBalance(this, i, balances[i]);
+                }
+            }
+        }
+
+        GatedHost gate(int gatedHolder, int openingHolder) {
+            ByteBuffer opening = ByteBuffer.wrap(holder(openingHolder).toByteArray());
+            CountDownLatch latch = opens.get(opening);
+            if (latch == null) {
+                latch = new CountDownLatch(1);
+                opens.put(opening, latch);
+            }
+            waits.put(ByteBuffer.wrap(holder(gatedHolder).toByteArray()), latch);
+            return this;
+        }
+
+        @Override
+        public byte[] getMapping(byte[] slot, byte[] key) {
+            CountDownLatch opened = opens.get(ByteBuffer.wrap(key));
+            if (opened != null) {
+                opened.countDown();
+            }
+            CountDownLatch gate = waits.get(ByteBuffer.wrap(key));
+            if (gate != null) {
+                try {
+                    gate.await(2, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.getMapping(slot, key);
+        }
+    }
+
+    /**
+     * Returns the number of transactions of the last block of the host that ran
+     * more than once.
+     */
+    private static int reexecuted(ContractHost host) {
+        try {
+            Field blocks = ContractHost.class.getDeclaredField("blocks");
+            blocks.setAccessible(true);
+            Object executor = blocks.get(host);
+            Method count = executor.getClass().getDeclaredMethod("getReexecuted");
+            count.setAccessible(true);
+            return (Integer) count.invoke(executor);
+        } catch (Exception e) {
+            throw new IllegalStateException("cannot read the re-executed count", e);
+        }
+    }
+
+    /**
+     * Runs the transfers as a block on the block host and one by one on a fresh
+     * host with the same balances, and checks that they end the same.
+     *
+     * @return the number of transactions of the block that ran more than once.
+     */
+    private static int compare(String name, ContractHost sequential, ContractHost parallel,
+                               long[] balances, MemoryHost blockHost, byte[][] contexts) {
+        MemoryHost sequentialHost = new GatedHost(balances);
+        Storage.setHost(sequentialHost);
+        List<Message> messages = new ArrayList<>();
+        for (byte[] context : contexts) {
+            messages.add(sequential.call(TOKEN, context));
+        }
+
+        Storage.setHost(blockHost);
+        List<RlpType> block = new ArrayList<>();
+        for (byte[] context : contexts) {
+            block.add(new RlpList(RlpString.create(TOKEN.getBytes()), RlpString.create(context)));
+        }
+        byte[] output = parallel.callBlock(RlpEncoder.encode(new RlpList(block)));
+        List<RlpType> results = ((RlpList) RlpDecoder.decode(output).getValues().get(0)).getValues();
+        List<RlpType> logs = ((RlpList) RlpDecoder.decode(Message.getMessage().getLogs()).getValues().get(0)).getValues();
+
+        boolean sameResults = results.size() == contexts.length;
+        boolean sameLogs = logs.size() == contexts.length;
+        for (int i = 0; i < contexts.length && sameResults && sameLogs; i++) {
+            Message msg = messages.get(i);
+            List<RlpType> result = ((RlpList) results.get(i)).getValues();
+            boolean success = ((RlpString) result.get(0)).asPositiveBigInteger().signum() != 0;
+            byte[] out = msg.getOutput() != null ? msg.getOutput() : new byte[0];
+            sameResults = success == msg.getSuccess() && Arrays.equals(out, ((RlpString) result.get(1)).getBytes());
+
+            List<RlpType> log = ((RlpList) logs.get(i)).getValues();
+            byte[] events = msg.getLogs().length > 0 ? msg.getLogs() : RlpEncoder.encode(new RlpList());
+            sameLogs = Arrays.equals(msg.getLogsBloom(), ((RlpString) log.get(0)).getBytes())
+                && Arrays.equals(events, RlpEncoder.encode(log.get(1)));
+        }
+        check(sameResults, name + ": results differ from the sequential run");
+        check(sameLogs, name + ": logs differ from the sequential run");
+        check(blockHost.sameValues(sequentialHost), name + ": writes differ from the sequential run");
+        return reexecuted(parallel);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                                 TESTS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    /**
+     * The first two transfers spend the balance of holder 0, only the first can
+     * succeed. The second runs first and succeeds on the snapshot, writing the
+     * balance of holder 2; run again it fails. The third transfer, to holder 2, must
+     * not see that balance, nor may it be committed.
+     */
+    private static void testKeyWrittenByEarlierIncarnation(ContractHost sequential, ContractHost parallel) {
+        long[] balances = {100, 0, 0, 10};
+        GatedHost host = new GatedHost(balances).gate(1, 2).gate(3, 2);
+        int reexecuted = compare("earlier incarnation", sequential, parallel, balances, host,
+                                 new byte[][] {transfer(0, 1, 60), transfer(0, 2, 60), transfer(3, 2, 10)});
+        check(reexecuted >= 1, "earlier incarnation: the second transfer was not re-executed");
+        check(BigInteger.valueOf(10).equals(balance(host, 2)),
+              "balance written by the failed incarnation seen or committed");
+    }
+
+    /**
+     * The second transfer spends what the first one sends. It runs first, fails
+     * for lack of balance, and must succeed when run again.
+     */
+    private static void testFailedTransactionReexecuted(ContractHost sequential, ContractHost parallel) {
+        long[] balances = {50};
+        GatedHost host = new GatedHost(balances).gate(0, 1);
+        int reexecuted = compare("failed then re-executed", sequential, parallel, balances, host,
+                                 new byte[][] {transfer(0, 1, 50), transfer(1, 2, 30)});
+        check(reexecuted == 1, "failed then re-executed: expected 1 re-execution, got " + reexecuted);
+        check(BigInteger.valueOf(20).equals(balance(host, 1)),
+              "re-executed transfer not committed");
+    }
+
+    /**
+     * Transfers between a few holders, most of them from the same one, some of
+     * them for more than the sender holds.
+     */
+    private static void testConflictingTransfers(ContractHost sequential, ContractHost parallel) {
+        long[] balances = {1000, 200, 50, 0};
+        Random random = new Random(7);
+        byte[][] contexts = new byte[32][];
+        for (int i = 0; i < contexts.length; i++) {
+            int from = random.nextInt(3) == 0 ? 1 + random.nextInt(3) : 0;
+            int to = (from + 1 + random.nextInt(3)) % 4;
+            contexts[i] = transfer(from, to, 1 + random.nextInt(150));
+        }
+        compare("conflicting transfers", sequential, parallel, balances, new GatedHost(balances), contexts);
+    }
+}
@@ -16,6 +16,7 @@ public class TestBytesArray {
         testCompare();
         testStripLeadingZeroes();
         testBitwiseOps();
+        testLimbs();
         testSetClearFlipBit();
         testArithmeticAdd();
         testArithmeticSub();
@@ -109,6 +110,42 @@ public class TestBytesArray {
         // 1 ^ 2 => 3
         int[] xorRes = java.lang.types.BytesArray.xor(one, two);
         check(xorRes.length == 1 && xorRes[0] == 3, "1 ^ 2 => [3]");
+
+        // results equal to an operand are the operand itself
+        int[] flags = new int[] {0x80, 0x5};
+        int[] mask = new int[] {0xff, 0xffff};
+        check(java.lang.types.BytesArray.or(flags, new int[] {0x4}) == flags, "flag already set => same array");
+        check(java.lang.types.BytesArray.and(flags, mask) == flags, "value within mask => same array");
+        check(java.lang.types.BytesArray.and(new int[] {0x5}, mask) != mask, "mask not within value => new array");
+        check(java.lang.types.BytesArray.xor(flags, java.lang.types.BytesArray.ZERO) == flags, "x ^ 0 => same array");
+    }
+
+    private static void testLimbs() {
+        Random rnd = new Random(0xC0FFEE);
+        int[][] values = new int[8][];
+        long[] limbs = new long[values.length * java.lang.types.Limbs.LIMBS];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = java.lang.types.BytesArray.from(new BigInteger(i * 32 + rnd.nextInt(32), rnd), 8);
+            java.lang.types.Limbs.toLimbs(values[i], limbs, i * java.lang.types.Limbs.LIMBS);
+        }
+        for (int i = 0; i < values.length; i++) {
+            int[] back = java.lang.types.Limbs.fromLimbs(limbs, i * java.lang.types.Limbs.LIMBS);
+            check(java.util.Arrays.equals(back, values[i]), "limbs round trip mismatch at " + i);
+        }
+
+        long[] out = new long[limbs.length];
+        long[] max = new long[java.lang.types.Limbs.LIMBS];
+        java.lang.types.Limbs.toLimbs(java.lang.types.BytesArray.maxValue(2, 40), max, 0);
+        java.lang.types.Limbs.not(limbs, max, out);
+        BigInteger max40 = BigInteger.ONE.shiftLeft(40).subtract(BigInteger.ONE);
+        BigInteger low40 = convertToBigInt(values[1]).and(max40);
+        check(convertToBigInt(java.lang.types.Limbs.fromLimbs(out, 4)).equals(low40.xor(max40)),
+              "bulk not within 40 bits mismatch");
+
+        java.lang.types.Limbs.and(limbs, limbs, out);
+        check(java.util.Arrays.equals(out, limbs), "bulk x & x => x");
+        java.lang.types.Limbs.xor(limbs, limbs, out);
+        check(java.util.Arrays.equals(out, new long[limbs.length]), "bulk x ^ x => 0");
     }
 
     private static void testSetClearFlipBit() {
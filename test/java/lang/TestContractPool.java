@@ -0,0 +1,133 @@
+package java.lang;
+
+import java.lang.contract.ContractHost;
+import java.lang.contract.Gas;
+import java.lang.contract.MemoryHost;
+import java.lang.contract.Message;
+import java.lang.contract.Storage;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.lang.ContractCalls.amount;
+import static java.lang.ContractCalls.context;
+import static java.lang.ContractCalls.input;
+
+/**
+ * A self-contained test class for the pool of contract instances without using JUnit.
+ * It prints "OK" if a check passes, or prints the failure message if it fails.
+ * At the end, it summarizes pass/fail counts and exits with code 1 if any failed.
+ *
+ * The {@link poolProbe} contracts count their calls in fields that are not in
+ * storage, so each call of a fresh or reset instance counts one: the pool restores
+ * the elements of an array, and does not reuse an instance holding an object it
+ * cannot restore. Threads calling the same class at once each get an instance of
+ * their own.
+ */
+public class TestContractPool {
+
+    private static final String ARRAY = "java.lang.poolProbe";
+    private static final String VALUES = "java.lang.poolProbe$values";
+
+    // Track how many checks pass/fail
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        ContractHost contracts = new ContractHost(1);
+        Storage.setHost(new MemoryHost());
+        Gas.setUnlimited(true);
+        try {
+            testArrayRestored(contracts);
+            testUnrestorableNotReused(contracts);
+            testConcurrentCalls(contracts);
+        } finally {
+            contracts.shutdown();
+            Storage.setHost(null);
+            Gas.setUnlimited(false);
+        }
+
+        System.out.println("All tests are executed!");
+
+        // Print summary
+        System.out.println("===== Test Summary =====");
+        System.out.println("Pass:  " + passCount);
+        System.out.println("Fail:  " + failCount);
+        System.out.println("Total: " + (passCount + failCount));
+
+        // Exit with code 1 if any checks failed
+        if (failCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("OK");
+            passCount++;
+        } else {
+            System.out.println(message);
+            failCount++;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                               HELPERS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    /**
+     * Calls count() of a probe and returns the count, or -1 if the call failed.
+     */
+    private static long count(ContractHost contracts, String probe) {
+        Message msg = contracts.call(probe, context(0, input("count()")));
+        return msg.getSuccess() ? amount(msg.getOutput()).longValue() : -1;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                                 TESTS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static void testArrayRestored(ContractHost contracts) {
+        for (int i = 0; i < 3; i++) {
+            long count = count(contracts, ARRAY);
+            check(count == 1, "call " + i + " of a reused instance counted " + count + ", expected 1");
+        }
+    }
+
+    private static void testUnrestorableNotReused(ContractHost contracts) {
+        for (int i = 0; i < 3; i++) {
+            long count = count(contracts, VALUES);
+            check(count == 1, "call " + i + " counted " + count + " in a uint256Array, expected 1");
+        }
+    }
+
+    private static void testConcurrentCalls(final ContractHost contracts) {
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> counts = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                counts.add(threads.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() {
+                        return count(contracts, ARRAY);
+                    }
+                }));
+            }
+            int wrong = 0;
+            for (Future<Long> count : counts) {
+                if (count.get() != 1) {
+                    wrong++;
+                }
+            }
+            check(wrong == 0, wrong + " of 400 concurrent calls shared an instance or failed");
+        } catch (Exception e) {
+            check(false, "concurrent calls failed: " + e);
+        } finally {
+            threads.shutdown();
+        }
+    }
+}
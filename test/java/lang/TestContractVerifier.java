@@ -0,0 +1,385 @@
+package java.lang;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.ElementType;
+import java.lang.bytecode.ClassFile;
+import java.lang.contract.ExecutionContext;
+import java.lang.contract.Trace;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A self-contained test class for ContractVerifier without using JUnit.
+ * It prints "OK" if a check passes, or prints the failure message if it fails.
+ * At the end, it summarizes pass/fail counts and exits with code 1 if any failed.
+ *
+ * The verifier only checks classes outside the java packages, so each probe below
+ * is loaded again as {@code probe.VerifierProbe*}, its class file renamed, and
+ * handed to the verifier the way the contract loader would.
+ */
+public class TestContractVerifier {
+
+    // Track how many checks pass/fail
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        testRejected();
+        testAllowed();
+        testSandboxDefault();
+
+        System.out.println("All tests are executed!");
+
+        // Print summary
+        System.out.println("===== Test Summary =====");
+        System.out.println("Pass:  " + passCount);
+        System.out.println("Fail:  " + failCount);
+        System.out.println("Total: " + (passCount + failCount));
+
+        // Exit with code 1 if any checks failed
+        if (failCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("OK");
+            passCount++;
+        } else {
+            System.out.println(message);
+            failCount++;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                               HELPERS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static final ProbeLoader loader = new ProbeLoader();
+
+    /**
+     * Returns the result of the verifier for a probe: null if it may run,
+     * otherwise why it may not.
+     */
+    private static String verify(Class<?> probe) {
+        try {
+            Method verify = Class.forName("java.lang.contract.ContractVerifier").getDeclaredMethod("verify", Class.class);
+            verify.setAccessible(true);
+            return (String) verify.invoke(null, loader.load(probe));
+        } catch (Exception e) {
+            throw new IllegalStateException("cannot verify " + probe.getName(), e);
+        }
+    }
+
+    /**
+     * Loads the probes under the package {@code probe}, renamed in their constant
+     * pool, and serves their class files as resources.
+     */
+    private static final class ProbeLoader extends ClassLoader {
+
+        private final Map<String, byte[]> classes = new HashMap<>();
+
+        ProbeLoader() {
+            super(ClassLoader.getSystemClassLoader());
+        }
+
+        Class<?> load(Class<?> probe) throws ClassNotFoundException {
+            return loadClass("probe." + probe.getSimpleName());
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = bytes(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String resource) {
+            byte[] bytes = resource.endsWith(".class")
+                ? bytes(resource.substring(0, resource.length() - 6).replace('/', '.'))
+                : null;
+            return bytes != null ? new ByteArrayInputStream(bytes) : super.getResourceAsStream(resource);
+        }
+
+        private synchronized byte[] bytes(String name) {
+            byte[] bytes = classes.get(name);
+            if (bytes == null && name.startsWith("probe.VerifierProbe")) {
+                try {
+                    bytes = rename(ClassFile.bytesOf(Class.forName("java.lang." + name.substring("probe.".length()))));
+                } catch (ClassNotFoundException | IOException e) {
+                    return null;
+                }
+                classes.put(name, bytes);
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Moves the probe classes of a class file from java/lang to probe.
+     */
+    private static byte[] rename(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(in.readInt());
+        out.writeInt(in.readInt()); // minor, major
+        int count = in.readUnsignedShort();
+        out.writeShort(count);
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            out.writeByte(tag);
+            switch (tag) {
+                case ClassFile.CONSTANT_UTF8:
+                    out.writeUTF(in.readUTF().replace("java/lang/VerifierProbe", "probe/VerifierProbe"));
+                    break;
+                case ClassFile.CONSTANT_LONG:
+                case ClassFile.CONSTANT_DOUBLE:
+                    copy(in, out, 8);
+                    i++; // takes two entries
+                    break;
+                case ClassFile.CONSTANT_METHOD_HANDLE:
+                    copy(in, out, 3);
+                    break;
+                case ClassFile.CONSTANT_CLASS:
+                case ClassFile.CONSTANT_STRING:
+                case ClassFile.CONSTANT_METHOD_TYPE:
+                case ClassFile.CONSTANT_MODULE:
+                case ClassFile.CONSTANT_PACKAGE:
+                    copy(in, out, 2);
+                    break;
+                default:
+                    copy(in, out, 4);
+                    break;
+            }
+        }
+        copy(in, out, in.available());
+        return buffer.toByteArray();
+    }
+
+    private static void copy(DataInputStream in, DataOutputStream out, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        out.write(bytes);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                                 TESTS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static void testRejected() {
+        Class<?>[] probes = {
+            VerifierProbeFormatter.class, VerifierProbeDate.class, VerifierProbeObjectsHashCode.class,
+            VerifierProbeAppendObject.class, VerifierProbeValueOf.class, VerifierProbeConcat.class,
+            VerifierProbeHashSet.class, VerifierProbeShuffle.class, VerifierProbeTrace.class,
+            VerifierProbeExecutionContext.class, VerifierProbeIdentityHashCode.class,
+            VerifierProbeInheritedToString.class, VerifierProbeEnumHashCode.class,
+            VerifierProbeInterfaceHashCode.class, VerifierProbeParallelSort.class,
+            VerifierProbeParallelSetAll.class, VerifierProbeParallelPrefix.class, VerifierProbeGetInteger.class,
+            VerifierProbeGetLong.class, VerifierProbeGetBoolean.class, VerifierProbePrintStackTrace.class,
+            VerifierProbeOwnPrintStackTrace.class
+        };
+        for (Class<?> probe : probes) {
+            String result = verify(probe);
+            check(result != null, probe.getSimpleName() + " should be rejected");
+        }
+    }
+
+    private static void testAllowed() {
+        String result = verify(VerifierProbeAllowed.class);
+        check(result == null, "VerifierProbeAllowed should pass, got " + result);
+    }
+
+    private static void testSandboxDefault() {
+        try {
+            Method isRequired = Class.forName("java.lang.contract.Sandbox").getDeclaredMethod("isRequired", Class.class);
+            isRequired.setAccessible(true);
+            Class<?> verified = loader.load(VerifierProbeAllowed.class);
+            check(verify(VerifierProbeAllowed.class) == null, "VerifierProbeAllowed should pass");
+            check((Boolean) isRequired.invoke(null, verified),
+                  "verified classes should run under the security manager by default");
+        } catch (Exception e) {
+            check(false, "cannot check the sandbox: " + e);
+        }
+    }
+}
+
+/* -------------------------------------------------------------------------- */
+/*            PROBES, top-level so that they are loaded on their own          */
+/* -------------------------------------------------------------------------- */
+
+class VerifierProbeFormatter {
+    public void run() throws Exception {
+        new Formatter("verifier-probe.txt").close();
+    }
+}
+
+class VerifierProbeDate {
+    public long run() {
+        return new Date().getTime();
+    }
+}
+
+class VerifierProbeObjectsHashCode {
+    public int run(Object value) {
+        return Objects.hashCode(value);
+    }
+}
+
+class VerifierProbeAppendObject {
+    public String run(Object value) {
+        return new StringBuilder().append(value).toString();
+    }
+}
+
+class VerifierProbeValueOf {
+    public String run(Object value) {
+        return String.valueOf(value);
+    }
+}
+
+class VerifierProbeConcat {
+    public String run(Object value) {
+        return "value " + value;
+    }
+}
+
+class VerifierProbeHashSet {
+    public int run(uint256 value) {
+        Set<uint256> values = new HashSet<>();
+        values.add(value);
+        return values.size();
+    }
+}
+
+class VerifierProbeShuffle {
+    public void run(List<uint256> values) {
+        Collections.shuffle(values);
+    }
+}
+
+class VerifierProbeTrace {
+    public void run() {
+        Trace.record(Trace.EVENTS, Trace.INFO, "probe", 0);
+    }
+}
+
+class VerifierProbeExecutionContext {
+    public Object run() {
+        return ExecutionContext.current();
+    }
+}
+
+class VerifierProbeIdentityHashCode {
+    public int run() {
+        return hashCode();
+    }
+}
+
+class VerifierProbeInheritedToString extends VerifierProbeAllowed {
+    public String name() {
+        return toString();
+    }
+}
+
+class VerifierProbeEnumHashCode {
+    public int run() {
+        return ElementType.TYPE.hashCode();
+    }
+}
+
+class VerifierProbeInterfaceHashCode {
+    public int run(Comparable<uint256> value) {
+        return value.hashCode();
+    }
+}
+
+class VerifierProbeParallelSort {
+    public void run(uint256[] values) {
+        Arrays.parallelSort(values, (a, b) -> a.compareTo(b));
+    }
+}
+
+class VerifierProbeParallelSetAll {
+    public void run(long[] values) {
+        Arrays.parallelSetAll(values, i -> i);
+    }
+}
+
+class VerifierProbeParallelPrefix {
+    public void run(long[] values) {
+        Arrays.parallelPrefix(values, Long::sum);
+    }
+}
+
+class VerifierProbeGetInteger {
+    public int run() {
+        return Integer.getInteger("verifier.probe", 0);
+    }
+}
+
+class VerifierProbeGetLong {
+    public long run() {
+        return Long.getLong("verifier.probe", 0L);
+    }
+}
+
+class VerifierProbeGetBoolean {
+    public boolean run() {
+        return Boolean.getBoolean("verifier.probe");
+    }
+}
+
+class VerifierProbePrintStackTrace {
+    public void run() {
+        new IllegalStateException("probe").printStackTrace();
+    }
+}
+
+class VerifierProbeFailure extends RuntimeException {
+}
+
+class VerifierProbeOwnPrintStackTrace {
+    public void run() {
+        new VerifierProbeFailure().printStackTrace();
+    }
+}
+
+class VerifierProbeAllowed {
+    public String run(uint256 value) {
+        List<uint256> values = new ArrayList<>();
+        values.add(value);
+        Map<uint256, uint256> sorted = new TreeMap<>();
+        sorted.put(value, value);
+        Map<String, uint256> ordered = new LinkedHashMap<>();
+        ordered.put(value.toString(), value);
+        StringBuilder out = new StringBuilder().append("values ").append(values.size());
+        if (Objects.equals(sorted.get(value), ordered.get(value.toString()))) {
+            out.append(' ').append(value.toString());
+        }
+        long[] sortedValues = {3, 1, 2};
+        Arrays.sort(sortedValues);
+        return out.toString() + " " + value.hashCode() + " " + sortedValues[0];
+    }
+}
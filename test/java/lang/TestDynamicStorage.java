@@ -0,0 +1,200 @@
+package java.lang;
+
+import java.lang.contract.MemoryHost;
+import java.lang.contract.Storage;
+import java.util.Arrays;
+
+/**
+ * A self-contained test class for the chunked storage of string and dynamicBytes
+ * without using JUnit.
+ * It prints "OK" if a check passes, or prints the failure message if it fails.
+ * At the end, it summarizes pass/fail counts and exits with code 1 if any failed.
+ *
+ * A value is saved, replaced by a shorter one and saved again, then read back by
+ * a fresh instance from an in-memory storage host. The chunks of the longer value
+ * past the end of the shorter one must be cleared. Dynamic arrays go through the
+ * same host, their length in the header slot and one value per slot. A value
+ * keeps its bytes when the arrays it was given or handed out are changed.
+ */
+public class TestDynamicStorage {
+
+    private static final int SLOT = 5;
+
+    // Track how many checks pass/fail
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        testStringShrinks();
+        testBytesShrinks();
+        testStringEmptied();
+        testDynamicArray();
+        testValuesCopied();
+
+        System.out.println("All tests are executed!");
+
+        // Print summary
+        System.out.println("===== Test Summary =====");
+        System.out.println("Pass:  " + passCount);
+        System.out.println("Fail:  " + failCount);
+        System.out.println("Total: " + (passCount + failCount));
+
+        // Exit with code 1 if any checks failed
+        if (failCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("OK");
+            passCount++;
+        } else {
+            System.out.println(message);
+            failCount++;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                               HELPERS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] out = new byte[length];
+        for (int i = 0; i < length; i++) {
+            out[i] = (byte) (seed + i * 31);
+        }
+        return out;
+    }
+
+    /**
+     * Returns true if the chunks of the value at SLOT from index {@code from} on,
+     * up to {@code to}, are absent or zero.
+     */
+    private static boolean cleared(MemoryHost host, int from, int to) {
+        int dataSlot = Storage.getStorage().ComputeDynamicDataSlot(SLOT);
+        for (int i = from; i < to; i++) {
+            byte[] chunk = host.getFixed(dataSlot + i);
+            for (byte b : chunk) {
+                if (b != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                                 TESTS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static void testStringShrinks() {
+        MemoryHost host = new MemoryHost();
+        Storage.setHost(host);
+        try {
+            String longValue = new String(new char[100]).replace('\0', 'x');
+            string s = new string((String) null);
+            s.setSlot(SLOT);
+            s.load();
+            s.fromByteArray(longValue.getBytes());
+            s.save();
+            s.fromByteArray("short".getBytes());
+            s.save();
+
+            string reloaded = new string((String) null);
+            reloaded.setSlot(SLOT);
+            reloaded.load();
+            check("short".equals(reloaded.get()), "string read back mismatch: " + reloaded.get());
+            check(cleared(host, 1, 4), "stale chunks of the longer string left in storage");
+        } finally {
+            Storage.setHost(null);
+        }
+    }
+
+    private static void testBytesShrinks() {
+        MemoryHost host = new MemoryHost();
+        Storage.setHost(host);
+        try {
+            dynamicBytes b = new dynamicBytes();
+            b.setSlot(SLOT);
+            b.load();
+            b.fromByteArray(bytes(130, 1));
+            b.save();
+            b.fromByteArray(bytes(40, 2));
+            b.save();
+            b.fromByteArray(bytes(10, 3));
+            b.save();
+
+            dynamicBytes reloaded = new dynamicBytes();
+            reloaded.setSlot(SLOT);
+            reloaded.load();
+            check(Arrays.equals(bytes(10, 3), reloaded.toByteArray()), "dynamicBytes read back mismatch");
+            check(cleared(host, 1, 5), "stale chunks of the longer values left in storage");
+        } finally {
+            Storage.setHost(null);
+        }
+    }
+
+    private static void testStringEmptied() {
+        MemoryHost host = new MemoryHost();
+        Storage.setHost(host);
+        try {
+            string s = new string((String) null);
+            s.setSlot(SLOT);
+            s.load();
+            s.fromByteArray(bytes(70, 4));
+            s.save();
+            s.fromByteArray(new byte[0]);
+            s.save();
+
+            string reloaded = new string((String) null);
+            reloaded.setSlot(SLOT);
+            reloaded.load();
+            check(reloaded.length() == 0, "emptied string has length " + reloaded.length());
+            check(cleared(host, 0, 3), "chunks of the emptied string left in storage");
+        } finally {
+            Storage.setHost(null);
+        }
+    }
+
+    private static void testDynamicArray() {
+        MemoryHost host = new MemoryHost();
+        Storage.setHost(host);
+        try {
+            byte[][] values = {bytes(3, 5), bytes(32, 6), new byte[0]};
+            Storage.getStorage().setDynamicArray(SLOT, values);
+            check(Storage.getStorage().GetStorageDynamicLength(SLOT) == 3, "array length header mismatch");
+            int dataSlot = Storage.getStorage().ComputeDynamicDataSlot(SLOT);
+            check(Arrays.equals(bytes(32, 6), host.getFixed(dataSlot + 1)), "array value not written to the host");
+
+            byte[][] read = Storage.getStorage().getDynamicArray(SLOT);
+            check(read.length == 3 && Arrays.equals(values[0], read[0]) && Arrays.equals(values[1], read[1])
+                  && read[2].length == 0, "dynamic array read back mismatch");
+            check(Storage.getStorage().getDynamicArray(SLOT + 1).length == 0, "unset array should be empty");
+        } finally {
+            Storage.setHost(null);
+        }
+    }
+
+    private static void testValuesCopied() {
+        byte[] in = bytes(40, 7);
+        dynamicBytes b = dynamicBytes.valueOf(in);
+        string s = string.valueOf(in);
+        in[0]++;
+        check(Arrays.equals(bytes(40, 7), b.toByteArray()) && Arrays.equals(bytes(40, 7), s.toByteArray()),
+              "value changed with the array it was made from");
+
+        b.fromByteArray(in);
+        s.fromByteArray(in);
+        in[1]++;
+        byte[] set = bytes(40, 7);
+        set[0]++;
+        check(Arrays.equals(set, b.toByteArray()) && Arrays.equals(set, s.toByteArray()),
+              "value changed with the array it was set from");
+
+        b.toByteArray()[2]++;
+        s.toByteArray()[2]++;
+        check(Arrays.equals(set, b.toByteArray()) && Arrays.equals(set, s.toByteArray()),
+              "value changed with the array it handed out");
+    }
+}
@@ -0,0 +1,123 @@
+package java.lang;
+
+import java.crypto.Keccak256;
+import java.lang.contract.ContractHost;
+import java.lang.contract.Gas;
+import java.lang.contract.MemoryHost;
+import java.lang.contract.Message;
+import java.lang.contract.Storage;
+import java.lang.rlp.RlpDecoder;
+import java.lang.rlp.RlpList;
+import java.lang.rlp.RlpString;
+import java.lang.rlp.RlpType;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.ContractCalls.context;
+import static java.lang.ContractCalls.input;
+import static java.lang.ContractCalls.multicall;
+
+/**
+ * A self-contained test class for the log of emitted events without using JUnit.
+ * It prints "OK" if a check passes, or prints the failure message if it fails.
+ * At the end, it summarizes pass/fail counts and exits with code 1 if any failed.
+ *
+ * The log holds the values the fields of an event had when it was emitted: the
+ * {@link eventProbe} contract changes an event after emitting it, emits it again,
+ * and, in a multicall, emits an event referring to one of its storage fields before
+ * a later call fails and the field is reloaded from storage.
+ */
+public class TestEventLog {
+
+    private static final String PROBE = "java.lang.eventProbe";
+
+    // Track how many checks pass/fail
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        ContractHost contracts = new ContractHost(1);
+        Storage.setHost(new MemoryHost());
+        Gas.setUnlimited(true);
+        try {
+            testChangedAfterEmit(contracts);
+            testReloadedAfterEmit(contracts);
+        } finally {
+            contracts.shutdown();
+            Storage.setHost(null);
+            Gas.setUnlimited(false);
+        }
+
+        System.out.println("All tests are executed!");
+
+        // Print summary
+        System.out.println("===== Test Summary =====");
+        System.out.println("Pass:  " + passCount);
+        System.out.println("Fail:  " + failCount);
+        System.out.println("Total: " + (passCount + failCount));
+
+        // Exit with code 1 if any checks failed
+        if (failCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("OK");
+            passCount++;
+        } else {
+            System.out.println(message);
+            failCount++;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                               HELPERS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    /**
+     * Returns the [topics, data] list of each event of the log of a call.
+     */
+    private static List<RlpType> events(Message msg) {
+        return ((RlpList) RlpDecoder.decode(msg.getLogs()).getValues().get(0)).getValues();
+    }
+
+    /**
+     * Returns true if an event is a noted event with the given note and amount.
+     */
+    private static boolean noted(RlpType event, byte[] note, long amount) {
+        List<RlpType> topics = ((RlpList) ((RlpList) event).getValues().get(0)).getValues();
+        List<RlpType> data = ((RlpList) ((RlpList) event).getValues().get(1)).getValues();
+        byte[] noteTopic = Keccak256.getKeccak256().keccak256(note);
+        return topics.size() == 2 && data.size() == 1
+            && Arrays.equals(noteTopic, ((RlpString) topics.get(1)).getBytes())
+            && BigInteger.valueOf(amount).equals(new BigInteger(1, ((RlpString) data.get(0)).getBytes()));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                                 TESTS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static void testChangedAfterEmit(ContractHost contracts) {
+        Message msg = contracts.call(PROBE, context(0, input("emitChanged()")));
+        check(msg.getSuccess(), "emitChanged failed");
+        List<RlpType> events = events(msg);
+        check(events.size() == 2, "expected 2 events, got " + events.size());
+        if (events.size() == 2) {
+            check(noted(events.get(0), new byte[] {1}, 1), "first event changed after it was emitted");
+            check(noted(events.get(1), new byte[] {2}, 2), "event emitted again changed after it was emitted");
+        }
+    }
+
+    private static void testReloadedAfterEmit(ContractHost contracts) {
+        Message msg = contracts.call(PROBE, context(0, multicall(input("noteUnsaved()"), input("fail()"))));
+        check(msg.getSuccess(), "multicall failed");
+        List<RlpType> events = events(msg);
+        check(events.size() == 1, "expected the event of the first call, got " + events.size());
+        if (events.size() == 1) {
+            check(noted(events.get(0), new byte[] {7}, 7), "event changed by the reload after the failed call");
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package java.lang;
+
+import java.lang.contract.Contract;
+import java.lang.reflect.Method;
+import java.util.Set;
+
+/**
+ * A self-contained test class for FieldReads without using JUnit.
+ * It prints "OK" if a check passes, or prints the failure message if it fails.
+ * At the end, it summarizes pass/fail counts and exits with code 1 if any failed.
+ *
+ * Each method of the probe contract below reads one of its fields, directly or
+ * through a call that lands on the contract seen as one of its interfaces or as an
+ * Object; the fields found for it must include that field. A call that runs an
+ * Object method the contract does not override makes the fields unknown (null).
+ */
+public class TestFieldReads {
+
+    // Track how many checks pass/fail
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        testDirectRead();
+        testInterfaceCall();
+        testOverriddenObjectMethod();
+        testInheritedObjectMethod();
+
+        System.out.println("All tests are executed!");
+
+        // Print summary
+        System.out.println("===== Test Summary =====");
+        System.out.println("Pass:  " + passCount);
+        System.out.println("Fail:  " + failCount);
+        System.out.println("Total: " + (passCount + failCount));
+
+        // Exit with code 1 if any checks failed
+        if (failCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("OK");
+            passCount++;
+        } else {
+            System.out.println(message);
+            failCount++;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                               HELPERS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    /**
+     * Returns the fields FieldReads finds for a method of the probe.
+     */
+    @SuppressWarnings("unchecked")
+    private static Set<String> reads(String name) {
+        try {
+            Method of = Class.forName("java.lang.contract.FieldReads")
+                .getDeclaredMethod("of", Class.class, Method.class);
+            of.setAccessible(true);
+            return (Set<String>) of.invoke(null, FieldReadsProbe.class, FieldReadsProbe.class.getMethod(name));
+        } catch (Exception e) {
+            throw new IllegalStateException("cannot find the reads of " + name, e);
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                                 TESTS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static void testDirectRead() {
+        Set<String> reads = reads("stored");
+        check(reads != null && reads.contains("stored") && !reads.contains("label"),
+              "stored() should read only stored, found " + reads);
+    }
+
+    private static void testInterfaceCall() {
+        Set<String> reads = reads("viaInterface");
+        check(reads != null && reads.contains("stored"),
+              "call through an interface of the contract not followed, found " + reads);
+    }
+
+    private static void testOverriddenObjectMethod() {
+        Set<String> reads = reads("viaToString");
+        check(reads != null && reads.contains("label"),
+              "call of an overridden Object method not followed, found " + reads);
+    }
+
+    private static void testInheritedObjectMethod() {
+        check(reads("viaHashCode") == null, "call of an inherited Object method should make the reads unknown");
+    }
+}
+
+/* -------------------------------------------------------------------------- */
+/*                                  PROBES                                    */
+/* -------------------------------------------------------------------------- */
+
+interface FieldReadsProbeBalance {
+    uint256 stored();
+}
+
+class FieldReadsProbe extends Contract implements FieldReadsProbeBalance {
+
+    private uint256 stored = new uint256(1);
+    private string label = string.valueOf("probe");
+
+    public uint256 stored() {
+        return stored;
+    }
+
+    public uint256 viaInterface() {
+        FieldReadsProbeBalance self = this;
+        return self.stored();
+    }
+
+    public String viaToString() {
+        Object self = this;
+        return self.toString();
+    }
+
+    public int viaHashCode() {
+        Object self = this;
+        return self.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return label.toString();
+    }
+}
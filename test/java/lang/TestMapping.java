@@ -0,0 +1,141 @@
+package java.lang;
+
+import java.lang.contract.MemoryHost;
+import java.lang.contract.Storage;
+import java.lang.rlp.RlpDecoder;
+import java.lang.rlp.RlpEncoder;
+import java.lang.rlp.RlpString;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static java.lang.ContractCalls.holder;
+import static java.lang.ContractCalls.slot;
+
+/**
+ * A self-contained test class for mapping.java without using JUnit.
+ * It prints "OK" if a check passes, or prints the failure message if it fails.
+ * At the end, it summarizes pass/fail counts and exits with code 1 if any failed.
+ *
+ * Values are read back from an in-memory storage host after the cache of the
+ * mapping is dropped, so they go through the stored bytes.
+ */
+public class TestMapping {
+
+    // Track how many checks pass/fail
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        testGetDecodesValues();
+        testNestedSlots();
+        testNestedSetRejected();
+        testBoolEncoding();
+
+        System.out.println("All tests are executed!");
+
+        // Print summary
+        System.out.println("===== Test Summary =====");
+        System.out.println("Pass:  " + passCount);
+        System.out.println("Fail:  " + failCount);
+        System.out.println("Total: " + (passCount + failCount));
+
+        // Exit with code 1 if any checks failed
+        if (failCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("OK");
+            passCount++;
+        } else {
+            System.out.println(message);
+            failCount++;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                                 TESTS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static void testGetDecodesValues() {
+        MemoryHost host = new MemoryHost();
+        Storage.setHost(host);
+        try {
+            mapping<address, uint256> balances = mapping.of(address.class, uint256.class);
+            balances.setSlot(2);
+            uint256 value = new uint256(BigInteger.ONE.shiftLeft(200).add(BigInteger.valueOf(7)));
+            balances.set(value, holder(1));
+            check(Arrays.equals(value.toByteArray(), host.getMapping(slot(2), holder(1).toByteArray())),
+                  "stored bytes of uint256 mismatch");
+            balances.clearCache();
+            check(value.equals(balances.get(holder(1))), "uint256 read back mismatch");
+            check(balances.get(holder(2)).isZero(), "absent uint256 should be zero");
+
+            mapping<address, address> owners = mapping.of(address.class, address.class);
+            owners.setSlot(3);
+            owners.set(holder(9), holder(1));
+            owners.clearCache();
+            check(holder(9).equals(owners.get(holder(1))), "address read back mismatch");
+        } finally {
+            Storage.setHost(null);
+        }
+    }
+
+    private static void testNestedSlots() {
+        MemoryHost host = new MemoryHost();
+        Storage.setHost(host);
+        try {
+            mapping<address, mapping<address, uint256>> allowances = mapping.ofNested(address.class, uint256.class);
+            allowances.setSlot(1);
+            allowances.get(holder(1)).set(new uint256(100), holder(2));
+            allowances.get(holder(3)).set(new uint256(300), holder(2));
+
+            // Solidity's slot of allowances[owner]: keccak256(owner . slot)
+            byte[] ownerSlot = host.computeNestedSlot(slot(1), holder(1).toByteArray());
+            check(Arrays.equals(new uint256(100).toByteArray(), host.getMapping(ownerSlot, holder(2).toByteArray())),
+                  "nested entry not stored under the derived slot");
+
+            allowances.clearCache();
+            check(new uint256(100).equals(allowances.get(holder(1)).get(holder(2))), "nested read back mismatch");
+            check(new uint256(300).equals(allowances.get(holder(3)).get(holder(2))), "owners share a slot");
+            check(allowances.get(holder(2)).get(holder(1)).isZero(), "absent nested entry should be zero");
+        } finally {
+            Storage.setHost(null);
+        }
+    }
+
+    private static void testNestedSetRejected() {
+        Storage.setHost(new MemoryHost());
+        try {
+            mapping<address, mapping<address, uint256>> allowances = mapping.ofNested(address.class, uint256.class);
+            allowances.setSlot(1);
+            mapping<address, uint256> entries = mapping.of(address.class, uint256.class);
+            try {
+                allowances.set(entries, holder(1));
+                check(false, "set of a nested mapping should throw");
+            } catch (UnsupportedOperationException e) {
+                check(true, "");
+            }
+        } finally {
+            Storage.setHost(null);
+        }
+    }
+
+    private static void testBoolEncoding() {
+        byte[] one = RlpEncoder.encode(RlpString.create(1));
+        byte[] zero = RlpEncoder.encode(RlpString.create(0));
+        check(Arrays.equals(one, ABI.encode(bool.valueOf(true))), "encode(bool true) mismatch");
+        check(Arrays.equals(zero, ABI.encode(bool.valueOf(false))), "encode(bool false) mismatch");
+        check(Arrays.equals(one, ABI.encode(Boolean.TRUE)), "encode(Boolean.TRUE) mismatch");
+        try {
+            for (boolean value : new boolean[] {true, false}) {
+                RlpString encoded = (RlpString) RlpDecoder.decode(ABI.encode(bool.valueOf(value))).getValues().get(0);
+                check(((bool) ABI.decode(encoded, bool.class)).getValue() == value, "bool " + value + " round trip mismatch");
+            }
+        } catch (Exception e) {
+            check(false, "bool decode failed: " + e);
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package java.lang;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.bytecode.ClassFile;
+import java.lang.bytecode.Metering;
+import java.lang.contract.ContractHost;
+import java.lang.contract.Gas;
+import java.lang.contract.MemoryHost;
+import java.lang.contract.Message;
+import java.lang.contract.Storage;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static java.lang.ContractCalls.TOKEN;
+import static java.lang.ContractCalls.context;
+import static java.lang.ContractCalls.holder;
+import static java.lang.ContractCalls.input;
+import static java.lang.ContractCalls.setBalance;
+
+/**
+ * A self-contained test class for gas metering without using JUnit.
+ * It prints "OK" if a check passes, or prints the failure message if it fails.
+ * At the end, it summarizes pass/fail counts and exits with code 1 if any failed.
+ *
+ * Contract code outside the java packages is metered, so each probe below is loaded
+ * again as {@code probe.MeteringProbe*}, its class file renamed and instrumented
+ * against {@link Meter}, and run with a budget: a loop and a chain of calls must stop
+ * at their next check once the budget is used up. MyToken itself runs unmetered, but
+ * its storage accesses charge their fixed costs against the gas of the message, and
+ * the bulk operations of uint256Array charge per value of the array.
+ */
+public class TestMetering {
+
+    // Track how many checks pass/fail
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        testLoopStopped();
+        testCallStopped();
+        testRecursionStopped();
+        testUnlimited();
+        testStorageOutOfGas();
+        testArrayOperationsCharged();
+
+        System.out.println("All tests are executed!");
+
+        // Print summary
+        System.out.println("===== Test Summary =====");
+        System.out.println("Pass:  " + passCount);
+        System.out.println("Fail:  " + failCount);
+        System.out.println("Total: " + (passCount + failCount));
+
+        // Exit with code 1 if any checks failed
+        if (failCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("OK");
+            passCount++;
+        } else {
+            System.out.println(message);
+            failCount++;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                               HELPERS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    /**
+     * Meter the probes are instrumented against: counts the gas charged and stops
+     * the probe at a check once the budget is exceeded.
+     */
+    public static final class Meter {
+
+        static long used;
+        static long limit;
+
+        public static void charge(int amount) {
+            used += amount;
+        }
+
+        public static void check() {
+            if (used > limit) {
+                throw new OutOfGas();
+            }
+        }
+
+        static void begin(long budget) {
+            used = 0;
+            limit = budget;
+        }
+    }
+
+    static final class OutOfGas extends RuntimeException {
+        OutOfGas() {
+            super("out of gas", null, false, false);
+        }
+    }
+
+    private static final ProbeLoader loader = new ProbeLoader();
+
+    /**
+     * Runs the static method {@code run(int)} of a probe with a budget.
+     *
+     * @return The result of the probe, or null if it ran out of gas.
+     */
+    private static Object run(Class<?> probe, long budget, int argument) {
+        try {
+            Method run = loader.loadClass("probe." + probe.getSimpleName()).getMethod("run", int.class);
+            run.setAccessible(true);
+            Meter.begin(budget);
+            return run.invoke(null, argument);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof OutOfGas) {
+                return null;
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("probe " + probe.getSimpleName() + " failed", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot run " + probe.getSimpleName(), e);
+        }
+    }
+
+    private static int reached(Class<?> probe) {
+        try {
+            Field reached = loader.loadClass("probe." + probe.getSimpleName()).getField("reached");
+            reached.setAccessible(true);
+            return reached.getInt(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot read " + probe.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Loads the probes under the package {@code probe}, renamed in their constant
+     * pool and instrumented against {@link Meter}.
+     */
+    private static final class ProbeLoader extends ClassLoader {
+
+        ProbeLoader() {
+            super(ClassLoader.getSystemClassLoader());
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (!name.startsWith("probe.MeteringProbe")) {
+                throw new ClassNotFoundException(name);
+            }
+            byte[] bytes;
+            try {
+                bytes = rename(ClassFile.bytesOf(Class.forName("java.lang." + name.substring("probe.".length()))));
+                bytes = Metering.instrument(bytes, "java/lang/TestMetering$Meter");
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Moves the probe classes of a class file from java/lang to probe.
+     */
+    private static byte[] rename(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(in.readInt());
+        out.writeInt(in.readInt()); // minor, major
+        int count = in.readUnsignedShort();
+        out.writeShort(count);
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            out.writeByte(tag);
+            switch (tag) {
+                case ClassFile.CONSTANT_UTF8:
+                    out.writeUTF(in.readUTF().replace("java/lang/MeteringProbe", "probe/MeteringProbe"));
+                    break;
+                case ClassFile.CONSTANT_LONG:
+                case ClassFile.CONSTANT_DOUBLE:
+                    copy(in, out, 8);
+                    i++; // takes two entries
+                    break;
+                case ClassFile.CONSTANT_METHOD_HANDLE:
+                    copy(in, out, 3);
+                    break;
+                case ClassFile.CONSTANT_CLASS:
+                case ClassFile.CONSTANT_STRING:
+                case ClassFile.CONSTANT_METHOD_TYPE:
+                case ClassFile.CONSTANT_MODULE:
+                case ClassFile.CONSTANT_PACKAGE:
+                    copy(in, out, 2);
+                    break;
+                default:
+                    copy(in, out, 4);
+                    break;
+            }
+        }
+        copy(in, out, in.available());
+        return buffer.toByteArray();
+    }
+
+    private static void copy(DataInputStream in, DataOutputStream out, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        out.write(bytes);
+    }
+
+    /**
+     * Calls a method of the runtime meter, {@code Gas.begin(long)} or {@code Gas.used()}.
+     */
+    private static Object gas(String name, Object... args) {
+        try {
+            Class<?>[] types = args.length == 0 ? new Class<?>[0] : new Class<?>[] {long.class};
+            Method method = Class.forName("java.lang.contract.Gas").getDeclaredMethod(name, types);
+            method.setAccessible(true);
+            return method.invoke(null, args);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot call Gas." + name, e);
+        }
+    }
+
+    private static boolean outOfGas(Message msg) {
+        return !msg.getSuccess() && msg.getOutput() != null && new String(msg.getOutput()).contains("out of gas");
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                                 TESTS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static void testLoopStopped() {
+        // a loop without calls is stopped by the check of its backward branch
+        Object result = run(MeteringProbeLoop.class, 1000, 10000000);
+        check(result == null, "loop should run out of gas, returned " + result);
+        check(Meter.used > 1000 && Meter.used < 1100,
+              "loop should stop at the first iteration over the budget, used " + Meter.used);
+    }
+
+    private static void testCallStopped() {
+        // the first block of run() is over the budget, the call to target() is not made
+        Object result = run(MeteringProbeCall.class, 0, 0);
+        check(result == null, "call should run out of gas, returned " + result);
+        check(reached(MeteringProbeCall.class) == 0, "target called over the budget");
+    }
+
+    private static void testRecursionStopped() {
+        // a chain of calls stops at a call boundary well before the stack overflows
+        try {
+            Object result = run(MeteringProbeRecursion.class, 10000, Integer.MAX_VALUE);
+            check(result == null, "recursion should run out of gas, returned " + result);
+            check(Meter.used > 10000 && Meter.used < 10100,
+                  "recursion should stop at the first call over the budget, used " + Meter.used);
+        } catch (StackOverflowError e) {
+            check(false, "recursion overflowed the stack before running out of gas");
+        }
+    }
+
+    private static void testUnlimited() {
+        Object small = run(MeteringProbeLoop.class, Long.MAX_VALUE, 10);
+        long smallUsed = Meter.used;
+        Object large = run(MeteringProbeLoop.class, Long.MAX_VALUE, 100);
+        check(Long.valueOf(45).equals(small) && Long.valueOf(4950).equals(large), "loop results mismatch");
+        check(smallUsed > 0 && Meter.used > 5 * smallUsed, "loop gas should grow with the iterations");
+
+        check(Integer.valueOf(1).equals(run(MeteringProbeCall.class, Long.MAX_VALUE, 0))
+              && reached(MeteringProbeCall.class) == 1, "call within the budget should reach its target");
+    }
+
+    private static void testStorageOutOfGas() {
+        MemoryHost host = new MemoryHost();
+        ContractHost contracts = new ContractHost(1);
+        Storage.setHost(host);
+        try {
+            setBalance(host, 0, 50);
+            int seeded = host.writes();
+
+            // a storage read costs more than the whole budget
+            Message msg = contracts.call(TOKEN, context(0, input("balanceOf(address)", holder(0)), 100));
+            check(outOfGas(msg), "balanceOf with 100 gas should run out of gas");
+            // a message without gas has no budget, unless the limit is lifted
+            msg = contracts.call(TOKEN, context(0, input("balanceOf(address)", holder(0)), 0));
+            check(outOfGas(msg), "balanceOf with 0 gas should run out of gas");
+            msg = contracts.call(TOKEN, context(0, input("balanceOf(address)", holder(0))));
+            check(outOfGas(msg), "balanceOf without gas should run out of gas");
+            Gas.setUnlimited(true);
+            try {
+                msg = contracts.call(TOKEN, context(0, input("balanceOf(address)", holder(0)), 0));
+                check(msg.getSuccess(), "balanceOf without a gas limit should succeed");
+            } finally {
+                Gas.setUnlimited(false);
+            }
+
+            // enough for the reads of a transfer, not for its first write
+            msg = contracts.call(TOKEN, context(0, input("transfer(address,uint256)", holder(1), 10L), 2000));
+            check(outOfGas(msg), "transfer with 2000 gas should run out of gas");
+            check(host.writes() == seeded, "transfer out of gas wrote to storage");
+
+            msg = contracts.call(TOKEN, context(0, input("transfer(address,uint256)", holder(1), 10L), 100000));
+            check(msg.getSuccess(), "transfer with 100000 gas should succeed");
+        } finally {
+            contracts.shutdown();
+            Storage.setHost(null);
+        }
+    }
+
+    private static void testArrayOperationsCharged() {
+        uint256Array values = new uint256Array(1000);
+        try {
+            gas("begin", Long.MAX_VALUE);
+            values.add(values);
+            check((Long) gas("used") == 1000L * Gas.ARRAY_VALUE, "add should charge per value, used " + gas("used"));
+
+            gas("begin", Long.MAX_VALUE);
+            values.mulDiv(new uint256(3), uint256Array.WAD);
+            check((Long) gas("used") == 1000L * Gas.ARRAY_MUL_DIV, "mulDiv should charge per value, used " + gas("used"));
+
+            // the whole cost is charged before the operation runs
+            gas("begin", 1000L);
+            try {
+                values.sum();
+                check(false, "sum of 1000 values with 1000 gas should run out of gas");
+            } catch (Revert e) {
+                check(e == Revert.OUT_OF_GAS, "sum should run out of gas, got " + e);
+            }
+        } finally {
+            gas("begin", Long.MAX_VALUE);
+        }
+    }
+}
+
+/* -------------------------------------------------------------------------- */
+/*            PROBES, top-level so that they are loaded on their own          */
+/* -------------------------------------------------------------------------- */
+
+class MeteringProbeLoop {
+    public static long run(int n) {
+        long sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += i;
+        }
+        return sum;
+    }
+}
+
+class MeteringProbeCall {
+    public static int reached;
+
+    public static int run(int n) {
+        target();
+        return reached;
+    }
+
+    static void target() {
+        reached++;
+    }
+}
+
+class MeteringProbeRecursion {
+    public static int run(int n) {
+        return n == 0 ? 0 : 1 + run(n - 1);
+    }
+}
@@ -36,7 +36,7 @@ public class TestMoreUint256 {
     // ------------------------------
     // BASIC CONSTANTS
     // ------------------------------
-    private static final int maxWidth     = uint256.MAX_WIDTH;  // e.g. 8 for 256 bits
+    private static final int maxWidth     = uint256.ZERO.getMaxWidth(); // e.g. 8 for 256 bits
     private static final uint256 zero     = uint256.ZERO;
     private static final uint256 max      = uint256.MAX_VALUE;
     private static final uint256 one      = uint256.ONE;
@@ -0,0 +1,151 @@
+package java.lang;
+
+import java.lang.contract.ContractHost;
+import java.lang.contract.Gas;
+import java.lang.contract.MemoryHost;
+import java.lang.contract.Message;
+import java.lang.contract.Storage;
+import java.lang.rlp.RlpDecoder;
+import java.lang.rlp.RlpList;
+import java.lang.rlp.RlpString;
+import java.lang.rlp.RlpType;
+import java.math.BigInteger;
+import java.util.List;
+
+import static java.lang.ContractCalls.TOKEN;
+import static java.lang.ContractCalls.allowance;
+import static java.lang.ContractCalls.amount;
+import static java.lang.ContractCalls.balance;
+import static java.lang.ContractCalls.context;
+import static java.lang.ContractCalls.holder;
+import static java.lang.ContractCalls.input;
+import static java.lang.ContractCalls.multicall;
+import static java.lang.ContractCalls.setAllowance;
+import static java.lang.ContractCalls.setBalance;
+
+/**
+ * A self-contained test class for multicalls without using JUnit.
+ * It prints "OK" if a check passes, or prints the failure message if it fails.
+ * At the end, it summarizes pass/fail counts and exits with code 1 if any failed.
+ *
+ * A spender runs a multicall of MyToken transferFrom calls against an in-memory
+ * storage host. transferFrom spends the allowance before it checks the balance, so
+ * a transfer over the balance writes the allowance, in storage and in the cache of
+ * the contract instance, before it fails: the write must be rolled back and the
+ * instance reloaded for the next calls of the multicall and the next calls to the
+ * pooled instance.
+ */
+public class TestMulticall {
+
+    private static final int OWNER = 0;
+    private static final int SPENDER = 1;
+
+    // Track how many checks pass/fail
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        MemoryHost host = new MemoryHost();
+        ContractHost contracts = new ContractHost(1);
+        Storage.setHost(host);
+        Gas.setUnlimited(true);
+        try {
+            testFailedCallRolledBack(host, contracts);
+            testLaterCallsSeeCommittedState(host, contracts);
+        } finally {
+            contracts.shutdown();
+            Storage.setHost(null);
+            Gas.setUnlimited(false);
+        }
+
+        System.out.println("All tests are executed!");
+
+        // Print summary
+        System.out.println("===== Test Summary =====");
+        System.out.println("Pass:  " + passCount);
+        System.out.println("Fail:  " + failCount);
+        System.out.println("Total: " + (passCount + failCount));
+
+        // Exit with code 1 if any checks failed
+        if (failCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("OK");
+            passCount++;
+        } else {
+            System.out.println(message);
+            failCount++;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                               HELPERS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static BigInteger view(ContractHost contracts, byte[] input) {
+        Message msg = contracts.call(TOKEN, context(SPENDER, input));
+        return msg.getSuccess() ? amount(msg.getOutput()) : null;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                                 TESTS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static void testFailedCallRolledBack(MemoryHost host, ContractHost contracts) {
+        // the owner holds 50 and allows the spender 100
+        setBalance(host, OWNER, 50);
+        setAllowance(host, OWNER, SPENDER, 100);
+
+        String transferFrom = "transferFrom(address,address,uint256)";
+        Message msg = contracts.call(TOKEN, context(SPENDER, multicall(
+            input(transferFrom, holder(OWNER), holder(2), 30L),
+            input(transferFrom, holder(OWNER), holder(3), 40L), // over the balance left
+            input("allowance(address,address)", holder(OWNER), holder(SPENDER)),
+            input(transferFrom, holder(OWNER), holder(3), 20L))));
+        check(msg.getSuccess(), "multicall failed");
+
+        List<RlpType> results = ((RlpList) RlpDecoder.decode(msg.getOutput()).getValues().get(0)).getValues();
+        boolean[] expected = {true, false, true, true};
+        boolean successes = results.size() == expected.length;
+        for (int i = 0; i < expected.length && successes; i++) {
+            RlpString success = (RlpString) ((RlpList) results.get(i)).getValues().get(0);
+            successes = (success.asPositiveBigInteger().signum() != 0) == expected[i];
+        }
+        check(successes, "expected only the second call of the multicall to fail");
+        if (results.size() > 2) {
+            byte[] allowance = ((RlpString) ((RlpList) results.get(2)).getValues().get(1)).getBytes();
+            check(BigInteger.valueOf(70).equals(amount(allowance)),
+                  "allowance spent by the failed call seen by the next one: " + amount(allowance));
+        }
+
+        check(BigInteger.valueOf(50).equals(allowance(host, OWNER, SPENDER)), "allowance in storage: " + allowance(host, OWNER, SPENDER));
+        check(balance(host, OWNER).signum() == 0 && BigInteger.valueOf(30).equals(balance(host, 2))
+              && BigInteger.valueOf(20).equals(balance(host, 3)), "balances in storage mismatch");
+
+        List<RlpType> events = ((RlpList) RlpDecoder.decode(msg.getLogs()).getValues().get(0)).getValues();
+        check(events.size() == 2, "expected the 2 Transfer events of the successful calls, got " + events.size());
+    }
+
+    private static void testLaterCallsSeeCommittedState(MemoryHost host, ContractHost contracts) {
+        BigInteger allowance = view(contracts, input("allowance(address,address)", holder(OWNER), holder(SPENDER)));
+        check(BigInteger.valueOf(50).equals(allowance), "allowance read by the next call: " + allowance);
+        BigInteger balance = view(contracts, input("balanceOf(address)", holder(3)));
+        check(BigInteger.valueOf(20).equals(balance), "balance read by the next call: " + balance);
+
+        // a multicall ending with a failed call, its write must not be committed
+        Message msg = contracts.call(TOKEN, context(SPENDER, multicall(
+            input("transferFrom(address,address,uint256)", holder(OWNER), holder(2), 10L))));
+        List<RlpType> results = ((RlpList) RlpDecoder.decode(msg.getOutput()).getValues().get(0)).getValues();
+        RlpString success = (RlpString) ((RlpList) results.get(0)).getValues().get(0);
+        check(msg.getSuccess() && success.asPositiveBigInteger().signum() == 0,
+              "transferFrom over the balance should fail inside the multicall");
+        check(BigInteger.valueOf(50).equals(allowance(host, OWNER, SPENDER)), "allowance in storage after the last call failed: "
+              + allowance(host, OWNER, SPENDER));
+        allowance = view(contracts, input("allowance(address,address)", holder(OWNER), holder(SPENDER)));
+        check(BigInteger.valueOf(50).equals(allowance), "allowance after a failed call: " + allowance);
+    }
+}
@@ -0,0 +1,122 @@
+package java.lang;
+
+import java.crypto.Keccak256;
+import java.lang.contract.CustomError;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * A self-contained test class for the typed fields of custom errors and events
+ * without using JUnit.
+ * It prints "OK" if a check passes, or prints the failure message if it fails.
+ * At the end, it summarizes pass/fail counts and exits with code 1 if any failed.
+ *
+ * The fields are declared out of alphabetical order and spread over a class
+ * hierarchy: the signature must list those of the superclass first, each class in
+ * declaration order, and skip static and non-public fields.
+ */
+public class TestTypedFields {
+
+    // Track how many checks pass/fail
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        testHierarchyOrder();
+        testDeclarationOrder();
+
+        System.out.println("All tests are executed!");
+
+        // Print summary
+        System.out.println("===== Test Summary =====");
+        System.out.println("Pass:  " + passCount);
+        System.out.println("Fail:  " + failCount);
+        System.out.println("Total: " + (passCount + failCount));
+
+        // Exit with code 1 if any checks failed
+        if (failCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("OK");
+            passCount++;
+        } else {
+            System.out.println(message);
+            failCount++;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                               HELPERS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static byte[] selector(String signature) {
+        return Arrays.copyOf(Keccak256.getKeccak256().keccak256(signature.getBytes()), 4);
+    }
+
+    public static class BaseError extends CustomError {
+        public final uint256 zeta;
+        public final address alpha;
+
+        public BaseError(uint256 zeta, address alpha) {
+            this.zeta = zeta;
+            this.alpha = alpha;
+        }
+    }
+
+    public static class DerivedError extends BaseError {
+        public static final uint256 IGNORED = new uint256(9);
+        private final uint256 hidden = new uint256(8);
+        public final bool middle;
+
+        public DerivedError(uint256 zeta, address alpha, bool middle) {
+            super(zeta, alpha);
+            this.middle = middle;
+        }
+    }
+
+    public static class ManyFieldsError extends CustomError {
+        public final uint256 f;
+        public final address e;
+        public final uint256 d;
+        public final bool c;
+        public final address b;
+        public final uint256 a;
+
+        public ManyFieldsError() {
+            f = new uint256(6);
+            e = address.ZERO_ADDRESS;
+            d = new uint256(4);
+            c = bool.valueOf(true);
+            b = address.ZERO_ADDRESS;
+            a = new uint256(1);
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                                 TESTS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static void testHierarchyOrder() {
+        uint256 zeta = new uint256(5);
+        address alpha = new address(BigInteger.valueOf(0x1234));
+        bool middle = bool.valueOf(true);
+        DerivedError error = new DerivedError(zeta, alpha, middle);
+
+        String expected = "DerivedError(" + zeta + ", " + alpha + ", " + middle + ")";
+        check(expected.equals(error.getMessage()), "fields of the superclass first, got " + error.getMessage());
+        check(Arrays.equals(selector("DerivedError(uint256,address,bool)"), error.getSelector()),
+              "selector of DerivedError(uint256,address,bool) mismatch");
+        check(Arrays.equals(selector("BaseError(uint256,address)"), new BaseError(zeta, alpha).getSelector()),
+              "selector of BaseError(uint256,address) mismatch");
+    }
+
+    private static void testDeclarationOrder() {
+        check(Arrays.equals(selector("ManyFieldsError(uint256,address,uint256,bool,address,uint256)"),
+                            new ManyFieldsError().getSelector()),
+              "fields of ManyFieldsError not in declaration order");
+    }
+}
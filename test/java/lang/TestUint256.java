@@ -21,6 +21,8 @@ public class TestUint256 {
         testAdd();
         testSubtract();
         testMultiply();
+        testMulDiv();
+        testCheckedSaturating();
         testDivMod();
         testBitwiseOps();
         testShifts();
@@ -173,6 +175,118 @@ public class TestUint256 {
         check(mul.toBigInteger().equals(product), "2^200 * 2^100 => 2^300 mod 2^256 => 2^44");
     }
 
+    /**
+     * Test the checked operations, which revert out of range, and the saturating ones.
+     */
+    private static void testCheckedSaturating() {
+        uint256 max   = uint256.MAX_VALUE;
+        uint256 two   = uint256.TWO;
+        uint256 three = new uint256(3L);
+
+        check(two.addChecked(three).toBigInteger().equals(BigInteger.valueOf(5)), "2 + 3 checked => 5");
+        check(three.subChecked(two).equals(uint256.ONE), "3 - 2 checked => 1");
+        check(three.subChecked(three).isZero(), "3 - 3 checked => 0");
+        check(two.mulChecked(three).toBigInteger().equals(BigInteger.valueOf(6)), "2 * 3 checked => 6");
+        check(max.subChecked(uint256.ONE).add(uint256.ONE).equals(max), "MAX - 1 checked + 1 => MAX");
+        check(max.shiftRight(1).mulChecked(two).equals(max.dec()), "(MAX >> 1) * 2 checked => MAX - 1");
+
+        try {
+            max.addChecked(uint256.ONE);
+            check(false, "MAX + 1 checked should revert");
+        } catch (Revert e) {
+            check(e == Revert.ARITHMETIC_OVERFLOW, "MAX + 1 checked reverts with ARITHMETIC_OVERFLOW");
+        }
+        try {
+            two.subChecked(three);
+            check(false, "2 - 3 checked should revert");
+        } catch (Revert e) {
+            check(e == Revert.ARITHMETIC_OVERFLOW, "2 - 3 checked reverts with ARITHMETIC_OVERFLOW");
+        }
+        try {
+            max.shiftRight(1).add(uint256.ONE).mulChecked(two);
+            check(false, "2^255 * 2 checked should revert");
+        } catch (Revert e) {
+            check(e == Revert.ARITHMETIC_OVERFLOW, "2^255 * 2 checked reverts with ARITHMETIC_OVERFLOW");
+        }
+
+        check(two.trySub(three) == null, "2 - 3 try => null");
+        check(max.tryAdd(uint256.ONE) == null, "MAX + 1 try => null");
+        check(max.tryMul(two) == null, "MAX * 2 try => null");
+        check(three.trySub(two).equals(uint256.ONE), "3 - 2 try => 1");
+        check(two.tryAdd(three).toBigInteger().equals(BigInteger.valueOf(5)), "2 + 3 try => 5");
+
+        check(max.addSaturating(three).equals(max), "MAX + 3 saturating => MAX");
+        check(two.subSaturating(three).isZero(), "2 - 3 saturating => 0");
+        check(max.mulSaturating(two).equals(max), "MAX * 2 saturating => MAX");
+        check(two.addSaturating(three).toBigInteger().equals(BigInteger.valueOf(5)), "2 + 3 saturating => 5");
+
+        // narrower types check against their own range
+        uint8 u200 = new uint8(200L);
+        check(u200.addSaturating(new uint8(100L)).equals(uint8.MAX_VALUE), "uint8 200 + 100 saturating => 255");
+        check(u200.addChecked(new uint8(55L)).equals(uint8.MAX_VALUE), "uint8 200 + 55 checked => 255");
+        try {
+            u200.mulChecked(new uint8(2L));
+            check(false, "uint8 200 * 2 checked should revert");
+        } catch (Revert e) {
+            check(true, "");
+        }
+    }
+
+    /**
+     * Test mulDiv, mulDivRoundingUp: the product is not truncated.
+     */
+    private static void testMulDiv() {
+        uint256 wad     = new uint256(1000000000000000000L);
+        uint256 balance = new uint256(new BigInteger("123456789012345678901234567890"));
+        uint256 rate    = new uint256(new BigInteger("500000000000000000"));
+        check(balance.mulDiv(rate, wad).toBigInteger().equals(new BigInteger("61728394506172839450617283945")),
+            "balance * 0.5e18 / 1e18 => balance / 2");
+        check(balance.mulDivRoundingUp(rate, wad).toBigInteger().equals(new BigInteger("61728394506172839450617283945")),
+            "exact quotient is not rounded up");
+
+        uint256 seven = new uint256(7L);
+        uint256 three = new uint256(3L);
+        check(seven.mulDiv(uint256.ONE, three).toBigInteger().equals(BigInteger.valueOf(2)), "7 * 1 / 3 => 2");
+        check(seven.mulDivRoundingUp(uint256.ONE, three).toBigInteger().equals(BigInteger.valueOf(3)), "7 * 1 / 3 up => 3");
+
+        // the product of MAX_VALUE * MAX_VALUE needs 512 bits
+        uint256 max = uint256.MAX_VALUE;
+        check(max.mulDiv(max, max).equals(max), "MAX * MAX / MAX => MAX");
+        uint256 half = max.shiftRight(1);
+        BigInteger expected = max.toBigInteger().multiply(half.toBigInteger()).divide(max.toBigInteger().subtract(BigInteger.ONE));
+        check(max.mulDiv(half, max.dec()).toBigInteger().equals(expected), "MAX * (MAX >> 1) / (MAX - 1) matches BigInteger");
+
+        try {
+            max.mulDiv(max, max.dec());
+            check(false, "MAX * MAX / (MAX - 1) should overflow");
+        } catch (ArithmeticException e) {
+            check(true, "");
+        }
+        try {
+            max.mulDivRoundingUp(half.add(uint256.ONE), half.add(uint256.ONE));
+            check(true, "");
+        } catch (ArithmeticException e) {
+            check(false, "MAX * x / x up should not overflow");
+        }
+        try {
+            seven.mulDiv(three, uint256.ZERO);
+            check(false, "mulDiv by zero should throw");
+        } catch (ArithmeticException e) {
+            check(true, "");
+        }
+        check(uint256.ZERO.mulDiv(max, seven).isZero(), "0 * MAX / 7 => 0");
+
+        // narrower types throw when the quotient does not fit them
+        uint8 big = new uint8(200L);
+        check(big.mulDiv(new uint8(200L), new uint8(250L)).longValue() == 160L, "uint8 200 * 200 / 250 => 160");
+        try {
+            big.mulDiv(new uint8(200L), new uint8(100L));
+            check(false, "uint8 200 * 200 / 100 should overflow");
+        } catch (ArithmeticException e) {
+            check(true, "");
+        }
+    }
+
     /**
      * Test divide, mod, divmod.
      */
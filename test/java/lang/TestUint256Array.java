@@ -0,0 +1,304 @@
+package java.lang;
+
+import java.lang.contract.MemoryHost;
+import java.lang.contract.Storage;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * A self-contained test class for uint256Array.java without using JUnit.
+ * It prints "OK" if a check passes, or prints the failure message if it fails.
+ * At the end, it summarizes pass/fail counts and exits with code 1 if any failed.
+ *
+ * The bulk operations are checked value by value against BigInteger.
+ */
+public class TestUint256Array {
+
+    private static final BigInteger MOD = BigInteger.ONE.shiftLeft(256);
+    private static final BigInteger MAX = MOD.subtract(BigInteger.ONE);
+
+    // Track how many checks pass/fail
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        testGetSet();
+        testAdd();
+        testMulDiv();
+        testMulDivErrors();
+        testSumMinMax();
+        testCompare();
+        testBitwise();
+        testMapping();
+
+        System.out.println("All tests are executed!");
+
+        // Print summary
+        System.out.println("===== Test Summary =====");
+        System.out.println("Pass:  " + passCount);
+        System.out.println("Fail:  " + failCount);
+        System.out.println("Total: " + (passCount + failCount));
+
+        // Exit with code 1 if any checks failed
+        if (failCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("OK");
+            passCount++;
+        } else {
+            System.out.println(message);
+            failCount++;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                               HELPERS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    /**
+     * Returns values of every size, with the edges: 0, 1, 2^k - 1 and MAX.
+     */
+    private static BigInteger[] values(Random random, int count) {
+        BigInteger[] values = new BigInteger[count];
+        for (int i = 0; i < count; i++) {
+            switch (i % 5) {
+                case 0:
+                    values[i] = BigInteger.valueOf(i % 3);
+                    break;
+                case 1:
+                    values[i] = BigInteger.ONE.shiftLeft(1 + random.nextInt(256)).subtract(BigInteger.ONE);
+                    break;
+                default:
+                    values[i] = new BigInteger(1 + random.nextInt(256), random);
+            }
+        }
+        values[count - 1] = MAX;
+        return values;
+    }
+
+    private static uint256Array array(BigInteger[] values) {
+        uint256Array array = new uint256Array(values.length);
+        for (int i = 0; i < values.length; i++) {
+            array.set(i, new uint256(values[i]));
+        }
+        return array;
+    }
+
+    private static boolean equals(uint256Array array, BigInteger[] expected) {
+        if (array.length() != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (!array.get(i).toBigInteger().equals(expected[i])) {
+                System.out.println("at " + i + ": " + array.get(i) + ", expected " + expected[i]);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                            TEST METHODS                                */
+    /* ---------------------------------------------------------------------- */
+
+    private static void testGetSet() {
+        BigInteger[] values = values(new Random(1), 50);
+        uint256Array array = array(values);
+        check(array.length() == 50, "length should be 50");
+        check(equals(array, values), "get should return the values set");
+        check(uint256Array.of(array.toArray()).get(49).equals(uint256.MAX_VALUE), "toArray/of round trip");
+        check(new uint256Array(3).get(2).isZero(), "new array should be zeros");
+        try {
+            array.get(50);
+            check(false, "get(length) should throw");
+        } catch (ArrayIndexOutOfBoundsException e) {
+            check(true, "");
+        }
+    }
+
+    private static void testAdd() {
+        Random random = new Random(2);
+        BigInteger[] a = values(random, 100);
+        BigInteger[] b = values(random, 100);
+        BigInteger[] sums = new BigInteger[a.length];
+        BigInteger[] plusOne = new BigInteger[a.length];
+        for (int i = 0; i < a.length; i++) {
+            sums[i] = a[i].add(b[i]).mod(MOD);
+            plusOne[i] = a[i].add(BigInteger.ONE).mod(MOD);
+        }
+        check(equals(array(a).add(array(b)), sums), "add should wrap modulo 2^256");
+        check(equals(array(a).add(uint256.ONE), plusOne), "add(value) should wrap modulo 2^256");
+        try {
+            array(a).add(new uint256Array(3));
+            check(false, "add of different lengths should throw");
+        } catch (IllegalArgumentException e) {
+            check(true, "");
+        }
+    }
+
+    private static void testMulDiv() {
+        Random random = new Random(3);
+        BigInteger[] a = values(random, 200);
+        for (int round = 0; round < 40; round++) {
+            BigInteger mul = round == 0 ? MAX : new BigInteger(1 + random.nextInt(256), random);
+            BigInteger div = round == 0 ? MAX : new BigInteger(1 + random.nextInt(256), random).max(BigInteger.ONE);
+            if (round % 4 == 1) {
+                div = BigInteger.valueOf(1 + random.nextInt(1000));
+            }
+            // the values whose results fit, and one whose result does not
+            List<BigInteger> fit = new ArrayList<>();
+            List<BigInteger> down = new ArrayList<>();
+            List<BigInteger> up = new ArrayList<>();
+            BigInteger overflows = null;
+            for (BigInteger value : a) {
+                BigInteger[] qr = value.multiply(mul).divideAndRemainder(div);
+                BigInteger roundedUp = qr[1].signum() == 0 ? qr[0] : qr[0].add(BigInteger.ONE);
+                if (roundedUp.compareTo(MAX) <= 0) {
+                    fit.add(value);
+                    down.add(qr[0]);
+                    up.add(roundedUp);
+                } else {
+                    overflows = value;
+                }
+            }
+            BigInteger[] values = fit.toArray(new BigInteger[0]);
+            check(equals(array(values).mulDiv(new uint256(mul), new uint256(div)), down.toArray(new BigInteger[0]))
+                  && equals(array(values).mulDivRoundingUp(new uint256(mul), new uint256(div)),
+                            up.toArray(new BigInteger[0])),
+                  "mulDiv mismatch for mul " + mul + " div " + div);
+            if (overflows != null) {
+                try {
+                    array(new BigInteger[] {overflows}).mulDivRoundingUp(new uint256(mul), new uint256(div));
+                    check(false, "mulDiv should overflow for " + overflows + " mul " + mul + " div " + div);
+                } catch (ArithmeticException e) {
+                    check(true, "");
+                }
+            }
+        }
+
+        // a balance times a rate over WAD, the product overflowing 256 bits
+        uint256 balance = new uint256(MAX.shiftRight(10));
+        uint256 rate = new uint256(BigInteger.TEN.pow(18).multiply(BigInteger.valueOf(3)).divide(BigInteger.valueOf(4)));
+        BigInteger expected = MAX.shiftRight(10).multiply(rate.toBigInteger()).divide(BigInteger.TEN.pow(18));
+        check(uint256Array.of(balance).mulDiv(rate, uint256Array.WAD).get(0).toBigInteger().equals(expected),
+              "mulDiv should keep the 512-bit product");
+    }
+
+    private static void testMulDivErrors() {
+        uint256Array array = uint256Array.of(uint256.MAX_VALUE);
+        try {
+            array.mulDiv(uint256.ONE, uint256.ZERO);
+            check(false, "mulDiv by zero should throw");
+        } catch (ArithmeticException e) {
+            check(true, "");
+        }
+        try {
+            array.mulDiv(uint256.TWO, uint256.ONE);
+            check(false, "mulDiv overflow should throw");
+        } catch (ArithmeticException e) {
+            check(true, "");
+        }
+        try {
+            // MAX * MAX / (MAX - 1) is MAX + 1 and a bit
+            array.mulDiv(uint256.MAX_VALUE, new uint256(MAX.subtract(BigInteger.ONE)));
+            check(false, "mulDiv overflow should throw");
+        } catch (ArithmeticException e) {
+            check(true, "");
+        }
+        check(array.mulDivRoundingUp(uint256.MAX_VALUE, uint256.MAX_VALUE).get(0).equals(uint256.MAX_VALUE),
+              "MAX * MAX / MAX rounded up should be MAX");
+    }
+
+    private static void testSumMinMax() {
+        BigInteger[] values = values(new Random(4), 64);
+        BigInteger sum = BigInteger.ZERO;
+        BigInteger min = values[0];
+        BigInteger max = values[0];
+        for (BigInteger value : values) {
+            sum = sum.add(value);
+            min = min.min(value);
+            max = max.max(value);
+        }
+        uint256Array array = array(values);
+        check(array.sum().toBigInteger().equals(sum.mod(MOD)), "sum should wrap modulo 2^256");
+        check(array.min().toBigInteger().equals(min), "min mismatch");
+        check(array.max().toBigInteger().equals(max), "max mismatch");
+        check(new uint256Array(0).sum().isZero(), "sum of nothing should be 0");
+        try {
+            new uint256Array(0).max();
+            check(false, "max of nothing should throw");
+        } catch (NoSuchElementException e) {
+            check(true, "");
+        }
+    }
+
+    private static void testCompare() {
+        Random random = new Random(5);
+        BigInteger[] a = values(random, 100);
+        BigInteger[] b = values(random, 100);
+        b[3] = a[3];
+        int[] signs = array(a).compare(array(b));
+        boolean same = true;
+        for (int i = 0; i < a.length; i++) {
+            same &= signs[i] == a[i].compareTo(b[i]);
+        }
+        check(same, "compare should match BigInteger.compareTo");
+    }
+
+    private static void testBitwise() {
+        Random random = new Random(6);
+        BigInteger[] a = values(random, 100);
+        BigInteger[] b = values(random, 100);
+        BigInteger mask = BigInteger.ONE.shiftLeft(160).subtract(BigInteger.ONE).shiftLeft(40);
+        BigInteger[] and = new BigInteger[a.length];
+        BigInteger[] or = new BigInteger[a.length];
+        BigInteger[] xor = new BigInteger[a.length];
+        BigInteger[] not = new BigInteger[a.length];
+        BigInteger[] masked = new BigInteger[a.length];
+        for (int i = 0; i < a.length; i++) {
+            and[i] = a[i].and(b[i]);
+            or[i] = a[i].or(b[i]);
+            xor[i] = a[i].xor(b[i]);
+            not[i] = a[i].xor(MAX);
+            masked[i] = a[i].and(mask);
+        }
+        check(equals(array(a).and(array(b)), and), "and mismatch");
+        check(equals(array(a).or(array(b)), or), "or mismatch");
+        check(equals(array(a).xor(array(b)), xor), "xor mismatch");
+        check(equals(array(a).not(), not), "not mismatch");
+        check(equals(array(a).and(new uint256(mask)), masked), "and(mask) mismatch");
+    }
+
+    private static void testMapping() {
+        Storage.setHost(new MemoryHost());
+        try {
+            mapping<address, uint256> balances = mapping.of(address.class, uint256.class);
+            balances.setSlot(1);
+            address[] holders = new address[20];
+            BigInteger[] values = values(new Random(7), holders.length);
+            for (int i = 0; i < holders.length; i++) {
+                holders[i] = new address(BigInteger.valueOf(0x1000 + i));
+                balances.set(new uint256(values[i]), holders[i]);
+            }
+            check(equals(uint256Array.get(balances, holders), values), "get(mapping) mismatch");
+
+            uint256Array doubled = uint256Array.get(balances, holders).add(uint256Array.get(balances, holders));
+            doubled.set(balances, holders);
+            balances.clearCache();
+            boolean same = true;
+            for (int i = 0; i < holders.length; i++) {
+                same &= balances.get(holders[i]).toBigInteger().equals(values[i].shiftLeft(1).mod(MOD));
+            }
+            check(same, "set(mapping) mismatch");
+        } finally {
+            Storage.setHost(null);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package java.lang;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.contract.ContractHost;
+import java.lang.contract.Gas;
+import java.lang.contract.MemoryHost;
+import java.lang.contract.Storage;
+import java.lang.rlp.RlpDecoder;
+import java.lang.rlp.RlpEncoder;
+import java.lang.rlp.RlpList;
+import java.lang.rlp.RlpString;
+import java.lang.rlp.RlpType;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.ContractCalls.TOKEN;
+import static java.lang.ContractCalls.balance;
+import static java.lang.ContractCalls.context;
+import static java.lang.ContractCalls.holder;
+import static java.lang.ContractCalls.input;
+import static java.lang.ContractCalls.multicall;
+import static java.lang.ContractCalls.setAllowance;
+import static java.lang.ContractCalls.setBalance;
+
+/**
+ * A self-contained test class for batches of view calls without using JUnit.
+ * It prints "OK" if a check passes, or prints the failure message if it fails.
+ * At the end, it summarizes pass/fail counts and exits with code 1 if any failed.
+ *
+ * A batch of MyToken calls runs in parallel against an in-memory storage host.
+ * The views of the batch return the balances and allowance in storage, while a
+ * transfer, a multicall and a call to an unknown class fail without writing.
+ * Served as frames, a batch or a block that does not decode fails on its own and
+ * the host answers the frames after it.
+ */
+public class TestViewBatch {
+
+    private static final int OWNER = 0;
+    private static final int SPENDER = 1;
+
+    // Track how many checks pass/fail
+    private static int passCount = 0;
+    private static int failCount = 0;
+
+    public static void main(String[] args) {
+        MemoryHost host = new MemoryHost();
+        ContractHost contracts = new ContractHost(4);
+        Storage.setHost(host);
+        Gas.setUnlimited(true);
+        try {
+            testNonViewRejected(host, contracts);
+            testViewsAfterRejection(contracts);
+            testMalformedFrames(contracts);
+        } finally {
+            contracts.shutdown();
+            Storage.setHost(null);
+            Gas.setUnlimited(false);
+        }
+
+        System.out.println("All tests are executed!");
+
+        // Print summary
+        System.out.println("===== Test Summary =====");
+        System.out.println("Pass:  " + passCount);
+        System.out.println("Fail:  " + failCount);
+        System.out.println("Total: " + (passCount + failCount));
+
+        // Exit with code 1 if any checks failed
+        if (failCount > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (condition) {
+            System.out.println("OK");
+            passCount++;
+        } else {
+            System.out.println(message);
+            failCount++;
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                               HELPERS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static RlpList call(String contract, int sender, byte[] input) {
+        return new RlpList(RlpString.create(contract.getBytes()), RlpString.create(context(sender, input)));
+    }
+
+    /**
+     * Runs a batch of views and returns the [success, output] list of each call.
+     */
+    private static List<RlpType> views(ContractHost contracts, RlpList... calls) {
+        byte[] output = contracts.callViews(RlpEncoder.encode(new RlpList(Arrays.<RlpType>asList(calls))));
+        return ((RlpList) RlpDecoder.decode(output).getValues().get(0)).getValues();
+    }
+
+    private static boolean success(RlpType result) {
+        RlpString success = (RlpString) ((RlpList) result).getValues().get(0);
+        return success.asPositiveBigInteger().signum() != 0;
+    }
+
+    private static BigInteger amount(RlpType result) {
+        return ContractCalls.amount(((RlpString) ((RlpList) result).getValues().get(1)).getBytes());
+    }
+
+    // A frame of the host: u32 length, then the payload
+    private static void frame(DataOutputStream out, int kind, byte[] calls) throws IOException {
+        out.writeInt(1 + calls.length);
+        out.writeByte(kind);
+        out.write(calls);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /*                                 TESTS                                  */
+    /* ---------------------------------------------------------------------- */
+
+    private static void testNonViewRejected(MemoryHost host, ContractHost contracts) {
+        // the owner holds 50 and allows the spender 20
+        setBalance(host, OWNER, 50);
+        setAllowance(host, OWNER, SPENDER, 20);
+        int seeded = host.writes();
+
+        String transfer = "transfer(address,uint256)";
+        List<RlpType> results = views(contracts,
+            call(TOKEN, OWNER, input("balanceOf(address)", holder(OWNER))),
+            call(TOKEN, OWNER, input(transfer, holder(2), 10L)),
+            call(TOKEN, SPENDER, input("allowance(address,address)", holder(OWNER), holder(SPENDER))),
+            call(TOKEN, OWNER, multicall(input(transfer, holder(3), 10L))),
+            call("java.lang.contract.NoSuchToken", OWNER, input("balanceOf(address)", holder(OWNER))),
+            call(TOKEN, OWNER, input("balanceOf(address)", holder(2))));
+        check(results.size() == 6, "expected 6 results, got " + results.size());
+        if (results.size() != 6) {
+            return;
+        }
+
+        check(!success(results.get(1)), "transfer in a view batch should fail");
+        check(!success(results.get(3)), "multicall in a view batch should fail");
+        check(!success(results.get(4)), "call to an unknown class should fail");
+        check(host.writes() == seeded, "view batch wrote " + (host.writes() - seeded) + " values to storage");
+        check(BigInteger.valueOf(50).equals(balance(host, OWNER)) && balance(host, 2).signum() == 0
+              && balance(host, 3).signum() == 0, "balances in storage changed");
+
+        check(success(results.get(0)) && BigInteger.valueOf(50).equals(amount(results.get(0))),
+              "balanceOf the owner in the batch mismatch");
+        check(success(results.get(2)) && BigInteger.valueOf(20).equals(amount(results.get(2))),
+              "allowance in the batch mismatch");
+        check(success(results.get(5)) && amount(results.get(5)).signum() == 0,
+              "balanceOf the recipient in the batch mismatch");
+    }
+
+    private static void testViewsAfterRejection(ContractHost contracts) {
+        // the pooled instances the rejected calls did not run on serve the next batch
+        List<RlpType> results = views(contracts,
+            call(TOKEN, OWNER, input("balanceOf(address)", holder(OWNER))),
+            call(TOKEN, OWNER, input("balanceOf(address)", holder(2))));
+        check(results.size() == 2 && success(results.get(0)) && success(results.get(1)),
+              "views of the next batch failed");
+        if (results.size() == 2) {
+            check(BigInteger.valueOf(50).equals(amount(results.get(0))) && amount(results.get(1)).signum() == 0,
+                  "balances read by the next batch mismatch");
+        }
+    }
+
+    private static void testMalformedFrames(ContractHost contracts) {
+        byte[] batch = RlpEncoder.encode(new RlpList(Arrays.<RlpType>asList(
+            call(TOKEN, OWNER, input("balanceOf(address)", holder(OWNER))))));
+        // a list whose entry is a string, not a [contract, context] list
+        byte[] notCalls = RlpEncoder.encode(new RlpList(RlpString.create(new byte[] {1, 2, 3})));
+        try {
+            ByteArrayOutputStream requests = new ByteArrayOutputStream();
+            DataOutputStream frames = new DataOutputStream(requests);
+            frame(frames, 0, notCalls);
+            frame(frames, 1, new byte[] {(byte) 0xf8});
+            frame(frames, 0, batch);
+            frames.writeInt(0);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            boolean shutdown = contracts.serve(new ByteArrayInputStream(requests.toByteArray()), out);
+            check(shutdown, "host stopped before the shutdown frame");
+
+            DataInputStream responses = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+            for (String kind : new String[] {"batch", "block"}) {
+                int success = responses.readByte();
+                byte[] error = new byte[responses.readInt()];
+                responses.readFully(error);
+                check(success == 0 && error.length > 0, "malformed " + kind + " should fail with an error");
+            }
+            int success = responses.readByte();
+            byte[] output = new byte[responses.readInt()];
+            responses.readFully(output);
+            List<RlpType> results = ((RlpList) RlpDecoder.decode(output).getValues().get(0)).getValues();
+            check(success == 1 && results.size() == 1 && success(results.get(0))
+                  && BigInteger.valueOf(50).equals(amount(results.get(0))),
+                  "batch after the malformed frames mismatch");
+        } catch (IOException e) {
+            check(false, "serving frames failed: " + e);
+        }
+    }
+}
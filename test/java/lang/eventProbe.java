@@ -0,0 +1,43 @@
+package java.lang;
+
+import java.lang.contract.Contract;
+
+/**
+ * Contract run by {@link TestEventLog}, changing the events it emits and the
+ * storage field they refer to. Its classes are in lower case like the contract
+ * types, the only classes of java.lang a contract may refer to.
+ */
+public class eventProbe extends Contract {
+
+    public static class noted extends Event {
+        public dynamicBytes indexed_note;
+        public uint256 amount;
+
+        noted(dynamicBytes note, uint256 amount) {
+            this.indexed_note = note;
+            this.amount = amount;
+        }
+    }
+
+    // a storage field, never saved
+    private dynamicBytes note = new dynamicBytes();
+
+    public void emitChanged() {
+        noted event = new noted(dynamicBytes.valueOf(new byte[] {1}), new uint256(1));
+        emit(event);
+        event.indexed_note.fromByteArray(new byte[] {2});
+        event.amount = new uint256(2);
+        emit(event);
+        event.indexed_note.fromByteArray(new byte[] {3});
+        event.amount = new uint256(3);
+    }
+
+    public void noteUnsaved() {
+        note.fromByteArray(new byte[] {7});
+        emit(new noted(note, new uint256(7)));
+    }
+
+    public void fail() {
+        require(false, "failed");
+    }
+}
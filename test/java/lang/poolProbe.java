@@ -0,0 +1,32 @@
+package java.lang;
+
+import java.lang.contract.Contract;
+
+/**
+ * Contracts run by {@link TestContractPool}, counting their calls in fields that are
+ * not in storage. Their classes are in lower case like the contract types, the
+ * only classes of java.lang a contract may refer to.
+ */
+public class poolProbe extends Contract {
+
+    // an array the pool restores when it resets the instance
+    private final int[] calls = new int[1];
+
+    public uint256 count() {
+        calls[0]++;
+        return new uint256(calls[0]);
+    }
+
+    /**
+     * Counts its calls in a uint256Array, which the pool cannot restore.
+     */
+    public static class values extends Contract {
+
+        private final uint256Array calls = new uint256Array(1);
+
+        public uint256 count() {
+            calls.set(0, calls.get(0).add(new uint256(1)));
+            return calls.get(0);
+        }
+    }
+}